@@ -0,0 +1,36 @@
+package main.java.benchmark;
+
+import main.java.service.util.OrderWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Measures OrderWriter.checksum: hashing a written file of the given number of lines.
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class ChecksumBenchmark {
+
+    @Param({"1000", "1000000", "10000000"})
+    public int size;
+
+    private final OrderWriter orderWriter = new OrderWriter();
+
+    private String fileName;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        fileName = "checksum-" + size + ".txt";
+        OrderGenerator.generate(OrderGenerator.Kind.MIXED, size, OrderGenerator.SEED).writeTo(fileName);
+    }
+
+    @Benchmark
+    public String checksum() {
+        return orderWriter.checksum(fileName);
+    }
+}
@@ -0,0 +1,84 @@
+package main.java.benchmark;
+
+import main.java.model.OrderType;
+import main.java.service.feed.FeedConsumer;
+import main.java.service.feed.FeedHandler;
+import main.java.service.feed.MarketDataFeed;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+// Measures MarketDataFeed.publishTrade on its own, and followed by FeedConsumer.poll reading the record back, on a
+// feed file in /dev/shm where available.
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class FeedBenchmark {
+
+    @Param({"65536"})
+    public int capacity;
+
+    private Path file;
+
+    private MarketDataFeed feed;
+
+    private FeedConsumer consumer;
+
+    private FeedHandler handler;
+
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void open(Blackhole blackhole) throws IOException {
+        Path shm = Paths.get("/dev/shm");
+        file = Files.createTempFile(Files.isDirectory(shm) ? shm : Paths.get("."), "benchmark-", ".feed");
+        feed = MarketDataFeed.create(file, capacity);
+        consumer = FeedConsumer.open(file);
+        handler = new FeedHandler() {
+            @Override
+            public void onTrade(long bidId, long askId, int price, int quantity, long timestamp) {
+                blackhole.consume(bidId);
+                blackhole.consume(price);
+            }
+
+            @Override
+            public void onLevelUpdate(OrderType side, int price, long quantity, int orderCount, long timestamp) {
+                blackhole.consume(price);
+            }
+
+            @Override
+            public void onGap(long lostRecords) {
+                blackhole.consume(lostRecords);
+            }
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        feed.close();
+        consumer.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void publish() {
+        long id = sequence++;
+        feed.publishTrade(id, id + 1, 100, 10);
+    }
+
+    @Benchmark
+    public int publishAndPoll() {
+        long id = sequence++;
+        feed.publishTrade(id, id + 1, 100, 10);
+        return consumer.poll(handler, 1);
+    }
+}
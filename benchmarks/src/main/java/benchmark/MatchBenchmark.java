@@ -0,0 +1,40 @@
+package main.java.benchmark;
+
+import main.java.model.OrderBook;
+import main.java.service.ExchangeService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Measures ExchangeService.match: the time and allocations to match a whole workload into an empty book, with the
+// default configuration. The order stores, snapshots and market data feed are compared in MatchStoreBenchmark,
+// MatchSnapshotBenchmark and MatchFeedBenchmark.
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class MatchBenchmark {
+
+    @Param({"1000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"PASSIVE", "AGGRESSIVE", "MIXED"})
+    public OrderGenerator.Kind kind;
+
+    private OrderGenerator.Workload workload;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        workload = OrderGenerator.generate(kind, size, OrderGenerator.SEED);
+    }
+
+    @Benchmark
+    public OrderBook match() {
+        ExchangeService exchange = new ExchangeService();
+        workload.replay(exchange);
+        return exchange.getOrderBook();
+    }
+}
@@ -0,0 +1,66 @@
+package main.java.benchmark;
+
+import main.java.model.OrderBook;
+import main.java.service.ExchangeService;
+import main.java.service.feed.MarketDataFeed;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+// Measures ExchangeService.match on the mixed workload, with and without publishing every trade and depth update to
+// a market data feed in /dev/shm where available.
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class MatchFeedBenchmark {
+
+    @Param({"1000", "1000000", "10000000"})
+    public int size;
+
+    // True to publish every trade and depth update to a market data feed.
+    @Param({"false", "true"})
+    public boolean feed;
+
+    private Path feedFile;
+
+    private OrderGenerator.Workload workload;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        workload = OrderGenerator.generate(OrderGenerator.Kind.MIXED, size, OrderGenerator.SEED);
+    }
+
+    @Setup(Level.Trial)
+    public void createFeedFile() throws IOException {
+        Path shm = Paths.get("/dev/shm");
+        feedFile = Files.createTempFile(Files.isDirectory(shm) ? shm : Paths.get("."), "match-", ".feed");
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFeedFile() throws IOException {
+        Files.deleteIfExists(feedFile);
+    }
+
+    @Benchmark
+    public OrderBook match() throws IOException {
+        ExchangeService exchange = new ExchangeService();
+        if (feed) {
+            // A new feed for every invocation, as the engine creates one for every file it matches
+            try (MarketDataFeed marketDataFeed = MarketDataFeed.create(feedFile, 65536)) {
+                exchange.setMarketDataFeed(marketDataFeed);
+                workload.replay(exchange);
+            }
+            return exchange.getOrderBook();
+        }
+        workload.replay(exchange);
+        return exchange.getOrderBook();
+    }
+}
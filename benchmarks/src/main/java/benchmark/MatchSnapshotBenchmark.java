@@ -0,0 +1,44 @@
+package main.java.benchmark;
+
+import main.java.model.DepthSnapshotPublisher;
+import main.java.model.OrderBook;
+import main.java.service.ExchangeService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Measures ExchangeService.match on the mixed workload, with and without publishing a snapshot of the best levels of
+// the book after every order.
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class MatchSnapshotBenchmark {
+
+    @Param({"1000", "1000000", "10000000"})
+    public int size;
+
+    // The number of levels of each side published after every order, or 0 to publish nothing.
+    @Param({"0", "10"})
+    public int snapshotDepth;
+
+    private OrderGenerator.Workload workload;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        workload = OrderGenerator.generate(OrderGenerator.Kind.MIXED, size, OrderGenerator.SEED);
+    }
+
+    @Benchmark
+    public OrderBook match() {
+        ExchangeService exchange = new ExchangeService();
+        if (snapshotDepth > 0) {
+            exchange.setSnapshotPublisher(new DepthSnapshotPublisher(exchange.getOrderBook(), snapshotDepth));
+        }
+        workload.replay(exchange);
+        return exchange.getOrderBook();
+    }
+}
@@ -0,0 +1,39 @@
+package main.java.benchmark;
+
+import main.java.model.OrderBook;
+import main.java.model.OrderStorage;
+import main.java.service.ExchangeService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Measures ExchangeService.match on the mixed workload with the resting orders on the heap and off it.
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class MatchStoreBenchmark {
+
+    @Param({"1000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"HEAP", "OFF_HEAP"})
+    public OrderStorage store;
+
+    private OrderGenerator.Workload workload;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        workload = OrderGenerator.generate(OrderGenerator.Kind.MIXED, size, OrderGenerator.SEED);
+    }
+
+    @Benchmark
+    public OrderBook match() {
+        ExchangeService exchange = new ExchangeService(new OrderBook(store.newStore()));
+        workload.replay(exchange);
+        return exchange.getOrderBook();
+    }
+}
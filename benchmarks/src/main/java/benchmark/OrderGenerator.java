@@ -0,0 +1,159 @@
+package main.java.benchmark;
+
+import main.java.model.OrderType;
+import main.java.service.OrderSink;
+import main.java.service.util.BinaryFormat;
+import main.java.service.util.FileFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+// The OrderGenerator class creates synthetic, reproducible order workloads for the benchmarks.
+// The same kind, size and seed always produce the same orders, so results of different builds can be compared.
+
+public class OrderGenerator {
+    // The seed used by every benchmark.
+    public static final long SEED = 20230601L;
+
+    // The price the generated books are centered around.
+    private static final int MID_PRICE = 10_000;
+
+    // The number of resting orders an aggressive order sweeps.
+    private static final int SWEEP_DEPTH = 8;
+
+    // The shape of a workload.
+    public enum Kind {
+        // Bids below and asks above the mid price: every order rests in the book, nothing trades.
+        PASSIVE,
+        // Runs of resting orders on consecutive levels, each run swept at once by one large order of the other side.
+        AGGRESSIVE,
+        // Random sides, prices and quantities around the mid price: some orders rest, some trade partially.
+        MIXED
+    }
+
+    // A generated workload, held as parallel arrays so replaying it does not allocate beyond what the engine does.
+    public static class Workload {
+        public final String[] ids;
+        public final OrderType[] sides;
+        public final int[] prices;
+        public final int[] quantities;
+
+        Workload(int size) {
+            ids = new String[size];
+            sides = new OrderType[size];
+            prices = new int[size];
+            quantities = new int[size];
+        }
+
+        // Returns the number of orders of the workload.
+        public int size() {
+            return ids.length;
+        }
+
+        // Passes every order of the workload to the sink, in order.
+        public void replay(OrderSink sink) {
+            for (int i = 0; i < ids.length; i++) {
+                sink.accept(ids[i], sides[i], prices[i], quantities[i]);
+            }
+        }
+
+        // Returns the workload in the input file format, one "id,side,price,quantity" line per order.
+        public byte[] toBytes() {
+            StringBuilder text = new StringBuilder(ids.length * 24);
+            for (int i = 0; i < ids.length; i++) {
+                text.append(ids[i]).append(',')
+                        .append(sides[i] == OrderType.BID ? 'B' : 'S').append(',')
+                        .append(prices[i]).append(',')
+                        .append(quantities[i]).append('\n');
+            }
+            return text.toString().getBytes(StandardCharsets.US_ASCII);
+        }
+
+        // Returns the workload as a binary order file, one record per order.
+        public byte[] toBinaryBytes() {
+            ByteBuffer buffer = ByteBuffer.allocate(BinaryFormat.HEADER_SIZE + ids.length * BinaryFormat.RECORD_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            BinaryFormat.putHeader(buffer, true);
+            for (int i = 0; i < ids.length; i++) {
+                BinaryFormat.putRecord(buffer, BinaryFormat.encodeId(ids[i]), prices[i], quantities[i],
+                        sides[i] == OrderType.BID ? BinaryFormat.BID : BinaryFormat.ASK, 0);
+            }
+            return buffer.array();
+        }
+
+        // Writes the workload as a text input file into the exchange directory below the working directory.
+        public Path writeTo(String fileName) throws IOException {
+            return writeTo(fileName, FileFormat.TEXT);
+        }
+
+        // Writes the workload as an input file in the given format into the exchange directory below the working directory.
+        public Path writeTo(String fileName, FileFormat format) throws IOException {
+            Path dir = Files.createDirectories(Paths.get("exchange"));
+            return Files.write(dir.resolve(fileName), format == FileFormat.BINARY ? toBinaryBytes() : toBytes());
+        }
+    }
+
+    /**
+     * Generates a workload.
+     *
+     * @param kind The shape of the workload.
+     * @param size The number of orders.
+     * @param seed The seed of the random generator.
+     * @return The generated workload.
+     */
+    public static Workload generate(Kind kind, int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Workload workload = new Workload(size);
+        for (int i = 0; i < size; i++) {
+            workload.ids[i] = Integer.toString(10_000 + i);
+        }
+        switch (kind) {
+            case PASSIVE:
+                for (int i = 0; i < size; i++) {
+                    boolean bid = random.nextBoolean();
+                    workload.sides[i] = bid ? OrderType.BID : OrderType.ASK;
+                    workload.prices[i] = bid ? MID_PRICE - 1 - random.nextInt(100) : MID_PRICE + 1 + random.nextInt(100);
+                    workload.quantities[i] = 1 + random.nextInt(1000);
+                }
+                break;
+            case AGGRESSIVE:
+                for (int start = 0; start < size; start += SWEEP_DEPTH + 1) {
+                    // Alternate the side that rests, so the book stays balanced
+                    boolean restingBid = (start / (SWEEP_DEPTH + 1)) % 2 == 0;
+                    int end = Math.min(size - 1, start + SWEEP_DEPTH);
+                    int sweptQuantity = 0;
+                    for (int i = start; i < end; i++) {
+                        int level = i - start;
+                        workload.sides[i] = restingBid ? OrderType.BID : OrderType.ASK;
+                        workload.prices[i] = restingBid ? MID_PRICE - level : MID_PRICE + level;
+                        workload.quantities[i] = 1 + random.nextInt(1000);
+                        sweptQuantity += workload.quantities[i];
+                    }
+                    // One order of the other side crossing every level of the run
+                    workload.sides[end] = restingBid ? OrderType.ASK : OrderType.BID;
+                    workload.prices[end] = restingBid ? MID_PRICE - SWEEP_DEPTH : MID_PRICE + SWEEP_DEPTH;
+                    workload.quantities[end] = Math.max(1, sweptQuantity);
+                }
+                break;
+            case MIXED:
+                for (int i = 0; i < size; i++) {
+                    boolean bid = random.nextBoolean();
+                    workload.sides[i] = bid ? OrderType.BID : OrderType.ASK;
+                    // Centered slightly on the passive side of the mid price, so about a third of the orders cross
+                    int offset = (int) Math.round(random.nextDouble() * 40 - 15);
+                    workload.prices[i] = bid ? MID_PRICE - offset : MID_PRICE + offset;
+                    workload.quantities[i] = 1 + random.nextInt(1000);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown workload: " + kind);
+        }
+        return workload;
+    }
+}
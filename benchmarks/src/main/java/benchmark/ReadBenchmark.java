@@ -0,0 +1,101 @@
+package main.java.benchmark;
+
+import main.java.model.OrderType;
+import main.java.service.OrderSink;
+import main.java.service.util.FileFormat;
+import main.java.service.util.OrderReader;
+import main.java.service.util.ParallelOrderReader;
+import main.java.service.util.ParserBackend;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Measures OrderReader.readFile: mapping and parsing (or decoding) a whole input file, without matching the orders,
+// on the benchmark thread or in parallel chunks, with either backend of the text parser. Binary files are decoded
+// the same way with either backend, so they are measured once.
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class ReadBenchmark {
+
+    @Param({"1000", "1000000", "10000000"})
+    public int size;
+
+    // The format of the file and, for text, the backend of the parser.
+    public enum Input {
+        TEXT_SCALAR(FileFormat.TEXT, ParserBackend.SCALAR),
+        TEXT_SWAR(FileFormat.TEXT, ParserBackend.SWAR),
+        BINARY(FileFormat.BINARY, ParserBackend.SWAR);
+
+        final FileFormat format;
+        final ParserBackend backend;
+
+        Input(FileFormat format, ParserBackend backend) {
+            this.format = format;
+            this.backend = backend;
+        }
+    }
+
+    @Param({"TEXT_SCALAR", "TEXT_SWAR", "BINARY"})
+    public Input input;
+
+    // The number of threads parsing chunks of the file in parallel, or 0 to read it on the benchmark thread.
+    @Param({"0", "4"})
+    public int parseThreads;
+
+    private ForkJoinPool pool;
+
+    private OrderReader orderReader;
+
+    private String fileName;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        fileName = "read-" + size + "." + input.format.name().toLowerCase();
+        OrderGenerator.generate(OrderGenerator.Kind.MIXED, size, OrderGenerator.SEED).writeTo(fileName, input.format);
+        orderReader = new OrderReader();
+        orderReader.setParserBackend(input.backend);
+        if (parseThreads > 0) {
+            pool = new ForkJoinPool(parseThreads);
+            orderReader.setParallelReader(new ParallelOrderReader(pool, 1024 * 1024, input.backend));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void readFile(Blackhole blackhole) {
+        orderReader.readFile(fileName, new OrderSink() {
+            @Override
+            public void accept(String id, OrderType orderType, int price, int quantity) {
+                blackhole.consume(id);
+                blackhole.consume(orderType);
+                blackhole.consume(price);
+                blackhole.consume(quantity);
+            }
+
+            @Override
+            public void cancel(String id) {
+                blackhole.consume(id);
+            }
+
+            @Override
+            public void amend(String id, int newQuantity) {
+                blackhole.consume(id);
+                blackhole.consume(newQuantity);
+            }
+        });
+    }
+}
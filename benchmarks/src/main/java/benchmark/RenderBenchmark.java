@@ -0,0 +1,36 @@
+package main.java.benchmark;
+
+import main.java.model.OrderBook;
+import main.java.service.ExchangeService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Measures OrderBook.getOrderBook: rendering the lines of a book holding every order of a passive workload.
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class RenderBenchmark {
+
+    @Param({"1000", "1000000", "10000000"})
+    public int size;
+
+    private OrderBook orderBook;
+
+    @Setup(Level.Trial)
+    public void fillBook() {
+        ExchangeService exchange = new ExchangeService();
+        OrderGenerator.generate(OrderGenerator.Kind.PASSIVE, size, OrderGenerator.SEED).replay(exchange);
+        orderBook = exchange.getOrderBook();
+    }
+
+    @Benchmark
+    public List<String> getOrderBook() {
+        return orderBook.getOrderBook();
+    }
+}
@@ -0,0 +1,58 @@
+package main.java.benchmark;
+
+import main.java.model.OrderBook;
+import main.java.service.ExchangeService;
+import main.java.service.util.OrderWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+// Measures OrderWriter.writeFile: encoding, writing and checksumming the trades and order book of a mixed workload.
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class WriteBenchmark {
+
+    @Param({"1000", "1000000", "10000000"})
+    public int size;
+
+    private final OrderWriter orderWriter = new OrderWriter();
+
+    // Discards the echoed file content, so only the file output is measured.
+    private final PrintStream console = new PrintStream(new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+        }
+    });
+
+    private OrderBook orderBook;
+
+    private String fileName;
+
+    @Setup(Level.Trial)
+    public void match() throws IOException {
+        ExchangeService exchange = new ExchangeService();
+        OrderGenerator.generate(OrderGenerator.Kind.MIXED, size, OrderGenerator.SEED).replay(exchange);
+        orderBook = exchange.getOrderBook();
+        fileName = "write-" + size + ".txt";
+        Files.createDirectories(Paths.get("exchange"));
+    }
+
+    @Benchmark
+    public String writeFile() {
+        return orderWriter.writeFile(fileName, orderBook, console);
+    }
+}
@@ -1,13 +1,35 @@
 package main.java;
 
-import main.java.model.Order;
-import main.java.service.ExchangeService;
+import main.java.config.ApplicationConfig;
+import main.java.model.OrderStorage;
+import main.java.service.FileProcessingPool;
+import main.java.service.FileProcessor;
+import main.java.service.journal.ExchangeJournal;
+import main.java.service.metrics.ExchangeMetrics;
+import main.java.service.metrics.MetricsExporter;
+import main.java.service.pipeline.OrderPipeline;
+import main.java.service.pipeline.WaitStrategy;
+import main.java.service.report.ConsoleReporter;
+import main.java.service.report.ReportLevel;
+import main.java.service.util.ChecksumAlgorithm;
+import main.java.service.util.DirectoryWatcher;
+import main.java.service.util.FileManifest;
 import main.java.service.util.OrderReader;
 import main.java.service.util.OrderWriter;
-
+import main.java.service.util.ParallelOrderReader;
+import main.java.service.util.ParserBackend;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 
 public class BitvavoApplication {
 
@@ -17,75 +39,149 @@ public class BitvavoApplication {
         // Map to keep track of processed files
         Map<String, String> processedFileMap = new HashMap<>();
 
+        // Read the configuration from the system properties
+        ApplicationConfig config = ApplicationConfig.fromSystemProperties();
+
         // Instantiate the OrderReader and OrderWriter classes
         OrderReader orderReader = new OrderReader();
-        OrderWriter orderWriter = new OrderWriter();
-
-        // Loop continuously to listen to new files
-        while (true) {
+        OrderWriter orderWriter = new OrderWriter(ChecksumAlgorithm.of(config.getChecksumAlgorithm()),
+                Paths.get(config.getOutputDir()));
+
+        // Parse text with the configured backend, and optionally parse large files in chunks on a fork-join pool,
+        // still matching their orders in file order
+        ParserBackend parserBackend = ParserBackend.of(config.getParseBackend());
+        orderReader.setParserBackend(parserBackend);
+        if (config.getParseThreads() > 0) {
+            orderReader.setParallelReader(new ParallelOrderReader(new ForkJoinPool(config.getParseThreads()),
+                    config.getParseChunkSize(), parserBackend));
+        }
 
-            // Get the list of new files that have not been processed yet
-            Map<String, LinkedList<Order>> fileOrderMap = orderReader.readFiles(processedFileMap.keySet());
+        // A tailed file is written to while its output is, so the output cannot replace it
+        if (config.isTailMode() && orderWriter.getOutputDirectory().toAbsolutePath().normalize()
+                .equals(orderReader.getDirectory().toPath().toAbsolutePath().normalize())) {
+            throw new IllegalStateException("Tail mode needs an exchange.output.dir other than the directory of the order files");
+        }
 
-            // If there are new files, process them and add them to the processed file map
-            if (!fileOrderMap.isEmpty()) {
-                processedFileMap.putAll(process(fileOrderMap, orderWriter));
+        // Skip the files processed before a restart that are unchanged since, with a single stat call per file.
+        // Tailed files are kept in memory only, so tail mode matches every file from the start after a restart.
+        FileManifest manifest = null;
+        try {
+            Files.createDirectories(orderWriter.getOutputDirectory());
+            if (!config.getManifest().isEmpty() && !config.isTailMode()) {
+                Path manifestFile = Paths.get(config.getManifest()).toAbsolutePath();
+                Files.createDirectories(manifestFile.getParent());
+                manifest = new FileManifest(manifestFile, orderReader.getDirectory().toPath());
+                processedFileMap.putAll(manifest.unchangedFiles());
             }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read manifest: " + config.getManifest(), e);
+        }
 
-            // Sleep for 1 second
+        // Optionally journal the processing of files, so a restart skips the completed ones and resumes the others
+        ExchangeJournal journal = null;
+        if (!config.getJournalDir().isEmpty() && !config.isTailMode()) {
             try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
+                journal = new ExchangeJournal(Paths.get(config.getJournalDir()), config.getJournalCommitRecords(),
+                        config.getSnapshotInterval());
+                processedFileMap.putAll(journal.recover(orderWriter.getOutputDirectory()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to recover journal: " + config.getJournalDir(), e);
             }
-
+            orderWriter.setCompletionListener(journal);
         }
-    }
 
-    /**
-     * Process the files in the fileOrderMap
-     *
-     * @param fileOrderMap The map containing the files and their orders
-     * @param orderWriter  The OrderWriter class
-     * @return The processed file map
-     */
-    private static Map<String, String> process(Map<String, LinkedList<Order>> fileOrderMap, OrderWriter orderWriter) {
-
-        // Map to keep track of processed files
-        Map<String, String> processedFileMap = new HashMap<>();
-
-        // Loop through each file in the fileOrderMap
-        for (Map.Entry<String, LinkedList<Order>> fileOrder : fileOrderMap.entrySet()) {
-            System.out.println("--------------------------------------------------------------------------------");
-
-            System.out.println("Processing new file: " + fileOrder.getKey());
+        // Watch the directory for new files, through WatchService events or polling as configured
+        DirectoryWatcher watcher = new DirectoryWatcher(orderReader.getDirectory(), config.isWatchMode(),
+                config.getPollIntervalMillis(), config.getSettleMillis());
+
+        // Optionally read, match and write each file on separate threads joined by ring buffers
+        OrderPipeline pipeline = config.isPipeline()
+                ? new OrderPipeline(config.getRingSize(), WaitStrategy.of(config.getWaitStrategy()))
+                : null;
+
+        // Print the report of every file on a background thread, as much of it as configured
+        ConsoleReporter reporter = new ConsoleReporter(ReportLevel.of(config.getReportLevel()), System.out,
+                config.getReportQueueCapacity());
+
+        // The drainer is a daemon thread, so print the reports still queued when the JVM shuts down, whether main
+        // failed or the application was stopped
+        Runtime.getRuntime().addShutdownHook(new Thread(reporter::close, "exchange-console-shutdown"));
+
+        // Optionally match the instruments of a file in parallel, one order book per symbol spread over the shards,
+        // with the resting orders on the heap or off it as configured
+        FileProcessor fileProcessor = new FileProcessor(orderReader, orderWriter, pipeline,
+                config.getShards(), config.getRingSize(), WaitStrategy.of(config.getWaitStrategy()), reporter, journal,
+                OrderStorage.of(config.getOrderStorage()));
+
+        // Optionally measure every file, exporting the metrics to a file and over JMX
+        if (config.isMetricsEnabled()) {
+            ExchangeMetrics metrics = new ExchangeMetrics();
+            MetricsExporter exporter = new MetricsExporter(metrics,
+                    config.getMetricsFile().isEmpty() ? null : Paths.get(config.getMetricsFile()),
+                    config.getMetricsIntervalMillis());
+            exporter.start(config.isMetricsJmx());
+            // Write the last snapshot when the JVM shuts down, as the writer is a daemon thread
+            Runtime.getRuntime().addShutdownHook(new Thread(exporter::close, "exchange-metrics-shutdown"));
+            fileProcessor.setMetrics(metrics);
+        }
 
-            // Instantiate the ExchangeService class
-            ExchangeService exchange = new ExchangeService();
+        // Optionally publish the best levels of every book after each order, for readers on other threads
+        fileProcessor.setSnapshotDepth(config.getSnapshotDepth());
 
-            // Loop through each order in the file and match them
-            for (Order order : fileOrder.getValue()) {
-                exchange.match(order);
+        // Optionally publish the trades and depth updates of every book to other processes through shared memory
+        if (!config.getFeedDir().isEmpty()) {
+            Path feedDir = Paths.get(config.getFeedDir());
+            try {
+                Files.createDirectories(feedDir);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to create feed directory: " + feedDir, e);
             }
+            fileProcessor.setFeedDirectory(feedDir, config.getFeedCapacity());
+        }
 
-            // Print the trade and order book
-            System.out.println("------------------------------------------------------------");
-            exchange.getOrderBook().writeTradeAndOrderBook();
-            System.out.println("------------------------------------------------------------");
-
-            // Write the trade and order book to file
-            orderWriter.writeFile(fileOrder.getKey(), exchange.getOrderBook().getTrades(), exchange.getOrderBook().getOrderBook());
+        // Skip the files that failed until they are modified, rather than failing them again on every poll
+        Map<String, Long> failedFileMap = new HashMap<>();
+        Predicate<String> isFailed = fileName -> {
+            Long lastModified = failedFileMap.get(fileName);
+            return lastModified != null && lastModified == new File(orderReader.getDirectory(), fileName).lastModified();
+        };
+
+        // Optionally read files again whenever they grow, matching only the appended orders in the exchange kept since
+        Predicate<String> isProcessed = fileName -> processedFileMap.containsKey(fileName) || isFailed.test(fileName);
+        if (config.isTailMode()) {
+            fileProcessor.setTailMode(true);
+            isProcessed = fileName -> processedFileMap.containsKey(fileName) && fileProcessor.isCaughtUp(fileName)
+                    || isFailed.test(fileName);
+        }
 
-            // Calculate and print the checksum
-            String checksum = orderWriter.checksum(fileOrder.getKey());
-            System.out.println("Checksum(MD5): " + checksum);
+        // Process the files of a batch concurrently, each one in its own isolated exchange
+        FileProcessingPool pool = new FileProcessingPool(fileProcessor,
+                FileProcessingPool.newExecutor(config.isVirtualThreads(), config.getWorkerThreads()),
+                config.getMaxFilesInFlight(), manifest);
 
-            // Add the file to the processed file map with its checksum
-            processedFileMap.put(fileOrder.getKey(), checksum);
+        // Loop continuously to listen to new files
+        while (true) {
 
-            System.out.println("--------------------------------------------------------------------------------");
+            try {
+                // Wait for new files that have not been processed yet
+                List<String> fileNames = watcher.awaitNewFiles(isProcessed);
+
+                // Print the number and names of the new files that have been detected, after the reports queued before
+                reporter.println("Detected new " + fileNames.size() + " files: " + fileNames);
+
+                // Process the new files and add the ones that succeeded to the processed file map
+                Map<String, String> processed = pool.processAll(fileNames);
+                processedFileMap.putAll(processed);
+                for (String fileName : fileNames) {
+                    if (processed.containsKey(fileName)) {
+                        failedFileMap.remove(fileName);
+                    } else {
+                        failedFileMap.put(fileName, new File(orderReader.getDirectory(), fileName).lastModified());
+                    }
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
         }
-
-        return processedFileMap;
     }
 }
\ No newline at end of file
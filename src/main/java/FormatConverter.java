@@ -0,0 +1,302 @@
+package main.java;
+
+import main.java.model.Order;
+import main.java.model.OrderBook;
+import main.java.model.OrderType;
+import main.java.service.OrderSink;
+import main.java.service.util.BinaryFormat;
+import main.java.service.util.ChecksumAlgorithm;
+import main.java.service.util.FileFormat;
+import main.java.service.util.OrderReader;
+import main.java.service.util.OutputFile;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// The FormatConverter class converts order files between the text and the binary format, and binary output files
+// to the text output the application writes for text order files.
+//
+//   java -cp bitvavo.jar main.java.FormatConverter to-binary orders.txt orders.bin
+//   java -cp bitvavo.jar main.java.FormatConverter to-text orders.bin orders.txt
+
+public class FormatConverter {
+    // The size of the buffer records are collected in before they are written.
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    // The size of the region of a binary file that is memory-mapped at once, a whole number of records.
+    private static final int MAPPED_REGION_SIZE = 64 * 1024 * 1024;
+
+    // The main method
+    public static void main(String[] args) {
+        if (args.length != 3 || !(args[0].equals("to-binary") || args[0].equals("to-text"))) {
+            System.err.println("Usage: FormatConverter to-binary|to-text <input file> <output file>");
+            System.exit(2);
+        }
+        Path input = Paths.get(args[1]);
+        Path output = Paths.get(args[2]);
+        try {
+            if (args[0].equals("to-binary")) {
+                toBinary(input, output);
+            } else {
+                toText(input, output);
+            }
+            System.out.println("Converted " + input + " to " + output);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Cannot convert " + input + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Converts a text order file to a binary order file. Order ids must be numbers and symbols at most 8 characters.
+     *
+     * @param input  The text order file.
+     * @param output The binary order file to write.
+     * @throws IOException If a file cannot be read or written, or the input is not a text file.
+     */
+    public static void toBinary(Path input, Path output) throws IOException {
+        if (FileFormat.detect(input) != FileFormat.TEXT) {
+            throw new IOException("Not a text order file: " + input);
+        }
+        try {
+            try (BinaryOrderSink sink = new BinaryOrderSink(output)) {
+                OrderReader.read(input, sink);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Do not leave a partial file behind
+            Files.deleteIfExists(output);
+            throw e;
+        }
+    }
+
+    /**
+     * Converts a binary order file to a text order file, or a binary output file to the text output the application
+     * writes for the same orders in text.
+     *
+     * @param input  The binary order or output file.
+     * @param output The text file to write.
+     * @throws IOException If a file cannot be read or written, or the input is not a binary file.
+     */
+    public static void toText(Path input, Path output) throws IOException {
+        ByteBuffer header;
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            header = BinaryFormat.readHeader(channel);
+        }
+        if (BinaryFormat.isOrderFile(header)) {
+            try {
+                try (TextOrderSink sink = new TextOrderSink(output)) {
+                    OrderReader.read(input, sink);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Do not leave a partial file behind
+                Files.deleteIfExists(output);
+                throw e;
+            }
+        } else if (BinaryFormat.isOutputFile(header)) {
+            outputToText(input, header, output);
+        } else {
+            throw new IOException("Not a binary file: " + input);
+        }
+    }
+
+    // Rewrites the trade, symbol and order records of a binary output file as the lines of a text output file.
+    private static void outputToText(Path input, ByteBuffer header, Path output) throws IOException {
+        if (BinaryFormat.versionOf(header) != BinaryFormat.VERSION) {
+            throw new IOException("Unsupported binary format version " + BinaryFormat.versionOf(header) + " of file: " + input);
+        }
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ);
+             OutputFile text = new OutputFile(output, null, ChecksumAlgorithm.MD5)) {
+            long size = channel.size();
+            if ((size - BinaryFormat.HEADER_SIZE) % BinaryFormat.RECORD_SIZE != 0) {
+                throw new IOException("Truncated record at the end of binary file: " + input);
+            }
+            // The resting orders of the current instrument, collected to be written as book lines
+            OrderBook orderBook = null;
+            long position = BinaryFormat.HEADER_SIZE;
+            while (position < size) {
+                int length = (int) Math.min(MAPPED_REGION_SIZE, size - position);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                region.order(ByteOrder.LITTLE_ENDIAN);
+                for (int record = 0; record < length; record += BinaryFormat.RECORD_SIZE) {
+                    long id = region.getLong(record + BinaryFormat.ID_OFFSET);
+                    int price = region.getInt(record + BinaryFormat.PRICE_OFFSET);
+                    int quantity = region.getInt(record + BinaryFormat.QUANTITY_OFFSET);
+                    long tail = region.getLong(record + BinaryFormat.TAIL_OFFSET);
+                    byte kind = region.get(record + BinaryFormat.KIND_OFFSET);
+                    switch (kind) {
+                        case BinaryFormat.TRADE:
+                            text.writeTrade(Long.toString(id), Long.toString(tail), price, quantity);
+                            break;
+                        case BinaryFormat.SYMBOL:
+                            writeOrderBook(text, orderBook);
+                            orderBook = null;
+                            text.writeSymbol(BinaryFormat.decodeSymbol(tail));
+                            break;
+                        case BinaryFormat.BID:
+                        case BinaryFormat.ASK:
+                            if (orderBook == null) {
+                                orderBook = new OrderBook();
+                            }
+                            // The orders come best first, so adding them keeps their time priority
+                            orderBook.addOrder(new Order(Long.toString(id), OrderType.type((char) kind), price, quantity));
+                            break;
+                        default:
+                            throw new IOException("Invalid record kind " + (kind & 0xff) + " in binary output file: " + input);
+                    }
+                }
+                position += length;
+            }
+            writeOrderBook(text, orderBook);
+            text.commit();
+        }
+    }
+
+    // Writes the book lines of the collected resting orders, if there are any.
+    private static void writeOrderBook(OutputFile text, OrderBook orderBook) throws IOException {
+        if (orderBook != null) {
+            text.writeOrderBook(orderBook);
+        }
+    }
+
+    // An OrderSink writing every order, cancel and amend it receives as a record of a binary order file.
+    private static class BinaryOrderSink implements OrderSink, Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = BinaryFormat.allocateDirect(BUFFER_SIZE);
+
+        BinaryOrderSink(Path output) throws IOException {
+            this.channel = FileChannel.open(output,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            BinaryFormat.putHeader(buffer, true);
+        }
+
+        @Override
+        public void accept(String id, OrderType orderType, int price, int quantity) {
+            accept(null, id, orderType, price, quantity);
+        }
+
+        @Override
+        public void accept(String symbol, String id, OrderType orderType, int price, int quantity) {
+            write(id, price, quantity, orderType == OrderType.BID ? BinaryFormat.BID : BinaryFormat.ASK, symbol);
+        }
+
+        @Override
+        public void cancel(String id) {
+            cancel(null, id);
+        }
+
+        @Override
+        public void cancel(String symbol, String id) {
+            write(id, 0, 0, BinaryFormat.CANCEL, symbol);
+        }
+
+        @Override
+        public void amend(String id, int newQuantity) {
+            amend(null, id, newQuantity);
+        }
+
+        @Override
+        public void amend(String symbol, String id, int newQuantity) {
+            write(id, 0, newQuantity, BinaryFormat.AMEND, symbol);
+        }
+
+        // Puts a record into the buffer, writing the buffer to the file first if it is full.
+        private void write(String id, int price, int quantity, byte kind, String symbol) {
+            if (buffer.remaining() < BinaryFormat.RECORD_SIZE) {
+                flush();
+            }
+            BinaryFormat.putRecord(buffer, BinaryFormat.encodeId(id), price, quantity, kind, BinaryFormat.encodeSymbol(symbol));
+        }
+
+        // Writes the collected records to the file.
+        private void flush() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // An OrderSink writing every order, cancel and amend it receives as a line of a text order file.
+    private static class TextOrderSink implements OrderSink, Closeable {
+        private final Writer writer;
+
+        TextOrderSink(Path output) throws IOException {
+            this.writer = new BufferedWriter(Files.newBufferedWriter(output, StandardCharsets.US_ASCII), BUFFER_SIZE);
+        }
+
+        @Override
+        public void accept(String id, OrderType orderType, int price, int quantity) {
+            accept(null, id, orderType, price, quantity);
+        }
+
+        @Override
+        public void accept(String symbol, String id, OrderType orderType, int price, int quantity) {
+            line(id + (orderType == OrderType.BID ? ",B," : ",S,") + price + "," + quantity, symbol);
+        }
+
+        @Override
+        public void cancel(String id) {
+            cancel(null, id);
+        }
+
+        @Override
+        public void cancel(String symbol, String id) {
+            line(id + ",C", symbol);
+        }
+
+        @Override
+        public void amend(String id, int newQuantity) {
+            amend(null, id, newQuantity);
+        }
+
+        @Override
+        public void amend(String symbol, String id, int newQuantity) {
+            line(id + ",A," + newQuantity, symbol);
+        }
+
+        // Writes a line, followed by the symbol column if there is a symbol.
+        private void line(String fields, String symbol) {
+            try {
+                writer.write(fields);
+                if (symbol != null) {
+                    writer.write(',');
+                    writer.write(symbol);
+                }
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package main.java.config;
+
+import java.util.Properties;
+
+// The ApplicationConfig class holds the tunable settings of the application.
+// Every setting can be overridden with a JVM system property, e.g. -Dexchange.ingest=poll.
+
+public class ApplicationConfig {
+    // How new files are detected: "watch" (WatchService events, the default) or "poll" (periodic directory listing).
+    private final String ingestMode;
+
+    // The interval between two directory listings in poll mode, in milliseconds.
+    private final long pollIntervalMillis;
+
+    // How long a file must go without modification events before it is considered complete, in milliseconds.
+    private final long settleMillis;
+
+    // The number of threads processing files concurrently.
+    private final int workerThreads;
+
+    // True to process each file on its own virtual thread instead of a fixed pool, where the JVM supports it.
+    private final boolean virtualThreads;
+
+    // The maximum number of files queued or being processed at the same time.
+    private final int maxFilesInFlight;
+
+    // True to run reading, matching and writing of a file as a pipeline of threads joined by ring buffers.
+    private final boolean pipeline;
+
+    // The number of events of each pipeline ring buffer, a power of two.
+    private final int ringSize;
+
+    // What a pipeline stage does while waiting: "busy-spin", "yield" or "park".
+    private final String waitStrategy;
+
+    // The number of shards matching the instruments of a file in parallel, or 0 to match every file in a single order book.
+    private final int shards;
+
+    // The algorithm output files are checksummed with: "md5" (the default), "sha-256" or "crc32".
+    private final String checksumAlgorithm;
+
+    // How much is printed for every file: "full" (the default), "summary" or "quiet".
+    private final String reportLevel;
+
+    // The maximum number of file reports waiting to be printed by the console thread.
+    private final int reportQueueCapacity;
+
+    // The directory output files are written to; the directory of the order files (the default) replaces them.
+    private final String outputDir;
+
+    // The path of the manifest of processed files, or empty to remember processed files only while running.
+    private final String manifest;
+
+    // The directory of the journal the application restarts from after a crash, or empty to run without a journal.
+    private final String journalDir;
+
+    // The number of records appended to the write-ahead log of a file between two commits to the disk.
+    private final int journalCommitRecords;
+
+    // The number of orders of a file between two snapshots of its order book.
+    private final long snapshotInterval;
+
+    // Where order books keep their resting orders: "heap" or "off-heap".
+    private final String orderStorage;
+
+    // The file metrics snapshots are appended to, or an empty string for none.
+    private final String metricsFile;
+
+    // True if the metrics are registered as an MBean.
+    private final boolean metricsJmx;
+
+    // The interval between two metrics snapshots, in milliseconds.
+    private final long metricsIntervalMillis;
+
+    // The number of threads parsing the chunks of large files in parallel, or 0 to parse every file on one thread.
+    private final int parseThreads;
+
+    // The number of bytes of a chunk parsed in parallel.
+    private final int parseChunkSize;
+
+    // How text files are scanned and converted: "swar" or "scalar".
+    private final String parseBackend;
+
+    // True to read files again whenever they grow, matching only the orders appended since.
+    private final boolean tailMode;
+
+    // The number of levels of each side of a book published while it is matched, or 0 to publish nothing.
+    private final int snapshotDepth;
+
+    // The directory the market data feed of every file is written to, e.g. in /dev/shm, or empty to publish none.
+    private final String feedDir;
+
+    // The number of records a market data feed keeps for its consumers, a power of two.
+    private final int feedCapacity;
+
+    // Constructs a new ApplicationConfig from the given properties, using the defaults for missing ones.
+    public ApplicationConfig(Properties properties) {
+        this.ingestMode = properties.getProperty("exchange.ingest", "watch");
+        this.pollIntervalMillis = longProperty(properties, "exchange.poll.interval.ms", 1000);
+        this.settleMillis = longProperty(properties, "exchange.watch.settle.ms", 50);
+        this.workerThreads = (int) longProperty(properties, "exchange.workers", Runtime.getRuntime().availableProcessors());
+        this.virtualThreads = "virtual".equalsIgnoreCase(properties.getProperty("exchange.executor", "fixed"));
+        this.maxFilesInFlight = (int) longProperty(properties, "exchange.files.inflight", workerThreads);
+        this.pipeline = Boolean.parseBoolean(properties.getProperty("exchange.pipeline", "false"));
+        this.ringSize = (int) longProperty(properties, "exchange.pipeline.ring.size", 65536);
+        this.waitStrategy = properties.getProperty("exchange.pipeline.wait", "yield");
+        this.shards = (int) longProperty(properties, "exchange.shards", 0);
+        this.checksumAlgorithm = properties.getProperty("exchange.checksum", "md5");
+        this.reportLevel = properties.getProperty("exchange.report", "full");
+        this.reportQueueCapacity = (int) longProperty(properties, "exchange.report.queue", 1024);
+        this.outputDir = properties.getProperty("exchange.output.dir", "exchange").trim();
+        this.manifest = properties.getProperty("exchange.manifest", "exchange/.manifest").trim();
+        this.journalDir = properties.getProperty("exchange.journal.dir", "").trim();
+        this.journalCommitRecords = (int) longProperty(properties, "exchange.journal.commit.records", 4096);
+        this.snapshotInterval = longProperty(properties, "exchange.journal.snapshot.interval", 1000000);
+        this.orderStorage = properties.getProperty("exchange.store", "heap");
+        this.metricsFile = properties.getProperty("exchange.metrics.file", "").trim();
+        this.metricsJmx = Boolean.parseBoolean(properties.getProperty("exchange.metrics.jmx", "false"));
+        this.metricsIntervalMillis = longProperty(properties, "exchange.metrics.interval.ms", 10000);
+        this.parseThreads = (int) longProperty(properties, "exchange.parse.threads", 0);
+        this.parseChunkSize = (int) longProperty(properties, "exchange.parse.chunk.size", 1024 * 1024);
+        this.parseBackend = properties.getProperty("exchange.parse.backend", "swar");
+        this.tailMode = Boolean.parseBoolean(properties.getProperty("exchange.tail", "false"));
+        this.snapshotDepth = (int) longProperty(properties, "exchange.snapshot.depth", 0);
+        this.feedDir = properties.getProperty("exchange.feed.dir", "").trim();
+        this.feedCapacity = (int) longProperty(properties, "exchange.feed.capacity", 65536);
+    }
+
+    // Reads the configuration from the JVM system properties.
+    public static ApplicationConfig fromSystemProperties() {
+        return new ApplicationConfig(System.getProperties());
+    }
+
+    // Returns true if new files should be detected through WatchService events rather than polling.
+    public boolean isWatchMode() {
+        return !"poll".equalsIgnoreCase(ingestMode);
+    }
+
+    // Returns the interval between two directory listings in poll mode, in milliseconds.
+    public long getPollIntervalMillis() {
+        return pollIntervalMillis;
+    }
+
+    // Returns how long a file must stay unmodified before it is processed, in milliseconds.
+    public long getSettleMillis() {
+        return settleMillis;
+    }
+
+    // Returns the number of threads processing files concurrently.
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    // Returns true if each file should be processed on its own virtual thread.
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    // Returns the maximum number of files queued or being processed at the same time.
+    public int getMaxFilesInFlight() {
+        return maxFilesInFlight;
+    }
+
+    // Returns true if files should be processed by a reader, matcher and writer pipeline.
+    public boolean isPipeline() {
+        return pipeline;
+    }
+
+    // Returns the number of events of each pipeline ring buffer.
+    public int getRingSize() {
+        return ringSize;
+    }
+
+    // Returns the name of the wait strategy of the pipeline stages.
+    public String getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    // Returns the number of shards matching instruments in parallel, 0 if orders are matched in a single order book.
+    public int getShards() {
+        return shards;
+    }
+
+    // Returns the name of the algorithm output files are checksummed with.
+    public String getChecksumAlgorithm() {
+        return checksumAlgorithm;
+    }
+
+    // Returns the name of the level of the console report of every file.
+    public String getReportLevel() {
+        return reportLevel;
+    }
+
+    // Returns the maximum number of file reports waiting to be printed.
+    public int getReportQueueCapacity() {
+        return reportQueueCapacity;
+    }
+
+    // Returns the directory output files are written to.
+    public String getOutputDir() {
+        return outputDir;
+    }
+
+    // Returns the path of the manifest of processed files, or an empty string if there is none.
+    public String getManifest() {
+        return manifest;
+    }
+
+    // Returns the directory of the journal, or an empty string if the application runs without one.
+    public String getJournalDir() {
+        return journalDir;
+    }
+
+    // Returns the number of records appended to a write-ahead log between two commits.
+    public int getJournalCommitRecords() {
+        return journalCommitRecords;
+    }
+
+    // Returns the number of orders of a file between two snapshots of its order book.
+    public long getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    // Returns where order books keep their resting orders, "heap" or "off-heap".
+    public String getOrderStorage() {
+        return orderStorage;
+    }
+
+    // Returns true if the files are measured, i.e. if the metrics are exported to a file or over JMX.
+    public boolean isMetricsEnabled() {
+        return !metricsFile.isEmpty() || metricsJmx;
+    }
+
+    // Returns the file metrics snapshots are appended to, or an empty string for none.
+    public String getMetricsFile() {
+        return metricsFile;
+    }
+
+    // Returns true if the metrics are registered as an MBean.
+    public boolean isMetricsJmx() {
+        return metricsJmx;
+    }
+
+    // Returns the interval between two metrics snapshots, in milliseconds.
+    public long getMetricsIntervalMillis() {
+        return metricsIntervalMillis;
+    }
+
+    // Returns the number of threads parsing the chunks of large files in parallel, or 0 to parse files on one thread.
+    public int getParseThreads() {
+        return parseThreads;
+    }
+
+    // Returns the number of bytes of a chunk parsed in parallel.
+    public int getParseChunkSize() {
+        return parseChunkSize;
+    }
+
+    // Returns the name of the backend of the text parser: "swar" or "scalar".
+    public String getParseBackend() {
+        return parseBackend;
+    }
+
+    // Returns true if files are read again whenever they grow, matching only the orders appended since.
+    public boolean isTailMode() {
+        return tailMode;
+    }
+
+    // Returns the number of levels of each side of a book published while it is matched, or 0 to publish nothing.
+    public int getSnapshotDepth() {
+        return snapshotDepth;
+    }
+
+    // Returns the directory the market data feed of every file is written to, or empty to publish none.
+    public String getFeedDir() {
+        return feedDir;
+    }
+
+    // Returns the number of records a market data feed keeps for its consumers.
+    public int getFeedCapacity() {
+        return feedCapacity;
+    }
+
+    // Parses a long property, failing fast on values that are not numbers.
+    private static long longProperty(Properties properties, String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+        }
+    }
+}
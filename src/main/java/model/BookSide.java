@@ -0,0 +1,19 @@
+package main.java.model;
+
+// The BookSide interface is a read-only view of one side of the order book: its resting orders in price-time priority,
+// best price first and oldest first within a price.
+
+public interface BookSide extends Iterable<Order> {
+
+    // Returns the side of the book.
+    OrderType getSide();
+
+    // Returns true if there are no resting orders on this side of the book.
+    boolean isEmpty();
+
+    // Returns the number of resting orders on this side of the book.
+    int size();
+
+    // Returns the best price on this side of the book. Only meaningful when the side is not empty.
+    int getBestPrice();
+}
@@ -0,0 +1,18 @@
+package main.java.model;
+
+// The DepthListener interface is notified of every change of the aggregated depth (L2) of the order book: the total
+// quantity and number of orders resting at a price.
+
+public interface DepthListener {
+
+    /**
+     * Called whenever the orders resting at a price change, on the matching thread. The values are the new state of
+     * the level, not a difference, so a consumer can apply the events in order to keep its own copy of the depth.
+     *
+     * @param side       The side of the book the level is on.
+     * @param price      The price of the level.
+     * @param quantity   The total remaining quantity resting at the price, 0 once the level is empty.
+     * @param orderCount The number of orders resting at the price, 0 once the level is empty.
+     */
+    void onLevelUpdate(OrderType side, int price, long quantity, int orderCount);
+}
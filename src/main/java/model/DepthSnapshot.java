@@ -0,0 +1,111 @@
+package main.java.model;
+
+// The DepthSnapshot class is an immutable copy of the best price levels of both sides of an order book at one point in
+// time: the top of the book and the aggregated depth (L2) below it. A snapshot is never changed once it is published,
+// so any thread can read it without locking while the matching thread goes on changing the book.
+
+public final class DepthSnapshot {
+    // The snapshot of a book that has not been published yet.
+    public static final DepthSnapshot EMPTY = new DepthSnapshot(0, new Levels(new int[0], new long[0], new int[0], 0),
+            new Levels(new int[0], new long[0], new int[0], 0));
+
+    // The number of the snapshot among those of its publisher, from 1 on; a higher version is more recent.
+    private final long version;
+
+    // The best levels of the bids and of the asks, best price first.
+    private final Levels bids;
+    private final Levels asks;
+
+    // Constructs a new DepthSnapshot; the arrays of the levels are owned by the snapshot from then on.
+    DepthSnapshot(long version, Levels bids, Levels asks) {
+        this.version = version;
+        this.bids = bids;
+        this.asks = asks;
+    }
+
+    // Returns the number of the snapshot among those of its publisher, 0 for the empty snapshot.
+    public long getVersion() {
+        return version;
+    }
+
+    // Returns the number of levels of the given side in the snapshot, at most the depth of the publisher.
+    public int getLevels(OrderType side) {
+        return levels(side).count;
+    }
+
+    // Returns true if the given side of the book had no resting orders.
+    public boolean isEmpty(OrderType side) {
+        return levels(side).count == 0;
+    }
+
+    /**
+     * Returns the price of a level of the given side.
+     *
+     * @param side  The side of the book.
+     * @param level The level, 0 for the best price.
+     * @return The price of the level.
+     * @throws IndexOutOfBoundsException If the side has no such level.
+     */
+    public int getPrice(OrderType side, int level) {
+        Levels levels = levels(side);
+        return levels.prices[levels.check(level)];
+    }
+
+    // Returns the total remaining quantity resting at a level of the given side, 0 for the best price.
+    public long getQuantity(OrderType side, int level) {
+        Levels levels = levels(side);
+        return levels.quantities[levels.check(level)];
+    }
+
+    // Returns the number of orders resting at a level of the given side, 0 for the best price.
+    public int getOrderCount(OrderType side, int level) {
+        Levels levels = levels(side);
+        return levels.orderCounts[levels.check(level)];
+    }
+
+    // Returns the levels of the given side.
+    private Levels levels(OrderType side) {
+        return side == OrderType.BID ? bids : asks;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("DepthSnapshot{version=").append(version).append(", bids=");
+        bids.appendTo(text);
+        text.append(", asks=");
+        asks.appendTo(text);
+        return text.append('}').toString();
+    }
+
+    // The best levels of one side, in arrays that may be longer than the number of levels.
+    static final class Levels {
+        private final int[] prices;
+        private final long[] quantities;
+        private final int[] orderCounts;
+        private final int count;
+
+        Levels(int[] prices, long[] quantities, int[] orderCounts, int count) {
+            this.prices = prices;
+            this.quantities = quantities;
+            this.orderCounts = orderCounts;
+            this.count = count;
+        }
+
+        // Returns the level if the side has it.
+        private int check(int level) {
+            if (level < 0 || level >= count) {
+                throw new IndexOutOfBoundsException("Level " + level + " of " + count);
+            }
+            return level;
+        }
+
+        // Appends the levels as [quantity@price, ...].
+        private void appendTo(StringBuilder text) {
+            text.append('[');
+            for (int i = 0; i < count; i++) {
+                text.append(i == 0 ? "" : ", ").append(quantities[i]).append('@').append(prices[i]);
+            }
+            text.append(']');
+        }
+    }
+}
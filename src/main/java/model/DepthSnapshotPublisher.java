@@ -0,0 +1,104 @@
+package main.java.model;
+
+// The DepthSnapshotPublisher class publishes the top of an order book and its best price levels for readers on other
+// threads, such as risk checks, a UI or a market data feed. The matching thread copies the best levels into a new
+// immutable DepthSnapshot after every order and publishes it through a volatile field; a reader gets the latest
+// snapshot with a single volatile read, so readers never wait and never hold up the matching thread.
+//
+// The publisher listens to the depth changes of the book, so a snapshot is only copied when one of the published
+// levels changed, or a level may have joined them; orders resting deeper in the book cost nothing.
+
+public class DepthSnapshotPublisher implements DepthListener {
+    // The order book whose levels are published.
+    private final OrderBook orderBook;
+
+    // The number of levels of each side published.
+    private final int depth;
+
+    // The latest snapshot, replaced as a whole by the matching thread.
+    private volatile DepthSnapshot snapshot = DepthSnapshot.EMPTY;
+
+    // The state of the latest snapshot, used by the matching thread only: its version, the number of levels of each
+    // side and the worst price of each side (meaningless if the side has fewer levels than the depth).
+    private long version;
+    private int bidLevels;
+    private int askLevels;
+    private int worstBid;
+    private int worstAsk;
+
+    // True if a published level changed since the latest snapshot.
+    private boolean changed;
+
+    /**
+     * Constructs a new DepthSnapshotPublisher and adds it to the depth listeners of the order book.
+     *
+     * @param orderBook The order book whose levels are published.
+     * @param depth     The number of levels of each side published, at least 1 for the top of the book.
+     */
+    public DepthSnapshotPublisher(OrderBook orderBook, int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("The depth of book snapshots must be positive: " + depth);
+        }
+        this.orderBook = orderBook;
+        this.depth = depth;
+        orderBook.addDepthListener(this);
+        // The book may hold orders already
+        changed = true;
+        publish();
+    }
+
+    // Returns the number of levels of each side published.
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the latest snapshot. Can be called from any thread at any time; it never blocks.
+     *
+     * @return The latest snapshot, DepthSnapshot.EMPTY before the first one.
+     */
+    public DepthSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    // Marks the snapshot as changed if the level is one of the published levels, or might become one.
+    @Override
+    public void onLevelUpdate(OrderType side, int price, long quantity, int orderCount) {
+        if (side == OrderType.BID) {
+            changed |= bidLevels < depth || price >= worstBid;
+        } else {
+            changed |= askLevels < depth || price <= worstAsk;
+        }
+    }
+
+    /**
+     * Publishes a new snapshot if the published levels changed since the latest one. Called by the matching thread
+     * after every order, cancel or amend.
+     */
+    public void publish() {
+        if (!changed) {
+            return;
+        }
+        changed = false;
+        DepthSnapshot.Levels bids = copy(OrderType.BID);
+        DepthSnapshot.Levels asks = copy(OrderType.ASK);
+        snapshot = new DepthSnapshot(++version, bids, asks);
+    }
+
+    // Copies the best levels of one side into new arrays and remembers how many there are and the worst price.
+    private DepthSnapshot.Levels copy(OrderType side) {
+        int[] prices = new int[depth];
+        long[] quantities = new long[depth];
+        int[] orderCounts = new int[depth];
+        int count = orderBook.topN(side, depth, prices, quantities, orderCounts);
+        int worst = count > 0 ? prices[count - 1] : 0;
+        if (side == OrderType.BID) {
+            bidLevels = count;
+            worstBid = worst;
+        } else {
+            askLevels = count;
+            worstAsk = worst;
+        }
+        return new DepthSnapshot.Levels(prices, quantities, orderCounts, count);
+    }
+}
@@ -0,0 +1,75 @@
+package main.java.model;
+
+// The HeapOrderStore class keeps the resting orders as objects on the heap: a PriceLadder per side, whose levels link
+// the orders themselves, and an OrderIndex from id to order.
+
+public class HeapOrderStore implements OrderStore {
+    // Buy orders, best (the highest) price first.
+    private final PriceLadder bids = new PriceLadder(OrderType.BID);
+
+    // Sell orders, best (the lowest) price first.
+    private final PriceLadder asks = new PriceLadder(OrderType.ASK);
+
+    // An id index into both ladders, for O(1) cancels and amends.
+    private final OrderIndex index = new OrderIndex();
+
+    @Override
+    public PriceLadder side(OrderType side) {
+        return side == OrderType.BID ? bids : asks;
+    }
+
+    @Override
+    public void add(Order order) {
+        side(order.getOrderType()).add(order);
+        index.put(order);
+    }
+
+    @Override
+    public Order peekBest(OrderType side) {
+        return side(side).peekBest();
+    }
+
+    @Override
+    public Order pollBest(OrderType side) {
+        Order order = side(side).pollBest();
+        if (order != null) {
+            index.remove(order);
+        }
+        return order;
+    }
+
+    @Override
+    public Order get(String id) {
+        return index.get(id);
+    }
+
+    @Override
+    public void remove(Order order) {
+        side(order.getOrderType()).remove(order);
+        index.remove(order);
+    }
+
+    @Override
+    public void fill(Order order, int tradeQuantity) {
+        side(order.getOrderType()).fill(order, tradeQuantity);
+        if (order.isFilled()) {
+            index.remove(order);
+        }
+    }
+
+    @Override
+    public void amend(Order order, int newQuantity) {
+        side(order.getOrderType()).amend(order, newQuantity);
+    }
+
+    @Override
+    public int topLevels(OrderType side, int n, int[] prices, long[] quantities, int[] orderCounts) {
+        return side(side).topLevels(n, prices, quantities, orderCounts);
+    }
+
+    @Override
+    public void setDepthListener(DepthListener depthListener) {
+        bids.setDepthListener(depthListener);
+        asks.setDepthListener(depthListener);
+    }
+}
@@ -0,0 +1,260 @@
+package main.java.model;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+// The LevelIndex class maps the prices of one side of the book to the indexes of the level arrays of its owner (a
+// PriceLadder or a side of an OffHeapOrderStore) and keeps track of the non-empty levels in price priority.
+// Prices within a window of at most MAX_WINDOW ticks get the index of their tick, so the common case is a subtraction
+// and a bit in a bit set. A price too far away for the window to cover it gets an overflow index after the window,
+// found through a sorted map, so any int price can rest in the book without allocating a level for every tick in
+// between. A price keeps its overflow index for as long as its level holds orders, even if the window grows over it.
+//
+//   level arrays:  [0, window) the ticks basePrice, basePrice + 1, ... | [window, window + overflow) the outliers
+//
+// When the window or the overflow has to grow, the owner re-allocates its arrays and moves their content with move.
+
+final class LevelIndex {
+    // The largest number of ticks covered by the window, so a side never allocates more than this many levels for it.
+    static final int MAX_WINDOW = 1 << 20;
+
+    // The initial number of ticks covered by the window, and of overflow levels, once the first one is needed.
+    private static final int INITIAL_WINDOW = 64;
+    private static final int INITIAL_OVERFLOW = 8;
+
+    // The level arrays of an owner, which are re-allocated when the index grows.
+    interface Levels {
+        /**
+         * Re-allocates the level arrays with the given length and moves the existing levels into them with
+         * LevelIndex.move.
+         *
+         * @param length The new length of the level arrays.
+         */
+        void resize(int length);
+    }
+
+    // The side of the book. Bids are best at the highest price, asks at the lowest.
+    private final OrderType side;
+
+    // The owner of the level arrays.
+    private final Levels levels;
+
+    // The price of index 0, and the number of ticks covered by the window.
+    private int basePrice;
+    private int window;
+
+    // Marks the window indexes of the levels that currently hold at least one order.
+    private BitSet occupied = new BitSet();
+
+    // The overflow slot (its index minus the window) of every price outside the window holding orders, and the price
+    // of every overflow slot.
+    private final TreeMap<Integer, Integer> overflow = new TreeMap<>();
+    private int[] overflowPrices = new int[0];
+
+    // The overflow slots freed when their level emptied out, and their number.
+    private int[] freeSlots = new int[0];
+    private int freeCount;
+
+    // The number of overflow slots ever handed out.
+    private int overflowUsed;
+
+    // The index of the best non-empty level, or -1 if there is none.
+    private int bestIndex = -1;
+
+    // The layout being moved from and to during a resize: the window before and after, and the shift of the window.
+    private int oldWindow;
+    private int newWindow;
+    private int shift;
+
+    LevelIndex(OrderType side, Levels levels) {
+        this.side = side;
+        this.levels = levels;
+    }
+
+    // Returns the index of the best non-empty level, or -1 if there is none.
+    int best() {
+        return bestIndex;
+    }
+
+    // Returns the price of the level at the given index.
+    int priceOf(int index) {
+        return index < window ? basePrice + index : overflowPrices[index - window];
+    }
+
+    /**
+     * Returns the index of the level of the given price, for an order joining it. The window grows to cover the
+     * price if it can stay within MAX_WINDOW ticks; otherwise the price gets an overflow index.
+     *
+     * @param price The price of the order.
+     * @return The index of its level.
+     */
+    int add(int price) {
+        if (!overflow.isEmpty()) {
+            Integer slot = overflow.get(price);
+            if (slot != null) {
+                return window + slot;
+            }
+        }
+        if (window == 0) {
+            // Center the first window around the first price seen
+            basePrice = (int) Math.max(Integer.MIN_VALUE, (long) price - INITIAL_WINDOW / 2);
+            resize(INITIAL_WINDOW, 0);
+        } else if (!inWindow(price)) {
+            long low = Math.min(basePrice, price);
+            long high = Math.max((long) basePrice + window, (long) price + 1);
+            if (high - low > MAX_WINDOW) {
+                return addOverflow(price);
+            }
+            int capacity = (int) Math.min(MAX_WINDOW, Math.max(window * 2L, high - low));
+            // Spread the extra headroom in the direction the window had to grow
+            long newBase = Math.max(Integer.MIN_VALUE, price < basePrice ? high - capacity : low);
+            resize(capacity, (int) (basePrice - newBase));
+        }
+        return price - basePrice;
+    }
+
+    /**
+     * Returns the index of the level of the given price, which must hold at least one order.
+     *
+     * @param price The price of a resting order.
+     * @return The index of its level.
+     */
+    int find(int price) {
+        if (!overflow.isEmpty()) {
+            Integer slot = overflow.get(price);
+            if (slot != null) {
+                return window + slot;
+            }
+        }
+        return price - basePrice;
+    }
+
+    // Records that the level at the given index holds orders, updating the best level.
+    void occupy(int index) {
+        if (index < window) {
+            occupied.set(index);
+        }
+        // A new level can only improve the best price, never worsen it
+        if (bestIndex < 0 || isBetter(priceOf(index), priceOf(bestIndex))) {
+            bestIndex = index;
+        }
+    }
+
+    // Records that the level at the given index holds no orders anymore, updating the best level.
+    void vacate(int index) {
+        int next = index == bestIndex ? next(index) : -1;
+        if (index < window) {
+            occupied.clear(index);
+        } else {
+            int slot = index - window;
+            overflow.remove(overflowPrices[slot]);
+            if (freeCount == freeSlots.length) {
+                int[] grown = new int[Math.max(INITIAL_OVERFLOW, freeSlots.length * 2)];
+                System.arraycopy(freeSlots, 0, grown, 0, freeCount);
+                freeSlots = grown;
+            }
+            freeSlots[freeCount++] = slot;
+        }
+        if (index == bestIndex) {
+            bestIndex = next;
+        }
+    }
+
+    /**
+     * Returns the index of the next non-empty level worse than the level at the given index, or -1 if there is none.
+     *
+     * @param index The index of a level.
+     * @return The index of the next level in price priority.
+     */
+    int next(int index) {
+        if (overflow.isEmpty() && index < window) {
+            return nextInWindow(index + (side == OrderType.BID ? -1 : 1));
+        }
+        int price = priceOf(index);
+        // The best window level worse than the price
+        long from = side == OrderType.BID
+                ? Math.min((long) price - 1 - basePrice, window - 1L)
+                : Math.max((long) price + 1 - basePrice, 0L);
+        int windowNext = from < 0 || from >= window ? -1 : nextInWindow((int) from);
+        // The best overflow level worse than the price
+        Map.Entry<Integer, Integer> entry = side == OrderType.BID ? overflow.lowerEntry(price) : overflow.higherEntry(price);
+        if (entry == null) {
+            return windowNext;
+        }
+        int overflowNext = window + entry.getValue();
+        return windowNext < 0 || isBetter(entry.getKey(), priceOf(windowNext)) ? overflowNext : windowNext;
+    }
+
+    /**
+     * Moves the content of a level array of the layout before a resize into one of the layout after it: the window
+     * levels by the shift of the window, and the overflow levels after the new window.
+     *
+     * @param from The level array before the resize, or null if there was none.
+     * @param to   The level array after the resize.
+     */
+    void move(Object from, Object to) {
+        if (from == null) {
+            return;
+        }
+        System.arraycopy(from, 0, to, shift, oldWindow);
+        System.arraycopy(from, oldWindow, to, newWindow, overflowUsed);
+    }
+
+    // Returns true if the price is covered by the window.
+    private boolean inWindow(int price) {
+        return price >= basePrice && (long) price - basePrice < window;
+    }
+
+    // Finds the next non-empty window level at or worse than the given window index, or -1 if there is none.
+    private int nextInWindow(int from) {
+        return side == OrderType.BID ? occupied.previousSetBit(from) : occupied.nextSetBit(from);
+    }
+
+    // Returns true if price a is better than price b for this side.
+    private boolean isBetter(int a, int b) {
+        return side == OrderType.BID ? a > b : a < b;
+    }
+
+    // Hands out an overflow slot for the price, growing the overflow if no freed slot is left.
+    private int addOverflow(int price) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (overflowUsed == overflowPrices.length) {
+                int capacity = Math.max(INITIAL_OVERFLOW, overflowPrices.length * 2);
+                int[] grown = new int[capacity];
+                System.arraycopy(overflowPrices, 0, grown, 0, overflowUsed);
+                overflowPrices = grown;
+                resize(window, 0);
+            }
+            slot = overflowUsed++;
+        }
+        overflowPrices[slot] = price;
+        overflow.put(price, slot);
+        return window + slot;
+    }
+
+    // Re-allocates the level arrays of the owner for a window of the given capacity, shifted up by the given ticks.
+    private void resize(int capacity, int windowShift) {
+        oldWindow = window;
+        newWindow = capacity;
+        shift = windowShift;
+        levels.resize(capacity + overflowPrices.length);
+
+        // The bit set cannot be shifted in place, so rebuild it
+        if (windowShift != 0) {
+            BitSet newOccupied = new BitSet(capacity);
+            for (int i = occupied.nextSetBit(0); i >= 0; i = occupied.nextSetBit(i + 1)) {
+                newOccupied.set(i + windowShift);
+            }
+            occupied = newOccupied;
+        }
+        if (bestIndex >= 0) {
+            bestIndex = bestIndex < window ? bestIndex + windowShift : bestIndex - window + capacity;
+        }
+        basePrice -= windowShift;
+        window = capacity;
+    }
+}
@@ -0,0 +1,657 @@
+package main.java.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// The OffHeapOrderStore class keeps the resting orders outside of the heap, so the garbage collector never sees them
+// and its pauses do not grow with the depth of the book. Orders are fixed-width slots in slabs of direct memory,
+// linked into the FIFO queues of their price levels by slot number, and freed slots are reused through a free list.
+// The id index is an open-addressing table in direct memory too. What stays on the heap does not grow with the
+// number of orders: the per-tick arrays of the price levels, bounded like those of a PriceLadder, and a few reused
+// flyweights, through which the book reads and changes the order in a slot. Ids that are not numbers are the exception: they are interned on the heap.
+//
+//   slot:  0 key (long) | 8 sequence (long) | 16 price (int) | 20 quantity (int) | 24 previous (int) | 28 next (int)
+//          | 32 side (byte) | 33 reserved (7 bytes)
+//
+// A flyweight returned by the store is only valid until the next call to the store.
+
+public class OffHeapOrderStore implements OrderStore {
+    // The offsets of the fields of a slot and its size.
+    private static final int KEY = 0;
+    private static final int SEQUENCE = 8;
+    private static final int PRICE = 16;
+    private static final int QUANTITY = 20;
+    private static final int PREVIOUS = 24;
+    private static final int NEXT = 28;
+    private static final int SIDE = 32;
+    private static final int SLOT_SIZE = 40;
+
+    // The number of slots of a slab, as a power of two, so a slab holds 2.5 MB.
+    private static final int SLAB_SHIFT = 16;
+    private static final int SLAB_MASK = (1 << SLAB_SHIFT) - 1;
+
+    // The slot number standing for no slot, e.g. the end of a queue or of the free list.
+    private static final int NONE = -1;
+
+    // The slabs holding the slots.
+    private ByteBuffer[] slabs = new ByteBuffer[16];
+
+    // The number of slots ever handed out; slots below it are in use or on the free list.
+    private int slotCount;
+
+    // The first slot of the free list, linked through the next field, or NONE.
+    private int freeHead = NONE;
+
+    // The buy orders and the sell orders.
+    private final Side bids = new Side(OrderType.BID);
+    private final Side asks = new Side(OrderType.ASK);
+
+    // The slot of every resting order by key.
+    private final SlotIndex index = new SlotIndex();
+
+    // The keys ids that are not numbers were interned as, and the ids by interned key.
+    private final Map<String, Long> interned = new HashMap<>();
+    private final List<String> internedIds = new ArrayList<>();
+
+    // The flyweights handed out for the best order of each side and for an order looked up by id.
+    private final Flyweight bestBid = new Flyweight();
+    private final Flyweight bestAsk = new Flyweight();
+    private final Flyweight found = new Flyweight();
+
+    // An optional listener notified of every change of a level.
+    private DepthListener depthListener;
+
+    @Override
+    public BookSide side(OrderType side) {
+        return sideOf(side);
+    }
+
+    // Returns the side holding the orders of the given type.
+    private Side sideOf(OrderType side) {
+        return side == OrderType.BID ? bids : asks;
+    }
+
+    @Override
+    public void add(Order order) {
+        long key = keyOf(order);
+        int slot = allocate();
+        ByteBuffer slab = slab(slot);
+        int offset = offset(slot);
+        slab.putLong(offset + KEY, key);
+        slab.putLong(offset + SEQUENCE, order.getSequence());
+        slab.putInt(offset + PRICE, order.getPrice());
+        slab.putInt(offset + QUANTITY, order.getQuantity());
+        slab.put(offset + SIDE, (byte) order.getOrderType().ordinal());
+        sideOf(order.getOrderType()).link(slot);
+        index.put(key, slot);
+    }
+
+    // Returns the key of the order: its numeric id, or the key its id is interned as.
+    private long keyOf(Order order) {
+        long key = order.getNumericId();
+        if (key != Order.NOT_NUMERIC) {
+            return key;
+        }
+        Long code = interned.get(order.getId());
+        if (code == null) {
+            code = Order.NOT_NUMERIC - 1 - internedIds.size();
+            interned.put(order.getId(), code);
+            internedIds.add(order.getId());
+        }
+        return code;
+    }
+
+    @Override
+    public Order peekBest(OrderType side) {
+        int slot = sideOf(side).bestSlot();
+        if (slot == NONE) {
+            return null;
+        }
+        Flyweight best = side == OrderType.BID ? bestBid : bestAsk;
+        best.slot = slot;
+        return best;
+    }
+
+    @Override
+    public Order pollBest(OrderType side) {
+        int slot = sideOf(side).bestSlot();
+        if (slot == NONE) {
+            return null;
+        }
+        // The slot is reused, so the removed order is copied back onto the heap
+        Flyweight best = side == OrderType.BID ? bestBid : bestAsk;
+        best.slot = slot;
+        Order order = new Order(best.getId(), side, best.getPrice(), best.getQuantity());
+        order.setSequence(best.getSequence());
+        release(slot);
+        return order;
+    }
+
+    @Override
+    public Order get(String id) {
+        long key = Order.parseId(id);
+        if (key == Order.NOT_NUMERIC) {
+            Long code = interned.get(id);
+            if (code == null) {
+                return null;
+            }
+            key = code;
+        }
+        int slot = index.get(key);
+        if (slot == NONE) {
+            return null;
+        }
+        found.slot = slot;
+        return found;
+    }
+
+    @Override
+    public void remove(Order order) {
+        release(slotOf(order));
+    }
+
+    @Override
+    public void fill(Order order, int tradeQuantity) {
+        int slot = slotOf(order);
+        int quantity = quantity(slot);
+        if (tradeQuantity <= 0 || tradeQuantity > quantity) {
+            throw new IllegalArgumentException("Invalid fill quantity " + tradeQuantity + " for order " + order.getId() + " with remaining quantity " + quantity);
+        }
+        if (tradeQuantity == quantity) {
+            // A partially filled order keeps its place; a filled one leaves the book
+            release(slot);
+            return;
+        }
+        slab(slot).putInt(offset(slot) + QUANTITY, quantity - tradeQuantity);
+        sideOf(slot).changeQuantity(slot, -tradeQuantity);
+    }
+
+    @Override
+    public void amend(Order order, int newQuantity) {
+        if (newQuantity <= 0) {
+            throw new IllegalArgumentException("Invalid quantity " + newQuantity + " for order " + order.getId());
+        }
+        int slot = slotOf(order);
+        int quantity = quantity(slot);
+        Side side = sideOf(slot);
+        if (newQuantity > quantity) {
+            // An increase loses time priority: the order goes to the back of its level
+            side.unlink(slot);
+            slab(slot).putInt(offset(slot) + QUANTITY, newQuantity);
+            side.link(slot);
+        } else {
+            slab(slot).putInt(offset(slot) + QUANTITY, newQuantity);
+            side.changeQuantity(slot, (long) newQuantity - quantity);
+        }
+    }
+
+    @Override
+    public int topLevels(OrderType side, int n, int[] prices, long[] quantities, int[] orderCounts) {
+        return sideOf(side).topLevels(n, prices, quantities, orderCounts);
+    }
+
+    @Override
+    public void setDepthListener(DepthListener depthListener) {
+        this.depthListener = depthListener;
+    }
+
+    // Returns the number of slots ever handed out, which is the peak number of resting orders.
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    // Returns the slot a flyweight of this store points at.
+    private static int slotOf(Order order) {
+        return ((Flyweight) order).slot;
+    }
+
+    // Unlinks the order in the given slot from its level, unindexes it and frees the slot.
+    private void release(int slot) {
+        sideOf(slot).unlink(slot);
+        index.remove(key(slot), slot);
+        slab(slot).putInt(offset(slot) + NEXT, freeHead);
+        freeHead = slot;
+    }
+
+    // Returns a free slot, from the free list or by growing the slabs.
+    private int allocate() {
+        if (freeHead != NONE) {
+            int slot = freeHead;
+            freeHead = slab(slot).getInt(offset(slot) + NEXT);
+            return slot;
+        }
+        int slot = slotCount++;
+        int slab = slot >>> SLAB_SHIFT;
+        if (slab == slabs.length) {
+            ByteBuffer[] grown = new ByteBuffer[slabs.length * 2];
+            System.arraycopy(slabs, 0, grown, 0, slabs.length);
+            slabs = grown;
+        }
+        if (slabs[slab] == null) {
+            slabs[slab] = ByteBuffer.allocateDirect(SLOT_SIZE << SLAB_SHIFT).order(ByteOrder.nativeOrder());
+        }
+        return slot;
+    }
+
+    // Returns the slab holding the given slot.
+    private ByteBuffer slab(int slot) {
+        return slabs[slot >>> SLAB_SHIFT];
+    }
+
+    // Returns the offset of the given slot in its slab.
+    private static int offset(int slot) {
+        return (slot & SLAB_MASK) * SLOT_SIZE;
+    }
+
+    // Returns the fields of the order in the given slot.
+    private long key(int slot) {
+        return slab(slot).getLong(offset(slot) + KEY);
+    }
+
+    private int price(int slot) {
+        return slab(slot).getInt(offset(slot) + PRICE);
+    }
+
+    private int quantity(int slot) {
+        return slab(slot).getInt(offset(slot) + QUANTITY);
+    }
+
+    private int previous(int slot) {
+        return slab(slot).getInt(offset(slot) + PREVIOUS);
+    }
+
+    private int next(int slot) {
+        return slab(slot).getInt(offset(slot) + NEXT);
+    }
+
+    // Returns the side the order in the given slot rests on.
+    private Side sideOf(int slot) {
+        return slab(slot).get(offset(slot) + SIDE) == OrderType.BID.ordinal() ? bids : asks;
+    }
+
+    // One side of the book: the price levels of its orders, indexed by a LevelIndex like those of a PriceLadder,
+    // each level a FIFO queue of slots with its order count and total quantity.
+    private class Side implements BookSide {
+        // The side of the book. Bids are best at the highest price, asks at the lowest.
+        private final OrderType type;
+
+        // The oldest and newest slot, the number of orders and their total quantity of every level, by level index.
+        private int[] heads;
+        private int[] tails;
+        private int[] counts;
+        private long[] quantities;
+
+        // Maps prices to indexes of the level arrays and keeps track of the non-empty levels and the best one.
+        private final LevelIndex index;
+
+        // The total number of resting orders over all levels.
+        private int size;
+
+        Side(OrderType type) {
+            this.type = type;
+            this.index = new LevelIndex(type, this::resize);
+        }
+
+        @Override
+        public OrderType getSide() {
+            return type;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int getBestPrice() {
+            return index.priceOf(index.best());
+        }
+
+        // Returns the oldest slot at the best price, or NONE if the side is empty.
+        int bestSlot() {
+            int best = index.best();
+            return best < 0 ? NONE : heads[best];
+        }
+
+        // Appends the slot to the back of the queue of its price level.
+        void link(int slot) {
+            int level = index.add(price(slot));
+            ByteBuffer slab = slab(slot);
+            int offset = offset(slot);
+            // The tail of an empty level is stale, so the slot then has no previous slot
+            int tail = counts[level] == 0 ? NONE : tails[level];
+            slab.putInt(offset + PREVIOUS, tail);
+            slab.putInt(offset + NEXT, NONE);
+            if (counts[level] == 0) {
+                heads[level] = slot;
+                index.occupy(level);
+            } else {
+                slab(tail).putInt(offset(tail) + NEXT, slot);
+            }
+            tails[level] = slot;
+            counts[level]++;
+            quantities[level] += quantity(slot);
+            size++;
+            publish(level);
+        }
+
+        // Unlinks the slot from wherever it is in the queue of its price level.
+        void unlink(int slot) {
+            int level = index.find(price(slot));
+            int previous = previous(slot);
+            int next = next(slot);
+            if (previous == NONE) {
+                heads[level] = next;
+            } else {
+                slab(previous).putInt(offset(previous) + NEXT, next);
+            }
+            if (next == NONE) {
+                tails[level] = previous;
+            } else {
+                slab(next).putInt(offset(next) + PREVIOUS, previous);
+            }
+            counts[level]--;
+            quantities[level] -= quantity(slot);
+            size--;
+            if (counts[level] == 0) {
+                index.vacate(level);
+            }
+            publish(level);
+        }
+
+        // Records that the quantity of the order in the given slot changed in place by the given (signed) amount.
+        void changeQuantity(int slot, long delta) {
+            int level = index.find(price(slot));
+            quantities[level] += delta;
+            publish(level);
+        }
+
+        // Copies the best n levels into the given arrays, best price first, like PriceLadder.topLevels.
+        int topLevels(int n, int[] prices, long[] levelQuantities, int[] orderCounts) {
+            if (n > prices.length || n > levelQuantities.length || n > orderCounts.length) {
+                throw new IllegalArgumentException("The arrays cannot hold " + n + " levels");
+            }
+            int count = 0;
+            for (int level = index.best(); level >= 0 && count < n; level = index.next(level)) {
+                prices[count] = index.priceOf(level);
+                levelQuantities[count] = quantities[level];
+                orderCounts[count] = counts[level];
+                count++;
+            }
+            return count;
+        }
+
+        // Notifies the depth listener, if any, of the new state of the level at the given index.
+        private void publish(int level) {
+            if (depthListener != null) {
+                depthListener.onLevelUpdate(type, index.priceOf(level), quantities[level], counts[level]);
+            }
+        }
+
+        // Re-allocates the level arrays for the new layout of the level index.
+        private void resize(int length) {
+            int[] newHeads = new int[length];
+            int[] newTails = new int[length];
+            int[] newCounts = new int[length];
+            long[] newQuantities = new long[length];
+            index.move(heads, newHeads);
+            index.move(tails, newTails);
+            index.move(counts, newCounts);
+            index.move(quantities, newQuantities);
+            heads = newHeads;
+            tails = newTails;
+            counts = newCounts;
+            quantities = newQuantities;
+        }
+
+        // Returns an iterator over the orders of this side in price-time priority, through a flyweight of its own.
+        @Override
+        public Iterator<Order> iterator() {
+            return new Iterator<Order>() {
+                private final Flyweight flyweight = new Flyweight();
+                private int levelIndex = index.best();
+                private int nextSlot = levelIndex < 0 ? NONE : heads[levelIndex];
+
+                @Override
+                public boolean hasNext() {
+                    return nextSlot != NONE;
+                }
+
+                @Override
+                public Order next() {
+                    if (nextSlot == NONE) {
+                        throw new NoSuchElementException();
+                    }
+                    flyweight.slot = nextSlot;
+                    nextSlot = OffHeapOrderStore.this.next(nextSlot);
+                    if (nextSlot == NONE) {
+                        levelIndex = index.next(levelIndex);
+                        nextSlot = levelIndex < 0 ? NONE : heads[levelIndex];
+                    }
+                    return flyweight;
+                }
+            };
+        }
+    }
+
+    // An order read from and written to a slot. Changing its quantity directly bypasses the depth of its level, so
+    // resting orders are filled and amended through the store, as with the heap store.
+    private final class Flyweight extends Order {
+        // The slot the flyweight points at.
+        private int slot;
+
+        @Override
+        public String getId() {
+            long key = key(slot);
+            return key >= 0 ? Long.toString(key) : internedIds.get((int) (Order.NOT_NUMERIC - 1 - key));
+        }
+
+        @Override
+        public long getNumericId() {
+            long key = key(slot);
+            return key >= 0 ? key : Order.NOT_NUMERIC;
+        }
+
+        @Override
+        public OrderType getOrderType() {
+            return sideOf(slot).type;
+        }
+
+        @Override
+        public int getPrice() {
+            return price(slot);
+        }
+
+        @Override
+        public int getQuantity() {
+            return quantity(slot);
+        }
+
+        @Override
+        public long getSequence() {
+            return slab(slot).getLong(offset(slot) + SEQUENCE);
+        }
+
+        @Override
+        void setSequence(long sequence) {
+            slab(slot).putLong(offset(slot) + SEQUENCE, sequence);
+        }
+
+        @Override
+        public void fill(int tradeQuantity) {
+            int quantity = getQuantity();
+            if (tradeQuantity <= 0 || tradeQuantity > quantity) {
+                throw new IllegalArgumentException("Invalid fill quantity " + tradeQuantity + " for order " + getId() + " with remaining quantity " + quantity);
+            }
+            slab(slot).putInt(offset(slot) + QUANTITY, quantity - tradeQuantity);
+        }
+
+        @Override
+        public void amend(int newQuantity) {
+            if (newQuantity <= 0) {
+                throw new IllegalArgumentException("Invalid quantity " + newQuantity + " for order " + getId());
+            }
+            slab(slot).putInt(offset(slot) + QUANTITY, newQuantity);
+        }
+
+        @Override
+        public boolean isFilled() {
+            return getQuantity() == 0;
+        }
+    }
+
+    // The slot of every resting order by key: an open-addressing table with linear probing in pages of direct memory,
+    // with entries of a key and its slot plus one (0 marks a free entry, so new pages need no initialization).
+    private static final class SlotIndex {
+        // The size of an entry, and the offsets of its fields.
+        private static final int ENTRY_SIZE = 16;
+        private static final int ENTRY_KEY = 0;
+        private static final int ENTRY_SLOT = 8;
+
+        // The number of entries of a page, as a power of two, so a page holds 16 MB.
+        private static final int PAGE_SHIFT = 20;
+
+        // The number of entries the index starts with, a power of two.
+        private static final int INITIAL_CAPACITY = 1024;
+
+        // The pages holding the entries, and the number of entries over all pages.
+        private ByteBuffer[] pages;
+        private int capacity;
+
+        // The number of indexed slots.
+        private int size;
+
+        SlotIndex() {
+            allocate(INITIAL_CAPACITY);
+        }
+
+        // Allocates empty pages for the given number of entries.
+        private void allocate(int entries) {
+            int pageEntries = Math.min(entries, 1 << PAGE_SHIFT);
+            pages = new ByteBuffer[entries / pageEntries];
+            for (int i = 0; i < pages.length; i++) {
+                pages[i] = ByteBuffer.allocateDirect(pageEntries * ENTRY_SIZE).order(ByteOrder.nativeOrder());
+            }
+            capacity = entries;
+        }
+
+        // Returns the page holding the given entry.
+        private ByteBuffer page(int entry) {
+            return pages[entry >>> PAGE_SHIFT];
+        }
+
+        // Returns the offset of the given entry in its page.
+        private static int offset(int entry) {
+            return (entry & ((1 << PAGE_SHIFT) - 1)) * ENTRY_SIZE;
+        }
+
+        // Returns the slot stored in the given entry, or NONE if the entry is free.
+        private int slotAt(int entry) {
+            return page(entry).getInt(offset(entry) + ENTRY_SLOT) - 1;
+        }
+
+        private long keyAt(int entry) {
+            return page(entry).getLong(offset(entry) + ENTRY_KEY);
+        }
+
+        private void set(int entry, long key, int slot) {
+            ByteBuffer page = page(entry);
+            page.putLong(offset(entry) + ENTRY_KEY, key);
+            page.putInt(offset(entry) + ENTRY_SLOT, slot + 1);
+        }
+
+        // Returns the slot indexed under the given key, or NONE.
+        int get(long key) {
+            int mask = capacity - 1;
+            for (int entry = spread(key) & mask; slotAt(entry) != NONE; entry = (entry + 1) & mask) {
+                if (keyAt(entry) == key) {
+                    return slotAt(entry);
+                }
+            }
+            return NONE;
+        }
+
+        // Indexes the slot under the given key, replacing the slot indexed under the same key, if any.
+        void put(long key, int slot) {
+            int mask = capacity - 1;
+            int entry = spread(key) & mask;
+            while (slotAt(entry) != NONE) {
+                if (keyAt(entry) == key) {
+                    set(entry, key, slot);
+                    return;
+                }
+                entry = (entry + 1) & mask;
+            }
+            set(entry, key, slot);
+            size++;
+
+            // Keep the table at most half full
+            if (size * 2 > capacity) {
+                rehash();
+            }
+        }
+
+        // Removes the key if it is indexed for the given slot, back-filling the gap like OrderIndex.remove.
+        void remove(long key, int slot) {
+            int mask = capacity - 1;
+            int entry = spread(key) & mask;
+            while (slotAt(entry) != slot || keyAt(entry) != key) {
+                if (slotAt(entry) == NONE) {
+                    return;
+                }
+                entry = (entry + 1) & mask;
+            }
+            set(entry, 0, NONE);
+            size--;
+
+            int gap = entry;
+            for (int next = (gap + 1) & mask; slotAt(next) != NONE; next = (next + 1) & mask) {
+                int home = spread(keyAt(next)) & mask;
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    set(gap, keyAt(next), slotAt(next));
+                    set(next, 0, NONE);
+                    gap = next;
+                }
+            }
+        }
+
+        // Folds the key into the bits used to pick an entry, like OrderIndex.
+        private static int spread(long key) {
+            int hash = (int) (key ^ (key >>> 32));
+            return hash ^ (hash >>> 16);
+        }
+
+        // Doubles the number of entries and re-inserts every slot.
+        private void rehash() {
+            ByteBuffer[] oldPages = pages;
+            int oldCapacity = capacity;
+            int oldPageShift = Integer.numberOfTrailingZeros(oldPages[0].capacity() / ENTRY_SIZE);
+            allocate(capacity * 2);
+            int mask = capacity - 1;
+            for (int i = 0; i < oldCapacity; i++) {
+                ByteBuffer page = oldPages[i >>> oldPageShift];
+                int offset = (i & ((1 << oldPageShift) - 1)) * ENTRY_SIZE;
+                int slot = page.getInt(offset + ENTRY_SLOT) - 1;
+                if (slot != NONE) {
+                    long key = page.getLong(offset + ENTRY_KEY);
+                    int entry = spread(key) & mask;
+                    while (slotAt(entry) != NONE) {
+                        entry = (entry + 1) & mask;
+                    }
+                    set(entry, key, slot);
+                }
+            }
+        }
+    }
+}
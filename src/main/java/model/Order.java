@@ -1,37 +1,97 @@
 package main.java.model;
 
-import java.util.Objects;
-
 // The Order class represents an order to buy or sell a certain quantity of a stock at a specific price.
 
 public class Order implements Comparable<Order> {
+    // The numeric id of orders whose id is not a canonical non-negative decimal number.
+    public static final long NOT_NUMERIC = -1;
+
     // The id of the order, used to uniquely identify it.
     private final String id;
 
+    // The key the order is indexed under, so ids are compared and hashed as primitives: the id parsed into a number,
+    // or a negative code (NOT_NUMERIC until an index interns the id) for ids that are not numbers.
+    long key;
+
+    // The arrival sequence number of the order in its book, which orders equal prices by time priority.
+    long sequence;
+
     // The type of the order, either OrderType.BID (for buy) or OrderType.ASK (for sell).
     private final OrderType orderType;
 
     // The price at which the order is placed.
     private final int price;
 
-    // The quantity of the stock that is being bought or sold.
-    private final int quantity;
+    // The quantity of the stock that is still to be bought or sold. It is decremented in place as the order is filled.
+    private int quantity;
+
+    // The neighbours of the order in the FIFO queue of its price level while it rests in the book, otherwise null.
+    // Keeping the links in the order itself lets the book unlink a cancelled order in O(1).
+    Order previous;
+    Order next;
 
     // Constructs a new Order object with the given id, order type, price, and quantity.
     public Order(String id, OrderType orderType, int price, int quantity) {
 
         // Initialize the instance variables with the given parameters.
         this.id = id;
+        this.key = parseId(id);
         this.orderType = orderType;
         this.price = price;
         this.quantity = quantity;
     }
 
+    // Constructs an empty order for a flyweight, whose accessors read an order kept outside of the heap instead.
+    Order() {
+        this.id = null;
+        this.key = NOT_NUMERIC;
+        this.orderType = null;
+        this.price = 0;
+    }
+
     // Returns the id of the order.
     public String getId() {
         return id;
     }
 
+    // Returns the id parsed into a number, or NOT_NUMERIC if the id is not a canonical non-negative decimal number.
+    public long getNumericId() {
+        return key >= 0 ? key : NOT_NUMERIC;
+    }
+
+    // Returns the arrival sequence number of the order in its book; later orders have higher numbers.
+    public long getSequence() {
+        return sequence;
+    }
+
+    // Sets the arrival sequence number of the order, when it joins its book or loses its time priority.
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Parses an order id into a number without allocating. Only canonical non-negative decimal numbers that fit in a
+     * long are numeric, so two ids are equal if and only if their numbers are.
+     *
+     * @param id The id of the order.
+     * @return The number, or NOT_NUMERIC if the id is not a canonical non-negative decimal number.
+     */
+    public static long parseId(String id) {
+        int length = id.length();
+        if (length == 0 || length > 19 || (id.charAt(0) == '0' && length > 1)) {
+            return NOT_NUMERIC;
+        }
+        long result = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = id.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result > (Long.MAX_VALUE - digit) / 10) {
+                return NOT_NUMERIC;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
     // Returns the price of the order.
     public int getPrice() {
         return price;
@@ -42,52 +102,88 @@ public class Order implements Comparable<Order> {
         return orderType;
     }
 
-    // Returns the quantity of the stock that is being bought or sold.
+    // Returns the quantity of the stock that is still to be bought or sold.
     public int getQuantity() {
         return quantity;
     }
 
+    // Reduces the remaining quantity of the order by the given traded quantity, without allocating a new Order.
+    public void fill(int tradeQuantity) {
+        if (tradeQuantity <= 0 || tradeQuantity > quantity) {
+            throw new IllegalArgumentException("Invalid fill quantity " + tradeQuantity + " for order " + id + " with remaining quantity " + quantity);
+        }
+        quantity -= tradeQuantity;
+    }
+
+    // Changes the remaining quantity of the order, e.g. when it is amended while resting in the book.
+    public void amend(int newQuantity) {
+        if (newQuantity <= 0) {
+            throw new IllegalArgumentException("Invalid quantity " + newQuantity + " for order " + id);
+        }
+        quantity = newQuantity;
+    }
+
+    // Returns true if the order has no quantity left to trade.
+    public boolean isFilled() {
+        return quantity == 0;
+    }
+
     // Returns a string representation of the order, including its id, type, price, and quantity.
     @Override
     public String toString() {
         return "Order{" +
-                "id='" + id + '\'' +
-                ", orderType=" + orderType +
-                ", price=" + price +
-                ", quantity=" + quantity +
+                "id='" + getId() + '\'' +
+                ", orderType=" + getOrderType() +
+                ", price=" + getPrice() +
+                ", quantity=" + getQuantity() +
                 '}';
     }
 
     // Returns true if this order is equal to the given object.
-    // Two orders are considered equal if they have the same id, type, price, and quantity.
+    // Two orders are considered equal if they have the same id, whether they are kept on the heap or read through a
+    // flyweight. The id is all that identifies an order: its quantity changes as it is filled and amended, so an order
+    // stays equal to itself, and keeps its hash code, while it rests in a hash-based collection.
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof Order)) return false;
         Order order = (Order) o;
-        return price == order.price && quantity == order.quantity && id.equals(order.id) && orderType == order.orderType;
+        long numericId = getNumericId();
+        return numericId == order.getNumericId() && (numericId != NOT_NUMERIC || getId().equals(order.getId()));
     }
 
-    // Returns the hash code of the order, based on its id, type, price, and quantity.
+    // Returns the hash code of the order, based on its id only, without boxing.
     @Override
     public int hashCode() {
-        return Objects.hash(id, orderType, price, quantity);
+        long numericId = getNumericId();
+        return numericId != NOT_NUMERIC ? Long.hashCode(numericId) : getId().hashCode();
     }
 
-    // Compares this order to the given order, based on their type, price, and id.
+    // Compares this order to the given order, based on their type, price, and arrival.
     // Orders with the same type are sorted by their price, with buy orders (bids) sorted in descending order,
     // and sell orders (asks) sorted in ascending order.
-    // If two orders have the same price, they are sorted by their id in ascending order.
+    // If two orders have the same price, the one that arrived first comes first, whatever their ids. Orders that are
+    // not in a book have no arrival yet, so they fall back to their ids: numeric ids by number, after the other ids.
     @Override
     public int compareTo(Order o) {
-        if (!this.getOrderType().equals(o.getOrderType())) {
+        if (getOrderType() != o.getOrderType()) {
             throw new IllegalArgumentException("Cannot compare orders with different sides");
         }
-        int priceComparison = Integer.compare(o.getPrice(), this.getPrice());
+        int priceComparison = getOrderType() == OrderType.BID
+                ? Integer.compare(o.getPrice(), getPrice())
+                : Integer.compare(getPrice(), o.getPrice());
         if (priceComparison != 0) {
-            return this.getOrderType().equals(OrderType.BID) ? priceComparison : -priceComparison;
-        } else {
-            return this.getId().compareTo(o.getId());
+            return priceComparison;
+        }
+        int sequenceComparison = Long.compare(getSequence(), o.getSequence());
+        if (sequenceComparison != 0) {
+            return sequenceComparison;
+        }
+        long numericId = getNumericId();
+        long otherNumericId = o.getNumericId();
+        if (numericId != otherNumericId) {
+            return Long.compare(numericId, otherNumericId);
         }
+        return numericId == NOT_NUMERIC ? getId().compareTo(o.getId()) : 0;
     }
 }
\ No newline at end of file
@@ -1,85 +1,160 @@
 package main.java.model;
 
+import java.io.PrintStream;
+import java.text.DecimalFormatSymbols;
 import java.util.*;
 
 public class OrderBook {
-    private final List<Trade> trades = new LinkedList<>(); //A list to store all trades made
-    // Buy orders
-    private final SortedSet<Order> bids = new TreeSet<>(); //A SortedSet to store Buy Orders, sorted by price (the highest first)
-    // Sell orders
-    private final SortedSet<Order> asks = new TreeSet<>(); //A SortedSet to store Sell Orders, sorted by price (the lowest first)
+    private static final int TRADE_LINES_CHUNK = 64 * 1024; //The number of characters of trade lines printed at once
+    private final TradeJournal trades = new TradeJournal(); //A columnar journal to store all trades made
+    private TradeListener tradeListener; //An optional listener notified of every trade as it happens
+    private DepthListener depthListener; //An optional listener notified of every change of a price level
+    private final OrderStore store; //The resting orders of both sides and their id index, on or off the heap
+    private long nextSequence; //The arrival sequence number of the next order joining the book, its time priority
+
+    //Constructs an empty OrderBook keeping its resting orders on the heap
+    public OrderBook() {
+        this(new HeapOrderStore());
+    }
+
+    //Constructs an empty OrderBook keeping its resting orders in the given store, e.g. off the heap for very deep books
+    public OrderBook(OrderStore store) {
+        this.store = store;
+    }
 
     //This method adds an Order to the OrderBook
     public void addOrder(Order order) {
-        if (order.getOrderType().equals(OrderType.BID)) { //If the order is a Buy Order
-            bids.add(order); //Add the order to the bids SortedSet
-        } else { //If the order is a Sell Order
-            asks.add(order); //Add the order to the asks SortedSet
+        order.setSequence(nextSequence++); //Orders at the same price are ranked by arrival, whatever their ids
+        store.add(order); //Add the order to the back of its price level and index it by id, so it can be cancelled or amended
+    }
+
+    //This method cancels the resting order with the given id, returning false if there is none (e.g. it was filled)
+    public boolean cancelOrder(String id) {
+        Order order = store.get(id);
+        if (order == null) {
+            return false;
+        }
+        store.remove(order); //Unlink the order from its price level in O(1)
+        return true;
+    }
+
+    /**
+     * Amends the quantity of the resting order with the given id. Reducing the quantity keeps the time priority of the
+     * order; increasing it moves the order to the back of its price level. A quantity of zero or less cancels the
+     * order, so a malformed amend in a file never stops its processing.
+     *
+     * @param id          The id of the order to amend.
+     * @param newQuantity The new remaining quantity of the order.
+     * @return False if there is no resting order with the given id.
+     */
+    public boolean amendOrder(String id, int newQuantity) {
+        if (newQuantity <= 0) {
+            return cancelOrder(id);
+        }
+        Order order = store.get(id);
+        if (order == null) {
+            return false;
         }
+        if (newQuantity > order.getQuantity()) {
+            order.setSequence(nextSequence++); //An increase loses time priority, as if the order arrived now
+        }
+        store.amend(order, newQuantity); //An increase goes to the back of its level, a reduction is done in place
+        return true;
+    }
+
+    //This method fills a resting order by the traded quantity, removing it from the book once nothing is left
+    //The depth of its price level is updated with it, so resting orders must be filled here rather than with Order.fill
+    public void fill(Order order, int tradeQuantity) {
+        store.fill(order, tradeQuantity); //A partially filled order keeps its time priority
+    }
+
+    /**
+     * Copies the aggregated depth of the best n price levels of one side into the given arrays, best price first.
+     * The depth is maintained as orders join, fill and leave, so this is O(n) and allocates nothing.
+     *
+     * @param side        The side of the book.
+     * @param n           The maximum number of levels to copy.
+     * @param prices      Receives the price of each level.
+     * @param quantities  Receives the total remaining quantity of each level.
+     * @param orderCounts Receives the number of orders of each level.
+     * @return The number of levels copied.
+     */
+    public int topN(OrderType side, int n, int[] prices, long[] quantities, int[] orderCounts) {
+        return store.topLevels(side, n, prices, quantities, orderCounts);
+    }
+
+    //This method sets the listener notified of every change of a price level on either side, or removes it when given null
+    public void setDepthListener(DepthListener depthListener) {
+        this.depthListener = depthListener;
+        store.setDepthListener(depthListener);
+    }
+
+    //This method adds a listener notified of every change of a price level after the listeners added before, e.g. a
+    //snapshot publisher and a market data feed of the same book
+    public void addDepthListener(DepthListener listener) {
+        DepthListener first = this.depthListener;
+        setDepthListener(first == null ? listener : (side, price, quantity, orderCount) -> {
+            first.onLevelUpdate(side, price, quantity, orderCount);
+            listener.onLevelUpdate(side, price, quantity, orderCount);
+        });
+    }
+
+    //This method returns the resting order with the given id, or null if there is none
+    //An off-heap store returns a flyweight, which is only valid until the book is used again
+    public Order getOrder(String id) {
+        return store.get(id);
     }
 
     //This method checks if there are any Buy Orders in the Order Book
     public boolean isBidsEmpty() {
-        return this.bids.isEmpty(); //Returns true if the bids SortedSet is empty, false otherwise
+        return getBids().isEmpty(); //Returns true if the bids side is empty, false otherwise
     }
 
     //This method checks if there are any Sell Orders in the Order Book
     public boolean isAsksEmpty() {
-        return this.asks.isEmpty(); //Returns true if the asks SortedSet is empty, false otherwise
+        return getAsks().isEmpty(); //Returns true if the asks side is empty, false otherwise
     }
 
     //This method returns the best Buy Order (the one with the highest bid price) in the Order Book
     public Order getBestBid() {
-        //If there are no Buy Orders in the Order Book
-        if (this.bids.isEmpty()) {
-            return null; //Return null (no best Buy Order
-        }
-        return this.bids.first(); //Returns the first (highest) element in the bids SortedSet
+        return store.peekBest(OrderType.BID); //Returns the oldest order at the highest bid price, or null if there is none
     }
 
     //This method returns the best Sell Order (the one with the lowest ask price) in the Order Book
     public Order getBestAsk() {
-        //If there are no Sell Orders in the Order Book
-        if (this.asks.isEmpty()) {
-            return null; //Return null (no best Sell Order
-        }
-        return this.asks.first(); //Returns the first (lowest) element in the asks SortedSet
+        return store.peekBest(OrderType.ASK); //Returns the oldest order at the lowest ask price, or null if there is none
     }
 
     //This method fetches and removes the best Buy Order from the Order Book
     public Order fetchBestBid() {
-        //If there are no Buy Orders in the Order Book
-        if (this.bids.isEmpty()) {
-            return null; //Return null (no best Buy Order
-        }
-        Order bestBid = bids.first(); //Gets the best Buy Order
-        this.bids.remove(bestBid); //Removes the best Buy Order from the bids SortedSet
-        return bestBid; //Returns the best Buy Order
+        return store.pollBest(OrderType.BID); //Removes and returns the best Buy Order, or null if there is none
     }
 
     //This method fetches and removes the best Sell Order from the Order Book
     public Order fetchBestAsk() {
-        //If there are no Sell Orders in the Order Book
-        if (this.asks.isEmpty()) {
-            return null; //Return null (no best Sell Order
-        }
-        Order bestAsk = asks.first(); //Gets the best Sell Order
-        this.asks.remove(bestAsk); //Removes the best Sell Order from the asks SortedSet
-        return bestAsk; //Returns the best Sell Order
+        return store.pollBest(OrderType.ASK); //Removes and returns the best Sell Order, or null if there is none
     }
 
     //This method adds a Trade to the Order Book
     public void addTrade(Order bid, Order ask, int tradeQuantity) {
-        this.trades.add(new Trade(bid, ask, tradeQuantity, ask.getPrice())); //Creates a new Trade object and adds it to the trade list
+        this.trades.record(bid.getId(), ask.getId(), ask.getPrice(), tradeQuantity); //Records the trade in the journal without allocating a Trade object
+        if (this.tradeListener != null) {
+            this.tradeListener.onTrade(bid.getId(), ask.getId(), ask.getPrice(), tradeQuantity); //Notifies the listener, e.g. a pipeline writing trades while matching continues
+        }
+    }
+
+    //This method sets the listener notified of every trade, or removes it when given null
+    public void setTradeListener(TradeListener tradeListener) {
+        this.tradeListener = tradeListener;
     }
 
     // Get a list of strings representing the current order book
     public List<String> getOrderBook() {
         LinkedList<String> orderBook = new LinkedList<>();
 
-        // Create iterators for the bids and asks queues
-        Iterator<Order> bidIterator = bids.iterator();
-        Iterator<Order> askIterator = asks.iterator();
+        // Create iterators for the bids and asks ladders (price-time priority)
+        Iterator<Order> bidIterator = getBids().iterator();
+        Iterator<Order> askIterator = getAsks().iterator();
 
         // Iterate over the bids and asks and format them into strings
         while (bidIterator.hasNext() || askIterator.hasNext()) {
@@ -107,54 +182,86 @@ public class OrderBook {
     }
 
     // Get a list of strings representing the trades that have occurred
+    // Prefer getTradeJournal() for large outputs, which can be streamed without building this list
     public List<String> getTrades() {
-        LinkedList<String> tradeList = new LinkedList<>();
-        for (Trade trade : this.trades) {
-            tradeList.add(String.format("trade %s,%s,%d,%d", trade.bid.getId(), trade.ask.getId(), trade.tradePrice, trade.tradeQuantity));
+        List<String> tradeList = new ArrayList<>(this.trades.size());
+        StringBuilder line = new StringBuilder(64);
+        for (int i = 0; i < this.trades.size(); i++) {
+            line.setLength(0);
+            tradeList.add(this.trades.appendTrade(i, line).toString());
         }
         return Collections.unmodifiableList(tradeList);
     }
 
+    // Get the journal of all trades that have occurred
+    public TradeJournal getTradeJournal() {
+        return trades;
+    }
+
     public void writeTradeAndOrderBook() {
+        writeTradeAndOrderBook(System.out);
+    }
+
+    // Print the trades and the order book to the given stream, e.g. a per-file buffer when files are processed in parallel
+    public void writeTradeAndOrderBook(PrintStream out) {
         // Print messages for all the trades that have occurred
-        for (Trade trade : this.trades) {
-            System.out.printf("Trading %d units at %d between %s(%s) and %s(%s).%n", trade.tradeQuantity, trade.tradePrice, trade.bid.getId(), trade.bid.getOrderType(), trade.ask.getId(), trade.ask.getOrderType());
-        }
-        // Find the highest bid and lowest ask prices
-        int maxBidPrice = bids.isEmpty() ? 0 : bids.stream().max(Comparator.comparing(Order::getPrice)).get().getPrice();
-        int minAskPrice = asks.isEmpty() ? 0 : asks.stream().min(Comparator.comparing(Order::getPrice)).get().getPrice();
+        writeTrades(out);
+        // Find the highest bid and lowest ask prices (cached by the ladders)
+        BookSide bids = getBids();
+        BookSide asks = getAsks();
+        int maxBidPrice = bids.isEmpty() ? 0 : bids.getBestPrice();
+        int minAskPrice = asks.isEmpty() ? 0 : asks.getBestPrice();
 
         // Print the header
-        System.out.printf("%18s%s | %-7s%11s%n", "BIDS", "", "ASKS", "");
-        System.out.printf("%11s%7s | %-7s%11s%n", "Quantity", "Price", "Price", "Quantity");
+        out.printf("%18s%s | %-7s%11s%n", "BIDS", "", "ASKS", "");
+        out.printf("%11s%7s | %-7s%11s%n", "Quantity", "Price", "Price", "Quantity");
 
         // Print the highest bid and lowest ask prices
         for (String line : this.getOrderBook()) {
-            System.out.println(line);
+            out.println(line);
         }
         // Print the highest bid and lowest ask prices
-        System.out.printf("%nHighest Bid: %,d\tLowest Ask: %,d%n", maxBidPrice, minAskPrice);
+        out.printf("%nHighest Bid: %,d\tLowest Ask: %,d%n", maxBidPrice, minAskPrice);
     }
 
-    public SortedSet<Order> getBids() {
-        return bids;
+    // Print one line per trade, formatted like printf("Trading %d units at %d between %s(%s) and %s(%s).%n").
+    // Without localized digits the lines are built in a reused buffer and printed in large chunks instead of one
+    // printf per trade.
+    private void writeTrades(PrintStream out) {
+        if (DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT)).getZeroDigit() != '0') {
+            this.trades.forEach((bidId, askId, price, quantity) ->
+                    out.printf("Trading %d units at %d between %s(%s) and %s(%s).%n", quantity, price, bidId, OrderType.BID, askId, OrderType.ASK));
+            return;
+        }
+        String lineSeparator = System.lineSeparator();
+        StringBuilder lines = new StringBuilder(TRADE_LINES_CHUNK + 256);
+        for (int i = 0; i < this.trades.size(); i++) {
+            lines.append("Trading ").append(this.trades.getQuantity(i)).append(" units at ").append(this.trades.getPrice(i))
+                    .append(" between ").append(this.trades.getBidId(i)).append('(').append(OrderType.BID).append(") and ")
+                    .append(this.trades.getAskId(i)).append('(').append(OrderType.ASK).append(").").append(lineSeparator);
+            if (lines.length() >= TRADE_LINES_CHUNK) {
+                out.append(lines);
+                lines.setLength(0);
+            }
+        }
+        out.append(lines);
     }
 
-    public SortedSet<Order> getAsks() {
-        return asks;
+    // Print a short summary of the book: the number of trades and resting orders and the best prices
+    public void writeSummary(PrintStream out) {
+        BookSide bids = getBids();
+        BookSide asks = getAsks();
+        int maxBidPrice = bids.isEmpty() ? 0 : bids.getBestPrice();
+        int minAskPrice = asks.isEmpty() ? 0 : asks.getBestPrice();
+        out.printf("Trades: %,d\tResting Bids: %,d\tResting Asks: %,d%n", trades.size(), bids.size(), asks.size());
+        out.printf("Highest Bid: %,d\tLowest Ask: %,d%n", maxBidPrice, minAskPrice);
     }
 
-    public static class Trade {
-        private final Order bid;
-        private final Order ask;
-        private final int tradeQuantity;
-        private final int tradePrice;
+    public BookSide getBids() {
+        return store.side(OrderType.BID);
+    }
 
-        public Trade(Order bid, Order ask, int tradeQuantity, int tradePrice) {
-            this.bid = bid;
-            this.ask = ask;
-            this.tradeQuantity = tradeQuantity;
-            this.tradePrice = tradePrice;
-        }
+    public BookSide getAsks() {
+        return store.side(OrderType.ASK);
     }
 }
\ No newline at end of file
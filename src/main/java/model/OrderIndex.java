@@ -0,0 +1,149 @@
+package main.java.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// The OrderIndex class maps the id of every resting order to the order itself, so an order can be found for a cancel
+// or amend in O(1) without searching the price levels.
+// It is an open-addressing hash table with linear probing over an array of orders and a parallel array of their keys;
+// removed entries are back-filled by shifting the rest of their probe run, so lookups never have to skip tombstones.
+// Numeric ids are their own keys, so probing compares primitives without touching the orders or their id strings.
+// Other ids are interned into negative keys the first time they are indexed; the intern table lives as long as the
+// index, which is the lifetime of the order book of a single file.
+
+public class OrderIndex {
+    // The number of slots the index starts with, a power of two.
+    private static final int INITIAL_CAPACITY = 64;
+
+    // The indexed orders, at the slot their key hashes to or the first free slot after it.
+    private Order[] slots = new Order[INITIAL_CAPACITY];
+
+    // The key of the order in the same slot.
+    private long[] keys = new long[INITIAL_CAPACITY];
+
+    // The keys non-numeric ids were interned as, counting down from below Order.NOT_NUMERIC.
+    private final Map<String, Long> interned = new HashMap<>();
+
+    // The number of indexed orders.
+    private int size;
+
+    // Returns the number of indexed orders.
+    public int size() {
+        return size;
+    }
+
+    // Returns the order with the given id, or null if no resting order has that id.
+    public Order get(String id) {
+        long key = Order.parseId(id);
+        if (key == Order.NOT_NUMERIC) {
+            Long code = interned.get(id);
+            if (code == null) {
+                return null;
+            }
+            key = code;
+        }
+        int mask = slots.length - 1;
+        for (int slot = spread(key) & mask; slots[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slots[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Indexes the order by its id. An order already indexed under the same id is replaced, so a reused id refers to
+     * the newest order.
+     *
+     * @param order The order to index.
+     */
+    public void put(Order order) {
+        long key = keyOf(order);
+        int mask = slots.length - 1;
+        int slot = spread(key) & mask;
+        while (slots[slot] != null) {
+            if (keys[slot] == key) {
+                slots[slot] = order;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = order;
+        keys[slot] = key;
+        size++;
+
+        // Keep the hash table at most half full
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+    }
+
+    // Returns the key of the order, interning its id if it is not numeric.
+    private long keyOf(Order order) {
+        if (order.getNumericId() == Order.NOT_NUMERIC) {
+            Long code = interned.get(order.getId());
+            if (code == null) {
+                code = Order.NOT_NUMERIC - 1 - interned.size();
+                interned.put(order.getId(), code);
+            }
+            order.key = code;
+        }
+        return order.key;
+    }
+
+    /**
+     * Removes the given order from the index. Nothing happens if its id is indexed for another order.
+     *
+     * @param order The order to remove.
+     */
+    public void remove(Order order) {
+        int mask = slots.length - 1;
+        int slot = spread(order.key) & mask;
+        while (slots[slot] != order) {
+            if (slots[slot] == null) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = null;
+        size--;
+
+        // Move later entries of the probe run back into the gap if their home slot is not between the gap and them
+        int gap = slot;
+        for (int next = (gap + 1) & mask; slots[next] != null; next = (next + 1) & mask) {
+            int home = spread(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                slots[gap] = slots[next];
+                keys[gap] = keys[next];
+                slots[next] = null;
+                gap = next;
+            }
+        }
+    }
+
+    // Folds the key into the bits used to pick a slot. Consecutive ids get consecutive slots, so orders arriving
+    // together are indexed close together in memory.
+    private static int spread(long key) {
+        int hash = (int) (key ^ (key >>> 32));
+        return hash ^ (hash >>> 16);
+    }
+
+    // Doubles the number of slots and re-inserts every order.
+    private void rehash() {
+        Order[] oldSlots = slots;
+        long[] oldKeys = keys;
+        slots = new Order[oldSlots.length * 2];
+        keys = new long[oldSlots.length * 2];
+        int mask = slots.length - 1;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != null) {
+                int slot = spread(oldKeys[i]) & mask;
+                while (slots[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = oldSlots[i];
+                keys[slot] = oldKeys[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package main.java.model;
+
+// The OrderStorage enum selects where the resting orders of an order book are kept.
+
+public enum OrderStorage {
+    // Every order is an object on the heap, linked into its price level.
+    HEAP,
+    // The orders are kept in direct memory and read through flyweights, so deep books add nothing for the garbage
+    // collector to trace.
+    OFF_HEAP;
+
+    /**
+     * Returns the storage with the given name, ignoring case and accepting "off-heap" for OFF_HEAP.
+     *
+     * @param name The name of the storage, e.g. "heap".
+     * @return The storage.
+     * @throws IllegalArgumentException If there is no storage with that name.
+     */
+    public static OrderStorage of(String name) {
+        for (OrderStorage storage : values()) {
+            if (storage.name().equalsIgnoreCase(name.trim().replace('-', '_'))) {
+                return storage;
+            }
+        }
+        throw new IllegalArgumentException("Unknown order storage: " + name);
+    }
+
+    // Returns a new, empty store of this kind.
+    public OrderStore newStore() {
+        return this == OFF_HEAP ? new OffHeapOrderStore() : new HeapOrderStore();
+    }
+}
@@ -0,0 +1,67 @@
+package main.java.model;
+
+// The OrderStore interface keeps the resting orders of an order book: both sides in price-time priority and an index
+// of the orders by id. The heap store keeps every order as an object; the off-heap store keeps them in native memory
+// and hands out flyweights, which only stay valid until the next call to the store.
+
+public interface OrderStore {
+
+    // Returns a view of the given side of the book.
+    BookSide side(OrderType side);
+
+    /**
+     * Rests the order at the back of the queue of its price level and indexes it by id. An order already indexed
+     * under the same id stays in the book, but the id refers to the newest order.
+     *
+     * @param order The order to rest, with its arrival sequence number set.
+     */
+    void add(Order order);
+
+    // Returns the oldest order at the best price of the given side without removing it, or null if the side is empty.
+    Order peekBest(OrderType side);
+
+    // Removes and returns the oldest order at the best price of the given side, or null if the side is empty.
+    Order pollBest(OrderType side);
+
+    // Returns the resting order with the given id, or null if there is none.
+    Order get(String id);
+
+    /**
+     * Removes the given resting order from its price level and from the index.
+     *
+     * @param order The order to remove, as returned by this store.
+     */
+    void remove(Order order);
+
+    /**
+     * Fills the given resting order by the traded quantity, removing it once nothing is left.
+     *
+     * @param order         The order to fill, as returned by this store.
+     * @param tradeQuantity The quantity traded against the order.
+     */
+    void fill(Order order, int tradeQuantity);
+
+    /**
+     * Changes the remaining quantity of the given resting order. A reduction keeps its place in the queue; an increase
+     * moves it to the back of its price level.
+     *
+     * @param order       The order to amend, as returned by this store.
+     * @param newQuantity The new remaining quantity, which must be positive.
+     */
+    void amend(Order order, int newQuantity);
+
+    /**
+     * Copies the aggregated depth of the best n price levels of one side into the given arrays, best price first.
+     *
+     * @param side        The side of the book.
+     * @param n           The maximum number of levels to copy.
+     * @param prices      Receives the price of each level.
+     * @param quantities  Receives the total remaining quantity of each level.
+     * @param orderCounts Receives the number of orders of each level.
+     * @return The number of levels copied.
+     */
+    int topLevels(OrderType side, int n, int[] prices, long[] quantities, int[] orderCounts);
+
+    // Sets the listener notified of every change of a price level on either side, or removes it when given null.
+    void setDepthListener(DepthListener depthListener);
+}
@@ -14,4 +14,14 @@ public enum OrderType {
         }
     }
 
+    public static OrderType type(char side) {
+        if (side == 'B') {
+            return BID;
+        } else if (side == 'S') {
+            return ASK;
+        } else {
+            throw new IllegalArgumentException("Invalid order side: " + side);
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,239 @@
+package main.java.model;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// The PriceLadder class stores one side of the order book as an array of price levels indexed by tick.
+// A bit set marks the non-empty levels and the best price is cached, so looking up and consuming the top of
+// the book is O(1) amortized instead of an O(log n) tree operation per order.
+// Every level keeps the total quantity of its orders, so the aggregated depth (L2) is maintained as orders join, fill
+// and leave: the best n levels can be read without touching a single order, and every change of a level can be
+// published to a DepthListener as it happens.
+// The array only covers a bounded window of ticks; the few prices too far away from it are kept at the end of the
+// array, as laid out by LevelIndex, so an outlier price can neither blow up the array nor fall outside of it.
+
+public class PriceLadder implements BookSide {
+    // The side of the book stored in this ladder. Bids are best at the highest price, asks at the lowest.
+    private final OrderType side;
+
+    // The price levels, at the indexes given by the level index (null if never used).
+    private PriceLevel[] levels;
+
+    // Maps prices to indexes of the levels array and keeps track of the non-empty levels and the best one.
+    private final LevelIndex index;
+
+    // The total number of resting orders over all levels.
+    private int size;
+
+    // An optional listener notified of every change of a level.
+    private DepthListener depthListener;
+
+    // Constructs a new, empty PriceLadder for the given side of the book.
+    public PriceLadder(OrderType side) {
+        this.side = side;
+        this.index = new LevelIndex(side, this::resize);
+    }
+
+    // Returns the side of the book stored in this ladder.
+    @Override
+    public OrderType getSide() {
+        return side;
+    }
+
+    // Returns true if there are no resting orders on this side of the book.
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Returns the number of resting orders on this side of the book.
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Returns the best price on this side of the book. Only meaningful when the ladder is not empty.
+    @Override
+    public int getBestPrice() {
+        return index.priceOf(index.best());
+    }
+
+    // Sets the listener notified of every change of a level, or removes it when given null.
+    public void setDepthListener(DepthListener depthListener) {
+        this.depthListener = depthListener;
+    }
+
+    /**
+     * Adds the order at the back of the FIFO queue of its price level.
+     *
+     * @param order The order to rest on this side of the book.
+     */
+    public void add(Order order) {
+        int levelIndex = index.add(order.getPrice());
+        PriceLevel level = levelAt(levelIndex, order.getPrice());
+        level.add(order);
+        index.occupy(levelIndex);
+        size++;
+        publish(level);
+    }
+
+    // Returns the level at the given index, creating it for the given price on first use.
+    private PriceLevel levelAt(int levelIndex, int price) {
+        PriceLevel level = levels[levelIndex];
+        // An overflow index is handed to another price once its level empties out
+        if (level == null || level.getPrice() != price) {
+            // Levels are kept after they empty out, so each tick allocates at most once
+            level = new PriceLevel(price);
+            levels[levelIndex] = level;
+        }
+        return level;
+    }
+
+    // Returns the oldest order at the best price without removing it, or null if the ladder is empty.
+    public Order peekBest() {
+        int best = index.best();
+        return best < 0 ? null : levels[best].peek();
+    }
+
+    // Removes and returns the oldest order at the best price, or null if the ladder is empty.
+    public Order pollBest() {
+        int best = index.best();
+        if (best < 0) {
+            return null;
+        }
+        PriceLevel level = levels[best];
+        Order order = level.poll();
+        size--;
+        if (level.isEmpty()) {
+            index.vacate(best);
+        }
+        publish(level);
+        return order;
+    }
+
+    /**
+     * Removes the given resting order from its price level, wherever it is in the queue.
+     * If the level empties out, it is vacated and the best price is recomputed when it was the best level.
+     *
+     * @param order The order to remove, which must rest on this side of the book.
+     */
+    public void remove(Order order) {
+        int levelIndex = index.find(order.getPrice());
+        PriceLevel level = levels[levelIndex];
+        level.remove(order);
+        size--;
+        if (level.isEmpty()) {
+            index.vacate(levelIndex);
+        }
+        publish(level);
+    }
+
+    /**
+     * Fills the given resting order by the traded quantity and updates the depth of its level. An order with no
+     * quantity left is removed from the ladder; a partially filled one keeps its place in the queue.
+     *
+     * @param order         The order to fill, which must rest on this side of the book.
+     * @param tradeQuantity The quantity traded against the order.
+     */
+    public void fill(Order order, int tradeQuantity) {
+        order.fill(tradeQuantity);
+        PriceLevel level = levels[index.find(order.getPrice())];
+        level.changeQuantity(-tradeQuantity);
+        if (order.isFilled()) {
+            remove(order);
+        } else {
+            publish(level);
+        }
+    }
+
+    /**
+     * Changes the remaining quantity of the given resting order. A reduction keeps the time priority of the order;
+     * an increase moves it to the back of its price level, like a new order at the same price.
+     *
+     * @param order       The order to amend, which must rest on this side of the book.
+     * @param newQuantity The new remaining quantity, which must be positive.
+     */
+    public void amend(Order order, int newQuantity) {
+        PriceLevel level = levels[index.find(order.getPrice())];
+        if (newQuantity > order.getQuantity()) {
+            // The level keeps at least this order, so neither its index nor the best price change
+            level.remove(order);
+            order.amend(newQuantity);
+            level.add(order);
+        } else {
+            long delta = (long) newQuantity - order.getQuantity();
+            order.amend(newQuantity);
+            level.changeQuantity(delta);
+        }
+        publish(level);
+    }
+
+    /**
+     * Copies the best n levels into the given arrays, best price first, without allocating. Only the non-empty levels
+     * are visited, so the cost grows with n rather than with the number of orders.
+     *
+     * @param n           The maximum number of levels to copy.
+     * @param prices      Receives the price of each level.
+     * @param quantities  Receives the total remaining quantity of each level.
+     * @param orderCounts Receives the number of orders of each level.
+     * @return The number of levels copied, at most n and at most the number of non-empty levels.
+     */
+    public int topLevels(int n, int[] prices, long[] quantities, int[] orderCounts) {
+        if (n > prices.length || n > quantities.length || n > orderCounts.length) {
+            throw new IllegalArgumentException("The arrays cannot hold " + n + " levels");
+        }
+        int count = 0;
+        for (int i = index.best(); i >= 0 && count < n; i = index.next(i)) {
+            PriceLevel level = levels[i];
+            prices[count] = level.getPrice();
+            quantities[count] = level.getQuantity();
+            orderCounts[count] = level.size();
+            count++;
+        }
+        return count;
+    }
+
+    // Notifies the depth listener, if any, of the new state of the given level.
+    private void publish(PriceLevel level) {
+        if (depthListener != null) {
+            depthListener.onLevelUpdate(side, level.getPrice(), level.getQuantity(), level.size());
+        }
+    }
+
+    // Returns an iterator over all resting orders in price-time priority, best price first.
+    @Override
+    public Iterator<Order> iterator() {
+        return new LadderIterator();
+    }
+
+    // Re-allocates the levels array for the new layout of the level index.
+    private void resize(int length) {
+        PriceLevel[] newLevels = new PriceLevel[length];
+        index.move(levels, newLevels);
+        levels = newLevels;
+    }
+
+    // Walks the non-empty levels from the best price outwards, and each level from its oldest order.
+    private class LadderIterator implements Iterator<Order> {
+        private int levelIndex = index.best();
+        private Iterator<Order> levelIterator = levelIndex < 0 ? null : levels[levelIndex].iterator();
+
+        @Override
+        public boolean hasNext() {
+            while (levelIterator != null && !levelIterator.hasNext()) {
+                int next = index.next(levelIndex);
+                levelIndex = next;
+                levelIterator = next < 0 ? null : levels[next].iterator();
+            }
+            return levelIterator != null;
+        }
+
+        @Override
+        public Order next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return levelIterator.next();
+        }
+    }
+}
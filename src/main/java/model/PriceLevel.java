@@ -0,0 +1,123 @@
+package main.java.model;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// The PriceLevel class holds all resting orders of one side at a single price, in arrival (FIFO) order.
+// The orders form an intrusive doubly-linked list through their own previous/next fields, so an order anywhere in the
+// queue can be removed in O(1) once it has been looked up by id. The level also keeps the total remaining quantity of
+// its orders, updated as orders join, fill and leave, so the depth at a price never has to be summed up.
+
+public class PriceLevel implements Iterable<Order> {
+    // The price shared by every order on this level.
+    private final int price;
+
+    // The oldest and newest resting orders at this price, or null if the level is empty.
+    private Order head;
+    private Order tail;
+
+    // The number of resting orders at this price.
+    private int size;
+
+    // The total remaining quantity of the resting orders at this price.
+    private long quantity;
+
+    // Constructs a new, empty PriceLevel for the given price.
+    public PriceLevel(int price) {
+        this.price = price;
+    }
+
+    // Returns the price of this level.
+    public int getPrice() {
+        return price;
+    }
+
+    // Appends the order to the back of the queue (lowest time priority on this level).
+    void add(Order order) {
+        order.previous = tail;
+        order.next = null;
+        if (tail == null) {
+            head = order;
+        } else {
+            tail.next = order;
+        }
+        tail = order;
+        size++;
+        quantity += order.getQuantity();
+    }
+
+    // Returns the oldest order on this level without removing it, or null if the level is empty.
+    Order peek() {
+        return head;
+    }
+
+    // Removes and returns the oldest order on this level, or null if the level is empty.
+    Order poll() {
+        Order order = head;
+        if (order != null) {
+            remove(order);
+        }
+        return order;
+    }
+
+    // Unlinks the given order, which must rest on this level, from wherever it is in the queue.
+    void remove(Order order) {
+        if (order.previous == null) {
+            head = order.next;
+        } else {
+            order.previous.next = order.next;
+        }
+        if (order.next == null) {
+            tail = order.previous;
+        } else {
+            order.next.previous = order.previous;
+        }
+        order.previous = null;
+        order.next = null;
+        size--;
+        quantity -= order.getQuantity();
+    }
+
+    // Records that the remaining quantity of an order on this level changed in place by the given (signed) amount.
+    void changeQuantity(long delta) {
+        quantity += delta;
+    }
+
+    // Returns true if there are no orders resting on this level.
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Returns the number of orders resting on this level.
+    public int size() {
+        return size;
+    }
+
+    // Returns the total remaining quantity of the orders resting on this level.
+    public long getQuantity() {
+        return quantity;
+    }
+
+    // Returns an iterator over the orders on this level, oldest first.
+    @Override
+    public Iterator<Order> iterator() {
+        return new Iterator<Order>() {
+            private Order next = head;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Order next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Order order = next;
+                next = order.next;
+                return order;
+            }
+        };
+    }
+}
@@ -0,0 +1,184 @@
+package main.java.model;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// The TradeJournal class stores every trade of an order book in growable, parallel primitive arrays.
+// Order ids are interned once into an id table and referenced by index, so recording a trade allocates nothing
+// in the steady state and matched orders are not kept alive by the journal.
+
+public class TradeJournal {
+    // The number of trades (and interned ids) the journal has room for before it first grows.
+    private static final int INITIAL_CAPACITY = 16;
+
+    // The index of the bid order id of each trade in the id table.
+    private int[] bidIds = new int[INITIAL_CAPACITY];
+
+    // The index of the ask order id of each trade in the id table.
+    private int[] askIds = new int[INITIAL_CAPACITY];
+
+    // The price of each trade.
+    private int[] prices = new int[INITIAL_CAPACITY];
+
+    // The quantity of each trade.
+    private int[] quantities = new int[INITIAL_CAPACITY];
+
+    // The number of trades recorded.
+    private int size;
+
+    // The interned order ids, in the order they were first seen.
+    private String[] ids = new String[INITIAL_CAPACITY];
+
+    // The number of interned order ids.
+    private int idCount;
+
+    // An open-addressing hash table mapping an id to its index in ids plus one (0 marks an empty slot).
+    private int[] idSlots = new int[INITIAL_CAPACITY * 2];
+
+    // Visits the trades of a journal one by one, without materializing them as objects.
+    public interface TradeVisitor {
+        void visit(String bidId, String askId, int price, int quantity);
+    }
+
+    /**
+     * Appends a trade to the journal.
+     *
+     * @param bidId    The id of the buy order.
+     * @param askId    The id of the sell order.
+     * @param price    The price the trade happened at.
+     * @param quantity The quantity traded.
+     */
+    public void record(String bidId, String askId, int price, int quantity) {
+        if (size == prices.length) {
+            int capacity = size * 2;
+            bidIds = Arrays.copyOf(bidIds, capacity);
+            askIds = Arrays.copyOf(askIds, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+        }
+        bidIds[size] = intern(bidId);
+        askIds[size] = intern(askId);
+        prices[size] = price;
+        quantities[size] = quantity;
+        size++;
+    }
+
+    // Returns the number of trades in the journal.
+    public int size() {
+        return size;
+    }
+
+    // Returns true if no trades have been recorded.
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Returns the bid order id of the trade at the given position.
+    public String getBidId(int index) {
+        return ids[bidIds[checkIndex(index)]];
+    }
+
+    // Returns the ask order id of the trade at the given position.
+    public String getAskId(int index) {
+        return ids[askIds[checkIndex(index)]];
+    }
+
+    // Returns the price of the trade at the given position.
+    public int getPrice(int index) {
+        return prices[checkIndex(index)];
+    }
+
+    // Returns the quantity of the trade at the given position.
+    public int getQuantity(int index) {
+        return quantities[checkIndex(index)];
+    }
+
+    // Calls the visitor for every trade, in the order they happened.
+    public void forEach(TradeVisitor visitor) {
+        for (int i = 0; i < size; i++) {
+            visitor.visit(ids[bidIds[i]], ids[askIds[i]], prices[i], quantities[i]);
+        }
+    }
+
+    /**
+     * Appends the trade at the given position in output format ("trade bidId,askId,price,quantity"), without a newline.
+     *
+     * @param index The position of the trade in the journal.
+     * @param out   The builder to append to.
+     * @return The given builder.
+     */
+    public StringBuilder appendTrade(int index, StringBuilder out) {
+        checkIndex(index);
+        return out.append("trade ")
+                .append(ids[bidIds[index]]).append(',')
+                .append(ids[askIds[index]]).append(',')
+                .append(prices[index]).append(',')
+                .append(quantities[index]);
+    }
+
+    /**
+     * Streams all trades in output format to the given destination, one line per trade.
+     * A single line buffer is reused, so no intermediate strings are built.
+     *
+     * @param out The destination to write to.
+     * @throws IOException If writing to the destination fails.
+     */
+    public void writeTo(Appendable out) throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        for (int i = 0; i < size; i++) {
+            line.setLength(0);
+            out.append(appendTrade(i, line).append('\n'));
+        }
+    }
+
+    // Throws if the given position does not hold a trade.
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Trade index " + index + " out of range for size " + size);
+        }
+        return index;
+    }
+
+    // Returns the index of the given id in the id table, adding it if it has not been seen before.
+    private int intern(String id) {
+        int mask = idSlots.length - 1;
+        int slot = spread(id.hashCode()) & mask;
+        while (idSlots[slot] != 0) {
+            int index = idSlots[slot] - 1;
+            if (ids[index].equals(id)) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (idCount == ids.length) {
+            ids = Arrays.copyOf(ids, idCount * 2);
+        }
+        ids[idCount] = id;
+        idSlots[slot] = ++idCount;
+
+        // Keep the hash table at most half full
+        if (idCount * 2 > idSlots.length) {
+            rehash();
+        }
+        return idCount - 1;
+    }
+
+    // Mixes the high bits of a hash code into the low bits used to pick a slot.
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    // Doubles the id hash table and re-inserts every interned id.
+    private void rehash() {
+        idSlots = new int[idSlots.length * 2];
+        int mask = idSlots.length - 1;
+        for (int i = 0; i < idCount; i++) {
+            int slot = spread(ids[i].hashCode()) & mask;
+            while (idSlots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            idSlots[slot] = i + 1;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package main.java.model;
+
+// The TradeListener interface is notified of every trade as soon as the order book records it.
+
+public interface TradeListener {
+
+    /**
+     * Called for every trade, on the matching thread.
+     *
+     * @param bidId    The id of the buy order.
+     * @param askId    The id of the sell order.
+     * @param price    The price the trade happened at.
+     * @param quantity The quantity traded.
+     */
+    void onTrade(String bidId, String askId, int price, int quantity);
+}
@@ -1,15 +1,39 @@
 package main.java.service;
 
+import main.java.model.DepthSnapshotPublisher;
 import main.java.model.Order;
 import main.java.model.OrderBook;
 import main.java.model.OrderType;
+import main.java.service.feed.MarketDataFeed;
 
-public class ExchangeService {
+public class ExchangeService implements OrderSink {
 
     private final OrderBook orderBook;
 
+    // The publisher of snapshots of the book for readers on other threads, or null.
+    private DepthSnapshotPublisher snapshotPublisher;
+
+    // The feed trades and depth updates are published to for other processes as they happen, or null.
+    private MarketDataFeed feed;
+
     public ExchangeService() {
-        this.orderBook = new OrderBook();
+        this(new OrderBook());
+    }
+
+    // Constructs a new ExchangeService matching orders against the given order book, e.g. one with off-heap storage.
+    public ExchangeService(OrderBook orderBook) {
+        this.orderBook = orderBook;
+    }
+
+    // Sets the publisher of snapshots of the book, which publishes after every order, cancel and amend; null removes it.
+    public void setSnapshotPublisher(DepthSnapshotPublisher snapshotPublisher) {
+        this.snapshotPublisher = snapshotPublisher;
+    }
+
+    // Sets the feed every trade and every change of a price level of the book is published to as it happens.
+    public void setMarketDataFeed(MarketDataFeed feed) {
+        this.feed = feed;
+        orderBook.addDepthListener(feed);
     }
 
 
@@ -26,11 +50,46 @@ public class ExchangeService {
         } else {
             matchAgainstBuyOrders(order);
         }
+        if (snapshotPublisher != null) {
+            snapshotPublisher.publish();
+        }
+    }
+
+    /**
+     * Builds an order from the given fields and matches it with the order book.
+     *
+     * @param id        The id of the order.
+     * @param orderType The side of the order.
+     * @param price     The limit price of the order.
+     * @param quantity  The quantity of the order.
+     */
+    @Override
+    public void accept(String id, OrderType orderType, int price, int quantity) {
+        match(new Order(id, orderType, price, quantity));
+    }
+
+    // Cancels the resting order with the given id in O(1) through the id index of the book; unknown ids are ignored.
+    @Override
+    public void cancel(String id) {
+        this.orderBook.cancelOrder(id);
+        if (snapshotPublisher != null) {
+            snapshotPublisher.publish();
+        }
     }
 
-    // The matchAgainstSellOrders method has a time complexity that depends on the size of the asks SortedSet in the orderBook field,
+    // Amends the quantity of the resting order with the given id in O(1); a reduction keeps its time priority.
+    // A resting order never crosses the book, so an amend cannot produce trades.
+    @Override
+    public void amend(String id, int newQuantity) {
+        this.orderBook.amendOrder(id, newQuantity);
+        if (snapshotPublisher != null) {
+            snapshotPublisher.publish();
+        }
+    }
+
+    // The matchAgainstSellOrders method has a time complexity that depends on the number of asks it trades against,
     // which can be O(n) in the worst case (when order has a high price and there are many sell orders with prices lower than order.getPrice()),
-    // but is typically much lower. In addition to iterating over the asks set, the method also calls several O(1) methods (fetchBestAsk, addTrade, addOrder, etc.)
+    // but is typically much lower. In addition to iterating over the asks ladder, the method also calls several O(1) methods (getBestAsk, addTrade, fill, etc.)
     // and performs a few constant-time operations like comparisons and arithmetic.
 
     /**
@@ -45,25 +104,22 @@ public class ExchangeService {
                 this.orderBook.getBestAsk().getPrice() <= order.getPrice() &&
                 order.getQuantity() > 0) {
 
-            // Get the best ask order
-            Order ask = this.orderBook.fetchBestAsk();
+            // Get the best ask order, leaving it in place at the front of its price level
+            Order ask = this.orderBook.getBestAsk();
 
             // Calculate the trade quantity as the minimum of the order and ask quantities
             int tradeQuantity = Math.min(order.getQuantity(), ask.getQuantity());
 
             // Add the trade to the order book
             orderBook.addTrade(order, ask, tradeQuantity);
-
-            // Update the order quantity after the trade
-            order = new Order(order.getId(), order.getOrderType(), order.getPrice(), order.getQuantity() - tradeQuantity);
-
-            // Update the ask quantity after the trade
-            ask = new Order(ask.getId(), ask.getOrderType(), ask.getPrice(), ask.getQuantity() - tradeQuantity);
-
-            // If the ask still has quantity, add it back to the ask orders
-            if (ask.getQuantity() > 0) {
-                this.orderBook.addOrder(ask);
+            if (feed != null) {
+                feed.publishTrade(order.getNumericId(), ask.getNumericId(), ask.getPrice(), tradeQuantity);
             }
+
+            // Decrement the remaining quantity of both orders in place, and the depth of the level of the ask
+            // Only a fully filled ask leaves the book; a partially filled one keeps its time priority
+            order.fill(tradeQuantity);
+            this.orderBook.fill(ask, tradeQuantity);
         }
 
         // If the order still has quantity, add it to the bid orders
@@ -72,9 +128,9 @@ public class ExchangeService {
         }
     }
 
-    // The matchAgainstBuyOrders method has a time complexity that depends on the size of the bids SortedSet in the orderBook field,
+    // The matchAgainstBuyOrders method has a time complexity that depends on the number of bids it trades against,
     // which can be O(n) in the worst case (when order has a low price and there are many buy orders with prices higher than order.getPrice()),
-    // but is typically much lower. In addition to iterating over the bids set, the method also calls several O(1) methods (fetchBestBid, addTrade, addOrder, etc.)
+    // but is typically much lower. In addition to iterating over the bids ladder, the method also calls several O(1) methods (getBestBid, addTrade, fill, etc.)
     // and performs a few constant-time operations like comparisons and arithmetic.
 
     /**
@@ -89,25 +145,22 @@ public class ExchangeService {
                 this.orderBook.getBestBid().getPrice() >= order.getPrice() &&
                 order.getQuantity() > 0) {
 
-            // Get the best bid order
-            Order bid = this.orderBook.fetchBestBid();
+            // Get the best bid order, leaving it in place at the front of its price level
+            Order bid = this.orderBook.getBestBid();
 
             // Calculate the trade quantity as the minimum of the order and bid quantities
             int tradeQuantity = Math.min(order.getQuantity(), bid.getQuantity());
 
             // Add the trade to the order book
             orderBook.addTrade(bid, order, tradeQuantity);
-
-            // Update the order quantity after the trade
-            order = new Order(order.getId(), order.getOrderType(), order.getPrice(), order.getQuantity() - tradeQuantity);
-
-            // Update the bid quantity after the trade
-            bid = new Order(bid.getId(), bid.getOrderType(), bid.getPrice(), bid.getQuantity() - tradeQuantity);
-
-            // If the bid still has quantity, add it back to the bid orders
-            if (bid.getQuantity() > 0) {
-                this.orderBook.addOrder(bid);
+            if (feed != null) {
+                feed.publishTrade(bid.getNumericId(), order.getNumericId(), order.getPrice(), tradeQuantity);
             }
+
+            // Decrement the remaining quantity of both orders in place, and the depth of the level of the bid
+            // Only a fully filled bid leaves the book; a partially filled one keeps its time priority
+            order.fill(tradeQuantity);
+            this.orderBook.fill(bid, tradeQuantity);
         }
 
         // If the order still has quantity, add it to the ask orders
@@ -0,0 +1,146 @@
+package main.java.service;
+
+import main.java.service.util.FileManifest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The FileProcessingPool class processes batches of files concurrently, one isolated FileProcessor run per file.
+// At most maxInFlight files are submitted at the same time, which bounds the memory used by their order books.
+
+public class FileProcessingPool implements AutoCloseable {
+    // The processor running a single file.
+    private final FileProcessor fileProcessor;
+
+    // The executor running the files.
+    private final ExecutorService executor;
+
+    // Permits for the files that are queued or running.
+    private final Semaphore inFlight;
+
+    // The manifest every processed file is recorded in as soon as it is done, or null.
+    private final FileManifest manifest;
+
+    /**
+     * Constructs a new FileProcessingPool.
+     *
+     * @param fileProcessor The processor running a single file.
+     * @param executor      The executor running the files.
+     * @param maxInFlight   The maximum number of files queued or running at the same time.
+     */
+    public FileProcessingPool(FileProcessor fileProcessor, ExecutorService executor, int maxInFlight) {
+        this(fileProcessor, executor, maxInFlight, null);
+    }
+
+    /**
+     * Constructs a new FileProcessingPool recording every processed file in the given manifest.
+     *
+     * @param fileProcessor The processor running a single file.
+     * @param executor      The executor running the files.
+     * @param maxInFlight   The maximum number of files queued or running at the same time.
+     * @param manifest      The manifest every processed file is recorded in as soon as it is done, or null.
+     */
+    public FileProcessingPool(FileProcessor fileProcessor, ExecutorService executor, int maxInFlight, FileManifest manifest) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("The number of files in flight must be positive: " + maxInFlight);
+        }
+        this.fileProcessor = fileProcessor;
+        this.executor = executor;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.manifest = manifest;
+    }
+
+    /**
+     * Creates the executor for the given configuration: a fixed pool of daemon threads, or one virtual thread per
+     * file when virtual threads are requested and the running JVM supports them (Java 21+).
+     *
+     * @param virtualThreads True to run each file on its own virtual thread, if available.
+     * @param threads        The number of threads of the fixed pool.
+     * @return The executor.
+     */
+    public static ExecutorService newExecutor(boolean virtualThreads, int threads) {
+        if (virtualThreads) {
+            try {
+                // Looked up reflectively, so the application still runs on the Java 8 baseline
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.out.println("Virtual threads are not available on this JVM, using " + threads + " platform threads");
+            }
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "exchange-file-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Processes the given files concurrently and waits until all of them are done. A file that fails is logged and
+     * left out of the result, without affecting the other files of the batch.
+     *
+     * @param fileNames The names of the files to process.
+     * @return The checksum of each file processed successfully, in the order of the given names.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public Map<String, String> processAll(List<String> fileNames) throws InterruptedException {
+        List<Future<String>> futures = new ArrayList<>(fileNames.size());
+        for (String fileName : fileNames) {
+            // Wait for a slot before submitting, so no more than maxInFlight files are queued or running
+            inFlight.acquire();
+            try {
+                futures.add(executor.submit(() -> {
+                    try {
+                        String checksum = fileProcessor.process(fileName);
+                        // Record the file right away, so a crash later in the batch does not process it again
+                        if (manifest != null) {
+                            record(fileName, checksum);
+                        }
+                        return checksum;
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                inFlight.release();
+                throw e;
+            }
+        }
+
+        // Collect the checksums in file name order, waiting for every file even if some of them failed
+        Map<String, String> processedFileMap = new LinkedHashMap<>(fileNames.size());
+        for (int i = 0; i < fileNames.size(); i++) {
+            try {
+                processedFileMap.put(fileNames.get(i), futures.get(i).get());
+            } catch (ExecutionException e) {
+                // The file was not recorded and its input is unchanged, so it can be processed again later
+                System.err.println("Failed to process file: " + fileNames.get(i));
+                e.getCause().printStackTrace();
+            }
+        }
+        return processedFileMap;
+    }
+
+    // Records a processed file in the manifest.
+    private void record(String fileName, String checksum) {
+        try {
+            manifest.record(fileName, checksum);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to record file in manifest: " + fileName, e);
+        }
+    }
+
+    // Shuts the executor down, letting running files finish.
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
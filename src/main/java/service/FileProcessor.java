@@ -0,0 +1,487 @@
+package main.java.service;
+
+import main.java.model.DepthSnapshot;
+import main.java.model.DepthSnapshotPublisher;
+import main.java.model.OrderBook;
+import main.java.model.OrderStorage;
+import main.java.model.TradeJournal;
+import main.java.service.feed.MarketDataFeed;
+import main.java.service.journal.ExchangeJournal;
+import main.java.service.journal.FileJournal;
+import main.java.service.metrics.ExchangeMetrics;
+import main.java.service.metrics.FileMetrics;
+import main.java.service.pipeline.OrderPipeline;
+import main.java.service.pipeline.ShardedExchange;
+import main.java.service.pipeline.WaitStrategy;
+import main.java.service.report.ConsoleReporter;
+import main.java.service.report.ReportLevel;
+import main.java.service.util.ChecksumAlgorithm;
+import main.java.service.util.FileFormat;
+import main.java.service.util.OrderReader;
+import main.java.service.util.OrderWriter;
+import main.java.service.util.OutputFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The FileProcessor class matches, writes and checksums a single order file.
+// Every file gets its own ExchangeService, so any number of files can be processed concurrently. The console output
+// of a file is collected in a buffer and printed in one piece once the file is done, so the output of files
+// processed in parallel is never interleaved. Files with a symbol column are matched by a ShardedExchange when
+// shards are configured, with one order book per instrument.
+// In tail mode a file is read again whenever it grows: its exchange is kept from one read to the next, only the lines
+// appended since are matched, and the trades they made are appended to the output followed by a new order book.
+// The best levels of the book of a file can be published while it is matched, for readers on other threads, and its
+// trades and depth updates can be published to a market data feed in shared memory, for consumers in other processes.
+
+public class FileProcessor {
+    // The reader used to stream the orders of a file.
+    private final OrderReader orderReader;
+
+    // The writer used to write the output file and compute its checksum.
+    private final OrderWriter orderWriter;
+
+    // The pipeline running reading, matching and writing on separate threads, or null to run them one after another.
+    private final OrderPipeline pipeline;
+
+    // The number of shards matching the instruments of a file in parallel, or 0 for a single order book per file.
+    private final int shards;
+
+    // The number of events of the ring buffer of each shard.
+    private final int shardRingSize;
+
+    // What a shard does while waiting for orders.
+    private final WaitStrategy shardWaitStrategy;
+
+    // The reporter printing the report of every file, or null to print full reports synchronously.
+    private final ConsoleReporter reporter;
+
+    // The journal the matching of a file is resumed from after a crash, or null to start crashed files over.
+    private final ExchangeJournal journal;
+
+    // Where the order books of the files keep their resting orders.
+    private final OrderStorage storage;
+
+    // The metrics every processed file is added to, or null to process files without measuring them.
+    private ExchangeMetrics metrics;
+
+    // The state of every file read in tail mode by file name, or null outside tail mode.
+    private Map<String, FileTail> tails;
+
+    // The number of levels of each side of a book published while it is matched, or 0 to publish nothing.
+    private int snapshotDepth;
+
+    // The publishers of the books of the files being matched, and of the tailed files, by file name.
+    private final Map<String, DepthSnapshotPublisher> publishers = new ConcurrentHashMap<>();
+
+    // The directory the market data feed of every file is created in, or null to publish none, and the capacity of a feed.
+    private Path feedDirectory;
+    private int feedCapacity;
+
+    // The market data feeds of the files being matched, and of the tailed files, by file name.
+    private final Map<String, MarketDataFeed> feeds = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new FileProcessor.
+     *
+     * @param orderReader       The reader used to stream the orders of a file.
+     * @param orderWriter       The writer used to write the output file and compute its checksum.
+     * @param pipeline          The pipeline running the stages on separate threads, or null; ignored when sharded.
+     * @param shards            The number of shards matching instruments in parallel, or 0 for a single order book.
+     * @param shardRingSize     The number of events of the ring buffer of each shard, a power of two.
+     * @param shardWaitStrategy What a shard does while waiting for orders.
+     * @param reporter          The reporter printing the report of every file in the background, or null to print
+     *                          the full report synchronously.
+     * @param journal           The journal the matching of a file is resumed from after a crash, or null; only files
+     *                          matched without pipeline and shards are journaled.
+     * @param storage           Where the order books keep their resting orders.
+     */
+    public FileProcessor(OrderReader orderReader, OrderWriter orderWriter, OrderPipeline pipeline,
+                         int shards, int shardRingSize, WaitStrategy shardWaitStrategy, ConsoleReporter reporter,
+                         ExchangeJournal journal, OrderStorage storage) {
+        this.orderReader = orderReader;
+        this.orderWriter = orderWriter;
+        this.pipeline = pipeline;
+        this.shards = shards;
+        this.shardRingSize = shardRingSize;
+        this.shardWaitStrategy = shardWaitStrategy;
+        this.reporter = reporter;
+        this.journal = journal;
+        this.storage = storage;
+    }
+
+    // Sets the metrics every processed file is added to, or removes them when given null.
+    public void setMetrics(ExchangeMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Turns tail mode on or off. In tail mode the pipeline, shards and journal are not used.
+    public void setTailMode(boolean tailMode) {
+        this.tails = tailMode ? new ConcurrentHashMap<>() : null;
+    }
+
+    // Sets the number of levels of each side of a book published while it is matched, or 0 to publish nothing.
+    public void setSnapshotDepth(int snapshotDepth) {
+        this.snapshotDepth = snapshotDepth;
+    }
+
+    /**
+     * Publishes the trades and depth updates of every file matched without shards to a market data feed named after
+     * the file, e.g. /dev/shm/bitvavo/orders.txt.feed, as they happen. A feed is created when its file starts to be
+     * matched and closed when the file is done, or when a tailed file is matched from the start again.
+     *
+     * @param feedDirectory The existing directory the feeds are created in, or null to publish none.
+     * @param feedCapacity  The number of records a feed keeps for its consumers, a power of two.
+     */
+    public void setFeedDirectory(Path feedDirectory, int feedCapacity) {
+        this.feedDirectory = feedDirectory;
+        this.feedCapacity = feedCapacity;
+    }
+
+    /**
+     * Returns the latest snapshot of the best levels of the book of a file, from any thread and without ever waiting
+     * for the thread matching it. Only files matched without shards have one, while they are matched or tailed.
+     *
+     * @param fileName The name of the file.
+     * @return The latest snapshot, or null if the file is not being matched or snapshots are not published.
+     */
+    public DepthSnapshot getSnapshot(String fileName) {
+        DepthSnapshotPublisher publisher = publishers.get(fileName);
+        return publisher != null ? publisher.getSnapshot() : null;
+    }
+
+    /**
+     * Returns true if the file was read in tail mode and has not changed size since, so there is nothing new to read.
+     * A file that grew, shrank or was never read is not caught up.
+     *
+     * @param fileName The name of the file.
+     * @return True if the file has been read up to its current size.
+     */
+    public boolean isCaughtUp(String fileName) {
+        FileTail tail = tails != null ? tails.get(fileName) : null;
+        return tail != null && new File(orderReader.getDirectory(), fileName).length() == tail.getSize();
+    }
+
+    /**
+     * Processes a single file: matches its orders, writes the trades and order book and computes the checksum.
+     *
+     * @param fileName The name of the file to process.
+     * @return The checksum of the written file.
+     */
+    public String process(String fileName) {
+        ReportLevel level = reporter == null ? ReportLevel.FULL : reporter.getLevel();
+        // Collect the console output of this file, so it is printed in one piece
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream console = new PrintStream(buffer);
+        // The stream trades, order books and file content are printed to, which only the full report has
+        PrintStream details = level == ReportLevel.FULL ? console : null;
+        try {
+            if (level != ReportLevel.QUIET) {
+                console.println("--------------------------------------------------------------------------------");
+
+                console.println("Processing new file: " + fileName);
+                console.println("Reading file: " + fileName);
+            }
+
+            // Measure the file if metrics are collected, from here on and only on this thread
+            FileMetrics fileMetrics = metrics != null ? new FileMetrics() : null;
+            long started = System.nanoTime();
+
+            // Instantiate the ExchangeService class; a tailed file goes on with the one it was last read with
+            ExchangeService exchange = tails == null && shards == 0 ? newExchange(fileName) : null;
+
+            // The output replaces the input file in the same format, text or binary
+            FileFormat format = orderReader.detectFormat(fileName);
+            String checksum;
+
+            if (tails != null) {
+                // Match the orders appended since the file was last read, in the exchange kept since
+                FileTail tail = tail(fileName, format, level, console);
+                checksum = appendTail(fileName, tail, details, fileMetrics, started);
+
+                if (level == ReportLevel.SUMMARY) {
+                    tail.getExchange().getOrderBook().writeSummary(console);
+                }
+            } else if (shards > 0) {
+                // Stream the orders of the file to the shards, which match the instruments in parallel
+                ShardedExchange shardedExchange = new ShardedExchange(shards, shardRingSize, shardWaitStrategy, fileName, storage);
+                try {
+                    orderReader.readFile(fileName, fileMetrics != null ? fileMetrics.count(shardedExchange) : shardedExchange);
+                } finally {
+                    shardedExchange.close();
+                }
+                SortedMap<String, OrderBook> orderBooks = shardedExchange.getOrderBooks();
+                long matched = System.nanoTime();
+
+                // Print the trades and order book of every instrument
+                if (details != null) {
+                    details.println("------------------------------------------------------------");
+                    for (Map.Entry<String, OrderBook> entry : orderBooks.entrySet()) {
+                        if (!entry.getKey().isEmpty()) {
+                            details.println("Symbol: " + entry.getKey());
+                        }
+                        entry.getValue().writeTradeAndOrderBook(details);
+                    }
+                    details.println("------------------------------------------------------------");
+                }
+
+                // Write the trades and order book of every instrument to file
+                checksum = orderWriter.writeFile(fileName, orderBooks, details, format);
+                if (fileMetrics != null) {
+                    fileMetrics.addMatchNanos(matched - started);
+                    fileMetrics.addWriteNanos(System.nanoTime() - matched);
+                    fileMetrics.finish(orderBooks.values());
+                }
+
+                if (level == ReportLevel.SUMMARY) {
+                    for (Map.Entry<String, OrderBook> entry : orderBooks.entrySet()) {
+                        if (!entry.getKey().isEmpty()) {
+                            console.println("Symbol: " + entry.getKey());
+                        }
+                        entry.getValue().writeSummary(console);
+                    }
+                }
+            } else if (pipeline == null) {
+                // Resume the file where its journal ends if it was being matched when the application stopped
+                try (FileJournal fileJournal = journal != null ? openJournal(fileName, exchange) : null) {
+                    if (fileJournal != null && fileJournal.getRecoveredEvents() > 0 && level != ReportLevel.QUIET) {
+                        console.println("Resuming file: " + fileName + " after " + fileJournal.getRecoveredEvents() + " orders");
+                    }
+
+                    // Stream the orders of the file into the exchange, matching each one as it is parsed
+                    OrderSink sink = fileJournal != null ? fileJournal.sink() : exchange;
+                    orderReader.readFile(fileName, fileMetrics != null ? fileMetrics.meter(sink, exchange.getOrderBook()) : sink);
+                    long matched = System.nanoTime();
+
+                    // Print the trade and order book
+                    if (details != null) {
+                        printTradeAndOrderBook(exchange, details);
+                    }
+
+                    // Write the trade and order book to file; the journal is only needed until the output is complete
+                    checksum = orderWriter.writeFile(fileName, exchange.getOrderBook(), details, format);
+                    if (fileJournal != null) {
+                        fileJournal.complete();
+                    }
+                    if (fileMetrics != null) {
+                        fileMetrics.addMatchNanos(matched - started);
+                        fileMetrics.addWriteNanos(System.nanoTime() - matched);
+                        fileMetrics.finish(Collections.singletonList(exchange.getOrderBook()));
+                    }
+                }
+
+                if (level == ReportLevel.SUMMARY) {
+                    exchange.getOrderBook().writeSummary(console);
+                }
+            } else {
+                // Read, match and write the trades on separate threads, then append the order book
+                ByteArrayOutputStream content = details != null ? new ByteArrayOutputStream() : null;
+                OutputFile output;
+                try (OutputFile file = orderWriter.open(fileName, content != null ? new PrintStream(content) : null, format)) {
+                    output = file;
+                    pipeline.run(orderReader, fileName, exchange, output,
+                            fileMetrics != null ? fileMetrics.meter(exchange, exchange.getOrderBook()) : exchange);
+                    long matched = System.nanoTime();
+                    output.writeOrderBook(exchange.getOrderBook());
+                    output.commit();
+                    if (fileMetrics != null) {
+                        // The trades are written while the file is matched, so only the order book counts as writing
+                        fileMetrics.addMatchNanos(matched - started);
+                        fileMetrics.addWriteNanos(System.nanoTime() - matched);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to write file: " + fileName, e);
+                }
+                checksum = output.getChecksum();
+                if (fileMetrics != null) {
+                    fileMetrics.finish(Collections.singletonList(exchange.getOrderBook()));
+                }
+
+                if (details != null) {
+                    // Print the trade and order book
+                    printTradeAndOrderBook(exchange, details);
+
+                    // Print the content of the file, which was echoed while it was written
+                    details.println("------------------------------------------------------------");
+                    details.println("TXT FILE CONTENT");
+                    details.println("------------------------------------------------------------");
+                    details.write(content.toByteArray(), 0, content.size());
+                    details.println("------------------------------------------------------------");
+                }
+
+                if (level == ReportLevel.SUMMARY) {
+                    exchange.getOrderBook().writeSummary(console);
+                }
+            }
+
+            if (level != ReportLevel.QUIET) {
+                // Print the checksum, computed while the file was written
+                console.println("Checksum(" + orderWriter.getChecksumAlgorithm().getDisplayName() + "): " + checksum);
+
+                console.println("--------------------------------------------------------------------------------");
+            }
+            if (fileMetrics != null) {
+                metrics.add(fileMetrics);
+            }
+            return checksum;
+        } finally {
+            // The book of a file that is done is not published anymore, unless the file is tailed
+            if (tails == null) {
+                publishers.remove(fileName);
+                closeFeed(feeds.remove(fileName));
+            }
+            // Print the output of this file in one piece, even if processing failed half way
+            console.flush();
+            report(buffer);
+        }
+    }
+
+    // Creates the exchange a file is matched in, publishing snapshots of its book if configured.
+    private ExchangeService newExchange(String fileName) {
+        ExchangeService exchange = new ExchangeService(new OrderBook(storage.newStore()));
+        if (snapshotDepth > 0) {
+            DepthSnapshotPublisher publisher = new DepthSnapshotPublisher(exchange.getOrderBook(), snapshotDepth);
+            exchange.setSnapshotPublisher(publisher);
+            publishers.put(fileName, publisher);
+        }
+        if (feedDirectory != null) {
+            MarketDataFeed feed;
+            try {
+                feed = MarketDataFeed.create(feedDirectory.resolve(fileName + ".feed"), feedCapacity);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to create market data feed of file: " + fileName, e);
+            }
+            exchange.setMarketDataFeed(feed);
+            // A tailed file matched from the start again replaces the feed of its previous exchange
+            closeFeed(feeds.put(fileName, feed));
+        }
+        return exchange;
+    }
+
+    // Closes a market data feed, if there is one, so its consumers know it ends.
+    private static void closeFeed(MarketDataFeed feed) {
+        if (feed == null) {
+            return;
+        }
+        try {
+            feed.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close market data feed", e);
+        }
+    }
+
+    // Returns the tail of the file, starting it over with a new exchange if the file is new or was truncated.
+    private FileTail tail(String fileName, FileFormat format, ReportLevel level, PrintStream console) {
+        FileTail tail = tails.get(fileName);
+        long size = new File(orderReader.getDirectory(), fileName).length();
+        if (tail != null && size >= tail.getOffset()) {
+            if (level != ReportLevel.QUIET) {
+                console.println("Appending " + (size - tail.getOffset()) + " bytes from offset " + tail.getOffset() + " of file: " + fileName);
+            }
+            return tail;
+        }
+        // A file smaller than what was read of it was replaced, so its orders are matched from the start
+        tail = new FileTail(newExchange(fileName), format);
+        tails.put(fileName, tail);
+        return tail;
+    }
+
+    /**
+     * Reads and matches the orders appended to a tailed file, then appends the trades they made to its output after
+     * the trades written before, followed by the order book. The tail is dropped if this fails half way, so the file
+     * is matched from the start the next time.
+     *
+     * @return The checksum of the whole output.
+     */
+    private String appendTail(String fileName, FileTail tail, PrintStream details, FileMetrics fileMetrics, long started) {
+        OrderBook orderBook = tail.getExchange().getOrderBook();
+        try {
+            // Match the complete lines appended since the last read
+            long size = new File(orderReader.getDirectory(), fileName).length();
+            OrderSink sink = fileMetrics != null ? fileMetrics.meter(tail.getExchange(), orderBook) : tail.getExchange();
+            tail.read(orderReader.readAppended(fileName, tail.getOffset(), tail.getFormat(), sink), size);
+            long matched = System.nanoTime();
+
+            // Cut the output off where its order book started, and append the new trades and the new order book
+            if (details != null) {
+                details.println("------------------------------------------------------------");
+                details.println("TXT FILE CONTENT");
+                details.println("------------------------------------------------------------");
+            }
+            TradeJournal trades = orderBook.getTradeJournal();
+            OutputFile output;
+            long bookPosition;
+            ChecksumAlgorithm.Hasher tradesHasher;
+            try (OutputFile file = orderWriter.resume(fileName, tail.getBookPosition(), tail.getTradesHasher(), details, tail.getFormat())) {
+                output = file;
+                for (int i = tail.getTradesWritten(); i < trades.size(); i++) {
+                    output.writeTrade(trades.getBidId(i), trades.getAskId(i), trades.getPrice(i), trades.getQuantity(i));
+                }
+                bookPosition = output.position();
+                tradesHasher = output.copyHasher();
+                output.writeOrderBook(orderBook);
+                output.commit();
+            }
+            tail.written(trades.size(), bookPosition, tradesHasher);
+            if (details != null) {
+                details.println("------------------------------------------------------------");
+            }
+            if (fileMetrics != null) {
+                fileMetrics.addMatchNanos(matched - started);
+                fileMetrics.addWriteNanos(System.nanoTime() - matched);
+                fileMetrics.finish(Collections.singletonList(orderBook));
+            }
+            return output.getChecksum();
+        } catch (IOException e) {
+            tails.remove(fileName);
+            throw new UncheckedIOException("Failed to tail file: " + fileName, e);
+        } catch (RuntimeException | Error e) {
+            tails.remove(fileName);
+            throw e;
+        }
+    }
+
+    // Hands the report of a file to the console reporter, or prints it as a single write without one.
+    private void report(ByteArrayOutputStream buffer) {
+        if (buffer.size() == 0) {
+            return;
+        }
+        if (reporter == null) {
+            synchronized (System.out) {
+                System.out.write(buffer.toByteArray(), 0, buffer.size());
+                System.out.flush();
+            }
+            return;
+        }
+        try {
+            reporter.submit(buffer.toByteArray());
+        } catch (InterruptedException e) {
+            // The report is lost, but the file itself was processed
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Opens the journal of the file, restoring the exchange to where it ends.
+    private FileJournal openJournal(String fileName, ExchangeService exchange) {
+        try {
+            return journal.open(fileName, exchange);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open journal of file: " + fileName, e);
+        }
+    }
+
+    // Prints the trades and the order book report between two separator lines.
+    private static void printTradeAndOrderBook(ExchangeService exchange, PrintStream console) {
+        console.println("------------------------------------------------------------");
+        exchange.getOrderBook().writeTradeAndOrderBook(console);
+        console.println("------------------------------------------------------------");
+    }
+}
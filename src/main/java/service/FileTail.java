@@ -0,0 +1,92 @@
+package main.java.service;
+
+import main.java.service.util.ChecksumAlgorithm;
+import main.java.service.util.FileFormat;
+
+// The FileTail class holds what tail mode keeps of a file between two reads: how far the file was read, the exchange
+// its orders were matched in, and how far its output was written. The output holds the trades made so far followed by
+// the order book, so a read appends the trades it made where the previous order book started and writes the order
+// book again after them.
+
+public class FileTail {
+    // The exchange the orders of the file are matched in, kept from one read to the next.
+    private final ExchangeService exchange;
+
+    // The format of the file, detected before its first read.
+    private final FileFormat format;
+
+    // The number of bytes of the file read so far, up to the end of its last complete line or record.
+    private long offset;
+
+    // The size of the file when it was last read.
+    private long size;
+
+    // The number of trades of the exchange written to the output so far.
+    private int tradesWritten;
+
+    // The position in the output at which the order book starts, after the trades written so far.
+    private long bookPosition;
+
+    // The hasher of the output before bookPosition, or null if no output was written yet.
+    private ChecksumAlgorithm.Hasher tradesHasher;
+
+    // Constructs a new FileTail for a file that has not been read yet.
+    public FileTail(ExchangeService exchange, FileFormat format) {
+        this.exchange = exchange;
+        this.format = format;
+    }
+
+    // Returns the exchange the orders of the file are matched in.
+    public ExchangeService getExchange() {
+        return exchange;
+    }
+
+    // Returns the format of the file.
+    public FileFormat getFormat() {
+        return format;
+    }
+
+    // Returns the number of bytes of the file read so far.
+    public long getOffset() {
+        return offset;
+    }
+
+    // Returns the size of the file when it was last read.
+    public long getSize() {
+        return size;
+    }
+
+    // Records that the file, of the given size when the read started, was read up to the given offset.
+    public void read(long offset, long size) {
+        this.offset = offset;
+        this.size = size;
+    }
+
+    // Returns the number of trades of the exchange written to the output so far.
+    public int getTradesWritten() {
+        return tradesWritten;
+    }
+
+    // Returns the position in the output at which the order book starts.
+    public long getBookPosition() {
+        return bookPosition;
+    }
+
+    // Returns the hasher of the output before the order book, or null if no output was written yet.
+    public ChecksumAlgorithm.Hasher getTradesHasher() {
+        return tradesHasher;
+    }
+
+    /**
+     * Records that the output was written, up to the given trade and with the order book at the given position.
+     *
+     * @param tradesWritten The number of trades of the exchange written to the output.
+     * @param bookPosition  The position in the output at which the order book starts.
+     * @param tradesHasher  The hasher of the output before that position.
+     */
+    public void written(int tradesWritten, long bookPosition, ChecksumAlgorithm.Hasher tradesHasher) {
+        this.tradesWritten = tradesWritten;
+        this.bookPosition = bookPosition;
+        this.tradesHasher = tradesHasher;
+    }
+}
@@ -0,0 +1,79 @@
+package main.java.service;
+
+import main.java.model.OrderType;
+
+// The OrderSink interface receives orders one by one as they are parsed, as primitive fields.
+// It lets readers stream orders straight into a matching engine instead of collecting them first.
+// Orders may carry the symbol of their instrument; sinks that hold a single order book skip the orders with one, as
+// the reader always skipped lines with a fifth column.
+// Besides new orders, every sink receives the cancels and amends of resting orders.
+
+public interface OrderSink {
+
+    /**
+     * Accepts a single order.
+     *
+     * @param id        The id of the order.
+     * @param orderType The side of the order.
+     * @param price     The limit price of the order.
+     * @param quantity  The quantity of the order.
+     */
+    void accept(String id, OrderType orderType, int price, int quantity);
+
+    /**
+     * Accepts a single order for the given instrument.
+     *
+     * @param symbol    The symbol of the instrument, or null if the order has none.
+     * @param id        The id of the order.
+     * @param orderType The side of the order.
+     * @param price     The limit price of the order.
+     * @param quantity  The quantity of the order.
+     */
+    default void accept(String symbol, String id, OrderType orderType, int price, int quantity) {
+        // A single order book has no instruments, so an order for one is skipped
+        if (symbol == null) {
+            accept(id, orderType, price, quantity);
+        }
+    }
+
+    /**
+     * Cancels the resting order with the given id. Unknown ids, e.g. of orders that were filled already, are ignored.
+     *
+     * @param id The id of the order to cancel.
+     */
+    void cancel(String id);
+
+    /**
+     * Cancels the resting order with the given id for the given instrument.
+     *
+     * @param symbol The symbol of the instrument, or null if the cancel has none.
+     * @param id     The id of the order to cancel.
+     */
+    default void cancel(String symbol, String id) {
+        if (symbol == null) {
+            cancel(id);
+        }
+    }
+
+    /**
+     * Amends the quantity of the resting order with the given id. A reduction keeps the time priority of the order,
+     * an increase moves it to the back of its price level and zero (or less) cancels it. Unknown ids are ignored.
+     *
+     * @param id          The id of the order to amend.
+     * @param newQuantity The new remaining quantity of the order.
+     */
+    void amend(String id, int newQuantity);
+
+    /**
+     * Amends the quantity of the resting order with the given id for the given instrument.
+     *
+     * @param symbol      The symbol of the instrument, or null if the amend has none.
+     * @param id          The id of the order to amend.
+     * @param newQuantity The new remaining quantity of the order.
+     */
+    default void amend(String symbol, String id, int newQuantity) {
+        if (symbol == null) {
+            amend(id, newQuantity);
+        }
+    }
+}
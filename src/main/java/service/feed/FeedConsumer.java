@@ -0,0 +1,156 @@
+package main.java.service.feed;
+
+import main.java.model.OrderType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// The FeedConsumer class reads a market data feed published by a MarketDataFeed, usually in another process. It maps
+// the feed file read-only and polls the slot of its next record, so reading never locks, never makes a system call and
+// never slows the engine down; any number of consumers can read the same feed independently.
+//
+// A record is read optimistically: its stamp is checked before and after its fields are read, and a record that was
+// overwritten in between by a later lap of the ring is counted as lost rather than handed out half written.
+//
+//   try (FeedConsumer consumer = FeedConsumer.open(Paths.get("/dev/shm/bitvavo/orders.txt.feed"))) {
+//       while (!consumer.isClosed()) {
+//           if (consumer.poll(handler, 256) == 0) {
+//               Thread.yield();   // or spin, park or do other work
+//           }
+//       }
+//   }
+
+public class FeedConsumer implements Closeable {
+    // The channel of the feed file.
+    private final FileChannel channel;
+
+    // The mapped feed file.
+    private final MappedByteBuffer buffer;
+
+    // The mask mapping a sequence to its slot, the capacity minus one.
+    private final int mask;
+
+    // The sequence of the next record to read.
+    private long position;
+
+    // The number of records overwritten before they were read.
+    private long lostRecords;
+
+    private FeedConsumer(FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.mask = capacity - 1;
+        // Start at the oldest record still in the ring, which is the first record unless the ring wrapped around
+        long cursor = buffer.getLong(FeedFormat.CURSOR_OFFSET);
+        this.position = Math.max(0, cursor - capacity);
+    }
+
+    /**
+     * Opens the feed file at the given path, starting at the oldest record it still holds.
+     *
+     * @param file The path of the feed file.
+     * @return The consumer.
+     * @throws IOException If the file cannot be opened or is not a feed file.
+     */
+    public static FeedConsumer open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int capacity = FeedFormat.checkHeader(buffer, file);
+            Fences.loadFence();
+            return new FeedConsumer(channel, buffer, capacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Hands the records published since the last poll to the handler, oldest first, up to the given number.
+     *
+     * @param handler The handler of the records.
+     * @param limit   The largest number of records handed out by this call.
+     * @return The number of records handed out, 0 if there was nothing new.
+     */
+    public int poll(FeedHandler handler, int limit) {
+        int count = 0;
+        while (count < limit) {
+            int offset = FeedFormat.offset(position, mask);
+            long expected = position + 1;
+            long stamp = buffer.getLong(offset + FeedFormat.STAMP_OFFSET);
+            Fences.loadFence();
+            if (stamp != expected) {
+                // Being written, or still holding the previous lap: nothing new yet
+                if (Math.abs(stamp) <= expected) {
+                    break;
+                }
+                skipLapped(handler);
+                continue;
+            }
+
+            // Read the fields, then check the record was not overwritten while they were read
+            long timestamp = buffer.getLong(offset + FeedFormat.TIMESTAMP_OFFSET);
+            byte kind = buffer.get(offset + FeedFormat.KIND_OFFSET);
+            byte side = buffer.get(offset + FeedFormat.SIDE_OFFSET);
+            int price = buffer.getInt(offset + FeedFormat.PRICE_OFFSET);
+            long quantity = buffer.getLong(offset + FeedFormat.QUANTITY_OFFSET);
+            long bidId = buffer.getLong(offset + FeedFormat.BID_ID_OFFSET);
+            long askId = buffer.getLong(offset + FeedFormat.ASK_ID_OFFSET);
+            int orderCount = buffer.getInt(offset + FeedFormat.ORDER_COUNT_OFFSET);
+            Fences.loadFence();
+            if (buffer.getLong(offset + FeedFormat.STAMP_OFFSET) != expected) {
+                skipLapped(handler);
+                continue;
+            }
+            position++;
+
+            // Records of kinds added by later versions are skipped
+            if (kind == FeedFormat.TRADE) {
+                handler.onTrade(bidId, askId, price, (int) quantity, timestamp);
+            } else if (kind == FeedFormat.LEVEL) {
+                handler.onLevelUpdate(side == FeedFormat.BID ? OrderType.BID : OrderType.ASK, price, quantity, orderCount, timestamp);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    // Moves past the records that were overwritten before they were read, to the latest one published.
+    private void skipLapped(FeedHandler handler) {
+        long cursor = buffer.getLong(FeedFormat.CURSOR_OFFSET);
+        long next = Math.max(cursor, position + 1);
+        long lost = next - position;
+        lostRecords += lost;
+        position = next;
+        handler.onGap(lost);
+    }
+
+    // Returns the sequence of the next record to read, i.e. the number of records read or lost so far.
+    public long getPosition() {
+        return position;
+    }
+
+    // Returns the number of records that were overwritten before they were read.
+    public long getLostRecords() {
+        return lostRecords;
+    }
+
+    // Returns true once the engine closed the feed and every record it published was read or lost.
+    public boolean isClosed() {
+        boolean closed = buffer.getInt(FeedFormat.CLOSED_OFFSET) != 0;
+        Fences.loadFence();
+        return closed && position >= buffer.getLong(FeedFormat.CURSOR_OFFSET);
+    }
+
+    // Closes the file. The mapping is released by the garbage collector.
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,100 @@
+package main.java.service.feed;
+
+import main.java.service.util.BinaryFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+// The FeedFormat class describes the market data feed file shared by the engine and its consumers: a header followed
+// by a ring of fixed-width, little-endian records of one cache line each, so that the engine writing one record never
+// invalidates the line a consumer is reading.
+//
+//   header:  0 magic (4 bytes, "BVFD") | 4 version (1 byte) | 5 reserved (3 bytes) | 8 capacity (int)
+//            | 12 record size (int) | 64 cursor (long) | 72 closed (int) | 76 reserved up to 128
+//   record:  0 stamp (long) | 8 timestamp (long) | 16 kind (byte) | 17 side (byte) | 18 reserved (2 bytes)
+//            | 20 price (int) | 24 quantity (long) | 32 bid id (long) | 40 ask id (long) | 48 order count (int)
+//            | 52 reserved (12 bytes)
+//
+// The record of sequence n is in slot n % capacity. Its stamp is -(n + 1) while it is being written and n + 1 once it
+// is complete, so a consumer can tell a record that is not written yet from one that was overwritten by a later lap.
+// The cursor is the sequence of the next record, and closed is set to 1 once the engine wrote the last record.
+// Trades ('T') fill the ids, price and quantity; level updates ('L') fill the side ('B' or 'S'), price, quantity and
+// order count, the new state of the level as given to a DepthListener. The timestamp is System.nanoTime of the engine.
+
+final class FeedFormat {
+    // The magic bytes and version of a feed file.
+    static final byte[] MAGIC = {'B', 'V', 'F', 'D'};
+    static final byte VERSION = 1;
+
+    // The offsets of the fields of the header, and its size.
+    static final int CAPACITY_OFFSET = 8;
+    static final int RECORD_SIZE_OFFSET = 12;
+    static final int CURSOR_OFFSET = 64;
+    static final int CLOSED_OFFSET = 72;
+    static final int HEADER_SIZE = 128;
+
+    // The size of every record, a cache line.
+    static final int RECORD_SIZE = 64;
+
+    // The offsets of the fields of a record.
+    static final int STAMP_OFFSET = 0;
+    static final int TIMESTAMP_OFFSET = 8;
+    static final int KIND_OFFSET = 16;
+    static final int SIDE_OFFSET = 17;
+    static final int PRICE_OFFSET = 20;
+    static final int QUANTITY_OFFSET = 24;
+    static final int BID_ID_OFFSET = 32;
+    static final int ASK_ID_OFFSET = 40;
+    static final int ORDER_COUNT_OFFSET = 48;
+
+    // The kinds of records, and the sides of a level update.
+    static final byte TRADE = BinaryFormat.TRADE;
+    static final byte LEVEL = 'L';
+    static final byte BID = BinaryFormat.BID;
+    static final byte ASK = BinaryFormat.ASK;
+
+    // The largest number of records of a feed, so the whole file can be mapped at once.
+    static final int MAX_CAPACITY = 1 << 24;
+
+    private FeedFormat() {
+    }
+
+    // Returns the size of a feed file of the given capacity.
+    static int fileSize(int capacity) {
+        return HEADER_SIZE + capacity * RECORD_SIZE;
+    }
+
+    // Returns the offset in the file of the record of the given sequence.
+    static int offset(long sequence, int mask) {
+        return HEADER_SIZE + (int) (sequence & mask) * RECORD_SIZE;
+    }
+
+    /**
+     * Checks the header of a mapped feed file.
+     *
+     * @param buffer The mapped file, little-endian.
+     * @param file   The path of the file, for the error message.
+     * @return The capacity of the feed.
+     * @throws IOException If the file is not a feed file written by this version.
+     */
+    static int checkHeader(ByteBuffer buffer, Path file) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE) {
+            throw new IOException("Not a market data feed: " + file);
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(i) != MAGIC[i]) {
+                throw new IOException("Not a market data feed: " + file);
+            }
+        }
+        if (buffer.get(MAGIC.length) != VERSION) {
+            throw new IOException("Unsupported market data feed version " + buffer.get(MAGIC.length) + ": " + file);
+        }
+        int capacity = buffer.getInt(CAPACITY_OFFSET);
+        if (capacity < 1 || Integer.bitCount(capacity) != 1 || capacity > MAX_CAPACITY
+                || buffer.getInt(RECORD_SIZE_OFFSET) != RECORD_SIZE || buffer.capacity() < fileSize(capacity)) {
+            throw new IOException("Corrupt market data feed header: " + file);
+        }
+        return capacity;
+    }
+}
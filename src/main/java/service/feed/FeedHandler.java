@@ -0,0 +1,39 @@
+package main.java.service.feed;
+
+import main.java.model.OrderType;
+
+// The FeedHandler interface receives the records of a market data feed from FeedConsumer.poll, on the polling thread.
+
+public interface FeedHandler {
+
+    /**
+     * Called for every trade.
+     *
+     * @param bidId     The id of the buy order, or Order.NOT_NUMERIC if it is not a number.
+     * @param askId     The id of the sell order, or Order.NOT_NUMERIC if it is not a number.
+     * @param price     The price the trade happened at.
+     * @param quantity  The quantity traded.
+     * @param timestamp The System.nanoTime of the engine when the trade was published.
+     */
+    void onTrade(long bidId, long askId, int price, int quantity, long timestamp);
+
+    /**
+     * Called for every change of a price level, with its new state as described in DepthListener.
+     *
+     * @param side       The side of the book the level is on.
+     * @param price      The price of the level.
+     * @param quantity   The total remaining quantity resting at the price, 0 once the level is empty.
+     * @param orderCount The number of orders resting at the price, 0 once the level is empty.
+     * @param timestamp  The System.nanoTime of the engine when the update was published.
+     */
+    void onLevelUpdate(OrderType side, int price, long quantity, int orderCount, long timestamp);
+
+    /**
+     * Called when the consumer fell so far behind that records it had not read were overwritten. The consumer goes
+     * on with the records published after the gap, so a copy of the depth built from earlier updates is no longer
+     * complete.
+     *
+     * @param lostRecords The number of records skipped.
+     */
+    void onGap(long lostRecords);
+}
@@ -0,0 +1,68 @@
+package main.java.service.feed;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+// The Fences class orders the plain reads and writes of a buffer shared with other processes, which the Java memory
+// model does not cover. Java 8 has no public fences, so the ones of sun.misc.Unsafe are looked up at runtime; a store
+// fence is free on x86 and a load fence only stops the compiler from moving reads. Where Unsafe is not available, a
+// volatile write, which HotSpot compiles to a full fence, is used for both.
+
+final class Fences {
+    // The fences, bound to the Unsafe instance; static final so the compiler inlines them.
+    private static final MethodHandle LOAD_FENCE;
+    private static final MethodHandle STORE_FENCE;
+
+    // Written by the fallback fence.
+    private static volatile int barrier;
+
+    static {
+        MethodType type = MethodType.methodType(void.class);
+        MethodHandle load;
+        MethodHandle store;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            load = MethodHandles.lookup().findVirtual(unsafeClass, "loadFence", type).bindTo(unsafe);
+            store = MethodHandles.lookup().findVirtual(unsafeClass, "storeFence", type).bindTo(unsafe);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            try {
+                load = store = MethodHandles.lookup().findStatic(Fences.class, "fullFence", type);
+            } catch (ReflectiveOperationException fallback) {
+                throw new ExceptionInInitializerError(fallback);
+            }
+        }
+        LOAD_FENCE = load;
+        STORE_FENCE = store;
+    }
+
+    private Fences() {
+    }
+
+    // Keeps the reads before the fence from moving after it, and the reads after it from moving before it.
+    static void loadFence() {
+        try {
+            LOAD_FENCE.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Load fence failed", e);
+        }
+    }
+
+    // Keeps the writes before the fence from moving after it, and the writes after it from moving before it.
+    static void storeFence() {
+        try {
+            STORE_FENCE.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Store fence failed", e);
+        }
+    }
+
+    // Orders all reads and writes around it.
+    private static void fullFence() {
+        barrier = 0;
+    }
+}
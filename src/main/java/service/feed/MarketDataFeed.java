@@ -0,0 +1,138 @@
+package main.java.service.feed;
+
+import main.java.model.DepthListener;
+import main.java.model.OrderType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// The MarketDataFeed class publishes the trades and depth (L2) updates of an order book to consumers in other
+// processes on the same host, through a ring of records in a memory-mapped file (laid out as described in FeedFormat),
+// e.g. in /dev/shm so it never touches a disk. It is written by the matching thread only and read by any number of
+// FeedConsumers, which poll it without locks or system calls.
+//
+// The feed never waits for its consumers: a record is overwritten once capacity later records were published, and a
+// consumer that falls that far behind is told how many records it lost. Publishing a record is a few plain writes
+// into the mapping and two store fences, and allocates nothing.
+
+public class MarketDataFeed implements DepthListener, Closeable {
+    // The channel of the feed file.
+    private final FileChannel channel;
+
+    // The mapped feed file.
+    private final MappedByteBuffer buffer;
+
+    // The mask mapping a sequence to its slot, the capacity minus one.
+    private final int mask;
+
+    // The sequence of the next record. Only used by the matching thread.
+    private long sequence;
+
+    private MarketDataFeed(FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Creates a new, empty feed file at the given path. The file is written under a temporary name and moved into
+     * place, so a consumer never opens a file without its header. A file already at the path is replaced, not
+     * truncated, so consumers still reading it are not affected; they see it closed once its engine stops.
+     *
+     * @param file     The path of the feed file.
+     * @param capacity The number of records kept for consumers, a power of two.
+     * @return The feed, ready to publish.
+     * @throws IOException If the file cannot be created.
+     */
+    public static MarketDataFeed create(Path file, int capacity) throws IOException {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1 || capacity > FeedFormat.MAX_CAPACITY) {
+            throw new IllegalArgumentException("Feed capacity must be a power of two up to " + FeedFormat.MAX_CAPACITY + ": " + capacity);
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            // The new part of the mapping reads as zeros, so every slot starts out not written
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FeedFormat.fileSize(capacity));
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put(FeedFormat.MAGIC).put(FeedFormat.VERSION);
+            buffer.putInt(FeedFormat.CAPACITY_OFFSET, capacity);
+            buffer.putInt(FeedFormat.RECORD_SIZE_OFFSET, FeedFormat.RECORD_SIZE);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new MarketDataFeed(channel, buffer, capacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
+
+    /**
+     * Publishes a trade.
+     *
+     * @param bidId    The id of the buy order, or Order.NOT_NUMERIC if it is not a number.
+     * @param askId    The id of the sell order, or Order.NOT_NUMERIC if it is not a number.
+     * @param price    The price the trade happened at.
+     * @param quantity The quantity traded.
+     */
+    public void publishTrade(long bidId, long askId, int price, int quantity) {
+        int offset = begin();
+        buffer.put(offset + FeedFormat.KIND_OFFSET, FeedFormat.TRADE);
+        buffer.putInt(offset + FeedFormat.PRICE_OFFSET, price);
+        buffer.putLong(offset + FeedFormat.QUANTITY_OFFSET, quantity);
+        buffer.putLong(offset + FeedFormat.BID_ID_OFFSET, bidId);
+        buffer.putLong(offset + FeedFormat.ASK_ID_OFFSET, askId);
+        end(offset);
+    }
+
+    // Publishes the new state of a price level.
+    @Override
+    public void onLevelUpdate(OrderType side, int price, long quantity, int orderCount) {
+        int offset = begin();
+        buffer.put(offset + FeedFormat.KIND_OFFSET, FeedFormat.LEVEL);
+        buffer.put(offset + FeedFormat.SIDE_OFFSET, side == OrderType.BID ? FeedFormat.BID : FeedFormat.ASK);
+        buffer.putInt(offset + FeedFormat.PRICE_OFFSET, price);
+        buffer.putLong(offset + FeedFormat.QUANTITY_OFFSET, quantity);
+        buffer.putInt(offset + FeedFormat.ORDER_COUNT_OFFSET, orderCount);
+        end(offset);
+    }
+
+    // Returns the number of records published so far.
+    public long getPublished() {
+        return sequence;
+    }
+
+    // Marks the slot of the next record as being written and returns its offset.
+    private int begin() {
+        int offset = FeedFormat.offset(sequence, mask);
+        buffer.putLong(offset + FeedFormat.STAMP_OFFSET, -(sequence + 1));
+        // A consumer must see the slot as being written before any of its fields change
+        Fences.storeFence();
+        buffer.putLong(offset + FeedFormat.TIMESTAMP_OFFSET, System.nanoTime());
+        return offset;
+    }
+
+    // Completes the record at the offset and moves the cursor past it.
+    private void end(int offset) {
+        // A consumer must see all fields of the record once it sees it complete
+        Fences.storeFence();
+        buffer.putLong(offset + FeedFormat.STAMP_OFFSET, ++sequence);
+        buffer.putLong(FeedFormat.CURSOR_OFFSET, sequence);
+    }
+
+    // Marks the feed as closed, so its consumers know no records follow, and closes the file. The file itself stays
+    // until it is replaced or deleted, so consumers can still read what was published.
+    @Override
+    public void close() throws IOException {
+        Fences.storeFence();
+        buffer.putInt(FeedFormat.CLOSED_OFFSET, 1);
+        channel.close();
+    }
+}
@@ -0,0 +1,131 @@
+package main.java.service.journal;
+
+import main.java.model.Order;
+import main.java.model.OrderBook;
+import main.java.model.OrderType;
+import main.java.service.util.BinaryFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// The BookSnapshot class writes and reads compact binary snapshots of the resting orders of an order book.
+// A snapshot starts with a record counting the orders and trades of the file it was taken after, followed by one
+// record per resting order, bids then asks, each best first, so adding them back in order restores their priority.
+// Snapshots are written to a temporary file that replaces the previous snapshot once complete, so there is always
+// one whole snapshot to recover from.
+
+public class BookSnapshot {
+    // The magic bytes and version of a snapshot file.
+    private static final byte[] MAGIC = {'B', 'V', 'S', 'N'};
+    private static final byte VERSION = 1;
+
+    // The kind of the record counting the orders and trades the snapshot was taken after.
+    private static final byte COUNTS = 'N';
+
+    // The size of the buffer records are collected in before they are written.
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    // The number of orders, cancels and amends of the file applied to the book when the snapshot was taken.
+    private final long events;
+
+    // The number of trades made when the snapshot was taken.
+    private final int trades;
+
+    // Constructs a new BookSnapshot with the given counts.
+    private BookSnapshot(long events, int trades) {
+        this.events = events;
+        this.trades = trades;
+    }
+
+    // Returns the number of orders, cancels and amends applied to the book when the snapshot was taken.
+    public long getEvents() {
+        return events;
+    }
+
+    // Returns the number of trades made when the snapshot was taken.
+    public int getTrades() {
+        return trades;
+    }
+
+    /**
+     * Writes a snapshot of the resting orders of the book, replacing the previous snapshot at the same path.
+     *
+     * @param file      The path of the snapshot.
+     * @param orderBook The order book.
+     * @param events    The number of orders, cancels and amends applied to the book.
+     * @param trades    The number of trades made.
+     * @throws IOException If the snapshot cannot be written.
+     * @throws IllegalArgumentException If an order id cannot be stored in a binary file.
+     */
+    public static void write(Path file, OrderBook orderBook, long events, int trades) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put(MAGIC).put(VERSION).put((byte) 0).put((byte) 0).put((byte) 0);
+            BinaryFormat.putRecord(buffer, events, 0, trades, COUNTS, 0);
+            for (OrderType side : OrderType.values()) {
+                for (Order order : side == OrderType.BID ? orderBook.getBids() : orderBook.getAsks()) {
+                    if (buffer.remaining() < BinaryFormat.RECORD_SIZE) {
+                        write(channel, buffer);
+                    }
+                    BinaryFormat.putRecord(buffer, BinaryFormat.encodeId(order), order.getPrice(), order.getQuantity(),
+                            side == OrderType.BID ? BinaryFormat.BID : BinaryFormat.ASK, 0);
+                }
+            }
+            write(channel, buffer);
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Writes the collected records to the file and clears the buffer.
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads the snapshot at the given path, if there is one, and adds its resting orders to the empty order book.
+     *
+     * @param file      The path of the snapshot.
+     * @param orderBook The empty order book to restore the orders into.
+     * @return The counts of the snapshot, or null if there is no snapshot.
+     * @throws IOException If the snapshot cannot be read or is damaged.
+     */
+    public static BookSnapshot read(Path file, OrderBook orderBook) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        int size = content.remaining();
+        if (size < BinaryFormat.HEADER_SIZE + BinaryFormat.RECORD_SIZE || (size - BinaryFormat.HEADER_SIZE) % BinaryFormat.RECORD_SIZE != 0
+                || content.get(MAGIC.length) != VERSION || content.get(BinaryFormat.HEADER_SIZE + BinaryFormat.KIND_OFFSET) != COUNTS) {
+            throw new IOException("Damaged snapshot: " + file);
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (content.get(i) != MAGIC[i]) {
+                throw new IOException("Not a snapshot: " + file);
+            }
+        }
+        int position = BinaryFormat.HEADER_SIZE;
+        BookSnapshot snapshot = new BookSnapshot(content.getLong(position + BinaryFormat.ID_OFFSET),
+                content.getInt(position + BinaryFormat.QUANTITY_OFFSET));
+        for (position += BinaryFormat.RECORD_SIZE; position < size; position += BinaryFormat.RECORD_SIZE) {
+            orderBook.addOrder(new Order(Long.toString(content.getLong(position + BinaryFormat.ID_OFFSET)),
+                    OrderType.type((char) content.get(position + BinaryFormat.KIND_OFFSET)),
+                    content.getInt(position + BinaryFormat.PRICE_OFFSET),
+                    content.getInt(position + BinaryFormat.QUANTITY_OFFSET)));
+        }
+        return snapshot;
+    }
+}
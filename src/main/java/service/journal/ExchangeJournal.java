@@ -0,0 +1,124 @@
+package main.java.service.journal;
+
+import main.java.service.ExchangeService;
+import main.java.service.util.OutputFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+// The ExchangeJournal class keeps the state the application needs to restart after a crash in a journal directory.
+// Every output file is recorded as done, with its checksum, once its content is on the disk and before it replaces
+// its order file, so a restart neither matches a finished file again nor takes an output file for a new order file.
+// Files that were being matched get a FileJournal of their own, so a restart resumes them from their latest snapshot.
+
+public class ExchangeJournal implements Closeable, OutputFile.CompletionListener {
+    // The name of the log of completed files, with a "done <file> <checksum>" line per file.
+    private static final String COMPLETED_LOG = "files.log";
+    private static final String DONE = "done ";
+
+    // The extensions of the write-ahead log and the snapshot of a file in the journal directory.
+    private static final String LOG_EXTENSION = ".wal";
+    private static final String SNAPSHOT_EXTENSION = ".snap";
+
+    // The journal directory.
+    private final Path dir;
+
+    // The number of records appended to a write-ahead log between two commits.
+    private final int commitRecords;
+
+    // The number of orders of a file between two snapshots of its book.
+    private final long snapshotInterval;
+
+    // The log of completed files, appended to and forced for every file.
+    private final FileChannel completed;
+
+    /**
+     * Opens the journal in the given directory, creating it if needed.
+     *
+     * @param dir              The journal directory.
+     * @param commitRecords    The number of records appended to a write-ahead log between two commits.
+     * @param snapshotInterval The number of orders of a file between two snapshots of its book.
+     * @throws IOException If the directory or the log of completed files cannot be opened.
+     */
+    public ExchangeJournal(Path dir, int commitRecords, long snapshotInterval) throws IOException {
+        if (snapshotInterval < 1) {
+            throw new IllegalArgumentException("The snapshot interval must be positive: " + snapshotInterval);
+        }
+        this.dir = Files.createDirectories(dir);
+        this.commitRecords = commitRecords;
+        this.snapshotInterval = snapshotInterval;
+        this.completed = FileChannel.open(dir.resolve(COMPLETED_LOG),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Reads the files completed before a restart and finishes what a crash interrupted: outputs that were complete
+     * but had not replaced their order file yet are moved into place, and the journals of completed files are deleted.
+     *
+     * @param outputDir The directory the output files are written to.
+     * @return The checksum of every completed file, by file name.
+     * @throws IOException If the journal cannot be read or an output cannot be moved into place.
+     */
+    public Map<String, String> recover(Path outputDir) throws IOException {
+        Map<String, String> checksums = new HashMap<>();
+        String log = new String(Files.readAllBytes(dir.resolve(COMPLETED_LOG)), StandardCharsets.UTF_8);
+        // A last line torn by a crash has no newline and is ignored; its output was never moved into place
+        for (int start = 0, end; (end = log.indexOf('\n', start)) >= 0; start = end + 1) {
+            String line = log.substring(start, end);
+            int separator = line.lastIndexOf(' ');
+            if (line.startsWith(DONE) && separator > DONE.length()) {
+                checksums.put(line.substring(DONE.length(), separator), line.substring(separator + 1));
+            }
+        }
+        for (String fileName : checksums.keySet()) {
+            Path target = outputDir.resolve(fileName);
+            Path temporary = OutputFile.temporaryOf(target);
+            if (Files.exists(temporary)) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            Files.deleteIfExists(dir.resolve(fileName + LOG_EXTENSION));
+            Files.deleteIfExists(dir.resolve(fileName + SNAPSHOT_EXTENSION));
+        }
+        return checksums;
+    }
+
+    /**
+     * Opens the journal of a file about to be matched in the given new exchange. If the file was being matched when
+     * the application stopped, the exchange is brought back to where its journal ends.
+     *
+     * @param fileName The name of the file.
+     * @param exchange The new exchange the file is matched in.
+     * @return The journal of the file.
+     * @throws IOException If the journal of the file cannot be opened or read.
+     */
+    public FileJournal open(String fileName, ExchangeService exchange) throws IOException {
+        return new FileJournal(dir.resolve(fileName + LOG_EXTENSION), dir.resolve(fileName + SNAPSHOT_EXTENSION),
+                exchange, commitRecords, snapshotInterval);
+    }
+
+    // Records the output file as done, durably, before it replaces its order file. Only called for committed files,
+    // so an output whose writing failed is never recorded and its file is matched again after a restart.
+    @Override
+    public synchronized void onComplete(Path target, String checksum) throws IOException {
+        ByteBuffer line = StandardCharsets.UTF_8.encode(DONE + target.getFileName() + " " + checksum + "\n");
+        while (line.hasRemaining()) {
+            completed.write(line);
+        }
+        completed.force(false);
+    }
+
+    // Closes the log of completed files.
+    @Override
+    public void close() throws IOException {
+        completed.close();
+    }
+}
@@ -0,0 +1,230 @@
+package main.java.service.journal;
+
+import main.java.model.OrderBook;
+import main.java.model.OrderType;
+import main.java.model.TradeJournal;
+import main.java.model.TradeListener;
+import main.java.service.ExchangeService;
+import main.java.service.OrderSink;
+import main.java.service.util.BinaryFormat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// The FileJournal class makes the processing of a single file recoverable. Every order, cancel and amend is appended
+// to a write-ahead log before it is matched, followed by the trades it makes, and every snapshotInterval orders the
+// resting orders are written to a snapshot. After a crash, the book is restored from the latest snapshot and only the
+// orders logged after it are matched again, so recovery time depends on the snapshot interval rather than on the size
+// of the file; the orders of the file that were logged are then skipped, and the rest are read as usual.
+// Orders with ids that are not numbers cannot be logged; the journal of such a file is dropped and a crash means the
+// file is processed again from the start, as without a journal.
+
+public class FileJournal implements AutoCloseable {
+    // The write-ahead log and the snapshot of the file.
+    private final Path logFile;
+    private final Path snapshotFile;
+
+    // The exchange the orders of the file are matched in.
+    private final ExchangeService exchange;
+
+    // The number of orders between two snapshots.
+    private final long snapshotInterval;
+
+    // The write-ahead log, or null once the journal has been dropped.
+    private WriteAheadLog log;
+
+    // The number of orders, cancels and amends logged, and the number of trades.
+    private long events;
+    private int trades;
+
+    // The number of orders that were recovered from an earlier run, which are skipped when the file is read.
+    private final long recoveredEvents;
+
+    // The number of logged orders at which the next snapshot is taken.
+    private long nextSnapshot;
+
+    /**
+     * Opens the journal of a file, restoring the state of an earlier run of the same file into the exchange.
+     *
+     * @param logFile          The path of the write-ahead log.
+     * @param snapshotFile     The path of the snapshot.
+     * @param exchange         The new exchange the file is processed in.
+     * @param commitRecords    The number of records appended to the log between two commits.
+     * @param snapshotInterval The number of orders between two snapshots.
+     * @throws IOException If the journal cannot be opened or read.
+     */
+    FileJournal(Path logFile, Path snapshotFile, ExchangeService exchange, int commitRecords, long snapshotInterval) throws IOException {
+        this.logFile = logFile;
+        this.snapshotFile = snapshotFile;
+        this.exchange = exchange;
+        this.snapshotInterval = snapshotInterval;
+
+        // Restore the resting orders of the latest snapshot, then replay what was logged after it
+        OrderBook orderBook = exchange.getOrderBook();
+        BookSnapshot snapshot = BookSnapshot.read(snapshotFile, orderBook);
+        long snapshotEvents = snapshot == null ? 0 : snapshot.getEvents();
+        int snapshotTrades = snapshot == null ? 0 : snapshot.getTrades();
+        this.log = new WriteAheadLog(logFile, commitRecords, (id, price, quantity, kind, tail) -> {
+            if (kind == BinaryFormat.TRADE) {
+                // Trades made before the snapshot are taken as they are; later ones are made again by the replay
+                if (trades++ < snapshotTrades) {
+                    orderBook.getTradeJournal().record(Long.toString(id), Long.toString(tail), price, quantity);
+                }
+            } else if (events++ >= snapshotEvents) {
+                replay(id, price, quantity, kind);
+            }
+        });
+        this.recoveredEvents = events;
+
+        // The last order logged before a crash may have made trades that were not logged yet; log them after it now
+        TradeJournal made = orderBook.getTradeJournal();
+        for (int i = trades; i < made.size(); i++) {
+            append(made.getBidId(i), made.getPrice(i), made.getQuantity(i), BinaryFormat.TRADE, made.getAskId(i));
+        }
+        this.trades = made.size();
+        this.nextSnapshot = events + snapshotInterval;
+
+        // Log the trades of the orders to come as they are made
+        orderBook.setTradeListener(new TradeListener() {
+            @Override
+            public void onTrade(String bidId, String askId, int price, int quantity) {
+                append(bidId, price, quantity, BinaryFormat.TRADE, askId);
+                trades++;
+            }
+        });
+    }
+
+    // Matches a logged order, cancel or amend again.
+    private void replay(long id, int price, int quantity, byte kind) {
+        String orderId = Long.toString(id);
+        if (kind == BinaryFormat.CANCEL) {
+            exchange.cancel(orderId);
+        } else if (kind == BinaryFormat.AMEND) {
+            exchange.amend(orderId, quantity);
+        } else {
+            exchange.accept(orderId, OrderType.type((char) kind), price, quantity);
+        }
+    }
+
+    // Returns the number of orders, cancels and amends of the file recovered from an earlier run.
+    public long getRecoveredEvents() {
+        return recoveredEvents;
+    }
+
+    /**
+     * Returns the sink the orders of the file are read into. It skips the orders recovered from an earlier run, and
+     * logs every other order before passing it to the exchange.
+     *
+     * @return The sink for the orders of the file.
+     */
+    public OrderSink sink() {
+        return new OrderSink() {
+            // The number of orders of the file still to be skipped
+            private long skip = recoveredEvents;
+
+            @Override
+            public void accept(String id, OrderType orderType, int price, int quantity) {
+                if (skip > 0) {
+                    skip--;
+                    return;
+                }
+                append(id, price, quantity, orderType == OrderType.BID ? BinaryFormat.BID : BinaryFormat.ASK, null);
+                exchange.accept(id, orderType, price, quantity);
+                logged();
+            }
+
+            @Override
+            public void cancel(String id) {
+                if (skip > 0) {
+                    skip--;
+                    return;
+                }
+                append(id, 0, 0, BinaryFormat.CANCEL, null);
+                exchange.cancel(id);
+                logged();
+            }
+
+            @Override
+            public void amend(String id, int newQuantity) {
+                if (skip > 0) {
+                    skip--;
+                    return;
+                }
+                append(id, 0, newQuantity, BinaryFormat.AMEND, null);
+                exchange.amend(id, newQuantity);
+                logged();
+            }
+        };
+    }
+
+    // Appends a record to the log, dropping the journal if the ids cannot be stored in it.
+    private void append(String id, int price, int quantity, byte kind, String askId) {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.append(BinaryFormat.encodeId(id), price, quantity, kind, askId == null ? 0 : BinaryFormat.encodeId(askId));
+        } catch (IllegalArgumentException e) {
+            drop();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write journal: " + logFile, e);
+        }
+    }
+
+    // Counts a logged order and takes a snapshot when the interval is reached.
+    private void logged() {
+        events++;
+        if (log != null && events >= nextSnapshot) {
+            nextSnapshot = events + snapshotInterval;
+            // The snapshot may only count what the log holds for sure
+            log.commit();
+            try {
+                BookSnapshot.write(snapshotFile, exchange.getOrderBook(), events, trades);
+            } catch (IllegalArgumentException e) {
+                drop();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write snapshot: " + snapshotFile, e);
+            }
+        }
+    }
+
+    /**
+     * Closes and deletes the journal, once the output of the file is complete or the file cannot be journaled.
+     *
+     * @throws UncheckedIOException If the journal cannot be deleted.
+     */
+    public void complete() {
+        drop();
+    }
+
+    /**
+     * Closes the log, keeping the journal for a restart if the file was not completed.
+     *
+     * @throws UncheckedIOException If the log cannot be closed.
+     */
+    @Override
+    public void close() {
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to close journal: " + logFile, e);
+            } finally {
+                log = null;
+            }
+        }
+    }
+
+    // Closes and deletes the log and the snapshot; later orders are only matched.
+    private void drop() {
+        close();
+        try {
+            Files.deleteIfExists(logFile);
+            Files.deleteIfExists(snapshotFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete journal: " + logFile, e);
+        }
+    }
+}
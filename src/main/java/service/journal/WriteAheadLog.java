@@ -0,0 +1,179 @@
+package main.java.service.journal;
+
+import main.java.service.util.BinaryFormat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// The WriteAheadLog class appends fixed-width records (laid out as described in BinaryFormat) to a memory-mapped file.
+// A record is complete as soon as it is in the mapping, so a crash of the process loses nothing that was appended.
+// Forcing the mapping to the disk is expensive, so it is done once per group of records (group commit) instead of
+// once per record; a crash of the whole machine loses at most the records appended since the last commit.
+// The kind of a record is written last and is never 0, so the log ends at the first record of kind 0.
+
+public class WriteAheadLog implements Closeable {
+    // The magic bytes and version of a write-ahead log file.
+    private static final byte[] MAGIC = {'B', 'V', 'W', 'L'};
+    private static final byte VERSION = 1;
+
+    // The size of the region of the file that is mapped at once, a whole number of records.
+    private static final int REGION_SIZE = 16 * 1024 * 1024;
+
+    // The visitor of the records found in an existing log.
+    public interface RecordVisitor {
+
+        /**
+         * Called for every record of the log, in the order the records were appended.
+         *
+         * @param id       The id field.
+         * @param price    The price field.
+         * @param quantity The quantity field.
+         * @param kind     The kind of the record.
+         * @param tail     The tail field.
+         */
+        void visit(long id, int price, int quantity, byte kind, long tail);
+    }
+
+    // The channel of the log file.
+    private final FileChannel channel;
+
+    // The number of records appended between two commits.
+    private final int commitRecords;
+
+    // The mapped region records are appended to, and the offset of the region in the file.
+    private MappedByteBuffer region;
+    private long regionStart;
+
+    // The number of records appended since the last commit.
+    private int uncommitted;
+
+    /**
+     * Opens the log at the given path, creating it if it does not exist, and passes the records it already holds to
+     * the visitor. New records are appended after them.
+     *
+     * @param file          The path of the log file.
+     * @param commitRecords The number of records appended between two commits.
+     * @param visitor       The visitor of the existing records.
+     * @throws IOException If the file cannot be opened or is not a write-ahead log.
+     */
+    public WriteAheadLog(Path file, int commitRecords, RecordVisitor visitor) throws IOException {
+        if (commitRecords < 1) {
+            throw new IllegalArgumentException("The number of records per commit must be positive: " + commitRecords);
+        }
+        this.commitRecords = commitRecords;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            checkHeader(file);
+            scan(visitor);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Writes the header of a new log, or checks the header of an existing one.
+    private void checkHeader(Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(BinaryFormat.HEADER_SIZE);
+        if (channel.size() == 0) {
+            header.put(MAGIC).put(VERSION).put((byte) 0).put((byte) 0).put((byte) 0).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            return;
+        }
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // Keep reading until the header is complete or the file ends
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (header.position() < BinaryFormat.HEADER_SIZE || header.get(i) != MAGIC[i]) {
+                throw new IOException("Not a write-ahead log: " + file);
+            }
+        }
+        if (header.get(MAGIC.length) != VERSION) {
+            throw new IOException("Unsupported write-ahead log version " + header.get(MAGIC.length) + ": " + file);
+        }
+    }
+
+    // Passes the existing records to the visitor and leaves the position of the mapped region after the last one.
+    private void scan(RecordVisitor visitor) throws IOException {
+        regionStart = BinaryFormat.HEADER_SIZE;
+        map();
+        while (true) {
+            if (!region.hasRemaining()) {
+                regionStart += REGION_SIZE;
+                map();
+            }
+            int position = region.position();
+            byte kind = region.get(position + BinaryFormat.KIND_OFFSET);
+            if (kind == 0) {
+                return;
+            }
+            visitor.visit(region.getLong(position + BinaryFormat.ID_OFFSET),
+                    region.getInt(position + BinaryFormat.PRICE_OFFSET),
+                    region.getInt(position + BinaryFormat.QUANTITY_OFFSET),
+                    kind,
+                    region.getLong(position + BinaryFormat.TAIL_OFFSET));
+            region.position(position + BinaryFormat.RECORD_SIZE);
+        }
+    }
+
+    // Maps the region starting at regionStart, growing the file if needed; the new part of the file reads as zeros.
+    private void map() throws IOException {
+        region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, REGION_SIZE);
+        region.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Appends a record. The record is committed with the rest of its group.
+     *
+     * @param id       The id field.
+     * @param price    The price field.
+     * @param quantity The quantity field.
+     * @param kind     The kind of the record, not 0.
+     * @param tail     The tail field.
+     * @throws IOException If the log cannot grow.
+     */
+    public void append(long id, int price, int quantity, byte kind, long tail) throws IOException {
+        if (!region.hasRemaining()) {
+            commit();
+            regionStart += REGION_SIZE;
+            map();
+        }
+        int position = region.position();
+        region.putLong(position + BinaryFormat.ID_OFFSET, id);
+        region.putInt(position + BinaryFormat.PRICE_OFFSET, price);
+        region.putInt(position + BinaryFormat.QUANTITY_OFFSET, quantity);
+        region.putLong(position + BinaryFormat.TAIL_OFFSET, tail);
+        // The kind goes last: a record is only part of the log once its kind is set
+        region.put(position + BinaryFormat.KIND_OFFSET, kind);
+        region.position(position + BinaryFormat.RECORD_SIZE);
+
+        if (++uncommitted >= commitRecords) {
+            commit();
+        }
+    }
+
+    // Forces the records appended since the last commit to the disk.
+    public void commit() {
+        if (uncommitted > 0) {
+            region.force();
+            uncommitted = 0;
+        }
+    }
+
+    // Commits the remaining records and closes the file.
+    @Override
+    public void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            channel.close();
+        }
+    }
+}
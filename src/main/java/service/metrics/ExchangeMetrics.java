@@ -0,0 +1,132 @@
+package main.java.service.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+// The ExchangeMetrics class adds up the metrics of every processed file. Files are processed concurrently, each one
+// collecting its own FileMetrics without sharing anything, and added here once they are done; so the hot path never
+// touches a lock or a shared counter, and the totals move forward a file at a time.
+// The metrics can be read over JMX as an MBean and are exported periodically by a MetricsExporter.
+
+public class ExchangeMetrics implements ExchangeMetricsMBean {
+    // The latencies of every order of every file.
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    // The totals over all files.
+    private long files;
+    private long orders;
+    private long trades;
+    private long matchNanos;
+    private long writeNanos;
+    private long allocatedBytes = -1;
+
+    // The resting orders of the last file and the peak over all files.
+    private long restingOrders;
+    private long peakRestingOrders;
+
+    /**
+     * Adds the metrics of a processed file to the totals.
+     *
+     * @param file The metrics of the file, which must not change afterwards.
+     */
+    public synchronized void add(FileMetrics file) {
+        latencies.add(file.getLatencies());
+        files++;
+        orders += file.getOrders();
+        trades += file.getTrades();
+        matchNanos += file.getMatchNanos();
+        writeNanos += file.getWriteNanos();
+        if (file.getAllocatedBytes() >= 0) {
+            allocatedBytes = Math.max(allocatedBytes, 0) + file.getAllocatedBytes();
+        }
+        restingOrders = file.getRestingOrders();
+        peakRestingOrders = Math.max(peakRestingOrders, file.getPeakRestingOrders());
+    }
+
+    @Override
+    public synchronized long getFiles() {
+        return files;
+    }
+
+    @Override
+    public synchronized long getOrders() {
+        return orders;
+    }
+
+    @Override
+    public synchronized long getTrades() {
+        return trades;
+    }
+
+    @Override
+    public synchronized double getOrdersPerSecond() {
+        return matchNanos == 0 ? 0 : orders * 1e9 / matchNanos;
+    }
+
+    @Override
+    public synchronized double getTradesPerSecond() {
+        return matchNanos == 0 ? 0 : trades * 1e9 / matchNanos;
+    }
+
+    @Override
+    public synchronized long getMatchLatencyP50Nanos() {
+        return latencies.getValueAtPercentile(50);
+    }
+
+    @Override
+    public synchronized long getMatchLatencyP99Nanos() {
+        return latencies.getValueAtPercentile(99);
+    }
+
+    @Override
+    public synchronized long getMatchLatencyP999Nanos() {
+        return latencies.getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public synchronized long getMatchLatencyMaxNanos() {
+        return latencies.getMax();
+    }
+
+    @Override
+    public synchronized long getMatchMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(matchNanos);
+    }
+
+    @Override
+    public synchronized long getWriteMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(writeNanos);
+    }
+
+    @Override
+    public synchronized long getRestingOrders() {
+        return restingOrders;
+    }
+
+    @Override
+    public synchronized long getPeakRestingOrders() {
+        return peakRestingOrders;
+    }
+
+    @Override
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    // Returns the totals as a single line of name=value pairs, as written by the MetricsExporter.
+    public synchronized String format() {
+        return "files=" + files +
+                " orders=" + orders +
+                " trades=" + trades +
+                " orders/s=" + Math.round(getOrdersPerSecond()) +
+                " trades/s=" + Math.round(getTradesPerSecond()) +
+                " match.p50.ns=" + getMatchLatencyP50Nanos() +
+                " match.p99.ns=" + getMatchLatencyP99Nanos() +
+                " match.p999.ns=" + getMatchLatencyP999Nanos() +
+                " match.max.ns=" + getMatchLatencyMaxNanos() +
+                " stage.match.ms=" + getMatchMillis() +
+                " stage.write.ms=" + getWriteMillis() +
+                " book.resting=" + restingOrders +
+                " book.peak=" + peakRestingOrders +
+                " allocated.bytes=" + allocatedBytes;
+    }
+}
@@ -0,0 +1,45 @@
+package main.java.service.metrics;
+
+// The ExchangeMetricsMBean interface exposes the metrics of the application over JMX, e.g. to JConsole or VisualVM.
+// Latencies are in nanoseconds, stage times in milliseconds, and counts are totals since the application started.
+
+public interface ExchangeMetricsMBean {
+
+    // Returns the number of files processed.
+    long getFiles();
+
+    // Returns the number of orders, cancels and amends read.
+    long getOrders();
+
+    // Returns the number of trades made.
+    long getTrades();
+
+    // Returns the average number of orders matched per second of matching.
+    double getOrdersPerSecond();
+
+    // Returns the average number of trades made per second of matching.
+    double getTradesPerSecond();
+
+    // Returns the median, 99th, 99.9th percentile and largest latency of matching an order.
+    long getMatchLatencyP50Nanos();
+
+    long getMatchLatencyP99Nanos();
+
+    long getMatchLatencyP999Nanos();
+
+    long getMatchLatencyMaxNanos();
+
+    // Returns the total time spent reading and matching files, and writing them with their checksums.
+    long getMatchMillis();
+
+    long getWriteMillis();
+
+    // Returns the number of orders resting in the book of the last file once it was matched.
+    long getRestingOrders();
+
+    // Returns the largest number of orders resting in the book of any file.
+    long getPeakRestingOrders();
+
+    // Returns the bytes allocated by the threads processing files, or -1 if the JVM does not count them.
+    long getAllocatedBytes();
+}
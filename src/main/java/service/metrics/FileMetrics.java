@@ -0,0 +1,208 @@
+package main.java.service.metrics;
+
+import main.java.model.OrderBook;
+import main.java.model.OrderType;
+import main.java.service.OrderSink;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collection;
+
+// The FileMetrics class collects the metrics of a single file on the thread processing it: the latency of every order
+// matched, the number of orders and trades, the deepest the book got, how long each stage took and how much the
+// thread allocated. Nothing is shared while the file is processed; the metrics are added to the ExchangeMetrics of the
+// application once the file is done.
+
+public class FileMetrics {
+    // The thread bean of the JVM if it can count allocated bytes per thread, otherwise null.
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = allocationBean();
+
+    // The latency of every order, cancel and amend handed to the metered sink, in nanoseconds.
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    // The number of new orders, cancels and amends handed to the metered sink.
+    private long orders;
+
+    // The number of trades and resting orders of the file once it is matched.
+    private long trades;
+    private long restingOrders;
+
+    // The largest number of resting orders seen after an order of the metered sink.
+    private long peakRestingOrders;
+
+    // How long the file took to read and match, and to write with its checksum, in nanoseconds.
+    private long matchNanos;
+    private long writeNanos;
+
+    // The bytes allocated by the thread processing the file, or -1 if the JVM does not count them.
+    private long allocatedBytes = -1;
+
+    // The allocation counter of the thread when the file was started.
+    private final long allocatedAtStart = allocatedBytes();
+
+    /**
+     * Wraps the sink an order book is fed through, so every order it accepts is timed and the depth of the book is
+     * tracked. Only meaningful where the sink matches synchronously, i.e. without a pipeline or shards.
+     *
+     * @param sink      The sink matching the orders into the book.
+     * @param orderBook The book the sink matches into.
+     * @return The metered sink.
+     */
+    public OrderSink meter(OrderSink sink, OrderBook orderBook) {
+        return new OrderSink() {
+            @Override
+            public void accept(String id, OrderType orderType, int price, int quantity) {
+                long start = System.nanoTime();
+                sink.accept(id, orderType, price, quantity);
+                recorded(start, orderBook);
+            }
+
+            @Override
+            public void cancel(String id) {
+                long start = System.nanoTime();
+                sink.cancel(id);
+                recorded(start, orderBook);
+            }
+
+            @Override
+            public void amend(String id, int newQuantity) {
+                long start = System.nanoTime();
+                sink.amend(id, newQuantity);
+                recorded(start, orderBook);
+            }
+        };
+    }
+
+    // Wraps a sink that hands the orders to other threads, such as a sharded exchange, counting them without timing.
+    public OrderSink count(OrderSink sink) {
+        return new OrderSink() {
+            @Override
+            public void accept(String id, OrderType orderType, int price, int quantity) {
+                sink.accept(id, orderType, price, quantity);
+                orders++;
+            }
+
+            @Override
+            public void accept(String symbol, String id, OrderType orderType, int price, int quantity) {
+                sink.accept(symbol, id, orderType, price, quantity);
+                orders++;
+            }
+
+            @Override
+            public void cancel(String id) {
+                sink.cancel(id);
+                orders++;
+            }
+
+            @Override
+            public void cancel(String symbol, String id) {
+                sink.cancel(symbol, id);
+                orders++;
+            }
+
+            @Override
+            public void amend(String id, int newQuantity) {
+                sink.amend(id, newQuantity);
+                orders++;
+            }
+
+            @Override
+            public void amend(String symbol, String id, int newQuantity) {
+                sink.amend(symbol, id, newQuantity);
+                orders++;
+            }
+        };
+    }
+
+    // Records the latency of an order that started at the given time, and the depth of the book after it.
+    private void recorded(long start, OrderBook orderBook) {
+        latencies.record(System.nanoTime() - start);
+        orders++;
+        long resting = (long) orderBook.getBids().size() + orderBook.getAsks().size();
+        if (resting > peakRestingOrders) {
+            peakRestingOrders = resting;
+        }
+    }
+
+    // Adds the time spent reading and matching the file.
+    public void addMatchNanos(long nanos) {
+        matchNanos += nanos;
+    }
+
+    // Adds the time spent writing the output file and computing its checksum.
+    public void addWriteNanos(long nanos) {
+        writeNanos += nanos;
+    }
+
+    /**
+     * Completes the metrics once the file is written: counts the trades and resting orders of its books and how much
+     * the thread allocated since the metrics were created.
+     *
+     * @param orderBooks The order books of the file, one per instrument.
+     */
+    public void finish(Collection<OrderBook> orderBooks) {
+        for (OrderBook orderBook : orderBooks) {
+            trades += orderBook.getTradeJournal().size();
+            restingOrders += orderBook.getBids().size() + orderBook.getAsks().size();
+        }
+        peakRestingOrders = Math.max(peakRestingOrders, restingOrders);
+        long allocated = allocatedBytes();
+        if (allocated >= 0 && allocatedAtStart >= 0) {
+            allocatedBytes = allocated - allocatedAtStart;
+        }
+    }
+
+    // Returns the bytes allocated by the current thread so far, or -1 if the JVM does not count them.
+    static long allocatedBytes() {
+        return ALLOCATIONS != null ? ALLOCATIONS.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    // Returns the thread bean if it supports counting allocated bytes, enabling the counting if needed.
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) bean;
+        if (!allocations.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        if (!allocations.isThreadAllocatedMemoryEnabled()) {
+            allocations.setThreadAllocatedMemoryEnabled(true);
+        }
+        return allocations;
+    }
+
+    // Returns the latencies of the metered orders.
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public long getTrades() {
+        return trades;
+    }
+
+    public long getRestingOrders() {
+        return restingOrders;
+    }
+
+    public long getPeakRestingOrders() {
+        return peakRestingOrders;
+    }
+
+    public long getMatchNanos() {
+        return matchNanos;
+    }
+
+    public long getWriteNanos() {
+        return writeNanos;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+}
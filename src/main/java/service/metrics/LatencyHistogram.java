@@ -0,0 +1,109 @@
+package main.java.service.metrics;
+
+// The LatencyHistogram class counts latencies in log-linear buckets, in the style of HdrHistogram: values below 128
+// get a bucket each, and every power of two above that is split into 64 buckets, so a recorded value is off by less
+// than 1.6% and the whole range of a long fits in a fixed array of 3712 counts. Recording is a few shifts and an
+// increment and never allocates.
+// A histogram is not thread-safe: it is recorded by a single thread and merged into shared metrics once it is done.
+
+public class LatencyHistogram {
+    // The number of bits of the sub-buckets every power of two is split into, and their number.
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+    // The number of buckets needed for values up to Long.MAX_VALUE.
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * HALF_SUB_BUCKETS;
+
+    // The number of values recorded in every bucket.
+    private final long[] counts = new long[BUCKETS];
+
+    // The number of recorded values, their sum and the largest one.
+    private long count;
+    private long sum;
+    private long max;
+
+    /**
+     * Records a single value.
+     *
+     * @param value The value, e.g. a latency in nanoseconds; negative values are recorded as 0.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts[indexOf(value)]++;
+        count++;
+        sum += value;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    // Returns the bucket counting the given non-negative value.
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // Shift the value so its highest bit lands on the top half of the sub-buckets
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    // Returns the highest value counted by the given bucket.
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / HALF_SUB_BUCKETS - 1;
+        long subBucket = index % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    // Returns the number of recorded values.
+    public long getCount() {
+        return count;
+    }
+
+    // Returns the largest recorded value, or 0 if nothing was recorded.
+    public long getMax() {
+        return max;
+    }
+
+    // Returns the mean of the recorded values, or 0 if nothing was recorded.
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Returns the value below which the given percentage of the recorded values fall, as the highest value of its
+     * bucket, so it is never lower than the exact percentile.
+     *
+     * @param percentile The percentile, from 0 to 100, e.g. 99.9.
+     * @return The value at the percentile, or 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    // Adds the values recorded in the given histogram to this one.
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+}
@@ -0,0 +1,141 @@
+package main.java.service.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// The MetricsExporter class publishes the ExchangeMetrics of the application: it registers them as an MBean, so they
+// can be read over JMX at any time, and appends a snapshot to a local file at a fixed interval from a background thread.
+// Every snapshot is one line, the time followed by the name=value pairs of ExchangeMetrics.format.
+
+public class MetricsExporter implements AutoCloseable {
+    // The name the metrics are registered under over JMX.
+    public static final String OBJECT_NAME = "bitvavo.exchange:type=ExchangeMetrics";
+
+    // The metrics being exported.
+    private final ExchangeMetrics metrics;
+
+    // The file snapshots are appended to, or null to export over JMX only.
+    private final Path file;
+
+    // The interval between two snapshots, in milliseconds.
+    private final long intervalMillis;
+
+    // The name the metrics were registered under, or null if they were not.
+    private ObjectName objectName;
+
+    // The background thread writing the snapshots, or null without a file.
+    private Thread writer;
+
+    // Released once close has been called. The writer waits on it rather than being interrupted, since an interrupt
+    // would close the file channel it may be writing to.
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    /**
+     * Constructs a new MetricsExporter; nothing is exported until start is called.
+     *
+     * @param metrics        The metrics to export.
+     * @param file           The file snapshots are appended to, or null to export over JMX only.
+     * @param intervalMillis The interval between two snapshots, in milliseconds.
+     */
+    public MetricsExporter(ExchangeMetrics metrics, Path file, long intervalMillis) {
+        if (file != null && intervalMillis < 1) {
+            throw new IllegalArgumentException("The metrics interval must be positive: " + intervalMillis);
+        }
+        this.metrics = metrics;
+        this.file = file;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Starts exporting the metrics.
+     *
+     * @param jmx True to register the metrics as an MBean on the platform MBean server.
+     * @throws IllegalStateException If the metrics cannot be registered.
+     */
+    public void start(boolean jmx) {
+        if (jmx) {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                objectName = new ObjectName(OBJECT_NAME);
+                server.registerMBean(metrics, objectName);
+            } catch (JMException e) {
+                throw new IllegalStateException("Failed to register metrics as " + OBJECT_NAME, e);
+            }
+        }
+        if (file != null) {
+            writer = new Thread(this::export, "exchange-metrics");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    // The writer loop: appends a snapshot every interval until closed.
+    private void export() {
+        try {
+            while (!closed.await(intervalMillis, TimeUnit.MILLISECONDS)) {
+                exportSnapshot();
+            }
+        } catch (InterruptedException e) {
+            // Nothing interrupts the writer but the JVM shutting down
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Appends a snapshot, reporting rather than throwing a failure to write it, so the next interval tries again.
+    private void exportSnapshot() {
+        try {
+            writeSnapshot();
+        } catch (UncheckedIOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Appends a single snapshot of the metrics to the file.
+    public void writeSnapshot() {
+        String line = Instant.now() + " " + metrics.format() + "\n";
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE)) {
+            out.write(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write metrics: " + file, e);
+        }
+    }
+
+    // Stops exporting: writes a last snapshot and unregisters the MBean. If the calling thread is interrupted while
+    // waiting for the writer, the last snapshot is skipped and the thread keeps its interrupt flag set.
+    @Override
+    public synchronized void close() {
+        if (closed.getCount() == 0) {
+            return;
+        }
+        closed.countDown();
+        if (writer != null) {
+            try {
+                writer.join();
+                exportSnapshot();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException e) {
+                // Already gone, e.g. unregistered by a management client
+            }
+            objectName = null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package main.java.service.pipeline;
+
+import main.java.model.OrderType;
+import main.java.service.OrderSink;
+
+// The OrderEvent class is a reusable ring buffer slot carrying one parsed order, cancel or amend from the reader to
+// the matcher.
+
+public class OrderEvent {
+    // What an event asks the matcher to do.
+    enum Action {
+        NEW, CANCEL, AMEND, END_OF_STREAM
+    }
+
+    // What the event asks the matcher to do.
+    Action action;
+
+    // The symbol of the instrument of the order, or null if the order has none.
+    String symbol;
+
+    // The fields of the order; only the id for a cancel and the id and new quantity for an amend.
+    String id;
+    OrderType orderType;
+    int price;
+    int quantity;
+
+    // Fills the event with the fields of a new order.
+    void set(String id, OrderType orderType, int price, int quantity) {
+        set(null, id, orderType, price, quantity);
+    }
+
+    // Fills the event with the fields of a new order for the given instrument.
+    void set(String symbol, String id, OrderType orderType, int price, int quantity) {
+        this.action = Action.NEW;
+        this.symbol = symbol;
+        this.id = id;
+        this.orderType = orderType;
+        this.price = price;
+        this.quantity = quantity;
+    }
+
+    // Fills the event with a cancel of the given order.
+    void setCancel(String symbol, String id) {
+        this.action = Action.CANCEL;
+        this.symbol = symbol;
+        this.id = id;
+        this.orderType = null;
+    }
+
+    // Fills the event with an amend of the quantity of the given order.
+    void setAmend(String symbol, String id, int newQuantity) {
+        this.action = Action.AMEND;
+        this.symbol = symbol;
+        this.id = id;
+        this.orderType = null;
+        this.quantity = newQuantity;
+    }
+
+    // Marks the event as the end of the input and drops the references of the previous order.
+    void setEndOfStream() {
+        this.action = Action.END_OF_STREAM;
+        this.symbol = null;
+        this.id = null;
+        this.orderType = null;
+    }
+
+    // Returns true for the event that marks the end of the input instead of an order.
+    boolean isEndOfStream() {
+        return action == Action.END_OF_STREAM;
+    }
+
+    // Passes the order, cancel or amend of this event to the given single book sink.
+    void applyTo(OrderSink sink) {
+        switch (action) {
+            case NEW:
+                sink.accept(id, orderType, price, quantity);
+                break;
+            case CANCEL:
+                sink.cancel(id);
+                break;
+            case AMEND:
+                sink.amend(id, quantity);
+                break;
+            default:
+                throw new IllegalStateException("Not an order event: " + action);
+        }
+    }
+}
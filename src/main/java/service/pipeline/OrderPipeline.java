@@ -0,0 +1,161 @@
+package main.java.service.pipeline;
+
+import main.java.model.OrderType;
+import main.java.service.ExchangeService;
+import main.java.service.OrderSink;
+import main.java.service.util.OrderReader;
+import main.java.service.util.OutputFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+// The OrderPipeline class processes a file in three stages joined by ring buffers, in the style of the LMAX Disruptor:
+//
+//   reader (calling thread) --orders--> matcher (single thread) --trades--> writer (single thread)
+//
+// Parsing the next orders and writing the previous trades overlap with matching, and the matcher only ever touches
+// the order book and the two rings, so it never blocks on I/O.
+
+public class OrderPipeline {
+    // The number of events of each ring buffer.
+    private final int ringSize;
+
+    // What a stage does while waiting for the stage before or after it.
+    private final WaitStrategy waitStrategy;
+
+    /**
+     * Constructs a new OrderPipeline.
+     *
+     * @param ringSize     The number of events of each ring buffer, a power of two.
+     * @param waitStrategy What a stage does while waiting for the stage before or after it.
+     */
+    public OrderPipeline(int ringSize, WaitStrategy waitStrategy) {
+        this.ringSize = ringSize;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Streams the orders of a file through the exchange and writes the resulting trades to the output file.
+     * Returns once every stage is done; the order book of the exchange is then complete and can be read.
+     *
+     * @param orderReader The reader used to parse the file, on the calling thread.
+     * @param fileName    The name of the file to process.
+     * @param exchange    The exchange matching the orders, only used by the matcher thread while the pipeline runs.
+     * @param output      The output file the trades are written to, only used by the writer thread.
+     */
+    public void run(OrderReader orderReader, String fileName, ExchangeService exchange, OutputFile output) {
+        run(orderReader, fileName, exchange, output, exchange);
+    }
+
+    /**
+     * Streams the orders of a file through the exchange and writes the resulting trades to the output file, with the
+     * matcher thread handing the orders to the given sink, which wraps the exchange (e.g. to measure it).
+     *
+     * @param orderReader The reader used to parse the file, on the calling thread.
+     * @param fileName    The name of the file to process.
+     * @param exchange    The exchange matching the orders, only used by the matcher thread while the pipeline runs.
+     * @param output      The output file the trades are written to, only used by the writer thread.
+     * @param matchSink   The sink the matcher thread hands every order to, ending in the exchange; it is only used
+     *                    by the matcher thread, and what it records can be read once this method returns.
+     */
+    public void run(OrderReader orderReader, String fileName, ExchangeService exchange, OutputFile output, OrderSink matchSink) {
+        RingBuffer<OrderEvent> orders = new RingBuffer<>(ringSize, OrderEvent::new, waitStrategy);
+        RingBuffer<TradeEvent> trades = new RingBuffer<>(ringSize, TradeEvent::new, waitStrategy);
+        StageFailure failure = new StageFailure(orders, trades);
+
+        Thread matcher = new Thread(failure.guard(() -> match(orders, trades, exchange, matchSink)), "exchange-matcher-" + fileName);
+        Thread writer = new Thread(failure.guard(() -> write(trades, output)), "exchange-writer-" + fileName);
+        matcher.start();
+        writer.start();
+
+        // The calling thread is the reader stage
+        failure.guard(() -> {
+            orderReader.readFile(fileName, new OrderSink() {
+                @Override
+                public void accept(String id, OrderType orderType, int price, int quantity) {
+                    long sequence = orders.next();
+                    orders.get(sequence).set(id, orderType, price, quantity);
+                    orders.publish(sequence);
+                }
+
+                @Override
+                public void cancel(String id) {
+                    long sequence = orders.next();
+                    orders.get(sequence).setCancel(null, id);
+                    orders.publish(sequence);
+                }
+
+                @Override
+                public void amend(String id, int newQuantity) {
+                    long sequence = orders.next();
+                    orders.get(sequence).setAmend(null, id, newQuantity);
+                    orders.publish(sequence);
+                }
+            });
+            long sequence = orders.next();
+            orders.get(sequence).setEndOfStream();
+            orders.publish(sequence);
+        }).run();
+
+        try {
+            matcher.join();
+            writer.join();
+        } catch (InterruptedException e) {
+            failure.record(e);
+            Thread.currentThread().interrupt();
+        } finally {
+            // Detach the pipeline from the book, which outlives it
+            exchange.getOrderBook().setTradeListener(null);
+        }
+        failure.rethrow();
+    }
+
+    // The matcher stage: matches every order through the match sink and publishes the trades it produces.
+    private static void match(RingBuffer<OrderEvent> orders, RingBuffer<TradeEvent> trades, ExchangeService exchange,
+                              OrderSink matchSink) {
+        exchange.getOrderBook().setTradeListener((bidId, askId, price, quantity) -> {
+            long sequence = trades.next();
+            trades.get(sequence).set(bidId, askId, price, quantity);
+            trades.publish(sequence);
+        });
+
+        long next = 0;
+        while (true) {
+            // Handle every order published so far as one batch, then release the whole batch at once
+            long available = orders.waitFor(next);
+            for (; next <= available; next++) {
+                OrderEvent event = orders.get(next);
+                if (event.isEndOfStream()) {
+                    orders.release(next);
+                    long sequence = trades.next();
+                    trades.get(sequence).setEndOfStream();
+                    trades.publish(sequence);
+                    return;
+                }
+                event.applyTo(matchSink);
+            }
+            orders.release(available);
+        }
+    }
+
+    // The writer stage: writes every trade to the output file.
+    private static void write(RingBuffer<TradeEvent> trades, OutputFile output) {
+        long next = 0;
+        try {
+            while (true) {
+                long available = trades.waitFor(next);
+                for (; next <= available; next++) {
+                    TradeEvent event = trades.get(next);
+                    if (event.endOfStream) {
+                        trades.release(next);
+                        return;
+                    }
+                    output.writeTrade(event.bidId, event.askId, event.price, event.quantity);
+                }
+                trades.release(available);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
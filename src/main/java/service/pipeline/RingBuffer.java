@@ -0,0 +1,116 @@
+package main.java.service.pipeline;
+
+import java.util.function.Supplier;
+
+// The RingBuffer class connects exactly one producer stage with one consumer stage.
+// Its events are allocated once and reused; the producer claims and publishes slots with its cursor sequence and the
+// consumer releases them with its own sequence, so neither side ever takes a lock.
+
+public class RingBuffer<E> {
+    // The preallocated events; the slot of a sequence is sequence & mask.
+    private final Object[] entries;
+
+    // The mask mapping a sequence to its slot, the capacity minus one.
+    private final int mask;
+
+    // The last sequence published by the producer.
+    private final Sequence cursor = new Sequence(-1);
+
+    // The last sequence released by the consumer.
+    private final Sequence released = new Sequence(-1);
+
+    // What a stage does while waiting for the other side.
+    private final WaitStrategy waitStrategy;
+
+    // The next sequence the producer will claim. Only used by the producer.
+    private long nextSequence;
+
+    // The last released sequence seen by the producer, to avoid reading the consumer's sequence on every claim.
+    private long cachedReleased = -1;
+
+    // Set when one of the stages failed, to stop the other side from waiting forever.
+    private volatile boolean halted;
+
+    /**
+     * Constructs a new RingBuffer.
+     *
+     * @param capacity     The number of events, must be a power of two.
+     * @param factory      Creates the preallocated events.
+     * @param waitStrategy What a stage does while waiting for the other side.
+     */
+    public RingBuffer(int capacity, Supplier<E> factory, WaitStrategy waitStrategy) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two: " + capacity);
+        }
+        this.entries = new Object[capacity];
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = factory.get();
+        }
+        this.mask = capacity - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Claims the next slot for the producer, waiting while the consumer has not released it yet.
+     *
+     * @return The sequence of the claimed slot.
+     */
+    public long next() {
+        long sequence = nextSequence++;
+        long wrapPoint = sequence - entries.length;
+        int attempt = 0;
+        while (cachedReleased < wrapPoint) {
+            checkHalted();
+            cachedReleased = released.get();
+            if (cachedReleased < wrapPoint) {
+                waitStrategy.idle(attempt++);
+            }
+        }
+        return sequence;
+    }
+
+    // Returns the event of the given sequence.
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E) entries[(int) sequence & mask];
+    }
+
+    // Makes the event of the given claimed sequence, and every event before it, visible to the consumer.
+    public void publish(long sequence) {
+        cursor.set(sequence);
+    }
+
+    /**
+     * Waits until the given sequence has been published and returns the last published sequence, which can be
+     * higher; the consumer can then handle the whole batch before releasing it.
+     *
+     * @param sequence The sequence the consumer needs next.
+     * @return The last published sequence, at least the given one.
+     */
+    public long waitFor(long sequence) {
+        long available;
+        int attempt = 0;
+        while ((available = cursor.get()) < sequence) {
+            checkHalted();
+            waitStrategy.idle(attempt++);
+        }
+        return available;
+    }
+
+    // Gives the slots up to and including the given sequence back to the producer.
+    public void release(long sequence) {
+        released.set(sequence);
+    }
+
+    // Stops both sides from waiting; their next wait throws an IllegalStateException.
+    public void halt() {
+        halted = true;
+    }
+
+    // Throws if the pipeline was halted.
+    private void checkHalted() {
+        if (halted) {
+            throw new IllegalStateException("Pipeline halted");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package main.java.service.pipeline;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+// Cache line padding before the value, so the sequence never shares a cache line with other hot fields.
+class LeftPadding {
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+// The padded value itself.
+class PaddedValue extends LeftPadding {
+    protected volatile long value;
+}
+
+// Cache line padding after the value.
+class RightPadding extends PaddedValue {
+    protected long p9, p10, p11, p12, p13, p14, p15;
+}
+
+// The Sequence class is a padded, lock-free counter tracking how far a pipeline stage has progressed.
+// Every sequence has a single writer, so it is published with an ordered (lazy) store instead of a full fence.
+
+public class Sequence extends RightPadding {
+    // The updater used for ordered stores of the value.
+    private static final AtomicLongFieldUpdater<PaddedValue> VALUE =
+            AtomicLongFieldUpdater.newUpdater(PaddedValue.class, "value");
+
+    // Constructs a new Sequence with the given initial value.
+    public Sequence(long initialValue) {
+        VALUE.lazySet(this, initialValue);
+    }
+
+    // Returns the current value with volatile semantics.
+    public long get() {
+        return value;
+    }
+
+    // Publishes a new value. Writes made before this call are visible to any thread that reads the new value.
+    public void set(long newValue) {
+        VALUE.lazySet(this, newValue);
+    }
+}
@@ -0,0 +1,232 @@
+package main.java.service.pipeline;
+
+import main.java.model.OrderBook;
+import main.java.model.OrderStorage;
+import main.java.model.OrderType;
+import main.java.service.ExchangeService;
+import main.java.service.OrderSink;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// The ShardedExchange class matches the orders of many instruments in parallel, one order book per symbol.
+// Symbols are hashed onto a fixed number of shards. Every shard is owned by a single worker thread that is fed through
+// its own ring buffer and is the only thread touching the order books of its symbols, so matching needs no locks and
+// price-time priority within each book is exactly the order in which the orders were accepted.
+//
+//                     +--ring--> shard 0 (BTC-EUR, ETH-EUR, ...)
+//   reader (caller) --+--ring--> shard 1 (SOL-EUR, ...)
+//                     +--ring--> ...
+
+public class ShardedExchange implements OrderSink, AutoCloseable {
+    // The symbol of the instrument of orders without a symbol column.
+    public static final String DEFAULT_SYMBOL = "";
+
+    // The shards, each with its own ring buffer and worker thread.
+    private final Shard[] shards;
+
+    // The first failure of any worker.
+    private final StageFailure failure;
+
+    // True once the end of the input has been published to every shard.
+    private boolean closed;
+
+    /**
+     * Constructs a new ShardedExchange and starts one worker thread per shard.
+     *
+     * @param shardCount   The number of shards, and so of worker threads.
+     * @param ringSize     The number of events of the ring buffer of each shard, a power of two.
+     * @param waitStrategy What a worker does while its ring buffer is empty, and the reader while one is full.
+     * @param name         The name the worker threads are named after, such as the name of the file.
+     */
+    public ShardedExchange(int shardCount, int ringSize, WaitStrategy waitStrategy, String name) {
+        this(shardCount, ringSize, waitStrategy, name, OrderStorage.HEAP);
+    }
+
+    /**
+     * Constructs a new ShardedExchange and starts one worker thread per shard.
+     *
+     * @param shardCount   The number of shards, and so of worker threads.
+     * @param ringSize     The number of events of the ring buffer of each shard, a power of two.
+     * @param waitStrategy What a worker does while its ring buffer is empty, and the reader while one is full.
+     * @param name         The name the worker threads are named after, such as the name of the file.
+     * @param storage      Where the order books of the symbols keep their resting orders.
+     */
+    public ShardedExchange(int shardCount, int ringSize, WaitStrategy waitStrategy, String name, OrderStorage storage) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("The number of shards must be positive: " + shardCount);
+        }
+        this.shards = new Shard[shardCount];
+        RingBuffer<?>[] rings = new RingBuffer<?>[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(new RingBuffer<>(ringSize, OrderEvent::new, waitStrategy), storage);
+            rings[i] = shards[i].orders;
+        }
+        this.failure = new StageFailure(rings);
+        for (int i = 0; i < shardCount; i++) {
+            Thread worker = new Thread(failure.guard(shards[i]::match), "exchange-shard-" + i + "-" + name);
+            worker.setDaemon(true);
+            shards[i].worker = worker;
+            worker.start();
+        }
+    }
+
+    // Accepts an order without a symbol, for the default instrument.
+    @Override
+    public void accept(String id, OrderType orderType, int price, int quantity) {
+        accept(null, id, orderType, price, quantity);
+    }
+
+    /**
+     * Hands an order to the shard owning its symbol. Must be called from a single thread, like cancel and amend.
+     *
+     * @param symbol    The symbol of the instrument, or null for the default instrument.
+     * @param id        The id of the order.
+     * @param orderType The side of the order.
+     * @param price     The limit price of the order.
+     * @param quantity  The quantity of the order.
+     */
+    @Override
+    public void accept(String symbol, String id, OrderType orderType, int price, int quantity) {
+        RingBuffer<OrderEvent> orders = shardOf(symbol).orders;
+        long sequence = claim(orders);
+        orders.get(sequence).set(symbol, id, orderType, price, quantity);
+        orders.publish(sequence);
+    }
+
+    // Cancels an order of the default instrument.
+    @Override
+    public void cancel(String id) {
+        cancel(null, id);
+    }
+
+    // Hands a cancel to the shard owning its symbol, which sees it after every earlier order of that symbol.
+    @Override
+    public void cancel(String symbol, String id) {
+        RingBuffer<OrderEvent> orders = shardOf(symbol).orders;
+        long sequence = claim(orders);
+        orders.get(sequence).setCancel(symbol, id);
+        orders.publish(sequence);
+    }
+
+    // Amends an order of the default instrument.
+    @Override
+    public void amend(String id, int newQuantity) {
+        amend(null, id, newQuantity);
+    }
+
+    // Hands an amend to the shard owning its symbol, which sees it after every earlier order of that symbol.
+    @Override
+    public void amend(String symbol, String id, int newQuantity) {
+        RingBuffer<OrderEvent> orders = shardOf(symbol).orders;
+        long sequence = claim(orders);
+        orders.get(sequence).setAmend(symbol, id, newQuantity);
+        orders.publish(sequence);
+    }
+
+    // Claims the next slot of the given ring, reporting the failure of a worker rather than the halt it caused.
+    private long claim(RingBuffer<OrderEvent> orders) {
+        try {
+            return orders.next();
+        } catch (IllegalStateException e) {
+            failure.rethrow();
+            throw e;
+        }
+    }
+
+    // Returns the shard owning the given symbol; orders without a symbol all go to the first shard.
+    private Shard shardOf(String symbol) {
+        return symbol == null ? shards[0] : shards[Math.floorMod(symbol.hashCode(), shards.length)];
+    }
+
+    /**
+     * Signals the end of the input to every shard and waits until all orders have been matched.
+     *
+     * @throws RuntimeException The first failure of any worker.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Shard shard : shards) {
+            try {
+                long sequence = shard.orders.next();
+                shard.orders.get(sequence).setEndOfStream();
+                shard.orders.publish(sequence);
+            } catch (IllegalStateException e) {
+                // The rings were halted by a failed worker, which is rethrown below
+                break;
+            }
+        }
+        try {
+            for (Shard shard : shards) {
+                shard.worker.join();
+            }
+        } catch (InterruptedException e) {
+            failure.record(e);
+            Thread.currentThread().interrupt();
+        }
+        failure.rethrow();
+    }
+
+    /**
+     * Returns the order book of every instrument that received orders, sorted by symbol.
+     * Only valid once the exchange is closed, when the workers no longer touch the books.
+     *
+     * @return The order books by symbol; orders without a symbol are in the book of DEFAULT_SYMBOL.
+     */
+    public SortedMap<String, OrderBook> getOrderBooks() {
+        if (!closed) {
+            throw new IllegalStateException("The order books can only be read once the exchange is closed");
+        }
+        SortedMap<String, OrderBook> orderBooks = new TreeMap<>();
+        for (Shard shard : shards) {
+            for (Map.Entry<String, ExchangeService> entry : shard.exchanges.entrySet()) {
+                orderBooks.put(entry.getKey(), entry.getValue().getOrderBook());
+            }
+        }
+        return orderBooks;
+    }
+
+    // A single shard: the ring buffer feeding it and the exchanges of its symbols, owned by its worker thread.
+    private static class Shard {
+        private final RingBuffer<OrderEvent> orders;
+        private final Map<String, ExchangeService> exchanges = new HashMap<>();
+        private final OrderStorage storage;
+        private Thread worker;
+
+        Shard(RingBuffer<OrderEvent> orders, OrderStorage storage) {
+            this.orders = orders;
+            this.storage = storage;
+        }
+
+        // The worker loop: matches every order in the exchange of its symbol until the end of the input.
+        void match() {
+            // Orders of the same symbol usually come in runs, so the last exchange is checked before the map
+            String lastSymbol = null;
+            ExchangeService lastExchange = null;
+            long next = 0;
+            while (true) {
+                long available = orders.waitFor(next);
+                for (; next <= available; next++) {
+                    OrderEvent event = orders.get(next);
+                    if (event.isEndOfStream()) {
+                        orders.release(next);
+                        return;
+                    }
+                    String symbol = event.symbol == null ? DEFAULT_SYMBOL : event.symbol;
+                    if (lastExchange == null || !symbol.equals(lastSymbol)) {
+                        lastExchange = exchanges.computeIfAbsent(symbol, s -> new ExchangeService(new OrderBook(storage.newStore())));
+                        lastSymbol = symbol;
+                    }
+                    event.applyTo(lastExchange);
+                }
+                orders.release(available);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package main.java.service.pipeline;
+
+// The StageFailure class records the first failure of any stage and halts the rings joining the stages, so no stage
+// waits forever for a failed one. The failure is rethrown on the thread that started the stages.
+
+class StageFailure {
+    // The rings halted on failure.
+    private final RingBuffer<?>[] rings;
+
+    // The first failure, or null while every stage is healthy.
+    private volatile Throwable first;
+
+    StageFailure(RingBuffer<?>... rings) {
+        this.rings = rings;
+    }
+
+    // Wraps a stage so that a failure halts the pipeline.
+    Runnable guard(Runnable stage) {
+        return () -> {
+            try {
+                stage.run();
+            } catch (Throwable t) {
+                record(t);
+            }
+        };
+    }
+
+    synchronized void record(Throwable t) {
+        if (first == null) {
+            first = t;
+        }
+        for (RingBuffer<?> ring : rings) {
+            ring.halt();
+        }
+    }
+
+    // Rethrows the first failure, if any, from the calling thread.
+    void rethrow() {
+        Throwable t = first;
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else if (t != null) {
+            throw new IllegalStateException("Pipeline stage failed", t);
+        }
+    }
+}
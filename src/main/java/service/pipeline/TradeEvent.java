@@ -0,0 +1,30 @@
+package main.java.service.pipeline;
+
+// The TradeEvent class is a reusable ring buffer slot carrying one trade from the matcher to the writer.
+
+public class TradeEvent {
+    // True for the event that marks the end of matching instead of a trade.
+    boolean endOfStream;
+
+    // The fields of the trade.
+    String bidId;
+    String askId;
+    int price;
+    int quantity;
+
+    // Fills the event with the fields of a trade.
+    void set(String bidId, String askId, int price, int quantity) {
+        this.endOfStream = false;
+        this.bidId = bidId;
+        this.askId = askId;
+        this.price = price;
+        this.quantity = quantity;
+    }
+
+    // Marks the event as the end of matching and drops the references of the previous trade.
+    void setEndOfStream() {
+        this.endOfStream = true;
+        this.bidId = null;
+        this.askId = null;
+    }
+}
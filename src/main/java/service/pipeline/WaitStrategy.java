@@ -0,0 +1,54 @@
+package main.java.service.pipeline;
+
+import java.util.concurrent.locks.LockSupport;
+
+// The WaitStrategy enum defines what a pipeline stage does while the sequence it waits for is not available yet.
+// It trades latency against CPU use: BUSY_SPIN has the lowest latency but burns a core per waiting stage, YIELD gives
+// the core away between checks and PARK sleeps for a short while, which suits machines with few cores.
+
+public enum WaitStrategy {
+    BUSY_SPIN {
+        @Override
+        void idle(int attempt) {
+            // Re-check immediately
+        }
+    },
+    YIELD {
+        @Override
+        void idle(int attempt) {
+            // Spin for a short while before giving the core to other threads
+            if (attempt > SPIN_TRIES) {
+                Thread.yield();
+            }
+        }
+    },
+    PARK {
+        @Override
+        void idle(int attempt) {
+            // Spin, then yield, then sleep for short periods
+            if (attempt > SPIN_TRIES * 2) {
+                LockSupport.parkNanos(PARK_NANOS);
+            } else if (attempt > SPIN_TRIES) {
+                Thread.yield();
+            }
+        }
+    };
+
+    // The number of checks made before a stage starts giving the core away.
+    private static final int SPIN_TRIES = 100;
+
+    // How long a parked stage sleeps before checking again.
+    private static final long PARK_NANOS = 50_000;
+
+    /**
+     * Waits a little before the next check.
+     *
+     * @param attempt The number of checks already made for the current wait, starting at 0.
+     */
+    abstract void idle(int attempt);
+
+    // Returns the wait strategy with the given name, e.g. "busy-spin", "yield" or "park".
+    public static WaitStrategy of(String name) {
+        return valueOf(name.trim().toUpperCase().replace('-', '_'));
+    }
+}
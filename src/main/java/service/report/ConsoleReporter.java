@@ -0,0 +1,150 @@
+package main.java.service.report;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// The ConsoleReporter class prints reports on a background thread, so the threads processing files never wait for
+// the console. Reports go to a bounded queue; the drainer takes whatever has piled up, writes it as one batch through
+// a large buffer and flushes once per batch instead of once per line. Each report is written in one piece, so the
+// reports of files processed in parallel are never interleaved.
+// A producer only waits when the queue is full, which bounds the memory held by reports the console cannot keep up with.
+
+public class ConsoleReporter implements AutoCloseable {
+    // The size of the buffer batches are written through.
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // The report that tells the drainer to stop, compared by identity.
+    private static final byte[] END_OF_REPORTS = new byte[0];
+
+    // How much is reported for every file.
+    private final ReportLevel level;
+
+    // The reports waiting to be printed.
+    private final BlockingQueue<byte[]> queue;
+
+    // The stream the reports are printed to.
+    private final OutputStream out;
+
+    // The background thread printing the reports.
+    private final Thread drainer;
+
+    // True once close has been called.
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new ConsoleReporter and starts its drainer thread.
+     *
+     * @param level    How much is reported for every file.
+     * @param out      The stream the reports are printed to, typically System.out.
+     * @param capacity The maximum number of reports waiting to be printed.
+     */
+    public ConsoleReporter(ReportLevel level, OutputStream out, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The report queue capacity must be positive: " + capacity);
+        }
+        this.level = level;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.out = new BufferedOutputStream(out, BUFFER_SIZE);
+        this.drainer = new Thread(this::drain, "exchange-console");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    // Returns how much is reported for every file.
+    public ReportLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Queues a report to be printed in one piece, waiting only while the queue is full.
+     *
+     * @param report The bytes of the report; must not be changed afterwards.
+     * @throws InterruptedException If the thread is interrupted while the queue is full.
+     */
+    public void submit(byte[] report) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("The console reporter is closed");
+        }
+        if (report.length > 0) {
+            queue.put(report);
+        }
+    }
+
+    // Queues a single line, e.g. a message of the application rather than the report of a file.
+    public void println(String line) throws InterruptedException {
+        submit((line + System.lineSeparator()).getBytes(Charset.defaultCharset()));
+    }
+
+    // The drainer loop: prints the queued reports batch by batch until the reporter is closed.
+    private void drain() {
+        List<byte[]> batch = new ArrayList<>();
+        boolean broken = false;
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (byte[] report : batch) {
+                    if (report == END_OF_REPORTS) {
+                        flush(broken);
+                        return;
+                    }
+                    if (!broken) {
+                        broken = !write(report);
+                    }
+                }
+                broken = !flush(broken);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Writes a report, returning false if the console cannot be written anymore.
+    private boolean write(byte[] report) {
+        try {
+            out.write(report);
+            return true;
+        } catch (IOException e) {
+            // Keep draining the queue, so producers do not wait forever for a console that is gone
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // Flushes the written reports unless the console is already broken, returning false if it cannot be written.
+    private boolean flush(boolean broken) {
+        if (broken) {
+            return false;
+        }
+        try {
+            out.flush();
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // Prints the reports queued so far and stops the drainer thread. If the calling thread is interrupted, it stops
+    // waiting for the drainer and keeps its interrupt flag set.
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(END_OF_REPORTS);
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package main.java.service.report;
+
+// The ReportLevel enum controls how much is printed to the console for every processed file.
+
+public enum ReportLevel {
+    // Nothing per file; the output files and their checksums are the only result.
+    QUIET,
+    // A few lines per file: trade and resting order counts, the best prices and the checksum.
+    SUMMARY,
+    // Every trade, the order book and the content of the output file, as printed by earlier versions.
+    FULL;
+
+    /**
+     * Returns the level with the given name, ignoring case.
+     *
+     * @param name The name of the level, e.g. "summary".
+     * @return The level.
+     * @throws IllegalArgumentException If there is no level with that name.
+     */
+    public static ReportLevel of(String name) {
+        for (ReportLevel level : values()) {
+            if (level.name().equalsIgnoreCase(name.trim())) {
+                return level;
+            }
+        }
+        throw new IllegalArgumentException("Unknown report level: " + name);
+    }
+}
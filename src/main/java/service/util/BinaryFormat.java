@@ -0,0 +1,209 @@
+package main.java.service.util;
+
+import main.java.model.Order;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+// The BinaryFormat class describes the binary order and output files: an 8 byte header followed by fixed-width,
+// little-endian records of 32 bytes, so a file can be memory-mapped and decoded without searching for delimiters.
+//
+//   header:  magic (4 bytes, "BVOR" for orders, "BVTR" for output) | version (1 byte) | reserved (3 bytes)
+//   record:  0 id (long) | 8 price (int) | 12 quantity (int) | 16 kind (byte) | 17 reserved (7 bytes) | 24 tail (long)
+//
+// Order files hold new orders (kind 'B' or 'S'), cancels ('C') and amends of the quantity ('A'); the tail holds the
+// symbol of the instrument as up to 8 ASCII bytes padded with zeros, or 0 for no symbol.
+// Output files hold trades ('T', with the bid id in the id field and the ask id in the tail), followed by the resting
+// orders of the book ('B' then 'S', best first) and, for files with symbols, a symbol record ('Y') before each instrument.
+
+public final class BinaryFormat {
+    // The size of the file header and of every record, in bytes.
+    public static final int HEADER_SIZE = 8;
+    public static final int RECORD_SIZE = 32;
+
+    // The version of the format written by this build.
+    public static final byte VERSION = 1;
+
+    // The offsets of the fields of a record.
+    public static final int ID_OFFSET = 0;
+    public static final int PRICE_OFFSET = 8;
+    public static final int QUANTITY_OFFSET = 12;
+    public static final int KIND_OFFSET = 16;
+    public static final int TAIL_OFFSET = 24;
+
+    // The kinds of records.
+    public static final byte BID = 'B';
+    public static final byte ASK = 'S';
+    public static final byte CANCEL = 'C';
+    public static final byte AMEND = 'A';
+    public static final byte TRADE = 'T';
+    public static final byte SYMBOL = 'Y';
+
+    // The longest symbol a record can hold.
+    public static final int MAX_SYMBOL_LENGTH = 8;
+
+    // The magic bytes of order and output files.
+    private static final byte[] ORDERS_MAGIC = {'B', 'V', 'O', 'R'};
+    private static final byte[] OUTPUT_MAGIC = {'B', 'V', 'T', 'R'};
+
+    private BinaryFormat() {
+    }
+
+    /**
+     * Reads the header of the file behind the channel without moving its position. Text files yield whatever their
+     * first bytes are, and files shorter than a header yield fewer bytes.
+     *
+     * @param channel The channel of the file.
+     * @return A buffer holding the first bytes of the file, ready to be read.
+     * @throws IOException If the file cannot be read.
+     */
+    public static ByteBuffer readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // Keep reading until the header is complete or the file ends
+        }
+        header.flip();
+        return header;
+    }
+
+    // Returns true if the header is the one of a binary order file.
+    public static boolean isOrderFile(ByteBuffer header) {
+        return hasMagic(header, ORDERS_MAGIC);
+    }
+
+    // Returns true if the header is the one of a binary output file.
+    public static boolean isOutputFile(ByteBuffer header) {
+        return hasMagic(header, OUTPUT_MAGIC);
+    }
+
+    // Returns the version of the format of a binary file, from its header.
+    public static int versionOf(ByteBuffer header) {
+        return header.get(header.position() + ORDERS_MAGIC.length);
+    }
+
+    // Returns true if the header starts with the given magic bytes.
+    private static boolean hasMagic(ByteBuffer header, byte[] magic) {
+        if (header.remaining() < HEADER_SIZE) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (header.get(header.position() + i) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Puts the header of an order file (orders true) or an output file into the buffer.
+    public static void putHeader(ByteBuffer buffer, boolean orders) {
+        buffer.put(orders ? ORDERS_MAGIC : OUTPUT_MAGIC).put(VERSION).put((byte) 0).put((byte) 0).put((byte) 0);
+    }
+
+    /**
+     * Puts a record into the buffer at its position, which the buffer must have room for, and advances the position.
+     *
+     * @param buffer   The buffer, in little-endian byte order.
+     * @param id       The id field.
+     * @param price    The price field.
+     * @param quantity The quantity field.
+     * @param kind     The kind of the record.
+     * @param tail     The symbol or the ask id, depending on the kind.
+     */
+    public static void putRecord(ByteBuffer buffer, long id, int price, int quantity, byte kind, long tail) {
+        int position = buffer.position();
+        buffer.putLong(position + ID_OFFSET, id);
+        buffer.putInt(position + PRICE_OFFSET, price);
+        buffer.putInt(position + QUANTITY_OFFSET, quantity);
+        // Clear the kind and the reserved bytes after it in one go, then set the kind
+        buffer.putLong(position + KIND_OFFSET, 0L);
+        buffer.put(position + KIND_OFFSET, kind);
+        buffer.putLong(position + TAIL_OFFSET, tail);
+        buffer.position(position + RECORD_SIZE);
+    }
+
+    // Returns a new buffer for records, in the byte order of the format.
+    public static ByteBuffer allocateDirect(int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Converts an order id to the long stored in a record. Only ids that are the decimal form of a long, without
+     * leading zeros or a plus sign, can be stored, so that they read back as the same String.
+     *
+     * @param id The id of the order.
+     * @return The id as a long.
+     * @throws IllegalArgumentException If the id cannot be stored in a binary file.
+     */
+    public static long encodeId(String id) {
+        int length = id.length();
+        boolean negative = length > 0 && id.charAt(0) == '-';
+        int start = negative ? 1 : 0;
+        if (length == start || length - start > 19 || (id.charAt(start) == '0' && (length - start > 1 || negative))) {
+            throw invalidId(id);
+        }
+        // Accumulate negatively so that Long.MIN_VALUE can be represented
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long result = 0;
+        for (int i = start; i < length; i++) {
+            int digit = id.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < (limit + digit) / 10) {
+                throw invalidId(id);
+            }
+            result = result * 10 - digit;
+        }
+        return negative ? result : -result;
+    }
+
+    // Returns the id of the order as stored in a binary file, reusing the number the order parsed its id into.
+    public static long encodeId(Order order) {
+        return order.getNumericId() != Order.NOT_NUMERIC ? order.getNumericId() : encodeId(order.getId());
+    }
+
+    // Returns the error of an id that cannot be stored in a binary file.
+    private static IllegalArgumentException invalidId(String id) {
+        return new IllegalArgumentException("Order id " + id + " cannot be stored in a binary file, ids must be numbers");
+    }
+
+    /**
+     * Converts a symbol to the long stored in the tail of a record: its ASCII bytes, first byte lowest.
+     *
+     * @param symbol The symbol, or null for none.
+     * @return The symbol as a long, 0 for none.
+     * @throws IllegalArgumentException If the symbol is longer than 8 bytes or not printable ASCII.
+     */
+    public static long encodeSymbol(String symbol) {
+        if (symbol == null) {
+            return 0;
+        }
+        if (symbol.isEmpty() || symbol.length() > MAX_SYMBOL_LENGTH) {
+            throw new IllegalArgumentException("Symbol " + symbol + " cannot be stored in a binary file, symbols have 1 to "
+                    + MAX_SYMBOL_LENGTH + " characters");
+        }
+        long encoded = 0;
+        for (int i = 0; i < symbol.length(); i++) {
+            char c = symbol.charAt(i);
+            if (c <= ' ' || c >= 0x7f) {
+                throw new IllegalArgumentException("Symbol " + symbol + " cannot be stored in a binary file, symbols are printable ASCII");
+            }
+            encoded |= (long) c << (8 * i);
+        }
+        return encoded;
+    }
+
+    // Converts the tail of a record back to its symbol, or null if it holds none.
+    public static String decodeSymbol(long encoded) {
+        if (encoded == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[MAX_SYMBOL_LENGTH];
+        int length = 0;
+        while (length < MAX_SYMBOL_LENGTH && (encoded >>> (8 * length) & 0xff) != 0) {
+            bytes[length] = (byte) (encoded >>> (8 * length));
+            length++;
+        }
+        return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+}
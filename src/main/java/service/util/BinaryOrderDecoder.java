@@ -0,0 +1,86 @@
+package main.java.service.util;
+
+import main.java.model.OrderType;
+import main.java.service.OrderSink;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// The BinaryOrderDecoder class decodes the fixed-width records of a binary order file straight from a byte buffer.
+// Every field sits at a fixed offset, so decoding a record is a handful of little-endian loads with no delimiter
+// search and no number parsing; only the order id is materialized as a String, because the order keeps it.
+// Symbols repeat, so each distinct symbol is decoded only once.
+
+public class BinaryOrderDecoder {
+    // The maximum number of distinct symbols decoded once and reused.
+    private static final int MAX_CACHED_SYMBOLS = 256;
+
+    // The symbols seen so far, with their encoded form, so a repeated symbol is compared rather than decoded.
+    private final long[] encodedSymbols = new long[MAX_CACHED_SYMBOLS];
+    private final String[] symbols = new String[MAX_CACHED_SYMBOLS];
+    private int symbolCount;
+
+    // The index of the symbol of the previous record, checked first.
+    private int lastSymbol;
+
+    /**
+     * Decodes all complete records in buffer[from, to) and passes the orders, cancels and amends to the sink.
+     * The byte order of the buffer is set to little-endian.
+     *
+     * @param buffer The buffer holding the records, without the file header.
+     * @param from   The position of the first record.
+     * @param to     The position after the last byte to decode.
+     * @param sink   The sink receiving the decoded orders.
+     * @return The position after the last complete record; bytes from there on belong to an incomplete record.
+     * @throws IllegalArgumentException If a record is of an unknown kind.
+     */
+    public int decode(ByteBuffer buffer, int from, int to, OrderSink sink) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int position = from;
+        for (; position + BinaryFormat.RECORD_SIZE <= to; position += BinaryFormat.RECORD_SIZE) {
+            String id = Long.toString(buffer.getLong(position + BinaryFormat.ID_OFFSET));
+            int quantity = buffer.getInt(position + BinaryFormat.QUANTITY_OFFSET);
+            String symbol = symbol(buffer.getLong(position + BinaryFormat.TAIL_OFFSET));
+            byte kind = buffer.get(position + BinaryFormat.KIND_OFFSET);
+            switch (kind) {
+                case BinaryFormat.BID:
+                case BinaryFormat.ASK:
+                    int price = buffer.getInt(position + BinaryFormat.PRICE_OFFSET);
+                    sink.accept(symbol, id, OrderType.type((char) kind), price, quantity);
+                    break;
+                case BinaryFormat.CANCEL:
+                    sink.cancel(symbol, id);
+                    break;
+                case BinaryFormat.AMEND:
+                    sink.amend(symbol, id, quantity);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid record kind " + (kind & 0xff) + " for order " + id);
+            }
+        }
+        return position;
+    }
+
+    // Returns the symbol encoded in the tail of a record, or null if it holds none, reusing a String seen before.
+    private String symbol(long encoded) {
+        if (encoded == 0) {
+            return null;
+        }
+        if (symbolCount > 0 && encodedSymbols[lastSymbol] == encoded) {
+            return symbols[lastSymbol];
+        }
+        for (int i = 0; i < symbolCount; i++) {
+            if (encodedSymbols[i] == encoded) {
+                lastSymbol = i;
+                return symbols[i];
+            }
+        }
+        String symbol = BinaryFormat.decodeSymbol(encoded);
+        if (symbolCount < MAX_CACHED_SYMBOLS) {
+            encodedSymbols[symbolCount] = encoded;
+            symbols[symbolCount] = symbol;
+            lastSymbol = symbolCount++;
+        }
+        return symbol;
+    }
+}
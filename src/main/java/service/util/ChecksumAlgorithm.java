@@ -0,0 +1,228 @@
+package main.java.service.util;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+
+// The ChecksumAlgorithm enum lists the hash functions output files can be checksummed with.
+// Each algorithm hands out a Hasher that is fed the bytes of a file as they are written, so a file never has to be
+// read back to be checksummed. Checksums are printed as lowercase hex without leading zeros, as they always have been.
+// A hasher can be copied half way, so a file that is appended to can be checksummed without hashing it from the start.
+
+public enum ChecksumAlgorithm {
+    // The default, as printed by earlier versions.
+    MD5("MD5"),
+    // A cryptographic hash for when collisions must be ruled out.
+    SHA_256("SHA-256"),
+    // A fast non-cryptographic hash, computed with the CRC32 instructions of the CPU where available.
+    CRC32("CRC32") {
+        @Override
+        public Hasher newHasher() {
+            return newHasher(0, 0);
+        }
+
+        // Creates a hasher continuing from the checksum of length earlier bytes. CRC32 has no state to copy, but the
+        // checksum of two runs of bytes can be combined from the checksums of each run.
+        private Hasher newHasher(long earlierChecksum, long earlierLength) {
+            CRC32 crc = new CRC32();
+            return new Hasher() {
+                // The number of bytes added to crc.
+                private long length;
+
+                // Java 8 cannot update a CRC32 from a direct buffer, so its bytes are copied through this array
+                private byte[] scratch;
+
+                @Override
+                public void update(byte[] bytes, int offset, int length) {
+                    crc.update(bytes, offset, length);
+                    this.length += length;
+                }
+
+                @Override
+                public void update(ByteBuffer bytes) {
+                    length += bytes.remaining();
+                    if (bytes.hasArray()) {
+                        crc.update(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+                        bytes.position(bytes.limit());
+                        return;
+                    }
+                    if (scratch == null) {
+                        scratch = new byte[SCRATCH_SIZE];
+                    }
+                    while (bytes.hasRemaining()) {
+                        int count = Math.min(scratch.length, bytes.remaining());
+                        bytes.get(scratch, 0, count);
+                        crc.update(scratch, 0, count);
+                    }
+                }
+
+                @Override
+                public Hasher copy() {
+                    return newHasher(value(), earlierLength + length);
+                }
+
+                @Override
+                public String toHex() {
+                    return Long.toHexString(value());
+                }
+
+                // Returns the checksum of the earlier bytes followed by the bytes added to crc.
+                private long value() {
+                    return earlierLength == 0 ? crc.getValue() : combine(earlierChecksum, crc.getValue(), length);
+                }
+            };
+        }
+    };
+
+    // The reversed CRC-32 polynomial.
+    private static final long CRC32_POLYNOMIAL = 0xedb88320L;
+
+    // The size of the array the bytes of a direct buffer are copied through, where an algorithm needs an array.
+    private static final int SCRATCH_SIZE = 8 * 1024;
+
+    // The name the algorithm is known by, e.g. in the console output.
+    private final String displayName;
+
+    ChecksumAlgorithm(String displayName) {
+        this.displayName = displayName;
+    }
+
+    // Accumulates the bytes of a single file and turns them into its checksum.
+    public interface Hasher {
+        // Adds bytes[offset, offset + length) to the checksum.
+        void update(byte[] bytes, int offset, int length);
+
+        // Adds the remaining bytes of the buffer to the checksum, consuming them.
+        void update(ByteBuffer bytes);
+
+        // Returns a hasher that goes on from the bytes added so far, independently of this one.
+        Hasher copy();
+
+        // Returns the checksum of all bytes added so far, as lowercase hex without leading zeros.
+        String toHex();
+    }
+
+    // Returns the name the algorithm is known by, e.g. "MD5".
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    // Creates a hasher for a new file. Message digest algorithms are provided by the JDK.
+    public Hasher newHasher() {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(displayName);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Checksum algorithm not available: " + displayName, e);
+        }
+        return newHasher(digest);
+    }
+
+    // Creates a hasher feeding the given message digest.
+    private static Hasher newHasher(MessageDigest digest) {
+        return new Hasher() {
+            @Override
+            public void update(byte[] bytes, int offset, int length) {
+                digest.update(bytes, offset, length);
+            }
+
+            @Override
+            public void update(ByteBuffer bytes) {
+                digest.update(bytes);
+            }
+
+            @Override
+            public Hasher copy() {
+                try {
+                    return newHasher((MessageDigest) digest.clone());
+                } catch (CloneNotSupportedException e) {
+                    throw new IllegalStateException("Checksum algorithm cannot be copied: " + digest.getAlgorithm(), e);
+                }
+            }
+
+            @Override
+            public String toHex() {
+                return new BigInteger(1, digest.digest()).toString(16);
+            }
+        };
+    }
+
+    /**
+     * Returns the CRC-32 of two runs of bytes one after the other, from the CRC-32 of each run, as zlib's
+     * crc32_combine does: the first checksum is moved past length2 zero bytes by squaring the matrix of the CRC
+     * shift register once per bit of the length, and the second checksum is added to it.
+     *
+     * @param crc1    The CRC-32 of the first run.
+     * @param crc2    The CRC-32 of the second run.
+     * @param length2 The number of bytes of the second run.
+     * @return The CRC-32 of both runs.
+     */
+    static long combine(long crc1, long crc2, long length2) {
+        if (length2 <= 0) {
+            return crc1;
+        }
+        // The operator moving a checksum past a single zero bit, then past two and four zero bits
+        long[] odd = new long[32];
+        long[] even = new long[32];
+        odd[0] = CRC32_POLYNOMIAL;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = 1L << (n - 1);
+        }
+        square(even, odd);
+        square(odd, even);
+        // Apply the operator for every bit set in the length, starting at a single zero byte
+        long crc = crc1;
+        do {
+            square(even, odd);
+            if ((length2 & 1) != 0) {
+                crc = times(even, crc);
+            }
+            length2 >>>= 1;
+            if (length2 == 0) {
+                break;
+            }
+            square(odd, even);
+            if ((length2 & 1) != 0) {
+                crc = times(odd, crc);
+            }
+            length2 >>>= 1;
+        } while (length2 != 0);
+        return crc ^ crc2;
+    }
+
+    // Multiplies a 32 by 32 matrix over GF(2) with a vector.
+    private static long times(long[] matrix, long vector) {
+        long sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    // Sets square to the square of a 32 by 32 matrix over GF(2).
+    private static void square(long[] square, long[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = times(matrix, matrix[n]);
+        }
+    }
+
+    /**
+     * Returns the algorithm with the given name, ignoring case and dashes, e.g. "md5", "sha-256" or "crc32".
+     *
+     * @param name The name of the algorithm.
+     * @return The algorithm.
+     * @throws IllegalArgumentException If there is no algorithm with that name.
+     */
+    public static ChecksumAlgorithm of(String name) {
+        for (ChecksumAlgorithm algorithm : values()) {
+            if (algorithm.displayName.replace("-", "").equalsIgnoreCase(name.trim().replace("-", ""))) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown checksum algorithm: " + name);
+    }
+}
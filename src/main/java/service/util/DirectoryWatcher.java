@@ -0,0 +1,207 @@
+package main.java.service.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+// The DirectoryWatcher class detects new files in a directory.
+// In watch mode it is driven by WatchService events, so a file is picked up a few milliseconds after its last write
+// and the cost of an event does not depend on how many files the directory holds. If the file system does not
+// support watching, or poll mode is configured, it falls back to listing the directory at a fixed interval.
+// Whether a file counts as processed is up to the caller, so a file can also be reported again once it has grown.
+
+public class DirectoryWatcher implements Closeable {
+    // The directory being watched.
+    private final File dir;
+
+    // The watch service delivering events for the directory, or null in poll mode.
+    private final WatchService watchService;
+
+    // The interval between two directory listings in poll mode, in milliseconds.
+    private final long pollIntervalMillis;
+
+    // How long a file must go without events before it is reported, in nanoseconds.
+    private final long settleNanos;
+
+    // Files with recent events that are still being written, mapped to the time of their last event.
+    private final Map<String, Long> pending = new HashMap<>();
+
+    // True if the whole directory has to be listed, on the first call and after the watch service lost events.
+    private boolean rescan = true;
+
+    /**
+     * Constructs a new DirectoryWatcher.
+     *
+     * @param dir                The directory to watch.
+     * @param watch              True to use WatchService events, false to poll the directory.
+     * @param pollIntervalMillis The interval between two directory listings in poll mode, in milliseconds.
+     * @param settleMillis       How long a file must stay unmodified before it is reported, in milliseconds.
+     */
+    public DirectoryWatcher(File dir, boolean watch, long pollIntervalMillis, long settleMillis) {
+        this.dir = dir;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.settleNanos = TimeUnit.MILLISECONDS.toNanos(settleMillis);
+        this.watchService = watch ? register(dir) : null;
+        // Print a message indicating how the directory is watched.
+        System.out.println("Watching directory: " + dir.getAbsolutePath() + (watchService != null ? " (events)" : " (polling every " + pollIntervalMillis + " ms)"));
+    }
+
+    /**
+     * Blocks until there are files in the directory that have not been processed yet and returns their names in
+     * name order. Existing files are reported on the first call.
+     *
+     * @param alreadyProcessedFiles The names of files that have already been processed; looked up once per candidate.
+     * @return The names of the new files, never empty.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public List<String> awaitNewFiles(Set<String> alreadyProcessedFiles) throws InterruptedException {
+        return awaitNewFiles(alreadyProcessedFiles::contains);
+    }
+
+    /**
+     * Blocks until there are files in the directory that are not processed and returns their names in name order.
+     *
+     * @param isProcessed Tells if the file with the given name needs no processing; asked once per candidate, and
+     *                    again when a file with events settles.
+     * @return The names of the files to process, never empty.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public List<String> awaitNewFiles(Predicate<String> isProcessed) throws InterruptedException {
+        return watchService != null ? awaitEvents(isProcessed) : awaitPoll(isProcessed);
+    }
+
+    // Waits for files to settle, driven by the events of the watch service.
+    private List<String> awaitEvents(Predicate<String> isProcessed) throws InterruptedException {
+        while (true) {
+            List<String> ready = new ArrayList<>();
+            if (rescan) {
+                // Files found by a full listing are not being written anymore as far as we can tell
+                rescan = false;
+                ready.addAll(listNewFiles(isProcessed));
+                for (String fileName : ready) {
+                    pending.remove(fileName);
+                }
+            }
+
+            // Report the pending files that have not changed for the settle period
+            long now = System.nanoTime();
+            long nextSettle = Long.MAX_VALUE;
+            for (Iterator<Map.Entry<String, Long>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Long> entry = it.next();
+                long settledAt = entry.getValue() + settleNanos;
+                if (settledAt - now <= 0) {
+                    it.remove();
+                    if (!isProcessed.test(entry.getKey()) && new File(dir, entry.getKey()).isFile()) {
+                        ready.add(entry.getKey());
+                    }
+                } else {
+                    nextSettle = Math.min(nextSettle, settledAt - now);
+                }
+            }
+            if (!ready.isEmpty()) {
+                Collections.sort(ready);
+                return ready;
+            }
+
+            // Sleep until the next event, or until the next pending file settles
+            WatchKey key = pending.isEmpty()
+                    ? watchService.take()
+                    : watchService.poll(Math.max(1, TimeUnit.NANOSECONDS.toMillis(nextSettle)), TimeUnit.MILLISECONDS);
+            if (key != null) {
+                handleEvents(key, isProcessed);
+            }
+        }
+    }
+
+    // Records the files touched by the events of the given key as pending.
+    private void handleEvents(WatchKey key, Predicate<String> isProcessed) {
+        long now = System.nanoTime();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost, so the directory has to be listed again
+                rescan = true;
+                continue;
+            }
+            String fileName = event.context().toString();
+            if (!isHidden(fileName) && !isProcessed.test(fileName)) {
+                pending.put(fileName, now);
+            }
+        }
+        if (!key.reset()) {
+            throw new IllegalStateException("Directory is no longer accessible: " + dir.getAbsolutePath());
+        }
+    }
+
+    // Lists the directory at the poll interval until it holds new files.
+    private List<String> awaitPoll(Predicate<String> isProcessed) throws InterruptedException {
+        while (true) {
+            if (!rescan) {
+                Thread.sleep(pollIntervalMillis);
+            }
+            rescan = false;
+            List<String> newFiles = listNewFiles(isProcessed);
+            if (!newFiles.isEmpty()) {
+                return newFiles;
+            }
+        }
+    }
+
+    // Lists the files in the directory that have not been processed yet, in name order.
+    private List<String> listNewFiles(Predicate<String> isProcessed) {
+        // Get an array of the file names in the directory.
+        String[] fileNames = dir.list();
+        // If the directory cannot be listed, print an error message and return an empty list.
+        if (fileNames == null) {
+            System.out.println("No files found in directory: " + dir.getName());
+            return Collections.emptyList();
+        }
+        // Keep the names of the files that have not been processed yet, with one hash lookup per name.
+        List<String> newFiles = new ArrayList<>();
+        for (String fileName : fileNames) {
+            if (!isHidden(fileName) && !isProcessed.test(fileName)) {
+                newFiles.add(fileName);
+            }
+        }
+        Collections.sort(newFiles);
+        return newFiles;
+    }
+
+    // Returns true for hidden files, such as the temporary files outputs are written to, which are never processed.
+    private static boolean isHidden(String fileName) {
+        return fileName.startsWith(".");
+    }
+
+    // Registers the directory with a new watch service, or returns null if the file system cannot watch it.
+    private static WatchService register(File dir) {
+        WatchService watchService = null;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            dir.toPath().register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            return watchService;
+        } catch (IOException | UnsupportedOperationException e) {
+            System.out.println("Cannot watch directory " + dir.getAbsolutePath() + ", falling back to polling: " + e.getMessage());
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException ignored) {
+                    // Nothing left to clean up
+                }
+            }
+            return null;
+        }
+    }
+
+    // Closes the watch service, if any.
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+}
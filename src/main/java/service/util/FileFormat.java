@@ -0,0 +1,36 @@
+package main.java.service.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// The FileFormat enum lists the formats of order and output files. A file is binary if it starts with the header of
+// a binary file, otherwise it is text, so existing text files need no marker.
+
+public enum FileFormat {
+    // Comma separated order lines, and trade and order book lines in the output.
+    TEXT,
+    // Fixed-width little-endian records, as described in BinaryFormat.
+    BINARY;
+
+    /**
+     * Detects the format of the file at the given path from its first bytes.
+     *
+     * @param file The path of the file.
+     * @return BINARY if the file starts with the header of a binary order or output file, TEXT otherwise.
+     * @throws IOException If the file cannot be read.
+     */
+    public static FileFormat detect(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return detect(channel);
+        }
+    }
+
+    // Detects the format of the file behind the channel, without moving its position.
+    public static FileFormat detect(FileChannel channel) throws IOException {
+        ByteBuffer header = BinaryFormat.readHeader(channel);
+        return BinaryFormat.isOrderFile(header) || BinaryFormat.isOutputFile(header) ? BINARY : TEXT;
+    }
+}
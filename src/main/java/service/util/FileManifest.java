@@ -0,0 +1,233 @@
+package main.java.service.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The FileManifest class remembers the processed files across restarts in a compact, append-only binary file.
+// Every processed file gets a record with its name, size, modification time and checksum, appended and forced to the
+// disk as soon as the file is done. On startup a file is skipped if its size and modification time still match its
+// record, which costs a single stat call per file: nothing is read again and nothing is hashed again.
+//
+//   header:  magic (4 bytes, "BVMF") | version (1 byte) | reserved (3 bytes)
+//   record:  name length (short) | name (UTF-8) | size (long) | modified (long, ns) | checksum length (byte) | checksum
+//
+// Later records of the same name replace earlier ones; once most records are replaced, the manifest is rewritten.
+
+public class FileManifest implements Closeable {
+    // The magic bytes and version of a manifest file.
+    private static final byte[] MAGIC = {'B', 'V', 'M', 'F'};
+    private static final byte VERSION = 1;
+
+    // The size of a record without its name and checksum.
+    private static final int FIXED_RECORD_SIZE = Short.BYTES + Long.BYTES + Long.BYTES + Byte.BYTES;
+
+    // The directory the recorded files are in.
+    private final Path dir;
+
+    // The path of the manifest.
+    private final Path file;
+
+    // The latest record of every file, by file name.
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    // The channel records are appended to.
+    private FileChannel channel;
+
+    /**
+     * Opens the manifest at the given path, creating it if it does not exist, and reads its records. A record torn
+     * by a crash at the end of the manifest is dropped.
+     *
+     * @param file The path of the manifest.
+     * @param dir  The directory the recorded files are in.
+     * @throws IOException If the manifest cannot be read or is not a manifest.
+     */
+    public FileManifest(Path file, Path dir) throws IOException {
+        this.file = file;
+        this.dir = dir;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            int records = load();
+            // Rewrite the manifest once most of its records were replaced by later ones
+            if (records > 2 * entries.size()) {
+                compact();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Reads the records of the manifest, writing the header of a new one; returns the number of complete records.
+    private int load() throws IOException {
+        if (channel.size() == 0) {
+            writeHeader(channel);
+            return 0;
+        }
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (content.remaining() < BinaryFormat.HEADER_SIZE || content.get(i) != MAGIC[i]) {
+                throw new IOException("Not a file manifest: " + file);
+            }
+        }
+        if (content.get(MAGIC.length) != VERSION) {
+            throw new IOException("Unsupported file manifest version " + content.get(MAGIC.length) + ": " + file);
+        }
+        content.position(BinaryFormat.HEADER_SIZE);
+
+        int records = 0;
+        int end = content.position();
+        while (content.remaining() >= Short.BYTES) {
+            int nameLength = content.getShort(content.position()) & 0xffff;
+            if (content.remaining() < FIXED_RECORD_SIZE + nameLength) {
+                break;
+            }
+            int checksumLength = content.get(content.position() + FIXED_RECORD_SIZE - Byte.BYTES + nameLength) & 0xff;
+            if (content.remaining() < FIXED_RECORD_SIZE + nameLength + checksumLength) {
+                break;
+            }
+            content.getShort();
+            String name = decode(content, nameLength);
+            long size = content.getLong();
+            long modified = content.getLong();
+            content.get();
+            entries.put(name, new Entry(size, modified, decode(content, checksumLength)));
+            records++;
+            end = content.position();
+        }
+        // Appends continue after the last complete record
+        channel.truncate(end);
+        channel.position(end);
+        return records;
+    }
+
+    // Decodes the next length bytes of the buffer as UTF-8.
+    private static String decode(ByteBuffer content, int length) {
+        String text = new String(content.array(), content.arrayOffset() + content.position(), length, StandardCharsets.UTF_8);
+        content.position(content.position() + length);
+        return text;
+    }
+
+    // Writes the header of a new manifest to the channel.
+    private static void writeHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(BinaryFormat.HEADER_SIZE);
+        header.put(MAGIC).put(VERSION).put((byte) 0).put((byte) 0).put((byte) 0).flip();
+        write(channel, header);
+    }
+
+    // Writes the remaining bytes of the buffer at the position of the channel.
+    private static void write(FileChannel channel, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    // Rewrites the manifest with the latest record of every file, replacing it atomically.
+    private void compact() throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel compacted = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeHeader(compacted);
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                write(compacted, encode(entry.getKey(), entry.getValue()));
+            }
+            compacted.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel.close();
+        channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+
+    // Encodes the record of a file.
+    private static ByteBuffer encode(String name, Entry entry) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[] checksumBytes = entry.checksum.getBytes(StandardCharsets.UTF_8);
+        if (nameBytes.length > 0xffff || checksumBytes.length > 0xff) {
+            throw new IllegalArgumentException("File name or checksum too long for the manifest: " + name);
+        }
+        ByteBuffer record = ByteBuffer.allocate(FIXED_RECORD_SIZE + nameBytes.length + checksumBytes.length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        record.putShort((short) nameBytes.length).put(nameBytes)
+                .putLong(entry.size).putLong(entry.modified)
+                .put((byte) checksumBytes.length).put(checksumBytes)
+                .flip();
+        return record;
+    }
+
+    // Returns the number of files recorded in the manifest.
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the recorded files that are still in the directory unchanged, with a single stat call per file.
+     * Files that were changed or replaced since they were recorded are left out, so they are processed again.
+     *
+     * @return The checksum of every unchanged file, by file name.
+     * @throws IOException If a file cannot be inspected.
+     */
+    public synchronized Map<String, String> unchangedFiles() throws IOException {
+        Map<String, String> unchanged = new HashMap<>(entries.size() * 2);
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(dir.resolve(entry.getKey()), BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                continue;
+            }
+            Entry recorded = entry.getValue();
+            if (attributes.size() == recorded.size && attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS) == recorded.modified) {
+                unchanged.put(entry.getKey(), recorded.checksum);
+            }
+        }
+        return unchanged;
+    }
+
+    /**
+     * Records a processed file with its current size and modification time, and forces the record to the disk.
+     * Called once the file is complete; safe to call from several threads.
+     *
+     * @param fileName The name of the file in the directory.
+     * @param checksum The checksum of the output of the file.
+     * @throws IOException If the file cannot be inspected or the record cannot be written.
+     */
+    public synchronized void record(String fileName, String checksum) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(dir.resolve(fileName), BasicFileAttributes.class);
+        Entry entry = new Entry(attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), checksum);
+        write(channel, encode(fileName, entry));
+        channel.force(false);
+        entries.put(fileName, entry);
+    }
+
+    // Closes the manifest.
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    // The recorded size, modification time and checksum of a file.
+    private static class Entry {
+        private final long size;
+        private final long modified;
+        private final String checksum;
+
+        Entry(long size, long modified, String checksum) {
+            this.size = size;
+            this.modified = modified;
+            this.checksum = checksum;
+        }
+    }
+}
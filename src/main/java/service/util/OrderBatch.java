@@ -0,0 +1,121 @@
+package main.java.service.util;
+
+import main.java.model.OrderType;
+import main.java.service.OrderSink;
+
+import java.util.Arrays;
+
+// The OrderBatch class holds the orders parsed from one chunk of a file in parallel arrays of primitives, so a parser
+// thread can hand them to the matching thread as a whole. It is itself the sink the chunk is parsed into, and replays
+// the orders, cancels and amends into another sink exactly as the parser produced them. A parse error is kept too, and
+// thrown once the orders before it are replayed, so the matching thread sees the same as when reading sequentially.
+
+public class OrderBatch implements OrderSink {
+    // The kinds of entries of a batch.
+    private static final byte NEW = 0;
+    private static final byte CANCEL = 1;
+    private static final byte AMEND = 2;
+
+    // The number of entries a batch starts with.
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // The kind, symbol, id, side, price and quantity of every entry; unused fields are left empty.
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private String[] symbols = new String[INITIAL_CAPACITY];
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private OrderType[] sides = new OrderType[INITIAL_CAPACITY];
+    private int[] prices = new int[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+
+    // The number of entries.
+    private int size;
+
+    // The error that ended parsing of the chunk, or null.
+    private RuntimeException failure;
+
+    // Returns the number of orders, cancels and amends in the batch.
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void accept(String id, OrderType orderType, int price, int quantity) {
+        accept(null, id, orderType, price, quantity);
+    }
+
+    @Override
+    public void accept(String symbol, String id, OrderType orderType, int price, int quantity) {
+        int i = add(NEW, symbol, id);
+        sides[i] = orderType;
+        prices[i] = price;
+        quantities[i] = quantity;
+    }
+
+    @Override
+    public void cancel(String id) {
+        cancel(null, id);
+    }
+
+    @Override
+    public void cancel(String symbol, String id) {
+        add(CANCEL, symbol, id);
+    }
+
+    @Override
+    public void amend(String id, int newQuantity) {
+        amend(null, id, newQuantity);
+    }
+
+    @Override
+    public void amend(String symbol, String id, int newQuantity) {
+        int i = add(AMEND, symbol, id);
+        quantities[i] = newQuantity;
+    }
+
+    // Appends an entry of the given kind, growing the arrays if needed, and returns its index.
+    private int add(byte kind, String symbol, String id) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            symbols = Arrays.copyOf(symbols, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            sides = Arrays.copyOf(sides, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+        }
+        kinds[size] = kind;
+        symbols[size] = symbol;
+        ids[size] = id;
+        return size++;
+    }
+
+    // Records the error that ended parsing, after the entries parsed before it.
+    void fail(RuntimeException failure) {
+        this.failure = failure;
+    }
+
+    /**
+     * Hands every entry of the batch to the sink, in the order they were parsed.
+     *
+     * @param sink The sink receiving the orders, cancels and amends.
+     * @throws RuntimeException The error that ended parsing of the chunk, if any, once the entries before it are replayed.
+     */
+    public void replay(OrderSink sink) {
+        for (int i = 0; i < size; i++) {
+            switch (kinds[i]) {
+                case NEW:
+                    sink.accept(symbols[i], ids[i], sides[i], prices[i], quantities[i]);
+                    break;
+                case CANCEL:
+                    sink.cancel(symbols[i], ids[i]);
+                    break;
+                default:
+                    sink.amend(symbols[i], ids[i], quantities[i]);
+                    break;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
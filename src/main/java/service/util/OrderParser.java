@@ -0,0 +1,329 @@
+package main.java.service.util;
+
+import main.java.model.OrderType;
+import main.java.service.OrderSink;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+// The OrderParser class parses ASCII order lines ("id,side,price,quantity[,symbol]") straight from a byte buffer,
+// as well as cancels ("id,C[,symbol]") and amends of the remaining quantity ("id,A,quantity[,symbol]").
+// Sides and numbers are decoded into primitives without creating intermediate String objects; only the order
+// id is materialized, because the order keeps it. Symbols repeat, so each distinct symbol is decoded only once.
+// With the SWAR backend, line terminators and commas are searched eight bytes at a time and prices and quantities of
+// up to eight digits are converted in a single long; whatever the SWAR path cannot take falls back to the scalar one.
+
+public class OrderParser {
+    // The number of comma separated fields of an order line without and with the optional symbol column.
+    private static final int FIELD_COUNT = 4;
+    private static final int MAX_FIELD_COUNT = 5;
+
+    // The action of cancel ("id,C[,symbol]") and amend ("id,A,quantity[,symbol]") lines and their field counts
+    // without the symbol column.
+    private static final byte CANCEL = 'C';
+    private static final byte AMEND = 'A';
+    private static final int CANCEL_FIELD_COUNT = 2;
+    private static final int AMEND_FIELD_COUNT = 3;
+
+    // The maximum number of distinct symbols decoded once and reused.
+    private static final int MAX_CACHED_SYMBOLS = 256;
+
+    // The start (inclusive) and end (exclusive) of each field of the current line, reused for every line.
+    private final int[] fieldStart = new int[MAX_FIELD_COUNT];
+    private final int[] fieldEnd = new int[MAX_FIELD_COUNT];
+
+    // The symbols seen so far, with their bytes, so a repeated symbol is compared rather than decoded.
+    private final byte[][] symbolBytes = new byte[MAX_CACHED_SYMBOLS][];
+    private final String[] symbols = new String[MAX_CACHED_SYMBOLS];
+    private int symbolCount;
+
+    // The index of the symbol of the previous line, checked first.
+    private int lastSymbol;
+
+    // A scratch buffer the order id bytes are copied into before they are decoded.
+    private byte[] idBytes = new byte[32];
+
+    // True to scan and convert eight bytes at a time.
+    private final boolean swar;
+
+    // Constructs a new OrderParser with the default backend.
+    public OrderParser() {
+        this(ParserBackend.DEFAULT);
+    }
+
+    // Constructs a new OrderParser with the given backend.
+    public OrderParser(ParserBackend backend) {
+        this.swar = backend == ParserBackend.SWAR;
+    }
+
+    /**
+     * Parses all complete lines in buffer[from, to) and passes the orders, cancels and amends to the sink.
+     * Lines with the wrong number of fields for their kind are skipped, like blank lines.
+     *
+     * @param buffer    The buffer holding the ASCII text.
+     * @param from      The position of the first byte to parse.
+     * @param to        The position after the last byte to parse.
+     * @param endOfFile True if to is the end of the input, so a last line without a newline is complete.
+     * @param sink      The sink receiving the parsed orders.
+     * @return The position after the last line that was parsed; bytes from there on belong to an incomplete line.
+     */
+    public int parse(ByteBuffer buffer, int from, int to, boolean endOfFile, OrderSink sink) {
+        if (swar) {
+            // Words are read in the byte order the masks below are written for
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        int lineStart = from;
+        for (int i = nextLineEnd(buffer, from, to); i < to; i = nextLineEnd(buffer, i + 1, to)) {
+            parseLine(buffer, lineStart, i, sink);
+            lineStart = i + 1;
+        }
+        // The last line of the input does not need a trailing newline
+        if (endOfFile && lineStart < to) {
+            parseLine(buffer, lineStart, to, sink);
+            lineStart = to;
+        }
+        return lineStart;
+    }
+
+    // Splits a single line into its fields and passes the order, cancel or amend to the sink, if the line is valid.
+    private void parseLine(ByteBuffer buffer, int start, int end, OrderSink sink) {
+        int fields = 0;
+        int fieldFrom = start;
+        // Every field ends at a comma or at the end of the line
+        for (int i = nextComma(buffer, start, end); i <= end; i = nextComma(buffer, i + 1, end)) {
+            // More than five fields is not a valid line, but trailing empty fields are ignored like String.split
+            if (fields == MAX_FIELD_COUNT) {
+                if (hasOnlyCommas(buffer, fieldFrom, end)) {
+                    break;
+                }
+                return;
+            }
+            fieldStart[fields] = fieldFrom;
+            fieldEnd[fields] = i;
+            fields++;
+            fieldFrom = i + 1;
+        }
+        // Drop trailing empty fields, like String.split; an empty symbol column is the same as no symbol column
+        while (fields > 0 && fieldStart[fields - 1] == fieldEnd[fields - 1]) {
+            fields--;
+        }
+        if (fields < 2) {
+            return;
+        }
+
+        // Trim every field the same way String.trim() would
+        for (int f = 0; f < fields; f++) {
+            while (fieldStart[f] < fieldEnd[f] && (buffer.get(fieldStart[f]) & 0xff) <= ' ') {
+                fieldStart[f]++;
+            }
+            while (fieldEnd[f] > fieldStart[f] && (buffer.get(fieldEnd[f] - 1) & 0xff) <= ' ') {
+                fieldEnd[f]--;
+            }
+        }
+
+        // The second field tells new orders ("id,B|S,price,quantity") from cancels ("id,C") and amends ("id,A,quantity")
+        byte action = fieldEnd[1] - fieldStart[1] == 1 ? buffer.get(fieldStart[1]) : 0;
+        if (action == CANCEL) {
+            if (fields == CANCEL_FIELD_COUNT || fields == CANCEL_FIELD_COUNT + 1) {
+                sink.cancel(optionalSymbol(buffer, fields, CANCEL_FIELD_COUNT), decodeId(buffer, fieldStart[0], fieldEnd[0]));
+            }
+        } else if (action == AMEND) {
+            if (fields == AMEND_FIELD_COUNT || fields == AMEND_FIELD_COUNT + 1) {
+                String id = decodeId(buffer, fieldStart[0], fieldEnd[0]);
+                int quantity = parseNumber(buffer, fieldStart[2], fieldEnd[2]);
+                sink.amend(optionalSymbol(buffer, fields, AMEND_FIELD_COUNT), id, quantity);
+            }
+        } else if (fields == FIELD_COUNT || fields == FIELD_COUNT + 1) {
+            String id = decodeId(buffer, fieldStart[0], fieldEnd[0]);
+            OrderType orderType = parseSide(buffer, fieldStart[1], fieldEnd[1]);
+            int price = parseNumber(buffer, fieldStart[2], fieldEnd[2]);
+            int quantity = parseNumber(buffer, fieldStart[3], fieldEnd[3]);
+            sink.accept(optionalSymbol(buffer, fields, FIELD_COUNT), id, orderType, price, quantity);
+        }
+    }
+
+    // The masks of the SWAR backend: a byte of ones, of high bits, and every byte set to a delimiter or to '0'.
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long NEWLINES = ONES * '\n';
+    private static final long RETURNS = ONES * '\r';
+    private static final long COMMAS = ONES * ',';
+    private static final long ZEROS = ONES * '0';
+
+    // Returns the high bit of every byte of the word that is zero. Bytes above the lowest zero byte may be flagged
+    // wrongly by the borrow, so only the lowest flag is exact, which is the only one used.
+    private static long zeroBytes(long word) {
+        return (word - ONES) & ~word & HIGH_BITS;
+    }
+
+    // Returns the position of the first line terminator in buffer[from, to), or max(from, to) if there is none.
+    // The SWAR backend scans a word at a time while eight bytes are left.
+    private int nextLineEnd(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        for (; swar && i + Long.BYTES <= to; i += Long.BYTES) {
+            long word = buffer.getLong(i);
+            long found = zeroBytes(word ^ NEWLINES) | zeroBytes(word ^ RETURNS);
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n' || b == '\r') {
+                return i;
+            }
+        }
+        return i;
+    }
+
+    // Returns the position of the first comma in buffer[from, end), or max(from, end) if there is none.
+    private int nextComma(ByteBuffer buffer, int from, int end) {
+        int i = from;
+        for (; swar && i + Long.BYTES <= end; i += Long.BYTES) {
+            long found = zeroBytes(buffer.getLong(i) ^ COMMAS);
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; i < end; i++) {
+            if (buffer.get(i) == ',') {
+                return i;
+            }
+        }
+        return i;
+    }
+
+    // Parses a price or quantity, converting up to eight plain digits in one word with the SWAR backend. Anything
+    // else, such as a sign, a longer number or an invalid character, is left to parseInt and its errors.
+    private int parseNumber(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        // The word is read from the start of the number, so eight bytes must be left in the buffer
+        if (swar && length > 0 && length <= Long.BYTES && start + Long.BYTES <= buffer.limit()) {
+            // Drop the bytes after the number by moving its digits up, and fill the bytes below them with leading zeros
+            int padding = (Long.BYTES - length) * Byte.SIZE;
+            long word = buffer.getLong(start) << padding | ZEROS & ~(-1L << padding);
+            // Every byte is a digit if its high nibble is 3 and adding 6 does not carry into the high nibble
+            if (((word & 0xf0f0f0f0f0f0f0f0L) | (((word + ONES * 6) & 0xf0f0f0f0f0f0f0f0L) >>> 4)) == ONES * 0x33) {
+                // The first digit is in the lowest byte: combine pairs of digits, then pairs of pairs, then the halves
+                long digits = word & 0x0f0f0f0f0f0f0f0fL;
+                digits = (digits * (10 * 0x100 + 1)) >>> 8 & 0x00ff00ff00ff00ffL;
+                digits = (digits * (100 * 0x10000 + 1)) >>> 16 & 0x0000ffff0000ffffL;
+                return (int) ((digits * (10000 * 0x100000000L + 1)) >>> 32);
+            }
+        }
+        return parseInt(buffer, start, end);
+    }
+
+    // Returns the symbol of a line with the given number of fields, or null if it has no symbol column after the
+    // fieldCount fields of its kind.
+    private String optionalSymbol(ByteBuffer buffer, int fields, int fieldCount) {
+        return fields > fieldCount ? symbol(buffer, fieldStart[fieldCount], fieldEnd[fieldCount]) : null;
+    }
+
+    // Returns the symbol in buffer[start, end), or null if it is blank, reusing the String of a symbol seen before.
+    private String symbol(ByteBuffer buffer, int start, int end) {
+        if (start == end) {
+            return null;
+        }
+        if (symbolCount > 0 && sameBytes(symbolBytes[lastSymbol], buffer, start, end)) {
+            return symbols[lastSymbol];
+        }
+        for (int i = 0; i < symbolCount; i++) {
+            if (sameBytes(symbolBytes[i], buffer, start, end)) {
+                lastSymbol = i;
+                return symbols[i];
+            }
+        }
+        String symbol = decodeId(buffer, start, end);
+        if (symbolCount < MAX_CACHED_SYMBOLS) {
+            symbolBytes[symbolCount] = symbol.getBytes(StandardCharsets.US_ASCII);
+            symbols[symbolCount] = symbol;
+            lastSymbol = symbolCount++;
+        }
+        return symbol;
+    }
+
+    // Returns true if the bytes equal buffer[start, end).
+    private static boolean sameBytes(byte[] bytes, ByteBuffer buffer, int start, int end) {
+        if (bytes.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Returns true if buffer[start, end) holds nothing but commas.
+    private static boolean hasOnlyCommas(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) != ',') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Decodes the order id (or symbol) bytes in buffer[start, end) into a String.
+    private String decodeId(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (length > idBytes.length) {
+            idBytes = new byte[Math.max(length, idBytes.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            idBytes[i] = buffer.get(start + i);
+        }
+        return new String(idBytes, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    // Decodes the single character side in buffer[start, end).
+    private static OrderType parseSide(ByteBuffer buffer, int start, int end) {
+        if (end - start != 1) {
+            throw new IllegalArgumentException("Invalid order side: " + text(buffer, start, end));
+        }
+        return OrderType.type((char) buffer.get(start));
+    }
+
+    /**
+     * Parses a signed decimal int from buffer[start, end) with the same rules as Integer.parseInt.
+     *
+     * @throws NumberFormatException If the bytes are not a valid int.
+     */
+    static int parseInt(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("For input string: \"" + text(buffer, start, end) + "\"");
+        }
+        // Accumulate negatively so that Integer.MIN_VALUE can be represented
+        long limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + text(buffer, start, end) + "\"");
+            }
+            result = result * 10 - digit;
+            if (result < limit) {
+                throw new NumberFormatException("For input string: \"" + text(buffer, start, end) + "\"");
+            }
+        }
+        return (int) (negative ? result : -result);
+    }
+
+    // Returns the bytes in buffer[start, end) as a String, used for error messages only.
+    private static String text(ByteBuffer buffer, int start, int end) {
+        StringBuilder text = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            text.append((char) buffer.get(i));
+        }
+        return text.toString();
+    }
+}
@@ -1,111 +1,260 @@
 package main.java.service.util;
 
-import main.java.model.Order;
-import main.java.model.OrderType;
+import main.java.service.OrderSink;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.*;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 // This is the class declaration for the OrderReader class.
 public class OrderReader {
+    // The size of the region of a file that is memory-mapped at once. Lines and records never span two regions.
+    private static final int MAPPED_REGION_SIZE = 64 * 1024 * 1024;
+
     // This is a private field of the OrderReader class that represents the directory to read files from.
     private final File dir;
 
-    // This is the constructor for the OrderReader class.
+    // The reader parsing large files in parallel chunks, or null to read every file on the calling thread.
+    private ParallelOrderReader parallelReader;
+
+    // The backend of the parser of text files read on the calling thread.
+    private ParserBackend parserBackend = ParserBackend.DEFAULT;
+
+    // This is the constructor for the OrderReader class, reading from the exchange directory.
     public OrderReader() {
-        // Set the directory path.
-        String dirPath = "exchange";
-        // Create a new File object for the directory.
-        this.dir = new File(dirPath);
+        this(new File("exchange"));
+    }
+
+    // Constructs a new OrderReader reading the files of the given directory.
+    public OrderReader(File dir) {
+        this.dir = dir;
         // Print a message indicating which directory is being read from.
         System.out.println("Reading files from directory: " + dir.getAbsolutePath());
         // Check if the directory exists and is a directory.
         if (!dir.exists() || !dir.isDirectory()) {
             // Print an error message if the directory is invalid.
-            System.out.println("Invalid directory: " + dirPath);
+            System.out.println("Invalid directory: " + dir.getPath());
         }
     }
 
+    // Sets the reader parsing large files in parallel chunks, or removes it when given null.
+    public void setParallelReader(ParallelOrderReader parallelReader) {
+        this.parallelReader = parallelReader;
+    }
+
+    // Sets the backend of the parser of text files read on the calling thread; the parallel reader has its own.
+    public void setParserBackend(ParserBackend parserBackend) {
+        this.parserBackend = parserBackend;
+    }
+
     /**
-     * This method reads a file and returns a map of orders contained within.
+     * This method streams the orders of a file into the given sink as they are parsed.
+     * The file is memory-mapped region by region, so memory use stays flat whatever the file size
+     * and matching starts while the rest of the file is still being read.
      *
      * @param fileName The name of the file to read.
+     * @param sink     The sink receiving every order in file order, typically an ExchangeService.
+     * @throws UncheckedIOException If the file cannot be read, or only in part; the orders the sink received so far
+     *                              are then not the whole file, so nothing may be written for it.
      */
-    public Map<String, LinkedList<Order>> readFile(String fileName) {
+    public void readFile(String fileName, OrderSink sink) {
         // Create a new File object for the file.
         File file = new File(dir, fileName);
-        // Print a message indicating which file is being read.
-        System.out.println("Reading file: " + file.getName());
-        // Create a new linked list to store the orders.
-        LinkedList<Order> orderList = new LinkedList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            String line;
-            // Read each line of the file.
-            while ((line = br.readLine()) != null) {
-                // Split the line into fields using a comma as the delimiter.
-                String[] fields = line.split(",");
-                // Check if there are 4 fields in the line.
-                if (fields.length == 4) {
-                    // Create a new order object and add it to the list of orders.
-                    Order order = new Order(fields[0].trim(),
-                            OrderType.type(fields[1].trim()),
-                            Integer.parseInt(fields[2].trim()),
-                            Integer.parseInt(fields[3].trim()));
-                    orderList.add(order);
+        try {
+            read(file.toPath(), sink, parallelReader, parserBackend);
+        } catch (IOException e) {
+            // Fail the file rather than hand a partial stream of orders on as if it were complete.
+            throw new UncheckedIOException("Failed to read file: " + fileName, e);
+        }
+    }
+
+    /**
+     * This method streams the orders of a text or binary order file into the given sink, detecting the format from
+     * the header of the file.
+     *
+     * @param file The path of the file to read.
+     * @param sink The sink receiving every order in file order.
+     * @throws IOException If the file cannot be read, or is a binary file this build cannot read.
+     */
+    public static void read(Path file, OrderSink sink) throws IOException {
+        read(file, sink, null);
+    }
+
+    /**
+     * This method streams the orders of a text or binary order file into the given sink, parsing the file in parallel
+     * chunks if it is large enough and a parallel reader is given. The sink receives the same orders in the same
+     * order either way.
+     *
+     * @param file           The path of the file to read.
+     * @param sink           The sink receiving every order in file order, on the calling thread.
+     * @param parallelReader The reader parsing large files in parallel chunks, or null.
+     * @throws IOException If the file cannot be read, or is a binary file this build cannot read.
+     */
+    public static void read(Path file, OrderSink sink, ParallelOrderReader parallelReader) throws IOException {
+        read(file, sink, parallelReader, ParserBackend.DEFAULT);
+    }
+
+    /**
+     * This method streams the orders of a text or binary order file into the given sink like read above, parsing text
+     * read on the calling thread with the given parser backend.
+     *
+     * @param file           The path of the file to read.
+     * @param sink           The sink receiving every order in file order, on the calling thread.
+     * @param parallelReader The reader parsing large files in parallel chunks, or null.
+     * @param parserBackend  The backend of the parser of text read on the calling thread.
+     * @throws IOException If the file cannot be read, or is a binary file this build cannot read.
+     */
+    public static void read(Path file, OrderSink sink, ParallelOrderReader parallelReader, ParserBackend parserBackend)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = BinaryFormat.readHeader(channel);
+            boolean parallel = parallelReader != null && parallelReader.isWorthSplitting(channel.size());
+            if (BinaryFormat.isOrderFile(header)) {
+                checkBinary(channel, header, file);
+                if (parallel) {
+                    parallelReader.readBinary(channel, sink);
+                } else {
+                    readBinary(channel, BinaryFormat.HEADER_SIZE, channel.size(), sink);
                 }
+            } else if (BinaryFormat.isOutputFile(header)) {
+                throw new IOException("Binary output file cannot be read as orders: " + file.getFileName());
+            } else if (parallel) {
+                parallelReader.readText(channel, sink);
+            } else {
+                readText(channel, file, 0, true, sink, parserBackend);
             }
-        } catch (IOException e) {
-            // Print a stack trace if an error occurs while reading the file.
-            e.printStackTrace();
         }
-        // Create a new linked hash map to store the map of orders.
-        LinkedHashMap<String, LinkedList<Order>> fileOrderMap = new LinkedHashMap<>(1);
-        // Add the order list to the map of orders, with the file name as the key.
-        fileOrderMap.put(file.getName(), orderList);
-        // Return the map of orders.
-        return fileOrderMap;
     }
 
+    /**
+     * This method streams the orders appended to a file since an earlier call into the given sink, for a file that is
+     * still being written to. Only complete lines, or whole records of a binary file, are read; a line that is still
+     * being written is left for the next call, so the cost of a call depends on the appended bytes only.
+     *
+     * @param fileName The name of the file to read.
+     * @param offset   The offset returned by the previous call, or 0 to read the file from the start.
+     * @param format   The format of the file, detected before its first read.
+     * @param sink     The sink receiving the appended orders in file order.
+     * @return The offset after the last line or record read, to go on from with the next call.
+     * @throws IOException If the file cannot be read, or is a binary file this build cannot read.
+     */
+    public long readAppended(String fileName, long offset, FileFormat format, OrderSink sink) throws IOException {
+        return readAppended(new File(dir, fileName).toPath(), offset, format, sink, parserBackend);
+    }
+
+    /**
+     * This method streams the orders appended to a file since an earlier call into the given sink, like readAppended
+     * above, parsing text with the given parser backend.
+     *
+     * @param file          The path of the file to read.
+     * @param offset        The offset returned by the previous call, or 0 to read the file from the start.
+     * @param format        The format of the file, detected before its first read.
+     * @param sink          The sink receiving the appended orders in file order.
+     * @param parserBackend The backend of the parser of text.
+     * @return The offset after the last line or record read, to go on from with the next call.
+     * @throws IOException If the file cannot be read, or is a binary file this build cannot read.
+     */
+    public static long readAppended(Path file, long offset, FileFormat format, OrderSink sink,
+                                    ParserBackend parserBackend) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (format == FileFormat.TEXT) {
+                return readText(channel, file, offset, false, sink, parserBackend);
+            }
+            if (offset == 0) {
+                // Start after the header once it is complete
+                if (size < BinaryFormat.HEADER_SIZE) {
+                    return 0;
+                }
+                ByteBuffer header = BinaryFormat.readHeader(channel);
+                if (!BinaryFormat.isOrderFile(header)) {
+                    throw new IOException("Binary output file cannot be read as orders: " + file.getFileName());
+                }
+                if (BinaryFormat.versionOf(header) != BinaryFormat.VERSION) {
+                    throw new IOException("Unsupported binary format version " + BinaryFormat.versionOf(header) + " of file: " + file.getFileName());
+                }
+                offset = BinaryFormat.HEADER_SIZE;
+            }
+            long records = (size - offset) / BinaryFormat.RECORD_SIZE;
+            return readBinary(channel, offset, offset + records * BinaryFormat.RECORD_SIZE, sink);
+        }
+    }
 
     /**
-     * This method reads all the files in the directory and returns a map of orders contained within.
+     * Maps and parses a text file one region at a time, from the given position on.
      *
-     * @param alreadyProcessedFiles The names of files that have already been processed.
-     *                              If this is a set containing the names of all files in the directory, no files will be processed.
+     * @param complete True if the file is complete, so its last line needs no line terminator; false to leave a last
+     *                 line without one unread, as it may still be being written.
+     * @return The position after the last line parsed.
      */
-    public Map<String, LinkedList<Order>> readFiles(Collection<String> alreadyProcessedFiles) {
-        // Get an array of the file names in the directory.
-        String[] fileNames = dir.list();
-        // If there are no files in the directory, print an error message and return an empty map.
-        if (fileNames == null) {
-            System.out.println("No files found in directory: " + dir.getName());
-            return Collections.emptyMap();
+    private static long readText(FileChannel channel, Path file, long position, boolean complete, OrderSink sink,
+                                 ParserBackend parserBackend) throws IOException {
+        // Create a new parser, which reuses its scratch buffers for every line of the file.
+        OrderParser parser = new OrderParser(parserBackend);
+        long size = channel.size();
+        while (position < size) {
+            int length = (int) Math.min(MAPPED_REGION_SIZE, size - position);
+            boolean lastRegion = position + length == size;
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            // Parse all complete lines; an incomplete last line is mapped again with the next region.
+            int consumed = parser.parse(region, 0, length, complete && lastRegion, sink);
+            if (consumed == 0) {
+                if (!lastRegion) {
+                    throw new IOException("Line longer than " + MAPPED_REGION_SIZE + " bytes in file: " + file.getFileName());
+                }
+                // Only an unfinished last line is left
+                break;
+            }
+            position += consumed;
         }
-        // Convert the array of file names to a list and sort it.
-        List<String> fileNamesSet = new LinkedList<>(Arrays.asList(fileNames));
-        Collections.sort(fileNamesSet);
-        // Remove the names of files that have already been processed.
-        fileNamesSet.removeAll(alreadyProcessedFiles);
-        // If there are no new files to process, return an empty map.
-        if (fileNamesSet.isEmpty()) {
-            return Collections.emptyMap();
+        return position;
+    }
+
+    // Checks that a binary file is of a version this build reads and holds whole records only.
+    private static void checkBinary(FileChannel channel, ByteBuffer header, Path file) throws IOException {
+        if (BinaryFormat.versionOf(header) != BinaryFormat.VERSION) {
+            throw new IOException("Unsupported binary format version " + BinaryFormat.versionOf(header) + " of file: " + file.getFileName());
+        }
+        if ((channel.size() - BinaryFormat.HEADER_SIZE) % BinaryFormat.RECORD_SIZE != 0) {
+            throw new IOException("Truncated record at the end of binary file: " + file.getFileName());
         }
-        // Print the number and names of the new files that have been detected.
-        System.out.println("Detected new " + fileNamesSet.size() + " files: " + fileNamesSet);
+    }
 
-        // Create a new linked hash map to store the map of orders.
-        LinkedHashMap<String, LinkedList<Order>> fileOrderMap = new LinkedHashMap<>(fileNamesSet.size());
+    // Maps and decodes the records of a binary file in [position, end) one region at a time and returns end. Regions
+    // hold whole records, so no record ever spans two of them.
+    private static long readBinary(FileChannel channel, long position, long end, OrderSink sink) throws IOException {
+        BinaryOrderDecoder decoder = new BinaryOrderDecoder();
+        int regionSize = MAPPED_REGION_SIZE - MAPPED_REGION_SIZE % BinaryFormat.RECORD_SIZE;
+        while (position < end) {
+            int length = (int) Math.min(regionSize, end - position);
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            position += decoder.decode(region, 0, length, sink);
+        }
+        return position;
+    }
 
-        // Read each file and add the orders to the map of orders.
-        for (String fileName : fileNamesSet) {
-            fileOrderMap.putAll(readFile(fileName));
+    /**
+     * This method detects the format of a file, so its output can be written in the same format.
+     *
+     * @param fileName The name of the file.
+     * @return The format of the file; TEXT if it cannot be read, which reading it will then report.
+     */
+    public FileFormat detectFormat(String fileName) {
+        try {
+            return FileFormat.detect(new File(dir, fileName).toPath());
+        } catch (IOException e) {
+            return FileFormat.TEXT;
         }
+    }
 
-        // Return the map of orders.
-        return fileOrderMap;
+    // Returns the directory the files are read from.
+    public File getDirectory() {
+        return dir;
     }
 
-}
\ No newline at end of file
+}
@@ -1,81 +1,233 @@
 package main.java.service.util;
 
-import java.io.FileWriter;
+import main.java.model.OrderBook;
+import main.java.model.TradeJournal;
+
 import java.io.IOException;
-import java.math.BigInteger;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
 
 public class OrderWriter {
+    // The size of the buffer files are read through when they are checksummed after the fact.
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    // The algorithm output files are checksummed with.
+    private final ChecksumAlgorithm checksumAlgorithm;
+
+    // The directory output files are written to.
+    private final Path outputDir;
+
+    // The listener told about every output file once it is complete, or null.
+    private OutputFile.CompletionListener completionListener;
+
+    // Constructs a new OrderWriter checksumming files with MD5.
+    public OrderWriter() {
+        this(ChecksumAlgorithm.MD5);
+    }
+
+    // Constructs a new OrderWriter checksumming files with the given algorithm, replacing the order files with their output.
+    public OrderWriter(ChecksumAlgorithm checksumAlgorithm) {
+        this(checksumAlgorithm, Paths.get("exchange"));
+    }
 
     /**
-     * This method writes the trades and order book to a file.
+     * Constructs a new OrderWriter.
+     *
+     * @param checksumAlgorithm The algorithm output files are checksummed with.
+     * @param outputDir         The directory output files are written to; the directory of the order files to replace
+     *                          them with their output.
+     */
+    public OrderWriter(ChecksumAlgorithm checksumAlgorithm, Path outputDir) {
+        this.checksumAlgorithm = checksumAlgorithm;
+        this.outputDir = outputDir;
+    }
+
+    // Returns the directory output files are written to.
+    public Path getOutputDirectory() {
+        return outputDir;
+    }
+
+    // Sets the listener told about every output file once it is complete, such as a journal of the completed files.
+    public void setCompletionListener(OutputFile.CompletionListener completionListener) {
+        this.completionListener = completionListener;
+    }
+
+    // Returns the algorithm output files are checksummed with.
+    public ChecksumAlgorithm getChecksumAlgorithm() {
+        return checksumAlgorithm;
+    }
+
+    /**
+     * This method writes the trades and order book of an order book to a file and echoes them to the given console
+     * stream. The book lines are encoded straight from the ladders, without building them as Strings first.
      *
      * @param fileName  The name of the file to write to.
-     * @param trades    The trades to write to the file.
-     * @param orderBook The order book to write to the file.
+     * @param orderBook The order book whose trades and resting orders are written.
+     * @param console   The stream the file content is echoed to, or null.
+     * @return The checksum of the written file, computed while it was written.
+     * @throws UncheckedIOException If the file cannot be written.
      */
-    public void writeFile(String fileName, List<String> trades, List<String> orderBook) {
-        // Define the file path using the specified file name
-        String filePath = "exchange/" + fileName;
-        FileWriter writer;
-        try {
-            // Create a new FileWriter object with the specified file path
-            writer = new FileWriter(filePath);
-
-            // Print a separator line
-            System.out.println("------------------------------------------------------------");
-            // Print the content title
-            System.out.println("TXT FILE CONTENT");
-            // Print a separator line
-            System.out.println("------------------------------------------------------------");
-
-            // Write the trades to the file and print them to the console
-            for (String trade : trades) {
-                System.out.println(trade);
-                writer.write(trade + "\n");
-            }
+    public String writeFile(String fileName, OrderBook orderBook, PrintStream console) {
+        return writeFile(fileName, orderBook, console, FileFormat.TEXT);
+    }
 
-            // Write the order book to the file and print them to the console
-            for (String order : orderBook) {
-                System.out.println(order);
-                writer.write(order + "\n");
-            }
+    /**
+     * This method writes the trades and order book of an order book to a file in the given format and echoes them
+     * as text to the given console stream.
+     *
+     * @param fileName  The name of the file to write to.
+     * @param orderBook The order book whose trades and resting orders are written.
+     * @param console   The stream the file content is echoed to, or null.
+     * @param format    The format of the file, usually the one of the order file it replaces.
+     * @return The checksum of the written file, computed while it was written.
+     * @throws UncheckedIOException If the file cannot be written.
+     */
+    public String writeFile(String fileName, OrderBook orderBook, PrintStream console, FileFormat format) {
+        printContentHeader(console);
 
-            // Print a separator line
-            System.out.println("------------------------------------------------------------");
+        // Open the file; it is closed even if writing fails, and only replaces the target once it is committed
+        OutputFile output;
+        try (OutputFile file = open(fileName, console, format)) {
+            output = file;
+            writeTrades(output, orderBook.getTradeJournal());
+            output.writeOrderBook(orderBook);
+            output.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write file: " + fileName, e);
+        }
 
-            // Close the writer to free up resources
-            writer.close();
+        printContentFooter(console);
+        return output.getChecksum();
+    }
 
+    /**
+     * This method writes the trades and order books of several instruments to a file in the given format and echoes
+     * them as text to the given console stream. Each instrument starts with a "symbol SYMBOL" line, except the
+     * instrument of orders without a symbol, so a file without symbols is written exactly like a single order book.
+     *
+     * @param fileName   The name of the file to write to.
+     * @param orderBooks The order books to write to the file, by symbol, in the order they are written.
+     * @param console    The stream the file content is echoed to, or null.
+     * @param format     The format of the file, usually the one of the order file it replaces.
+     * @return The checksum of the written file, computed while it was written.
+     * @throws UncheckedIOException If the file cannot be written.
+     */
+    public String writeFile(String fileName, SortedMap<String, OrderBook> orderBooks, PrintStream console, FileFormat format) {
+        printContentHeader(console);
+
+        // Open the file; it is closed even if writing fails, and only replaces the target once it is committed
+        OutputFile output;
+        try (OutputFile file = open(fileName, console, format)) {
+            output = file;
+            for (Map.Entry<String, OrderBook> entry : orderBooks.entrySet()) {
+                if (!entry.getKey().isEmpty()) {
+                    output.writeSymbol(entry.getKey());
+                }
+                writeTrades(output, entry.getValue().getTradeJournal());
+                output.writeOrderBook(entry.getValue());
+            }
+            output.commit();
         } catch (IOException e) {
-            // Handle any exceptions that might occur
-            e.printStackTrace();
+            throw new UncheckedIOException("Failed to write file: " + fileName, e);
+        }
+
+        printContentFooter(console);
+        return output.getChecksum();
+    }
+
+    // Writes the trades of the journal to the file and prints them to the console.
+    private static void writeTrades(OutputFile output, TradeJournal trades) throws IOException {
+        for (int i = 0; i < trades.size(); i++) {
+            output.writeTrade(trades.getBidId(i), trades.getAskId(i), trades.getPrice(i), trades.getQuantity(i));
+        }
+    }
+
+    // Prints the title above the echoed file content, unless nothing is echoed.
+    private static void printContentHeader(PrintStream console) {
+        if (console == null) {
+            return;
+        }
+        // Print a separator line
+        console.println("------------------------------------------------------------");
+        // Print the content title
+        console.println("TXT FILE CONTENT");
+        // Print a separator line
+        console.println("------------------------------------------------------------");
+    }
+
+    // Prints the separator below the echoed file content, unless nothing is echoed.
+    private static void printContentFooter(PrintStream console) {
+        if (console == null) {
+            return;
         }
+        // Print a separator line
+        console.println("------------------------------------------------------------");
     }
 
     /**
-     * This method computes the MD5 hash of a file and returns it as a hexadecimal string.
+     * This method opens the output file for the given input file in the given format, to write it record by record.
      *
-     * @param fileName The name of the file to compute the MD5 hash of.
-     * @return The MD5 hash of the file as a hexadecimal string.
+     * @param fileName The name of the file to write to.
+     * @param console  The stream every line is echoed to as text, or null.
+     * @param format   The format of the file.
+     * @return The opened output file.
+     * @throws IOException If the file cannot be opened.
      */
-    public String checksum(String fileName) throws RuntimeException {
+    public OutputFile open(String fileName, PrintStream console, FileFormat format) throws IOException {
         // Define the file path using the specified file name
-        String filePath = "exchange/" + fileName;
-        byte[] hash;
-        try {
-            // Read all the bytes from the file and compute the MD5 hash
-            byte[] data = Files.readAllBytes(Paths.get(filePath));
-            hash = MessageDigest.getInstance("MD5").digest(data);
-        } catch (NoSuchAlgorithmException | IOException e) {
+        OutputFile output = new OutputFile(outputDir.resolve(fileName), console, checksumAlgorithm, format);
+        output.setCompletionListener(completionListener);
+        return output;
+    }
+
+    /**
+     * This method opens the output file for the given input file to go on writing it in place from the given position,
+     * for a file that is written a part at a time, such as the output of a file that is tailed.
+     *
+     * @param fileName The name of the file to write to.
+     * @param position The position to write from; 0 to write the file from the start.
+     * @param hasher   The hasher of the first position bytes of the file, or null to write the file from the start.
+     * @param console  The stream every line is echoed to as text, or null.
+     * @param format   The format of the file.
+     * @return The opened output file.
+     * @throws IOException If the file cannot be opened.
+     */
+    public OutputFile resume(String fileName, long position, ChecksumAlgorithm.Hasher hasher, PrintStream console,
+                             FileFormat format) throws IOException {
+        if (hasher == null) {
+            return OutputFile.resume(outputDir.resolve(fileName), 0, checksumAlgorithm.newHasher(), console, format);
+        }
+        return OutputFile.resume(outputDir.resolve(fileName), position, hasher, console, format);
+    }
+
+    /**
+     * This method computes the checksum of an existing file and returns it as a hexadecimal string.
+     * Files written by this writer do not need it, as their checksum is returned by writeFile; the file is streamed
+     * through a fixed buffer rather than read into memory at once.
+     *
+     * @param fileName The name of the file to checksum.
+     * @return The checksum of the file as a hexadecimal string.
+     */
+    public String checksum(String fileName) throws RuntimeException {
+        // Stream the file through the hasher, one buffer at a time
+        ChecksumAlgorithm.Hasher hasher = checksumAlgorithm.newHasher();
+        try (InputStream in = Files.newInputStream(outputDir.resolve(fileName))) {
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                hasher.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
             // Handle any exceptions that might occur
             throw new RuntimeException(e);
         }
         // Convert the hash to a hexadecimal string and return it
-        return new BigInteger(1, hash).toString(16);
+        return hasher.toHex();
     }
 }
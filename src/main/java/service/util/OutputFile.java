@@ -0,0 +1,522 @@
+package main.java.service.util;
+
+import main.java.model.Order;
+import main.java.model.OrderBook;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Iterator;
+import java.util.Locale;
+
+// The OutputFile class writes the output of an order file line by line: first the trades, then the order book.
+// Every line is optionally echoed to a console stream. Lines are encoded straight into a reused byte array, numbers
+// included, and collected in a direct buffer that goes to the file channel in large writes, so writing a line
+// allocates nothing and costs no system call.
+// The content goes to a hidden temporary file next to the target, which replaces the target when the file is closed
+// after it was committed, so the input file can still be read while its output is being written, and a file whose
+// writing failed half way is discarded instead of replacing the target. The checksum of the file is computed from
+// the bytes on their way to the disk, so it is known as soon as the file is closed without reading it back.
+// A binary output file holds fixed-width records (see BinaryFormat) instead of lines; the console still gets the text
+// lines, so the echo does not depend on the format of the file.
+// A file can also be resumed: it is then written in place from a given position on, cutting off what followed, and
+// its checksum goes on from the hasher of the content before that position. This is how the output of a file that is
+// tailed gets its new trades and a fresh order book without being written again from the start.
+
+public class OutputFile implements AutoCloseable {
+    // The size of the direct buffer collecting lines before they are written to the file.
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    // The line separator of the console, as println would print it.
+    private static final byte[] CONSOLE_LINE_SEPARATOR = System.lineSeparator().getBytes(Charset.defaultCharset());
+
+    // The widths of the columns of an order book line, as formatted by OrderBook.getOrderBook().
+    private static final int BID_QUANTITY_WIDTH = 11;
+    private static final int BID_PRICE_WIDTH = 7;
+    private static final int ASK_PRICE_WIDTH = 6;
+    private static final int ASK_QUANTITY_WIDTH = 12;
+
+    // The file the output ends up in.
+    private final Path target;
+
+    // The hidden file the output is written to until it is complete, or null if the target is written in place.
+    private final Path temporary;
+
+    // The channel of the temporary file.
+    private final FileChannel channel;
+
+    // The direct buffer complete lines are collected in.
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    // The hasher fed with every byte written to the file.
+    private final ChecksumAlgorithm.Hasher hasher;
+
+    // The checksum of the file, set when it is closed after it was committed.
+    private String checksum;
+
+    // True once the content is complete, so closing the file replaces the target with it.
+    private boolean committed;
+
+    // True once the file is closed.
+    private boolean closed;
+
+    // The listener told about the complete file before it replaces the target, or null.
+    private CompletionListener completionListener;
+
+    // The stream every line is echoed to, or null.
+    private final PrintStream console;
+
+    // The format of the file: lines, or binary records.
+    private final FileFormat format;
+
+    // The bytes of the line being encoded, and their number.
+    private byte[] line = new byte[128];
+    private int length;
+
+    // A scratch array the digits of a number are written into from the right.
+    private final byte[] digits = new byte[32];
+
+    // The separator %,d groups digits with in the default locale, and the size of a group (0 for no grouping).
+    private final byte groupingSeparator;
+    private final int groupingSize;
+
+    // True if the default locale formats numbers with ASCII digits, so book lines can be encoded directly.
+    private final boolean asciiDigits;
+
+    /**
+     * Opens the output file, checksummed with MD5. Its existing content is only replaced when the new content is complete.
+     *
+     * @param target  The path of the file to write.
+     * @param console The stream every line is echoed to, or null.
+     * @throws IOException If the file cannot be opened.
+     */
+    public OutputFile(Path target, PrintStream console) throws IOException {
+        this(target, console, ChecksumAlgorithm.MD5);
+    }
+
+    /**
+     * Opens the output file. Its existing content is only replaced when the new content is complete.
+     *
+     * @param target    The path of the file to write.
+     * @param console   The stream every line is echoed to, or null.
+     * @param algorithm The algorithm the file is checksummed with while it is written.
+     * @throws IOException If the file cannot be opened.
+     */
+    public OutputFile(Path target, PrintStream console, ChecksumAlgorithm algorithm) throws IOException {
+        this(target, console, algorithm, FileFormat.TEXT);
+    }
+
+    /**
+     * Opens the output file in the given format. Its existing content is only replaced when the new content is complete.
+     *
+     * @param target    The path of the file to write.
+     * @param console   The stream every line is echoed to, or null.
+     * @param algorithm The algorithm the file is checksummed with while it is written.
+     * @param format    The format of the file.
+     * @throws IOException If the file cannot be opened.
+     */
+    public OutputFile(Path target, PrintStream console, ChecksumAlgorithm algorithm, FileFormat format) throws IOException {
+        this(target, temporaryOf(target), FileChannel.open(temporaryOf(target),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE),
+                algorithm.newHasher(), console, format);
+    }
+
+    /**
+     * Opens an output file to go on writing it in place from the given position, cutting off whatever followed.
+     * Unlike a new file, the target is changed as it is written.
+     *
+     * @param target   The path of the file to write, which is created if it does not exist.
+     * @param position The position to write from, at most the size of the file; 0 to write the file from the start.
+     * @param hasher   The hasher holding the checksum of the first position bytes of the file, which goes on with the
+     *                 bytes written; a new hasher of the algorithm when writing from the start.
+     * @param console  The stream every line is echoed to, or null.
+     * @param format   The format of the file.
+     * @return The opened output file.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static OutputFile resume(Path target, long position, ChecksumAlgorithm.Hasher hasher, PrintStream console,
+                                    FileFormat format) throws IOException {
+        FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (position > channel.size()) {
+                throw new IOException("Cannot resume " + target + " at " + position + ", it only holds " + channel.size() + " bytes");
+            }
+            channel.truncate(position);
+            channel.position(position);
+            return new OutputFile(target, null, channel, hasher, console, format);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Constructs an OutputFile writing to the given channel, from the start of a new file if it is at position 0.
+    private OutputFile(Path target, Path temporary, FileChannel channel, ChecksumAlgorithm.Hasher hasher,
+                       PrintStream console, FileFormat format) throws IOException {
+        this.target = target;
+        this.temporary = temporary;
+        this.hasher = hasher;
+        this.channel = channel;
+        this.console = console;
+        this.format = format;
+        if (format == FileFormat.BINARY && channel.position() == 0) {
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            BinaryFormat.putHeader(buffer, false);
+        }
+
+        // Group digits the way String.format("%,d") does in the default locale, with the separator and group size of
+        // its DecimalFormat. A locale without one is left to String.format, like a locale with other digits.
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        NumberFormat numberFormat = NumberFormat.getNumberInstance(locale);
+        DecimalFormat decimalFormat = numberFormat instanceof DecimalFormat ? (DecimalFormat) numberFormat : null;
+        DecimalFormatSymbols symbols = decimalFormat != null ? decimalFormat.getDecimalFormatSymbols() : DecimalFormatSymbols.getInstance(locale);
+        int size = decimalFormat != null ? decimalFormat.getGroupingSize() : 0;
+        boolean grouping = decimalFormat != null && decimalFormat.isGroupingUsed() && size > 0;
+        this.groupingSeparator = (byte) symbols.getGroupingSeparator();
+        this.groupingSize = grouping ? size : 0;
+        this.asciiDigits = decimalFormat != null && symbols.getZeroDigit() == '0'
+                && (!grouping || symbols.getGroupingSeparator() < 0x80);
+    }
+
+    // Writes a trade line ("trade bidId,askId,price,quantity"), or a trade record to a binary file.
+    public void writeTrade(String bidId, String askId, int price, int quantity) throws IOException {
+        if (format == FileFormat.BINARY) {
+            writeRecord(BinaryFormat.encodeId(bidId), price, quantity, BinaryFormat.TRADE, BinaryFormat.encodeId(askId));
+            if (console == null) {
+                return;
+            }
+        }
+        length = 0;
+        appendAscii("trade ");
+        append(bidId);
+        appendByte(',');
+        append(askId);
+        appendByte(',');
+        appendInt(price, 0, false);
+        appendByte(',');
+        appendInt(quantity, 0, false);
+        endLine();
+    }
+
+    // Writes a single line followed by a newline. Binary files have no lines.
+    public void writeLine(CharSequence text) throws IOException {
+        if (format == FileFormat.BINARY) {
+            throw new IllegalStateException("Lines cannot be written to a binary file: " + target);
+        }
+        line(text);
+    }
+
+    // Writes the line that starts the trades and order book of an instrument ("symbol SYMBOL"), or a symbol record.
+    public void writeSymbol(String symbol) throws IOException {
+        if (format == FileFormat.BINARY) {
+            writeRecord(0, 0, 0, BinaryFormat.SYMBOL, BinaryFormat.encodeSymbol(symbol));
+            if (console == null) {
+                return;
+            }
+        }
+        length = 0;
+        appendAscii("symbol ");
+        append(symbol);
+        endLine();
+    }
+
+    // Encodes a line and passes it on to the file and the console.
+    private void line(CharSequence text) throws IOException {
+        length = 0;
+        append(text);
+        endLine();
+    }
+
+    /**
+     * Writes the lines of the order book, byte for byte as OrderBook.getOrderBook() formats them, without
+     * building the lines as Strings.
+     *
+     * @param orderBook The order book to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void writeOrderBook(OrderBook orderBook) throws IOException {
+        if (format == FileFormat.BINARY) {
+            // The bids and then the asks, best first, as order records; the lines below are only echoed
+            writeOrders(orderBook.getBids(), BinaryFormat.BID);
+            writeOrders(orderBook.getAsks(), BinaryFormat.ASK);
+            if (console == null) {
+                return;
+            }
+        }
+        if (!asciiDigits) {
+            // The default locale formats numbers with other digits; leave them to String.format
+            for (String order : orderBook.getOrderBook()) {
+                line(order);
+            }
+            return;
+        }
+        Iterator<Order> bidIterator = orderBook.getBids().iterator();
+        Iterator<Order> askIterator = orderBook.getAsks().iterator();
+        while (bidIterator.hasNext() || askIterator.hasNext()) {
+            length = 0;
+            if (bidIterator.hasNext()) {
+                Order bid = bidIterator.next();
+                appendInt(bid.getQuantity(), BID_QUANTITY_WIDTH, true);
+                appendInt(bid.getPrice(), BID_PRICE_WIDTH, false);
+            } else {
+                appendSpaces(BID_QUANTITY_WIDTH + BID_PRICE_WIDTH);
+            }
+            appendAscii(" | ");
+            if (askIterator.hasNext()) {
+                Order ask = askIterator.next();
+                appendInt(ask.getPrice(), ASK_PRICE_WIDTH, false);
+                appendInt(ask.getQuantity(), ASK_QUANTITY_WIDTH, true);
+            } else {
+                appendSpaces(ASK_PRICE_WIDTH + ASK_QUANTITY_WIDTH);
+            }
+            endLine();
+        }
+    }
+
+    // Writes a record for every order of the ladder, in price-time priority.
+    private void writeOrders(Iterable<Order> orders, byte kind) throws IOException {
+        for (Order order : orders) {
+            writeRecord(BinaryFormat.encodeId(order), order.getPrice(), order.getQuantity(), kind, 0);
+        }
+    }
+
+    // Puts a record into the buffer of a binary file, writing the buffer to the file first if it is full.
+    private void writeRecord(long id, int price, int quantity, byte kind, long tail) throws IOException {
+        if (buffer.remaining() < BinaryFormat.RECORD_SIZE) {
+            flush();
+        }
+        BinaryFormat.putRecord(buffer, id, price, quantity, kind, tail);
+    }
+
+    // Appends the characters of the text; anything outside ASCII is encoded with the default charset, as before.
+    private void append(CharSequence text) {
+        int count = text.length();
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                appendEncoded(text.subSequence(i, count));
+                return;
+            }
+            line[length++] = (byte) c;
+        }
+    }
+
+    // Appends text that holds non-ASCII characters, encoded with the default charset. Rare, so it may allocate.
+    private void appendEncoded(CharSequence text) {
+        ByteBuffer encoded = Charset.defaultCharset().encode(CharBuffer.wrap(text));
+        ensureCapacity(encoded.remaining());
+        int count = encoded.remaining();
+        encoded.get(line, length, count);
+        length += count;
+    }
+
+    // Appends a string that is known to be ASCII.
+    private void appendAscii(String text) {
+        ensureCapacity(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            line[length++] = (byte) text.charAt(i);
+        }
+    }
+
+    // Appends a single ASCII character.
+    private void appendByte(char c) {
+        ensureCapacity(1);
+        line[length++] = (byte) c;
+    }
+
+    // Appends the given number of spaces.
+    private void appendSpaces(int count) {
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            line[length++] = ' ';
+        }
+    }
+
+    /**
+     * Appends a decimal int right-aligned to the given width, like String.format("%Nd") or, when grouped,
+     * String.format("%,Nd") in the default locale. Wider numbers are not truncated.
+     */
+    private void appendInt(int value, int width, boolean grouped) {
+        // Write the digits from the right, working on the negative value so that Integer.MIN_VALUE fits
+        int position = digits.length;
+        int remaining = value < 0 ? value : -value;
+        int groupSize = grouped ? groupingSize : 0;
+        int inGroup = 0;
+        do {
+            if (groupSize > 0 && inGroup == groupSize) {
+                digits[--position] = groupingSeparator;
+                inGroup = 0;
+            }
+            digits[--position] = (byte) ('0' - remaining % 10);
+            remaining /= 10;
+            inGroup++;
+        } while (remaining != 0);
+        if (value < 0) {
+            digits[--position] = '-';
+        }
+        int count = digits.length - position;
+        appendSpaces(Math.max(0, width - count));
+        ensureCapacity(count);
+        System.arraycopy(digits, position, line, length, count);
+        length += count;
+    }
+
+    // Grows the line array so that it can take the given number of additional bytes.
+    private void ensureCapacity(int additional) {
+        if (length + additional > line.length) {
+            byte[] grown = new byte[Math.max(line.length * 2, length + additional)];
+            System.arraycopy(line, 0, grown, 0, length);
+            line = grown;
+        }
+    }
+
+    // Echoes the encoded line to the console and moves it, with its newline, into the buffer of a text file.
+    private void endLine() throws IOException {
+        if (console != null) {
+            console.write(line, 0, length);
+            console.write(CONSOLE_LINE_SEPARATOR, 0, CONSOLE_LINE_SEPARATOR.length);
+        }
+        if (format == FileFormat.BINARY) {
+            return;
+        }
+        appendByte('\n');
+        if (length > buffer.remaining()) {
+            flush();
+        }
+        if (length > buffer.remaining()) {
+            // A line longer than the whole buffer is written on its own
+            write(ByteBuffer.wrap(line, 0, length));
+        } else {
+            buffer.put(line, 0, length);
+        }
+    }
+
+    // Writes the collected lines to the file.
+    private void flush() throws IOException {
+        buffer.flip();
+        write(buffer);
+        buffer.clear();
+    }
+
+    // Hashes the remaining bytes of the given buffer and writes them to the file.
+    private void write(ByteBuffer bytes) throws IOException {
+        hasher.update(bytes.duplicate());
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    // The listener told about every output file that is complete, before it replaces its target.
+    public interface CompletionListener {
+
+        /**
+         * Called once the content of a file is durably on the disk, before the temporary file replaces the target.
+         * After a crash, the temporary file of a completed file can be moved over the target again.
+         *
+         * @param target   The path of the file.
+         * @param checksum The checksum of the file.
+         * @throws IOException If the completion cannot be recorded; the target is not replaced then.
+         */
+        void onComplete(Path target, String checksum) throws IOException;
+    }
+
+    // Sets the listener told about the file once it is complete; the file is then forced to the disk before it is closed.
+    public void setCompletionListener(CompletionListener completionListener) {
+        this.completionListener = completionListener;
+    }
+
+    /**
+     * Writes the collected lines to the file and returns the number of bytes written so far, e.g. to resume the file
+     * from here later on.
+     *
+     * @return The position of the next byte written.
+     * @throws IOException If the file cannot be written.
+     */
+    public long position() throws IOException {
+        flush();
+        return channel.position();
+    }
+
+    // Writes the collected lines to the file and returns a copy of the hasher of all bytes written so far.
+    public ChecksumAlgorithm.Hasher copyHasher() throws IOException {
+        flush();
+        return hasher.copy();
+    }
+
+    // Returns the path of the hidden temporary file the output for the given target is written to.
+    public static Path temporaryOf(Path target) {
+        return target.resolveSibling("." + target.getFileName() + ".tmp");
+    }
+
+    // Marks the content as complete. Only a committed file replaces its target when it is closed; call it as the last
+    // step of writing, so a file whose writing failed is discarded by close.
+    public void commit() {
+        committed = true;
+    }
+
+    /**
+     * Closes the file. A committed file gets its remaining lines written, is moved over the target and has its
+     * checksum completed; the completion listener is told before the target is replaced, and is never told about a
+     * file that was not committed. Such a file is deleted, leaving the target as it was. A file written in place keeps what was written either way.
+     *
+     * @throws IOException If the file cannot be written, recorded as complete or moved.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // Once the listener was told, the complete file is left for its recovery to move, even if moving fails here
+        boolean handedOver = false;
+        try {
+            try {
+                if (committed) {
+                    flush();
+                    if (completionListener != null) {
+                        channel.force(true);
+                    }
+                }
+            } finally {
+                channel.close();
+            }
+            if (!committed) {
+                return;
+            }
+            String hex = hasher.toHex();
+            if (temporary != null) {
+                if (completionListener != null) {
+                    handedOver = true;
+                    completionListener.onComplete(target, hex);
+                }
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            handedOver = true;
+            checksum = hex;
+        } finally {
+            if (!handedOver && temporary != null) {
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+
+    // Returns the checksum of the file as lowercase hex. Only available once the file is closed.
+    public String getChecksum() {
+        if (checksum == null) {
+            throw new IllegalStateException("The checksum is only known once the file is committed and closed: " + target);
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,200 @@
+package main.java.service.util;
+
+import main.java.service.OrderSink;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
+
+// The ParallelOrderReader class parses a single large order file on many threads while its orders are still matched
+// one by one in file order. The file is split into chunks of a fixed number of bytes; every chunk is mapped and parsed
+// into an OrderBatch by a task of a fork-join pool, and the batches are replayed into the sink on the calling thread
+// in chunk order through a ReorderBuffer. Only a bounded number of chunks is parsed ahead of the one being replayed.
+//
+//   chunk 0 --parse--> batch 0 --+
+//   chunk 1 --parse--> batch 1 --+--reorder buffer--> sink (calling thread): batch 0, batch 1, batch 2, ...
+//   chunk 2 --parse--> batch 2 --+
+//
+// A text chunk holds the lines starting within its byte range, so chunks split at line starts without a sequential
+// pass over the file: each task finds its own first line and the start of the next chunk's first line on its own.
+// A binary chunk holds whole records. Either way the sink receives exactly what a sequential read would give it.
+
+public class ParallelOrderReader {
+    // The size of the blocks read while looking for the start of a line.
+    private static final int SCAN_SIZE = 4096;
+
+    // The pool parsing the chunks.
+    private final ForkJoinPool pool;
+
+    // The number of bytes of a chunk.
+    private final int chunkSize;
+
+    // The number of chunks parsed or being parsed ahead of the one being replayed.
+    private final int window;
+
+    // The backend of the parsers of text chunks.
+    private final ParserBackend parserBackend;
+
+    /**
+     * Constructs a new ParallelOrderReader parsing text with the default parser backend.
+     *
+     * @param pool      The pool parsing the chunks, which may be shared by files read at the same time.
+     * @param chunkSize The number of bytes of a chunk; files no larger than a chunk are read sequentially.
+     */
+    public ParallelOrderReader(ForkJoinPool pool, int chunkSize) {
+        this(pool, chunkSize, ParserBackend.DEFAULT);
+    }
+
+    /**
+     * Constructs a new ParallelOrderReader.
+     *
+     * @param pool          The pool parsing the chunks, which may be shared by files read at the same time.
+     * @param chunkSize     The number of bytes of a chunk; files no larger than a chunk are read sequentially.
+     * @param parserBackend The backend of the parsers of text chunks.
+     */
+    public ParallelOrderReader(ForkJoinPool pool, int chunkSize, ParserBackend parserBackend) {
+        if (chunkSize < BinaryFormat.RECORD_SIZE || chunkSize > 1 << 30) {
+            throw new IllegalArgumentException("Invalid parse chunk size: " + chunkSize);
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.window = 2 * pool.getParallelism();
+        this.parserBackend = parserBackend;
+    }
+
+    // Returns true if a file of the given size is large enough to be split into chunks.
+    public boolean isWorthSplitting(long size) {
+        return size > chunkSize;
+    }
+
+    /**
+     * Parses a text order file in chunks and replays its orders into the sink in file order.
+     *
+     * @param channel The channel of the file.
+     * @param sink    The sink receiving every order in file order.
+     * @throws IOException If the file cannot be read.
+     */
+    public void readText(FileChannel channel, OrderSink sink) throws IOException {
+        long size = channel.size();
+        read((size + chunkSize - 1) / chunkSize, sink, (chunk, batch) -> {
+            long from = lineStart(channel, chunk * chunkSize, size);
+            long to = lineStart(channel, Math.min(size, (chunk + 1) * chunkSize), size);
+            if (to - from > Integer.MAX_VALUE) {
+                throw new IOException("Line longer than " + Integer.MAX_VALUE + " bytes in chunk " + chunk);
+            }
+            if (from < to) {
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+                // The chunk ends at a line start or at the end of the file, so its last line is complete either way
+                new OrderParser(parserBackend).parse(region, 0, (int) (to - from), true, batch);
+            }
+        });
+    }
+
+    /**
+     * Decodes a binary order file, whose header was checked already, in chunks of whole records and replays its
+     * orders into the sink in file order.
+     *
+     * @param channel The channel of the file.
+     * @param sink    The sink receiving every order in file order.
+     * @throws IOException If the file cannot be read.
+     */
+    public void readBinary(FileChannel channel, OrderSink sink) throws IOException {
+        long size = channel.size();
+        int recordsSize = chunkSize - chunkSize % BinaryFormat.RECORD_SIZE;
+        long records = size - BinaryFormat.HEADER_SIZE;
+        read((records + recordsSize - 1) / recordsSize, sink, (chunk, batch) -> {
+            long from = BinaryFormat.HEADER_SIZE + chunk * recordsSize;
+            int length = (int) Math.min(recordsSize, size - from);
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+            new BinaryOrderDecoder().decode(region, 0, length, batch);
+        });
+    }
+
+    // Parses the chunks on the pool, at most a window ahead, and replays their batches into the sink in chunk order.
+    private void read(long chunks, OrderSink sink, ChunkParser parser) throws IOException {
+        ReorderBuffer<OrderBatch> batches = new ReorderBuffer<>(window);
+        long submitted = 0;
+        try {
+            for (long chunk = 0; chunk < chunks; chunk++) {
+                // Keep the pool busy with the chunks after this one while it is replayed
+                for (; submitted < chunks && submitted < chunk + window; submitted++) {
+                    long next = submitted;
+                    pool.execute(() -> parse(parser, next, batches));
+                }
+                batches.take().replay(sink);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading chunks");
+        } catch (ChunkReadException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Parses a single chunk and puts its batch, with the error that stopped parsing if any, in the reorder buffer.
+    private static void parse(ChunkParser parser, long chunk, ReorderBuffer<OrderBatch> batches) {
+        OrderBatch batch = new OrderBatch();
+        try {
+            parser.parse(chunk, batch);
+        } catch (IOException e) {
+            batch.fail(new ChunkReadException(e));
+        } catch (RuntimeException e) {
+            // Parse errors surface on the reading thread, after the orders before them in the chunk
+            batch.fail(e);
+        } catch (Error e) {
+            // The batch must be put anyway, or the reading thread would wait for it forever
+            batch.fail(new IllegalStateException("Failed to parse chunk " + chunk, e));
+        }
+        try {
+            batches.put(chunk, batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Returns the position of the first line starting at or after the given position, or the size of the file.
+    private static long lineStart(FileChannel channel, long position, long size) throws IOException {
+        if (position == 0 || position >= size) {
+            return Math.min(position, size);
+        }
+        ByteBuffer block = ByteBuffer.allocate(SCAN_SIZE);
+        // A line starts right after a line terminator, the same ones the parser splits lines at
+        for (long blockStart = position - 1; blockStart < size; blockStart += block.limit()) {
+            block.clear();
+            int read = channel.read(block, blockStart);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = block.get(i);
+                if (b == '\n' || b == '\r') {
+                    return blockStart + i + 1;
+                }
+            }
+            block.limit(read);
+        }
+        return size;
+    }
+
+    // The failure to read a chunk, thrown on the reading thread as its IOException.
+    private static class ChunkReadException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ChunkReadException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    // Parses a single chunk of a file into the given batch.
+    private interface ChunkParser {
+        void parse(long chunk, OrderBatch batch) throws IOException;
+    }
+}
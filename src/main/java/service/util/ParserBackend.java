@@ -0,0 +1,31 @@
+package main.java.service.util;
+
+// The ParserBackend enum selects how the OrderParser finds delimiters and converts numbers. Both backends give
+// exactly the same orders and errors for any input.
+
+public enum ParserBackend {
+    // One byte at a time.
+    SCALAR,
+    // Eight bytes at a time in a long (SIMD within a register): delimiters are found with carry-free bit tricks and
+    // numbers of up to eight digits are converted with three multiplications instead of a multiplication per digit.
+    SWAR;
+
+    // The backend used unless another one is configured.
+    public static final ParserBackend DEFAULT = SWAR;
+
+    /**
+     * Returns the backend with the given name, ignoring case.
+     *
+     * @param name The name of the backend, e.g. "swar".
+     * @return The backend.
+     * @throws IllegalArgumentException If there is no backend with that name.
+     */
+    public static ParserBackend of(String name) {
+        for (ParserBackend backend : values()) {
+            if (backend.name().equalsIgnoreCase(name.trim())) {
+                return backend;
+            }
+        }
+        throw new IllegalArgumentException("Unknown parser backend: " + name);
+    }
+}
@@ -0,0 +1,66 @@
+package main.java.service.util;
+
+// The ReorderBuffer class puts items produced out of order back into the order of their sequence numbers.
+// Producers put each item under its sequence number, in any order; the consumer takes them strictly in sequence,
+// waiting for the next one if it is not there yet. A producer that runs more than the capacity ahead of the consumer
+// waits, which bounds the number of items held.
+//
+//   put(2) put(0) put(3) put(1)  -->  take() = 0, 1, 2, 3
+
+public class ReorderBuffer<T> {
+    // The items waiting to be taken, at their sequence number modulo the capacity.
+    private final Object[] slots;
+
+    // The sequence number of the next item to take.
+    private long next;
+
+    /**
+     * Constructs a new, empty ReorderBuffer starting at sequence number 0.
+     *
+     * @param capacity The maximum number of items held, i.e. how far producers may run ahead of the consumer.
+     */
+    public ReorderBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity of a reorder buffer must be positive: " + capacity);
+        }
+        this.slots = new Object[capacity];
+    }
+
+    /**
+     * Puts an item under its sequence number, waiting while the sequence number is too far ahead of the consumer.
+     *
+     * @param sequence The sequence number of the item, which must not have been put before.
+     * @param item     The item, not null.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public synchronized void put(long sequence, T item) throws InterruptedException {
+        if (item == null || sequence < next) {
+            throw new IllegalArgumentException("Cannot put " + item + " at sequence " + sequence + ", next is " + next);
+        }
+        while (sequence >= next + slots.length) {
+            wait();
+        }
+        slots[(int) (sequence % slots.length)] = item;
+        notifyAll();
+    }
+
+    /**
+     * Takes the item with the next sequence number, waiting until it is put.
+     *
+     * @return The item.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized T take() throws InterruptedException {
+        int slot = (int) (next % slots.length);
+        while (slots[slot] == null) {
+            wait();
+        }
+        T item = (T) slots[slot];
+        slots[slot] = null;
+        next++;
+        // A producer waiting for room may go on now
+        notifyAll();
+        return item;
+    }
+}
@@ -0,0 +1,89 @@
+package test.main.java;
+
+import main.java.FormatConverter;
+import main.java.service.ExchangeService;
+import main.java.service.util.ChecksumAlgorithm;
+import main.java.service.util.FileFormat;
+import main.java.service.util.OrderReader;
+import main.java.service.util.OutputFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FormatConverterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void toBinary_TextOrderFile_ReadsBackAsSameText() throws IOException {
+        // given
+        String orders = "10000,B,98,25500\n10005,S,105,20000,BTC-EUR\n10005,A,15000,BTC-EUR\n10000,C\n";
+        Path text = Files.write(dir.resolve("orders.txt"), orders.getBytes(StandardCharsets.US_ASCII));
+        Path binary = dir.resolve("orders.bin");
+        Path back = dir.resolve("back.txt");
+
+        // when
+        FormatConverter.toBinary(text, binary);
+        FormatConverter.toText(binary, back);
+
+        // then
+        assertEquals(FileFormat.BINARY, FileFormat.detect(binary));
+        assertEquals(FileFormat.TEXT, FileFormat.detect(text));
+        assertEquals(orders, new String(Files.readAllBytes(back), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void toText_BinaryOutputFile_SameBytesAsTextOutput() throws IOException {
+        // given the output of the same orders, read from a binary order file and written in both formats
+        Path text = Files.write(dir.resolve("orders.txt"),
+                "10000,B,98,25500\n10001,S,100,500\n10002,B,99,50000\n10003,S,97,30000\n10004,S,101,1000\n"
+                        .getBytes(StandardCharsets.US_ASCII));
+        Path binary = dir.resolve("orders.bin");
+        FormatConverter.toBinary(text, binary);
+        ExchangeService exchange = new ExchangeService();
+        OrderReader.read(binary, exchange);
+        Path textOutput = dir.resolve("output.txt");
+        Path binaryOutput = dir.resolve("output.bin");
+        for (Path output : new Path[]{textOutput, binaryOutput}) {
+            FileFormat format = output == textOutput ? FileFormat.TEXT : FileFormat.BINARY;
+            try (OutputFile file = new OutputFile(output, null, ChecksumAlgorithm.MD5, format)) {
+                exchange.getOrderBook().getTradeJournal().forEach((bidId, askId, price, quantity) -> {
+                    try {
+                        file.writeTrade(bidId, askId, price, quantity);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                file.writeOrderBook(exchange.getOrderBook());
+                file.commit();
+            }
+        }
+        Path converted = dir.resolve("converted.txt");
+
+        // when
+        FormatConverter.toText(binaryOutput, converted);
+
+        // then
+        assertFalse(exchange.getOrderBook().getTradeJournal().isEmpty());
+        assertEquals(2, exchange.getOrderBook().getBids().size());
+        assertArrayEquals(Files.readAllBytes(textOutput), Files.readAllBytes(converted));
+    }
+
+    @Test
+    void toBinary_NonNumericIds_FailsWithoutLeavingAFile() throws IOException {
+        // given
+        Path text = Files.write(dir.resolve("orders.txt"), "b1,B,98,25500\n".getBytes(StandardCharsets.US_ASCII));
+        Path binary = dir.resolve("orders.bin");
+
+        // when / then
+        assertThrows(IllegalArgumentException.class, () -> FormatConverter.toBinary(text, binary));
+        assertFalse(Files.exists(binary));
+    }
+}
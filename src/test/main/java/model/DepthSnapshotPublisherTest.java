@@ -0,0 +1,106 @@
+package test.main.java.model;
+
+import main.java.model.DepthSnapshot;
+import main.java.model.DepthSnapshotPublisher;
+import main.java.model.Order;
+import main.java.model.OrderType;
+import main.java.service.ExchangeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DepthSnapshotPublisherTest {
+
+    private ExchangeService exchangeService;
+
+    private DepthSnapshotPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        exchangeService = new ExchangeService();
+        publisher = new DepthSnapshotPublisher(exchangeService.getOrderBook(), 2);
+        exchangeService.setSnapshotPublisher(publisher);
+    }
+
+    @Test
+    public void publish_OrdersMatched_SnapshotHoldsBestLevelsAndSkipsDeeperChanges() {
+
+        // given
+        exchangeService.match(new Order("1", OrderType.BID, 100, 10));
+        exchangeService.match(new Order("2", OrderType.BID, 99, 5));
+        exchangeService.match(new Order("3", OrderType.BID, 100, 7));
+        exchangeService.match(new Order("4", OrderType.ASK, 105, 3));
+        DepthSnapshot before = publisher.getSnapshot();
+
+        // when
+        exchangeService.match(new Order("5", OrderType.BID, 90, 1));
+
+        // then
+        assertEquals(2, before.getLevels(OrderType.BID));
+        assertEquals(100, before.getPrice(OrderType.BID, 0));
+        assertEquals(17, before.getQuantity(OrderType.BID, 0));
+        assertEquals(2, before.getOrderCount(OrderType.BID, 0));
+        assertEquals(99, before.getPrice(OrderType.BID, 1));
+        assertEquals(1, before.getLevels(OrderType.ASK));
+        assertEquals(105, before.getPrice(OrderType.ASK, 0));
+        assertSame(before, publisher.getSnapshot());
+        assertThrows(IndexOutOfBoundsException.class, () -> before.getPrice(OrderType.ASK, 1));
+
+        // when
+        exchangeService.match(new Order("6", OrderType.ASK, 100, 12));
+
+        // then
+        DepthSnapshot after = publisher.getSnapshot();
+        assertTrue(after.getVersion() > before.getVersion());
+        assertEquals(100, after.getPrice(OrderType.BID, 0));
+        assertEquals(5, after.getQuantity(OrderType.BID, 0));
+        assertEquals(1, after.getOrderCount(OrderType.BID, 0));
+        assertEquals(17, before.getQuantity(OrderType.BID, 0));
+    }
+
+    @Test
+    public void getSnapshot_ReadWhileMatching_AlwaysConsistent() throws InterruptedException {
+
+        // given
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            long lastVersion = 0;
+            while (!done.get() && failure.get() == null) {
+                DepthSnapshot snapshot = publisher.getSnapshot();
+                if (snapshot.getVersion() < lastVersion) {
+                    failure.set("Version went back: " + snapshot);
+                }
+                lastVersion = snapshot.getVersion();
+                for (int level = 1; level < snapshot.getLevels(OrderType.BID); level++) {
+                    if (snapshot.getPrice(OrderType.BID, level) >= snapshot.getPrice(OrderType.BID, level - 1)) {
+                        failure.set("Bids out of order: " + snapshot);
+                    }
+                }
+                if (!snapshot.isEmpty(OrderType.BID) && !snapshot.isEmpty(OrderType.ASK)
+                        && snapshot.getPrice(OrderType.BID, 0) >= snapshot.getPrice(OrderType.ASK, 0)) {
+                    failure.set("Crossed book: " + snapshot);
+                }
+            }
+        });
+        reader.start();
+
+        // when
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            OrderType side = random.nextBoolean() ? OrderType.BID : OrderType.ASK;
+            exchangeService.match(new Order(String.valueOf(i), side, 90 + random.nextInt(20), 1 + random.nextInt(10)));
+        }
+        done.set(true);
+        reader.join();
+
+        // then
+        assertNull(failure.get());
+        assertTrue(publisher.getSnapshot().getVersion() > 0);
+    }
+}
@@ -0,0 +1,135 @@
+package test.main.java.model;
+
+import main.java.model.OffHeapOrderStore;
+import main.java.model.Order;
+import main.java.model.OrderBook;
+import main.java.model.OrderType;
+import main.java.service.ExchangeService;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapOrderStoreTest {
+
+    @Test
+    public void match_SameOrdersOnHeapAndOffHeap_SameTradesAndOrderBook() {
+
+        // given
+        ExchangeService heap = new ExchangeService(new OrderBook());
+        ExchangeService offHeap = new ExchangeService(new OrderBook(new OffHeapOrderStore()));
+        Random random = new Random(42);
+
+        // when
+        for (int i = 0; i < 20000; i++) {
+            int action = random.nextInt(10);
+            // Every tenth order has an id that is not a number, so interned ids are covered too
+            String id = i % 10 == 0 ? "order-" + i : String.valueOf(i);
+            String target = String.valueOf(random.nextInt(i + 1));
+            if (action == 0) {
+                heap.cancel(target);
+                offHeap.cancel(target);
+            } else if (action == 1) {
+                int quantity = 1 + random.nextInt(100);
+                heap.amend(target, quantity);
+                offHeap.amend(target, quantity);
+            } else {
+                OrderType side = random.nextBoolean() ? OrderType.BID : OrderType.ASK;
+                int price = 900 + random.nextInt(200);
+                int quantity = 1 + random.nextInt(100);
+                heap.match(new Order(id, side, price, quantity));
+                offHeap.match(new Order(id, side, price, quantity));
+            }
+        }
+
+        // then
+        assertEquals(heap.getOrderBook().getTrades(), offHeap.getOrderBook().getTrades());
+        assertEquals(heap.getOrderBook().getOrderBook(), offHeap.getOrderBook().getOrderBook());
+        assertEquals(heap.getOrderBook().getBids().size(), offHeap.getOrderBook().getBids().size());
+        int[] heapPrices = new int[10], offHeapPrices = new int[10], heapCounts = new int[10], offHeapCounts = new int[10];
+        long[] heapQuantities = new long[10], offHeapQuantities = new long[10];
+        assertEquals(heap.getOrderBook().topN(OrderType.ASK, 10, heapPrices, heapQuantities, heapCounts),
+                offHeap.getOrderBook().topN(OrderType.ASK, 10, offHeapPrices, offHeapQuantities, offHeapCounts));
+        assertArrayEquals(heapPrices, offHeapPrices);
+        assertArrayEquals(heapQuantities, offHeapQuantities);
+        assertArrayEquals(heapCounts, offHeapCounts);
+    }
+
+    @Test
+    public void match_PricesTooFarApartForOneWindow_SameTradesAndOrderBook() {
+
+        // given
+        ExchangeService heap = new ExchangeService(new OrderBook());
+        ExchangeService offHeap = new ExchangeService(new OrderBook(new OffHeapOrderStore()));
+        int[] outliers = {Integer.MIN_VALUE, -1_000_000_000, -5, 1, 2_000_000_000, Integer.MAX_VALUE};
+        Random random = new Random(7);
+
+        // when
+        for (int i = 0; i < 5000; i++) {
+            String id = String.valueOf(i);
+            if (random.nextInt(10) == 0) {
+                String target = String.valueOf(random.nextInt(i + 1));
+                heap.cancel(target);
+                offHeap.cancel(target);
+            } else {
+                OrderType side = random.nextBoolean() ? OrderType.BID : OrderType.ASK;
+                // Mostly prices near the book, but every fourth order at an outlier price
+                int price = random.nextInt(4) == 0 ? outliers[random.nextInt(outliers.length)] : 900 + random.nextInt(200);
+                int quantity = 1 + random.nextInt(100);
+                heap.match(new Order(id, side, price, quantity));
+                offHeap.match(new Order(id, side, price, quantity));
+            }
+        }
+
+        // then
+        assertEquals(heap.getOrderBook().getTrades(), offHeap.getOrderBook().getTrades());
+        assertEquals(heap.getOrderBook().getOrderBook(), offHeap.getOrderBook().getOrderBook());
+        int[] heapPrices = new int[10], offHeapPrices = new int[10];
+        assertEquals(heap.getOrderBook().topN(OrderType.BID, 10, heapPrices, new long[10], new int[10]),
+                offHeap.getOrderBook().topN(OrderType.BID, 10, offHeapPrices, new long[10], new int[10]));
+        assertArrayEquals(heapPrices, offHeapPrices);
+    }
+
+    @Test
+    public void getOrder_OrderCancelledOrFilled_SlotReused() {
+
+        // given
+        OffHeapOrderStore store = new OffHeapOrderStore();
+        OrderBook orderBook = new OrderBook(store);
+        orderBook.addOrder(new Order("1", OrderType.BID, 100, 10));
+        orderBook.addOrder(new Order("2", OrderType.BID, 100, 5));
+
+        // when
+        assertTrue(orderBook.cancelOrder("1"));
+        orderBook.fill(orderBook.getBestBid(), 5);
+        orderBook.addOrder(new Order("3", OrderType.ASK, 105, 7));
+        orderBook.addOrder(new Order("4", OrderType.ASK, 104, 8));
+
+        // then
+        assertEquals(2, store.getSlotCount());
+        assertNull(orderBook.getOrder("1"));
+        assertNull(orderBook.getOrder("2"));
+        assertTrue(orderBook.isBidsEmpty());
+        assertEquals(new Order("4", OrderType.ASK, 104, 8).toString(), orderBook.getBestAsk().toString());
+        assertEquals(new Order("3", OrderType.ASK, 105, 7).toString(), orderBook.getOrder("3").toString());
+    }
+
+    @Test
+    public void amendOrder_QuantityIncreased_OrderMovesBehindItsLevel() {
+
+        // given
+        OrderBook orderBook = new OrderBook(new OffHeapOrderStore());
+        orderBook.addOrder(new Order("1", OrderType.ASK, 100, 10));
+        orderBook.addOrder(new Order("2", OrderType.ASK, 100, 10));
+
+        // when
+        assertTrue(orderBook.amendOrder("1", 20));
+        Order best = orderBook.fetchBestAsk();
+
+        // then
+        assertEquals(new Order("2", OrderType.ASK, 100, 10).toString(), best.toString());
+        assertEquals(new Order("1", OrderType.ASK, 100, 20).toString(), orderBook.getBestAsk().toString());
+        assertTrue(orderBook.getBestAsk().getSequence() > best.getSequence());
+    }
+}
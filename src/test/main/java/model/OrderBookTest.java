@@ -108,4 +108,122 @@ public class OrderBookTest {
         assertEquals(ask2, orderBook.getBestAsk());
     }
 
+    @Test
+    public void cancelOrder_RestingOrder_RemovedFromBook() {
+        // given
+        Order bid1 = new Order("10000", OrderType.BID, 100, 10);
+        Order bid2 = new Order("10001", OrderType.BID, 99, 10);
+        orderBook.addOrder(bid1);
+        orderBook.addOrder(bid2);
+
+        // when
+        boolean cancelled = orderBook.cancelOrder("10000");
+
+        // then
+        assertTrue(cancelled);
+        assertNull(orderBook.getOrder("10000"));
+        assertEquals(bid2, orderBook.getBestBid());
+        assertFalse(orderBook.cancelOrder("10000"));
+    }
+
+    @Test
+    public void cancelOrder_FetchedOrder_ReturnsFalse() {
+        // given
+        orderBook.addOrder(new Order("10000", OrderType.ASK, 100, 10));
+        orderBook.fetchBestAsk();
+
+        // then
+        assertFalse(orderBook.cancelOrder("10000"));
+        assertTrue(orderBook.isAsksEmpty());
+    }
+
+    @Test
+    public void amendOrder_QuantityReduced_KeepsTimePriority() {
+        // given
+        Order first = new Order("10000", OrderType.ASK, 100, 10);
+        Order second = new Order("10001", OrderType.ASK, 100, 10);
+        orderBook.addOrder(first);
+        orderBook.addOrder(second);
+
+        // when
+        orderBook.amendOrder("10000", 4);
+
+        // then
+        assertSame(first, orderBook.getBestAsk());
+        assertEquals(4, first.getQuantity());
+    }
+
+    @Test
+    public void amendOrder_QuantityIncreased_LosesTimePriority() {
+        // given
+        Order first = new Order("10000", OrderType.ASK, 100, 10);
+        Order second = new Order("10001", OrderType.ASK, 100, 10);
+        orderBook.addOrder(first);
+        orderBook.addOrder(second);
+
+        // when
+        orderBook.amendOrder("10000", 15);
+
+        // then
+        assertSame(second, orderBook.getBestAsk());
+        assertEquals(15, first.getQuantity());
+    }
+
+    @Test
+    public void amendOrder_QuantityZero_CancelsOrder() {
+        // given
+        orderBook.addOrder(new Order("10000", OrderType.BID, 100, 10));
+
+        // when
+        boolean amended = orderBook.amendOrder("10000", 0);
+
+        // then
+        assertTrue(amended);
+        assertTrue(orderBook.isBidsEmpty());
+        assertFalse(orderBook.amendOrder("10000", 5));
+    }
+
+    @Test
+    public void amendOrder_QuantityNegative_CancelsOrder() {
+        // given
+        orderBook.addOrder(new Order("10000", OrderType.ASK, 100, 10));
+        orderBook.addOrder(new Order("10001", OrderType.ASK, 101, 10));
+
+        // when
+        boolean amended = orderBook.amendOrder("10000", -5);
+
+        // then
+        assertTrue(amended);
+        assertEquals("10001", orderBook.getBestAsk().getId());
+        assertFalse(orderBook.amendOrder("unknown", -5));
+    }
+
+    @Test
+    public void topN_OrdersAmendedCancelledAndFilled_DepthKeptUpToDate() {
+        // given
+        Order filled = new Order("10000", OrderType.ASK, 101, 10);
+        orderBook.addOrder(filled);
+        orderBook.addOrder(new Order("10001", OrderType.ASK, 101, 10));
+        orderBook.addOrder(new Order("10002", OrderType.ASK, 103, 10));
+        orderBook.addOrder(new Order("10003", OrderType.ASK, 105, 10));
+
+        // when
+        orderBook.fill(filled, 10);
+        orderBook.amendOrder("10001", 25);
+        orderBook.cancelOrder("10002");
+        int[] prices = new int[3];
+        long[] quantities = new long[3];
+        int[] orderCounts = new int[3];
+        int levels = orderBook.topN(OrderType.ASK, 3, prices, quantities, orderCounts);
+
+        // then
+        assertEquals(2, levels);
+        assertEquals(101, prices[0]);
+        assertEquals(25, quantities[0]);
+        assertEquals(1, orderCounts[0]);
+        assertEquals(105, prices[1]);
+        assertEquals(10, quantities[1]);
+        assertNull(orderBook.getOrder("10000"));
+        assertEquals(0, orderBook.topN(OrderType.BID, 3, prices, quantities, orderCounts));
+    }
 }
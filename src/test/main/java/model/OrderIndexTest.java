@@ -0,0 +1,83 @@
+package test.main.java.model;
+
+import main.java.model.Order;
+import main.java.model.OrderIndex;
+import main.java.model.OrderType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderIndexTest {
+
+    @Test
+    public void remove_ManyOrdersRemovedInMixedOrder_RemainingOrdersStillFound() {
+
+        // given
+        OrderIndex index = new OrderIndex();
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Order order = new Order(String.valueOf(i), OrderType.BID, 100, 1);
+            orders.add(order);
+            index.put(order);
+        }
+
+        // when every third order is removed
+        for (int i = 0; i < orders.size(); i += 3) {
+            index.remove(orders.get(i));
+        }
+
+        // then
+        assertEquals(666, index.size());
+        for (int i = 0; i < orders.size(); i++) {
+            if (i % 3 == 0) {
+                assertNull(index.get(String.valueOf(i)));
+            } else {
+                assertSame(orders.get(i), index.get(String.valueOf(i)));
+            }
+        }
+    }
+
+    @Test
+    public void put_ReusedId_NewestOrderIndexed() {
+
+        // given
+        OrderIndex index = new OrderIndex();
+        Order older = new Order("10000", OrderType.BID, 100, 1);
+        Order newer = new Order("10000", OrderType.ASK, 101, 1);
+        index.put(older);
+
+        // when
+        index.put(newer);
+        index.remove(older);
+
+        // then
+        assertEquals(1, index.size());
+        assertSame(newer, index.get("10000"));
+    }
+
+    @Test
+    public void get_NumericAndOtherIds_EachFoundUnderItsOwnId() {
+
+        // given
+        OrderIndex index = new OrderIndex();
+        Order seven = new Order("7", OrderType.BID, 100, 1);
+        Order paddedSeven = new Order("007", OrderType.BID, 100, 1);
+        Order named = new Order("b9", OrderType.ASK, 101, 1);
+
+        // when
+        index.put(seven);
+        index.put(paddedSeven);
+        index.put(named);
+        index.remove(paddedSeven);
+
+        // then
+        assertEquals(2, index.size());
+        assertSame(seven, index.get("7"));
+        assertNull(index.get("007"));
+        assertSame(named, index.get("b9"));
+        assertNull(index.get("b8"));
+    }
+}
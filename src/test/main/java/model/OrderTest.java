@@ -1,9 +1,13 @@
 package test.main.java.model;
 
 import main.java.model.Order;
+import main.java.model.OrderBook;
 import main.java.model.OrderType;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class OrderTest {
@@ -18,12 +22,29 @@ public class OrderTest {
     }
 
     @Test
-    void orderEquals_IdTypePriceQuantity_SameOrdersEqual() {
+    void orderEquals_SameId_OrdersEqual() {
         Order order1 = new Order("10000", OrderType.BID, 100, 10);
         Order order2 = new Order("10000", OrderType.BID, 100, 10);
         Order order3 = new Order("10001", OrderType.ASK, 200, 20);
         assertEquals(order1, order2);
         assertNotEquals(order1, order3);
+        assertEquals(new Order("order-a", OrderType.BID, 100, 10), new Order("order-a", OrderType.BID, 100, 10));
+        assertNotEquals(new Order("order-a", OrderType.BID, 100, 10), new Order("order-b", OrderType.BID, 100, 10));
+    }
+
+    @Test
+    void orderHashCode_OrderFilledInHashSet_StillFound() {
+        Order order = new Order("10000", OrderType.BID, 100, 10);
+        Set<Order> orders = new HashSet<>();
+        orders.add(order);
+        int hashCode = order.hashCode();
+
+        order.fill(4);
+        order.amend(20);
+
+        assertEquals(hashCode, order.hashCode());
+        assertTrue(orders.contains(order));
+        assertTrue(orders.remove(order));
     }
 
     @Test
@@ -43,4 +64,65 @@ public class OrderTest {
         assertThrows(IllegalArgumentException.class, () -> order1.compareTo(order3));
     }
 
+    @Test
+    void orderCompareTo_SamePriceNotInBook_OrdersSortedById() {
+        Order numeric = new Order("10001", OrderType.ASK, 100, 10);
+        Order lowerNumeric = new Order("9", OrderType.ASK, 100, 10);
+        Order named = new Order("order-b", OrderType.ASK, 100, 10);
+        Order otherNamed = new Order("order-a", OrderType.ASK, 100, 10);
+        assertTrue(lowerNumeric.compareTo(numeric) < 0);
+        assertTrue(numeric.compareTo(lowerNumeric) > 0);
+        assertTrue(named.compareTo(numeric) < 0);
+        assertTrue(otherNamed.compareTo(named) < 0);
+        assertEquals(0, numeric.compareTo(new Order("10001", OrderType.ASK, 100, 5)));
+    }
+
+    @Test
+    void fill_PartialQuantity_RemainingQuantityDecremented() {
+        Order order = new Order("10000", OrderType.BID, 100, 10);
+        order.fill(4);
+        assertEquals(6, order.getQuantity());
+        assertFalse(order.isFilled());
+        order.fill(6);
+        assertTrue(order.isFilled());
+    }
+
+    @Test
+    void fill_MoreThanRemainingQuantity_ThrowsException() {
+        Order order = new Order("10000", OrderType.ASK, 100, 10);
+        assertThrows(IllegalArgumentException.class, () -> order.fill(11));
+        assertThrows(IllegalArgumentException.class, () -> order.fill(0));
+        assertEquals(10, order.getQuantity());
+    }
+
+    @Test
+    void compareTo_SamePriceIdsOutOfOrder_ArrivalFirst() {
+        // given
+        OrderBook orderBook = new OrderBook();
+        Order later = new Order("20000", OrderType.ASK, 100, 10);
+        Order earlier = new Order("b1", OrderType.ASK, 100, 10);
+        Order first = new Order("30000", OrderType.ASK, 100, 10);
+
+        // when
+        orderBook.addOrder(first);
+        orderBook.addOrder(later);
+        orderBook.addOrder(earlier);
+
+        // then
+        assertTrue(first.compareTo(later) < 0);
+        assertTrue(later.compareTo(earlier) < 0);
+        assertTrue(earlier.compareTo(first) > 0);
+    }
+
+    @Test
+    void parseId_NumericAndOtherIds_OnlyCanonicalNumbersParsed() {
+        assertEquals(10000, Order.parseId("10000"));
+        assertEquals(0, Order.parseId("0"));
+        assertEquals(Long.MAX_VALUE, Order.parseId(String.valueOf(Long.MAX_VALUE)));
+        assertEquals(Order.NOT_NUMERIC, Order.parseId("9223372036854775808"));
+        assertEquals(Order.NOT_NUMERIC, Order.parseId("007"));
+        assertEquals(Order.NOT_NUMERIC, Order.parseId("-7"));
+        assertEquals(Order.NOT_NUMERIC, Order.parseId("b9"));
+        assertEquals(Order.NOT_NUMERIC, Order.parseId(""));
+    }
 }
@@ -0,0 +1,223 @@
+package test.main.java.model;
+
+import main.java.model.Order;
+import main.java.model.OrderType;
+import main.java.model.PriceLadder;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriceLadderTest {
+
+    @Test
+    public void pollBest_OrdersAtSamePrice_ReturnedInArrivalOrder() {
+
+        // given
+        PriceLadder bids = new PriceLadder(OrderType.BID);
+        Order first = new Order("20000", OrderType.BID, 100, 10);
+        Order second = new Order("10000", OrderType.BID, 100, 20);
+        bids.add(first);
+        bids.add(second);
+
+        // when
+        Order polled = bids.pollBest();
+
+        // then
+        assertEquals(first, polled);
+        assertEquals(second, bids.peekBest());
+    }
+
+    @Test
+    public void pollBest_BestLevelEmptied_BestPriceMovesToNextLevel() {
+
+        // given
+        PriceLadder asks = new PriceLadder(OrderType.ASK);
+        asks.add(new Order("10000", OrderType.ASK, 105, 10));
+        asks.add(new Order("10001", OrderType.ASK, 100, 10));
+
+        // when
+        asks.pollBest();
+
+        // then
+        assertEquals(105, asks.getBestPrice());
+        assertEquals(1, asks.size());
+    }
+
+    @Test
+    public void iterator_PricesSpreadInBothDirections_ReturnsPriceTimePriority() {
+
+        // given
+        PriceLadder bids = new PriceLadder(OrderType.BID);
+        bids.add(new Order("10000", OrderType.BID, 500, 1));
+        bids.add(new Order("10001", OrderType.BID, 1, 1));
+        bids.add(new Order("10002", OrderType.BID, 999_999, 1));
+        bids.add(new Order("10003", OrderType.BID, 500, 1));
+
+        // when
+        List<String> ids = new ArrayList<>();
+        for (Order order : bids) {
+            ids.add(order.getId());
+        }
+
+        // then
+        assertEquals(999_999, bids.getBestPrice());
+        assertEquals(Arrays.asList("10002", "10000", "10003", "10001"), ids);
+    }
+
+    @Test
+    public void peekBest_EmptyLadder_ReturnsNull() {
+        PriceLadder asks = new PriceLadder(OrderType.ASK);
+        assertTrue(asks.isEmpty());
+        assertNull(asks.peekBest());
+        assertNull(asks.pollBest());
+    }
+
+    @Test
+    public void remove_OrderInsideLevel_LevelKeepsFifoOrder() {
+
+        // given
+        PriceLadder bids = new PriceLadder(OrderType.BID);
+        Order first = new Order("10000", OrderType.BID, 100, 10);
+        Order middle = new Order("10001", OrderType.BID, 100, 10);
+        Order last = new Order("10002", OrderType.BID, 100, 10);
+        bids.add(first);
+        bids.add(middle);
+        bids.add(last);
+
+        // when
+        bids.remove(middle);
+
+        // then
+        assertEquals(2, bids.size());
+        List<Order> remaining = new ArrayList<>();
+        bids.forEach(remaining::add);
+        assertEquals(Arrays.asList(first, last), remaining);
+    }
+
+    @Test
+    public void remove_LastOrderOfBestLevel_BestPriceMovesToNextLevel() {
+
+        // given
+        PriceLadder asks = new PriceLadder(OrderType.ASK);
+        Order best = new Order("10000", OrderType.ASK, 100, 10);
+        asks.add(best);
+        asks.add(new Order("10001", OrderType.ASK, 104, 10));
+
+        // when
+        asks.remove(best);
+
+        // then
+        assertEquals(104, asks.getBestPrice());
+        assertEquals("10001", asks.peekBest().getId());
+
+        // when the last order is removed too
+        asks.remove(asks.peekBest());
+
+        // then
+        assertTrue(asks.isEmpty());
+        assertNull(asks.peekBest());
+    }
+
+    @Test
+    public void topLevels_SeveralLevels_AggregatedBestFirst() {
+
+        // given
+        PriceLadder bids = new PriceLadder(OrderType.BID);
+        bids.add(new Order("10000", OrderType.BID, 100, 10));
+        bids.add(new Order("10001", OrderType.BID, 102, 5));
+        bids.add(new Order("10002", OrderType.BID, 100, 7));
+        bids.add(new Order("10003", OrderType.BID, 90, 1));
+        int[] prices = new int[2];
+        long[] quantities = new long[2];
+        int[] orderCounts = new int[2];
+
+        // when
+        int levels = bids.topLevels(2, prices, quantities, orderCounts);
+
+        // then
+        assertEquals(2, levels);
+        assertArrayEquals(new int[]{102, 100}, prices);
+        assertArrayEquals(new long[]{5, 17}, quantities);
+        assertArrayEquals(new int[]{1, 2}, orderCounts);
+    }
+
+    @Test
+    public void fill_PartialAndFullFills_DepthUpdatedAndPublished() {
+
+        // given
+        PriceLadder asks = new PriceLadder(OrderType.ASK);
+        Order first = new Order("10000", OrderType.ASK, 100, 10);
+        Order second = new Order("10001", OrderType.ASK, 100, 20);
+        asks.add(first);
+        asks.add(second);
+        List<String> updates = new ArrayList<>();
+        asks.setDepthListener((side, price, quantity, orderCount) -> updates.add(side + " " + price + " " + quantity + " " + orderCount));
+
+        // when
+        asks.fill(first, 4);
+        asks.fill(first, 6);
+        asks.amend(second, 8);
+        asks.fill(second, 8);
+
+        // then
+        assertEquals(Arrays.asList("ASK 100 26 2", "ASK 100 20 1", "ASK 100 8 1", "ASK 100 0 0"), updates);
+        assertTrue(asks.isEmpty());
+        assertEquals(0, asks.topLevels(1, new int[1], new long[1], new int[1]));
+    }
+
+    @Test
+    public void iterator_PricesTooFarApartForOneWindow_ReturnsPriceTimePriority() {
+
+        // given
+        PriceLadder asks = new PriceLadder(OrderType.ASK);
+        asks.add(new Order("10000", OrderType.ASK, 1, 1));
+        asks.add(new Order("10001", OrderType.ASK, 2_000_000_000, 1));
+        asks.add(new Order("10002", OrderType.ASK, -5, 1));
+        asks.add(new Order("10003", OrderType.ASK, Integer.MAX_VALUE, 1));
+        asks.add(new Order("10004", OrderType.ASK, Integer.MIN_VALUE, 1));
+        asks.add(new Order("10005", OrderType.ASK, 2_000_000_000, 2));
+        asks.add(new Order("10006", OrderType.ASK, 3, 1));
+
+        // when
+        List<String> ids = new ArrayList<>();
+        for (Order order : asks) {
+            ids.add(order.getId());
+        }
+        int[] prices = new int[4];
+        int levels = asks.topLevels(4, prices, new long[4], new int[4]);
+
+        // then
+        assertEquals(Integer.MIN_VALUE, asks.getBestPrice());
+        assertEquals(Arrays.asList("10004", "10002", "10000", "10006", "10001", "10005", "10003"), ids);
+        assertEquals(4, levels);
+        assertArrayEquals(new int[]{Integer.MIN_VALUE, -5, 1, 3}, prices);
+    }
+
+    @Test
+    public void pollBest_OutlierLevelsEmptiedAndReused_BestPriceFollows() {
+
+        // given
+        PriceLadder bids = new PriceLadder(OrderType.BID);
+        bids.add(new Order("10000", OrderType.BID, 100, 1));
+        bids.add(new Order("10001", OrderType.BID, Integer.MAX_VALUE, 1));
+        bids.add(new Order("10002", OrderType.BID, 1_500_000_000, 1));
+
+        // when
+        Order first = bids.pollBest();
+        Order second = bids.pollBest();
+        bids.add(new Order("10003", OrderType.BID, 1_000_000_000, 1));
+
+        // then
+        assertEquals("10001", first.getId());
+        assertEquals("10002", second.getId());
+        assertEquals(1_000_000_000, bids.getBestPrice());
+        assertEquals("10003", bids.pollBest().getId());
+        assertEquals(100, bids.getBestPrice());
+        assertEquals("10000", bids.pollBest().getId());
+        assertTrue(bids.isEmpty());
+    }
+}
@@ -0,0 +1,72 @@
+package test.main.java.model;
+
+import main.java.model.TradeJournal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TradeJournalTest {
+
+    private TradeJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        this.journal = new TradeJournal();
+    }
+
+    @Test
+    public void record_TradesRecorded_ColumnsReadBackInOrder() {
+
+        // given
+        journal.record("10006", "10001", 100, 500);
+        journal.record("10006", "10002", 101, 10000);
+
+        // then
+        assertEquals(2, journal.size());
+        assertEquals("10006", journal.getBidId(1));
+        assertEquals("10002", journal.getAskId(1));
+        assertEquals(101, journal.getPrice(1));
+        assertEquals(10000, journal.getQuantity(1));
+    }
+
+    @Test
+    public void record_ManyTrades_JournalGrowsAndInternsIds() {
+
+        // given
+        for (int i = 0; i < 1000; i++) {
+            journal.record("B" + (i % 10), "S" + i, i, i + 1);
+        }
+
+        // then
+        assertEquals(1000, journal.size());
+        assertEquals("B7", journal.getBidId(997));
+        assertEquals("S997", journal.getAskId(997));
+        assertEquals(998, journal.getQuantity(997));
+        assertSame(journal.getBidId(3), journal.getBidId(13));
+    }
+
+    @Test
+    public void writeTo_TradesRecorded_WritesOutputLines() throws IOException {
+
+        // given
+        journal.record("10006", "10001", 100, 500);
+        journal.record("10006", "10004", 103, 100);
+
+        // when
+        StringBuilder out = new StringBuilder();
+        journal.writeTo(out);
+
+        // then
+        assertEquals("trade 10006,10001,100,500\ntrade 10006,10004,103,100\n", out.toString());
+    }
+
+    @Test
+    public void getPrice_IndexOutOfRange_ThrowsException() {
+        assertTrue(journal.isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> journal.getPrice(0));
+    }
+
+}
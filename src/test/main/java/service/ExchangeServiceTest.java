@@ -7,6 +7,9 @@ import main.java.service.ExchangeService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class ExchangeServiceTest {
@@ -111,4 +114,84 @@ class ExchangeServiceTest {
         assertTrue(orderBook.getTrades().isEmpty());
     }
 
-}
\ No newline at end of file
+    @Test
+    void matchAgainstBuyOrders_RestingOrderPartiallyFilled_StaysAtFrontOfItsLevel() {
+        // given
+        Order firstBid = new Order("10000", OrderType.BID, 100, 10);
+        Order secondBid = new Order("10001", OrderType.BID, 100, 10);
+        exchangeService.match(firstBid);
+        exchangeService.match(secondBid);
+
+        // when
+        exchangeService.match(new Order("10002", OrderType.ASK, 100, 4));
+
+        // then
+        assertSame(firstBid, exchangeService.getOrderBook().getBestBid());
+        assertEquals(6, exchangeService.getOrderBook().getBestBid().getQuantity());
+        assertEquals("trade 10000,10002,100,4", exchangeService.getOrderBook().getTrades().get(0));
+    }
+
+    @Test
+    void cancel_RestingOrderCancelled_NotMatchedAnymore() {
+        // given
+        exchangeService.accept("10000", OrderType.BID, 100, 10);
+        exchangeService.accept("10001", OrderType.BID, 100, 10);
+
+        // when
+        exchangeService.cancel("10000");
+        exchangeService.accept("10002", OrderType.ASK, 100, 10);
+
+        // then
+        assertEquals("trade 10001,10002,100,10", exchangeService.getOrderBook().getTrades().get(0));
+        assertTrue(exchangeService.getOrderBook().isBidsEmpty());
+    }
+
+    @Test
+    void amend_QuantityReduced_MatchedFirstWithReducedQuantity() {
+        // given
+        exchangeService.accept("10000", OrderType.BID, 100, 10);
+        exchangeService.accept("10001", OrderType.BID, 100, 10);
+
+        // when
+        exchangeService.amend("10000", 3);
+        exchangeService.accept("10002", OrderType.ASK, 100, 5);
+
+        // then
+        assertEquals("trade 10000,10002,100,3", exchangeService.getOrderBook().getTrades().get(0));
+        assertEquals("trade 10001,10002,100,2", exchangeService.getOrderBook().getTrades().get(1));
+    }
+
+
+    @Test
+    void writeSummary_TradesAndRestingOrders_CountsAndBestPricesPrinted() {
+        // given
+        exchangeService.accept("a1", OrderType.ASK, 101, 5);
+        exchangeService.accept("a2", OrderType.ASK, 102, 5);
+        exchangeService.accept("b1", OrderType.BID, 101, 7);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        // when
+        exchangeService.getOrderBook().writeSummary(new PrintStream(buffer, true));
+
+        // then
+        assertEquals(String.format("Trades: %,d\tResting Bids: %,d\tResting Asks: %,d%n", 1, 1, 1)
+                + String.format("Highest Bid: %,d\tLowest Ask: %,d%n", 101, 102), buffer.toString());
+    }
+
+    @Test
+    void writeTradeAndOrderBook_Trades_PrintedLikePrintf() {
+        // given
+        exchangeService.accept("a1", OrderType.ASK, 101, 5);
+        exchangeService.accept("a2", OrderType.ASK, 102, 5);
+        exchangeService.accept("b1", OrderType.BID, 102, 8);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        // when
+        exchangeService.getOrderBook().writeTradeAndOrderBook(new PrintStream(buffer, true));
+
+        // then
+        String expected = String.format("Trading %d units at %d between %s(%s) and %s(%s).%n", 5, 101, "b1", OrderType.BID, "a1", OrderType.ASK)
+                + String.format("Trading %d units at %d between %s(%s) and %s(%s).%n", 3, 102, "b1", OrderType.BID, "a2", OrderType.ASK);
+        assertTrue(buffer.toString().startsWith(expected));
+    }
+}
@@ -0,0 +1,50 @@
+package test.main.java.service;
+
+import main.java.model.OrderStorage;
+import main.java.service.FileProcessingPool;
+import main.java.service.FileProcessor;
+import main.java.service.util.BinaryFormat;
+import main.java.service.util.ChecksumAlgorithm;
+import main.java.service.util.OrderReader;
+import main.java.service.util.OrderWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileProcessingPoolTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void processAll_OneFileFails_OtherFilesProcessed() throws Exception {
+        // given a batch with a binary output file, which cannot be read as orders, between two order files
+        ByteBuffer buffer = ByteBuffer.allocate(BinaryFormat.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        BinaryFormat.putHeader(buffer, false);
+        Files.write(dir.resolve("a.txt"), "10000,B,98,25500\n".getBytes(StandardCharsets.US_ASCII));
+        Path failing = Files.write(dir.resolve("b.bin"), buffer.array());
+        Files.write(dir.resolve("c.txt"), "10001,S,101,5\n".getBytes(StandardCharsets.US_ASCII));
+        FileProcessor fileProcessor = new FileProcessor(new OrderReader(dir.toFile()),
+                new OrderWriter(ChecksumAlgorithm.MD5, dir), null, 0, 0, null, null, null, OrderStorage.HEAP);
+
+        // when
+        Map<String, String> processed;
+        try (FileProcessingPool pool = new FileProcessingPool(fileProcessor, FileProcessingPool.newExecutor(false, 2), 2)) {
+            processed = pool.processAll(Arrays.asList("a.txt", "b.bin", "c.txt"));
+        }
+
+        // then
+        assertEquals(Arrays.asList("a.txt", "c.txt"), new ArrayList<>(processed.keySet()));
+        assertArrayEquals(buffer.array(), Files.readAllBytes(failing));
+    }
+}
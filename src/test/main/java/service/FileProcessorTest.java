@@ -0,0 +1,89 @@
+package test.main.java.service;
+
+import main.java.model.OrderStorage;
+import main.java.service.FileProcessor;
+import main.java.service.pipeline.OrderPipeline;
+import main.java.service.pipeline.WaitStrategy;
+import main.java.service.util.BinaryFormat;
+import main.java.service.util.ChecksumAlgorithm;
+import main.java.service.util.OrderReader;
+import main.java.service.util.OrderWriter;
+import main.java.service.util.OutputFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileProcessorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void process_UnsupportedBinaryVersion_InputKept() throws Exception {
+        // given an order file of a binary format version this build cannot read
+        ByteBuffer buffer = ByteBuffer.allocate(BinaryFormat.HEADER_SIZE + BinaryFormat.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        BinaryFormat.putHeader(buffer, true);
+        BinaryFormat.putRecord(buffer, 1, 100, 10, BinaryFormat.BID, 0);
+        buffer.put(4, (byte) (BinaryFormat.VERSION + 1));
+        Path file = Files.write(dir.resolve("orders.bin"), buffer.array());
+        FileProcessor fileProcessor = newFileProcessor(null, 0);
+
+        // when
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> fileProcessor.process("orders.bin"));
+
+        // then the output is never committed over the input
+        assertTrue(e.getCause().getMessage().startsWith("Unsupported binary format version"));
+        assertArrayEquals(buffer.array(), Files.readAllBytes(file));
+        assertFalse(Files.exists(OutputFile.temporaryOf(file)));
+    }
+
+    @Test
+    void process_OutputFileInPipeline_InputKept() throws Exception {
+        // given a binary output file, which the reader stage of the pipeline rejects
+        ByteBuffer buffer = ByteBuffer.allocate(BinaryFormat.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        BinaryFormat.putHeader(buffer, false);
+        Path file = Files.write(dir.resolve("trades.bin"), buffer.array());
+        FileProcessor fileProcessor = newFileProcessor(new OrderPipeline(8, WaitStrategy.YIELD), 0);
+
+        // when
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> fileProcessor.process("trades.bin"));
+
+        // then the trades written so far are never committed over the input
+        assertTrue(e.getCause().getMessage().startsWith("Binary output file cannot be read as orders"));
+        assertArrayEquals(buffer.array(), Files.readAllBytes(file));
+        assertFalse(Files.exists(OutputFile.temporaryOf(file)));
+    }
+
+    @Test
+    void process_TruncatedBinaryFileSharded_InputKept() throws Exception {
+        // given an order file whose last record is cut off
+        ByteBuffer buffer = ByteBuffer.allocate(BinaryFormat.HEADER_SIZE + 2 * BinaryFormat.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        BinaryFormat.putHeader(buffer, true);
+        BinaryFormat.putRecord(buffer, 1, 100, 10, BinaryFormat.BID, 0);
+        BinaryFormat.putRecord(buffer, 2, 100, 4, BinaryFormat.ASK, 0);
+        byte[] content = Arrays.copyOf(buffer.array(), buffer.capacity() - 1);
+        Path file = Files.write(dir.resolve("orders.bin"), content);
+        FileProcessor fileProcessor = newFileProcessor(null, 2);
+
+        // when
+        assertThrows(UncheckedIOException.class, () -> fileProcessor.process("orders.bin"));
+
+        // then the books of the shards are never written over the input
+        assertArrayEquals(content, Files.readAllBytes(file));
+        assertFalse(Files.exists(OutputFile.temporaryOf(file)));
+    }
+
+    // Returns a processor reading and writing the files of the temporary directory.
+    private FileProcessor newFileProcessor(OrderPipeline pipeline, int shards) {
+        return new FileProcessor(new OrderReader(dir.toFile()), new OrderWriter(ChecksumAlgorithm.MD5, dir),
+                pipeline, shards, 8, WaitStrategy.YIELD, null, null, OrderStorage.HEAP);
+    }
+}
@@ -0,0 +1,148 @@
+package test.main.java.service.feed;
+
+import main.java.model.Order;
+import main.java.model.OrderType;
+import main.java.service.ExchangeService;
+import main.java.service.feed.FeedConsumer;
+import main.java.service.feed.FeedHandler;
+import main.java.service.feed.MarketDataFeed;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FeedConsumerTest {
+
+    @TempDir
+    Path directory;
+
+    // Records every callback as a line, so the tests can compare them in order.
+    private static class RecordingHandler implements FeedHandler {
+        private final List<String> records = new ArrayList<>();
+
+        @Override
+        public void onTrade(long bidId, long askId, int price, int quantity, long timestamp) {
+            records.add("T " + bidId + " " + askId + " " + price + " " + quantity);
+        }
+
+        @Override
+        public void onLevelUpdate(OrderType side, int price, long quantity, int orderCount, long timestamp) {
+            records.add("L " + side + " " + price + " " + quantity + " " + orderCount);
+        }
+
+        @Override
+        public void onGap(long lostRecords) {
+            records.add("G " + lostRecords);
+        }
+    }
+
+    @Test
+    public void poll_OrdersMatched_TradesAndLevelUpdatesReadInOrder() throws IOException {
+
+        // given
+        Path file = directory.resolve("orders.txt.feed");
+        MarketDataFeed feed = MarketDataFeed.create(file, 16);
+        ExchangeService exchangeService = new ExchangeService();
+        exchangeService.setMarketDataFeed(feed);
+        RecordingHandler handler = new RecordingHandler();
+
+        try (FeedConsumer consumer = FeedConsumer.open(file)) {
+            // when
+            exchangeService.match(new Order("1", OrderType.BID, 100, 10));
+            exchangeService.match(new Order("2", OrderType.ASK, 99, 4));
+            int read = consumer.poll(handler, 100);
+            feed.close();
+
+            // then
+            assertEquals(3, read);
+            assertEquals(3, feed.getPublished());
+            assertTrue(consumer.isClosed());
+            assertEquals(0, consumer.getLostRecords());
+        }
+        assertEquals(3, handler.records.size());
+        assertEquals("L BID 100 10 1", handler.records.get(0));
+        assertEquals("T 1 2 99 4", handler.records.get(1));
+        assertEquals("L BID 100 6 1", handler.records.get(2));
+    }
+
+    @Test
+    public void poll_ConsumerLapped_GapReportedAndLaterRecordsRead() throws IOException {
+
+        // given
+        Path file = directory.resolve("lapped.feed");
+        RecordingHandler handler = new RecordingHandler();
+
+        try (MarketDataFeed feed = MarketDataFeed.create(file, 4);
+             FeedConsumer consumer = FeedConsumer.open(file)) {
+            for (int i = 0; i < 10; i++) {
+                feed.publishTrade(i, i + 1, 100, 1);
+            }
+
+            // when
+            int lapped = consumer.poll(handler, 100);
+            feed.publishTrade(20, 21, 101, 2);
+            int read = consumer.poll(handler, 100);
+
+            // then
+            assertEquals(0, lapped);
+            assertEquals(1, read);
+            assertEquals(10, consumer.getLostRecords());
+        }
+        assertEquals(2, handler.records.size());
+        assertEquals("G 10", handler.records.get(0));
+        assertEquals("T 20 21 101 2", handler.records.get(1));
+    }
+
+    @Test
+    public void open_FeedWrappedAndReplaced_OldestRetainedRecordsReadFromOldFile() throws IOException {
+
+        // given
+        Path file = directory.resolve("replaced.feed");
+        RecordingHandler handler = new RecordingHandler();
+        MarketDataFeed feed = MarketDataFeed.create(file, 4);
+        for (int i = 0; i < 6; i++) {
+            feed.publishTrade(i, i, 100 + i, 1);
+        }
+        feed.close();
+
+        try (FeedConsumer consumer = FeedConsumer.open(file)) {
+            // when
+            MarketDataFeed.create(file, 4).close();
+            int read = consumer.poll(handler, 100);
+
+            // then
+            assertEquals(4, read);
+            assertTrue(consumer.isClosed());
+        }
+        assertEquals("T 2 2 102 1", handler.records.get(0));
+        assertEquals("T 5 5 105 1", handler.records.get(3));
+        try (FeedConsumer consumer = FeedConsumer.open(file)) {
+            assertEquals(0, consumer.poll(handler, 100));
+            assertTrue(consumer.isClosed());
+        }
+    }
+
+    @Test
+    public void open_ManifestMagic_Rejected() throws IOException {
+
+        // given a file laid out like a feed, but starting with the magic of the file manifest
+        ByteBuffer buffer = ByteBuffer.allocate(128 + 4 * 64).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(new byte[]{'B', 'V', 'M', 'F', 1});
+        buffer.putInt(8, 4).putInt(12, 64);
+        Path file = Files.write(directory.resolve("manifest.feed"), buffer.array());
+
+        // when
+        IOException e = assertThrows(IOException.class, () -> FeedConsumer.open(file));
+
+        // then
+        assertTrue(e.getMessage().startsWith("Not a market data feed"));
+    }
+}
@@ -0,0 +1,89 @@
+package test.main.java.service.journal;
+
+import main.java.service.journal.ExchangeJournal;
+import main.java.service.util.OutputFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExchangeJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recover_OutputCompletedButNotMoved_MovesItIntoPlace() throws Exception {
+        // given
+        Path journalDir = dir.resolve("journal");
+        Path outputDir = Files.createDirectory(dir.resolve("exchange"));
+        Path target = outputDir.resolve("orders.txt");
+        Files.write(target, "10001,S,100,500".getBytes(StandardCharsets.US_ASCII));
+        ExchangeJournal journal = new ExchangeJournal(journalDir, 16, 700);
+        OutputFile output = new OutputFile(target, null);
+        output.writeTrade("10002", "10001", 100, 500);
+        output.commit();
+        // The crash happens after the file is recorded as done, but before it replaces the order file
+        output.setCompletionListener((path, checksum) -> {
+            journal.onComplete(path, checksum);
+            throw new IOException("crash");
+        });
+        assertThrows(IOException.class, output::close);
+        journal.close();
+
+        // when
+        Map<String, String> completed = new ExchangeJournal(journalDir, 16, 700).recover(outputDir);
+
+        // then
+        assertEquals(1, completed.size());
+        assertNotNull(completed.get("orders.txt"));
+        assertEquals("trade 10002,10001,100,500" + "\n", new String(Files.readAllBytes(target), StandardCharsets.US_ASCII));
+        assertFalse(Files.exists(OutputFile.temporaryOf(target)));
+    }
+
+    @Test
+    void recover_OutputFailedHalfWay_FileNotRecordedAsDone() throws Exception {
+        // given
+        Path journalDir = dir.resolve("journal");
+        Path outputDir = Files.createDirectory(dir.resolve("exchange"));
+        Path target = outputDir.resolve("orders.txt");
+        Files.write(target, "10001,S,100,500".getBytes(StandardCharsets.US_ASCII));
+        ExchangeJournal journal = new ExchangeJournal(journalDir, 16, 700);
+        OutputFile output = new OutputFile(target, null);
+        output.setCompletionListener(journal);
+        output.writeTrade("10002", "10001", 100, 500);
+        // Writing fails before the file is committed
+        output.close();
+        journal.close();
+
+        // when
+        Map<String, String> completed = new ExchangeJournal(journalDir, 16, 700).recover(outputDir);
+
+        // then
+        assertTrue(completed.isEmpty());
+        assertEquals("10001,S,100,500", new String(Files.readAllBytes(target), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void recover_TornLastLine_IgnoresIt() throws Exception {
+        // given
+        Path journalDir = dir.resolve("journal");
+        new ExchangeJournal(journalDir, 16, 700).close();
+        Files.write(journalDir.resolve("files.log"), "done a.txt 0cc175b9\ndone b.txt 92eb".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        // when
+        Map<String, String> completed = new ExchangeJournal(journalDir, 16, 700).recover(dir);
+
+        // then
+        assertEquals(1, completed.size());
+        assertEquals("0cc175b9", completed.get("a.txt"));
+    }
+}
@@ -0,0 +1,168 @@
+package test.main.java.service.journal;
+
+import main.java.model.Order;
+import main.java.model.OrderBook;
+import main.java.model.OrderType;
+import main.java.model.TradeJournal;
+import main.java.service.ExchangeService;
+import main.java.service.OrderSink;
+import main.java.service.journal.BookSnapshot;
+import main.java.service.journal.ExchangeJournal;
+import main.java.service.journal.FileJournal;
+import main.java.service.journal.WriteAheadLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writeAheadLog_Reopened_VisitsAppendedRecordsInOrder() throws Exception {
+        // given
+        Path file = dir.resolve("orders.wal");
+        try (WriteAheadLog log = new WriteAheadLog(file, 2, (id, price, quantity, kind, tail) -> fail("The new log is empty"))) {
+            log.append(10001, 100, 500, (byte) 'S', 0);
+            log.append(10002, 99, 250, (byte) 'B', 0);
+            log.append(10002, 100, 250, (byte) 'T', 10001);
+        }
+
+        // when
+        List<String> records = new ArrayList<>();
+        try (WriteAheadLog log = new WriteAheadLog(file, 2, (id, price, quantity, kind, tail) ->
+                records.add(id + "," + (char) kind + "," + price + "," + quantity + "," + tail))) {
+            log.append(10003, 98, 100, (byte) 'B', 0);
+        }
+        try (WriteAheadLog log = new WriteAheadLog(file, 2, (id, price, quantity, kind, tail) ->
+                records.add(id + "," + (char) kind + "," + price + "," + quantity + "," + tail))) {
+            assertNotNull(log);
+        }
+
+        // then
+        assertEquals(7, records.size());
+        assertEquals("10001,S,100,500,0", records.get(0));
+        assertEquals("10002,T,100,250,10001", records.get(2));
+        assertEquals("10003,B,98,100,0", records.get(6));
+    }
+
+    @Test
+    void bookSnapshot_WrittenAndRead_RestoresOrdersInPriority() throws Exception {
+        // given
+        OrderBook orderBook = new OrderBook();
+        orderBook.addOrder(new Order("1", OrderType.BID, 99, 50_000));
+        orderBook.addOrder(new Order("2", OrderType.BID, 98, 25_500));
+        orderBook.addOrder(new Order("3", OrderType.BID, 99, 100));
+        orderBook.addOrder(new Order("4", OrderType.ASK, 100, 500));
+        orderBook.addOrder(new Order("5", OrderType.ASK, 105, 1_000));
+        Path file = dir.resolve("orders.snap");
+
+        // when
+        BookSnapshot.write(file, orderBook, 42, 7);
+        OrderBook restored = new OrderBook();
+        BookSnapshot snapshot = BookSnapshot.read(file, restored);
+
+        // then
+        assertEquals(42, snapshot.getEvents());
+        assertEquals(7, snapshot.getTrades());
+        assertEquals(orderBook.getOrderBook(), restored.getOrderBook());
+        assertEquals("3", restored.getOrder("3").getId());
+        assertNull(BookSnapshot.read(dir.resolve("missing.snap"), new OrderBook()));
+    }
+
+    @Test
+    void open_FileInterruptedAfterSnapshots_ResumesToSameTradesAndBook() throws Exception {
+        // given
+        List<Object[]> orders = randomOrders(5_000);
+        ExchangeService expected = new ExchangeService();
+        feed(orders, expected, orders.size());
+        ExchangeJournal journal = new ExchangeJournal(dir, 16, 700);
+
+        // when
+        // The first run stops part way, after a few snapshots
+        FileJournal interrupted = journal.open("orders.txt", new ExchangeService());
+        feed(orders, interrupted.sink(), 3_210);
+        interrupted.close();
+
+        // The second run restores the exchange and reads the file again from the start
+        ExchangeService resumed = new ExchangeService();
+        FileJournal fileJournal = journal.open("orders.txt", resumed);
+        long recovered = fileJournal.getRecoveredEvents();
+        feed(orders, fileJournal.sink(), orders.size());
+        fileJournal.complete();
+        journal.close();
+
+        // then
+        assertEquals(3_210, recovered);
+        assertTrades(expected.getOrderBook().getTradeJournal(), resumed.getOrderBook().getTradeJournal());
+        assertEquals(expected.getOrderBook().getOrderBook(), resumed.getOrderBook().getOrderBook());
+        assertFalse(Files.exists(dir.resolve("orders.txt.wal")));
+        assertFalse(Files.exists(dir.resolve("orders.txt.snap")));
+    }
+
+    @Test
+    void sink_IdsThatAreNotNumbers_DropsJournalAndKeepsMatching() throws Exception {
+        // given
+        ExchangeJournal journal = new ExchangeJournal(dir, 16, 700);
+        ExchangeService exchange = new ExchangeService();
+        FileJournal fileJournal = journal.open("ids.txt", exchange);
+
+        // when
+        OrderSink sink = fileJournal.sink();
+        sink.accept("1", OrderType.BID, 100, 10);
+        sink.accept("b2", OrderType.ASK, 100, 4);
+        sink.accept("3", OrderType.ASK, 100, 6);
+        fileJournal.close();
+
+        // then
+        assertEquals(2, exchange.getOrderBook().getTradeJournal().size());
+        assertFalse(Files.exists(dir.resolve("ids.txt.wal")));
+        assertEquals(0, journal.open("ids.txt", new ExchangeService()).getRecoveredEvents());
+        journal.close();
+    }
+
+    // Returns a random mix of orders, cancels and amends around a common price, as {kind, id, price, quantity}.
+    private static List<Object[]> randomOrders(int count) {
+        Random random = new Random(16);
+        List<Object[]> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int kind = random.nextInt(10);
+            String id = Integer.toString(kind < 8 ? 10_000 + i : 10_000 + random.nextInt(i + 1));
+            int price = 95 + random.nextInt(11);
+            int quantity = 1 + random.nextInt(500);
+            orders.add(new Object[]{kind < 4 ? 'B' : kind < 8 ? 'S' : kind == 8 ? 'C' : 'A', id, price, quantity});
+        }
+        return orders;
+    }
+
+    // Passes the first count orders to the sink.
+    private static void feed(List<Object[]> orders, OrderSink sink, int count) {
+        for (Object[] order : orders.subList(0, count)) {
+            char kind = (Character) order[0];
+            String id = (String) order[1];
+            if (kind == 'C') {
+                sink.cancel(id);
+            } else if (kind == 'A') {
+                sink.amend(id, (Integer) order[3]);
+            } else {
+                sink.accept(id, OrderType.type(kind), (Integer) order[2], (Integer) order[3]);
+            }
+        }
+    }
+
+    // Asserts that both journals hold the same trades in the same order.
+    private static void assertTrades(TradeJournal expected, TradeJournal actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.appendTrade(i, new StringBuilder()).toString(), actual.appendTrade(i, new StringBuilder()).toString());
+        }
+    }
+}
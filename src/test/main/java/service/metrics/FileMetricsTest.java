@@ -0,0 +1,68 @@
+package test.main.java.service.metrics;
+
+import main.java.model.OrderType;
+import main.java.service.ExchangeService;
+import main.java.service.OrderSink;
+import main.java.service.metrics.ExchangeMetrics;
+import main.java.service.metrics.FileMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileMetricsTest {
+
+    @Test
+    public void meter_OrdersMatched_LatenciesDepthAndTradesCounted() {
+
+        // given
+        ExchangeService exchange = new ExchangeService();
+        FileMetrics file = new FileMetrics();
+        OrderSink sink = file.meter(exchange, exchange.getOrderBook());
+
+        // when
+        sink.accept(null, "1", OrderType.BID, 100, 10);
+        sink.accept(null, "2", OrderType.BID, 99, 10);
+        sink.accept(null, "3", OrderType.BID, 98, 10);
+        sink.cancel(null, "3");
+        sink.accept(null, "4", OrderType.ASK, 99, 15);
+        file.finish(Collections.singletonList(exchange.getOrderBook()));
+
+        // then
+        assertEquals(5, file.getOrders());
+        assertEquals(5, file.getLatencies().getCount());
+        assertEquals(2, file.getTrades());
+        assertEquals(1, file.getRestingOrders());
+        assertEquals(3, file.getPeakRestingOrders());
+    }
+
+    @Test
+    public void add_TwoFiles_TotalsAddUp() {
+
+        // given
+        ExchangeMetrics metrics = new ExchangeMetrics();
+        FileMetrics first = new FileMetrics();
+        FileMetrics second = new FileMetrics();
+        ExchangeService exchange = new ExchangeService();
+        first.meter(exchange, exchange.getOrderBook()).accept("1", OrderType.BID, 100, 10);
+        first.addMatchNanos(1000000);
+        first.finish(Collections.singletonList(exchange.getOrderBook()));
+        second.meter(exchange, exchange.getOrderBook()).accept("2", OrderType.ASK, 100, 10);
+        second.addMatchNanos(1000000);
+        second.finish(Collections.singletonList(exchange.getOrderBook()));
+
+        // when
+        metrics.add(first);
+        metrics.add(second);
+
+        // then
+        assertEquals(2, metrics.getFiles());
+        assertEquals(2, metrics.getOrders());
+        assertEquals(1, metrics.getTrades());
+        assertEquals(1000, metrics.getOrdersPerSecond(), 1e-9);
+        assertEquals(0, metrics.getRestingOrders());
+        assertEquals(1, metrics.getPeakRestingOrders());
+        assertTrue(metrics.format().startsWith("files=2 orders=2 trades=1 orders/s=1000 trades/s=500"));
+    }
+}
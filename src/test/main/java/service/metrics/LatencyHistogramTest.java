@@ -0,0 +1,72 @@
+package test.main.java.service.metrics;
+
+import main.java.service.metrics.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void getValueAtPercentile_UniformValues_WithinBucketPrecision() {
+
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // when
+        for (long value = 1; value <= 100000; value++) {
+            histogram.record(value);
+        }
+
+        // then
+        assertEquals(100000, histogram.getCount());
+        assertEquals(100000, histogram.getMax());
+        assertEquals(50000.5, histogram.getMean(), 1e-9);
+        long p50 = histogram.getValueAtPercentile(50);
+        long p99 = histogram.getValueAtPercentile(99);
+        assertTrue(p50 >= 50000 && p50 <= 50000 * 1.016, "p50 " + p50);
+        assertTrue(p99 >= 99000 && p99 <= 99000 * 1.016, "p99 " + p99);
+        assertEquals(100000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void record_SmallAndHugeValues_CountedExactlyOrCapped() {
+
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // when
+        histogram.record(-5);
+        histogram.record(7);
+        histogram.record(Long.MAX_VALUE);
+
+        // then
+        assertEquals(0, histogram.getValueAtPercentile(1));
+        assertEquals(7, histogram.getValueAtPercentile(50));
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(99.9));
+    }
+
+    @Test
+    public void add_TwoHistograms_SameAsRecordingBoth() {
+
+        // given
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        LatencyHistogram both = new LatencyHistogram();
+        for (long value = 0; value < 5000; value += 3) {
+            first.record(value);
+            both.record(value);
+            second.record(value * 1000);
+            both.record(value * 1000);
+        }
+
+        // when
+        first.add(second);
+
+        // then
+        assertEquals(both.getCount(), first.getCount());
+        assertEquals(both.getMax(), first.getMax());
+        assertEquals(both.getMean(), first.getMean(), 1e-9);
+        assertEquals(both.getValueAtPercentile(90), first.getValueAtPercentile(90));
+    }
+}
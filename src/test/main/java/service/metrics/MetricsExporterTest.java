@@ -0,0 +1,49 @@
+package test.main.java.service.metrics;
+
+import main.java.service.metrics.ExchangeMetrics;
+import main.java.service.metrics.MetricsExporter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsExporterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void close_IntervalNotElapsed_LastSnapshotWritten() throws IOException {
+
+        // given
+        Path file = directory.resolve("metrics.log");
+        MetricsExporter exporter = new MetricsExporter(new ExchangeMetrics(), file, 60_000);
+        exporter.start(false);
+
+        // when
+        exporter.close();
+        exporter.close();
+
+        // then
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("files=0"), lines.get(0));
+    }
+
+    @Test
+    public void close_FileNotWritable_FailureReportedNotThrown() throws InterruptedException {
+
+        // given a directory where the file should be, so every snapshot fails
+        MetricsExporter exporter = new MetricsExporter(new ExchangeMetrics(), directory, 1);
+        exporter.start(false);
+        Thread.sleep(20);
+
+        // when / then
+        assertDoesNotThrow(exporter::close);
+    }
+}
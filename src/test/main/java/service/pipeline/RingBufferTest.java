@@ -0,0 +1,73 @@
+package test.main.java.service.pipeline;
+
+import main.java.service.pipeline.RingBuffer;
+import main.java.service.pipeline.WaitStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferTest {
+
+    @Test
+    void publish_MoreEventsThanCapacity_ConsumerSeesAllEventsInOrder() throws Exception {
+        // given
+        RingBuffer<long[]> ring = new RingBuffer<>(8, () -> new long[1], WaitStrategy.YIELD);
+        int count = 100_000;
+        AtomicLong sum = new AtomicLong();
+        AtomicLong outOfOrder = new AtomicLong();
+
+        Thread consumer = new Thread(() -> {
+            long next = 0;
+            while (next < count) {
+                long available = ring.waitFor(next);
+                for (; next <= available; next++) {
+                    long value = ring.get(next)[0];
+                    if (value != next) {
+                        outOfOrder.incrementAndGet();
+                    }
+                    sum.addAndGet(value);
+                }
+                ring.release(available);
+            }
+        });
+        consumer.start();
+
+        // when
+        for (int i = 0; i < count; i++) {
+            long sequence = ring.next();
+            ring.get(sequence)[0] = i;
+            ring.publish(sequence);
+        }
+        consumer.join();
+
+        // then
+        assertEquals(0, outOfOrder.get());
+        assertEquals((long) count * (count - 1) / 2, sum.get());
+    }
+
+    @Test
+    void waitFor_RingHalted_ThrowsException() {
+        // given
+        RingBuffer<long[]> ring = new RingBuffer<>(4, () -> new long[1], WaitStrategy.PARK);
+
+        // when
+        ring.halt();
+
+        // then
+        assertThrows(IllegalStateException.class, () -> ring.waitFor(0));
+    }
+
+    @Test
+    void constructor_CapacityNotPowerOfTwo_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(6, () -> new long[1], WaitStrategy.BUSY_SPIN));
+    }
+
+    @Test
+    void of_WaitStrategyName_ReturnsWaitStrategy() {
+        assertEquals(WaitStrategy.BUSY_SPIN, WaitStrategy.of("busy-spin"));
+        assertEquals(WaitStrategy.PARK, WaitStrategy.of("park"));
+    }
+
+}
@@ -0,0 +1,78 @@
+package test.main.java.service.pipeline;
+
+import main.java.model.OrderBook;
+import main.java.model.OrderType;
+import main.java.model.TradeJournal;
+import main.java.service.pipeline.ShardedExchange;
+import main.java.service.pipeline.WaitStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedExchangeTest {
+
+    @Test
+    void accept_OrdersOfSeveralSymbols_MatchedInTheirOwnBooks() {
+        // given
+        ShardedExchange exchange = new ShardedExchange(2, 8, WaitStrategy.YIELD, "test");
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            exchange.accept("BTC-EUR", "b" + i, OrderType.BID, 100, 10);
+            exchange.accept("ETH-EUR", "e" + i, OrderType.ASK, 50, 10);
+        }
+        exchange.accept("BTC-EUR", "s1", OrderType.ASK, 99, 15);
+        exchange.accept("ETH-EUR", "b1", OrderType.BID, 51, 5);
+        exchange.accept("x", OrderType.BID, 10, 1);
+        exchange.close();
+        SortedMap<String, OrderBook> books = exchange.getOrderBooks();
+
+        // then
+        assertEquals(Arrays.asList(ShardedExchange.DEFAULT_SYMBOL, "BTC-EUR", "ETH-EUR"), Arrays.asList(books.keySet().toArray()));
+
+        TradeJournal btc = books.get("BTC-EUR").getTradeJournal();
+        assertEquals(2, btc.size());
+        assertEquals("b0", btc.getBidId(0));
+        assertEquals(10, btc.getQuantity(0));
+        assertEquals("b1", btc.getBidId(1));
+        assertEquals(5, btc.getQuantity(1));
+
+        TradeJournal eth = books.get("ETH-EUR").getTradeJournal();
+        assertEquals(1, eth.size());
+        assertEquals("e0", eth.getAskId(0));
+        assertEquals(50, eth.getPrice(0));
+
+        assertTrue(books.get(ShardedExchange.DEFAULT_SYMBOL).getTradeJournal().isEmpty());
+        assertEquals(1, books.get(ShardedExchange.DEFAULT_SYMBOL).getBids().size());
+    }
+
+    @Test
+    void accept_WorkerFails_FailureRethrownToReader() {
+        // given
+        ShardedExchange exchange = new ShardedExchange(1, 2, WaitStrategy.YIELD, "test");
+
+        // when an order without a side reaches the worker, matching fails
+        exchange.accept("BTC-EUR", "b0", null, 100, 5);
+
+        // then
+        assertThrows(NullPointerException.class, () -> {
+            for (int i = 0; i < 100; i++) {
+                exchange.accept("BTC-EUR", "b" + i, OrderType.BID, 1, 1);
+            }
+            exchange.close();
+        });
+    }
+
+    @Test
+    void getOrderBooks_BeforeClose_ThrowsException() {
+        // given
+        ShardedExchange exchange = new ShardedExchange(1, 8, WaitStrategy.YIELD, "test");
+
+        // then
+        assertThrows(IllegalStateException.class, exchange::getOrderBooks);
+        exchange.close();
+    }
+}
@@ -0,0 +1,53 @@
+package test.main.java.service.report;
+
+import main.java.service.report.ConsoleReporter;
+import main.java.service.report.ReportLevel;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsoleReporterTest {
+
+    @Test
+    void submit_ManyReports_PrintedWholeAndInOrderByClose() throws InterruptedException {
+        // given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ConsoleReporter reporter = new ConsoleReporter(ReportLevel.FULL, out, 4);
+        StringBuilder expected = new StringBuilder();
+
+        // when more reports are submitted than the queue holds
+        for (int i = 0; i < 100; i++) {
+            String report = "report " + i + System.lineSeparator() + "line " + i + System.lineSeparator();
+            reporter.submit(report.getBytes(Charset.defaultCharset()));
+            expected.append(report);
+        }
+        reporter.println("done");
+        expected.append("done").append(System.lineSeparator());
+        reporter.close();
+
+        // then
+        assertEquals(expected.toString(), new String(out.toByteArray(), Charset.defaultCharset()));
+    }
+
+    @Test
+    void submit_AfterClose_Rejected() throws InterruptedException {
+        // given
+        ConsoleReporter reporter = new ConsoleReporter(ReportLevel.SUMMARY, new ByteArrayOutputStream(), 1);
+        reporter.close();
+
+        // when / then
+        assertThrows(IllegalStateException.class, () -> reporter.submit(new byte[]{'x'}));
+    }
+
+    @Test
+    void of_NamesInAnyCase_Resolved() {
+        // when / then
+        assertEquals(ReportLevel.QUIET, ReportLevel.of("quiet"));
+        assertEquals(ReportLevel.SUMMARY, ReportLevel.of(" Summary "));
+        assertEquals(ReportLevel.FULL, ReportLevel.of("FULL"));
+        assertThrows(IllegalArgumentException.class, () -> ReportLevel.of("verbose"));
+    }
+}
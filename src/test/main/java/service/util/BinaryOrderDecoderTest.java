@@ -0,0 +1,93 @@
+package test.main.java.service.util;
+
+import main.java.model.OrderType;
+import main.java.service.OrderSink;
+import main.java.service.util.BinaryFormat;
+import main.java.service.util.BinaryOrderDecoder;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryOrderDecoderTest {
+
+    @Test
+    void decode_OrdersCancelsAndAmends_PassedToSinkInFileOrder() {
+        // given
+        ByteBuffer buffer = BinaryFormat.allocateDirect(4 * BinaryFormat.RECORD_SIZE + 5);
+        BinaryFormat.putRecord(buffer, 10000, 98, 25500, BinaryFormat.BID, 0);
+        BinaryFormat.putRecord(buffer, 10001, 101, 300, BinaryFormat.ASK, BinaryFormat.encodeSymbol("BTC-EUR"));
+        BinaryFormat.putRecord(buffer, 10000, 0, 0, BinaryFormat.CANCEL, 0);
+        BinaryFormat.putRecord(buffer, 10001, 0, 200, BinaryFormat.AMEND, BinaryFormat.encodeSymbol("BTC-EUR"));
+        // The start of a record that continues in the next region
+        buffer.put(new byte[5]);
+        List<String> received = new ArrayList<>();
+
+        // when
+        int consumed = new BinaryOrderDecoder().decode(buffer, 0, buffer.position(), new OrderSink() {
+            @Override
+            public void accept(String id, OrderType orderType, int price, int quantity) {
+                received.add(id + " " + orderType + " " + price + " " + quantity);
+            }
+
+            @Override
+            public void accept(String symbol, String id, OrderType orderType, int price, int quantity) {
+                received.add(symbol + " " + id + " " + orderType + " " + price + " " + quantity);
+            }
+
+            @Override
+            public void cancel(String id) {
+                cancel(null, id);
+            }
+
+            @Override
+            public void cancel(String symbol, String id) {
+                received.add(symbol + " cancel " + id);
+            }
+
+            @Override
+            public void amend(String id, int newQuantity) {
+                amend(null, id, newQuantity);
+            }
+
+            @Override
+            public void amend(String symbol, String id, int newQuantity) {
+                received.add(symbol + " amend " + id + " " + newQuantity);
+            }
+        });
+
+        // then
+        assertEquals(4 * BinaryFormat.RECORD_SIZE, consumed);
+        assertEquals(Arrays.asList("null 10000 BID 98 25500", "BTC-EUR 10001 ASK 101 300", "null cancel 10000",
+                "BTC-EUR amend 10001 200"), received);
+    }
+
+    @Test
+    void encodeId_CanonicalNumbers_RoundTrip() {
+        // when / then
+        for (String id : new String[]{"0", "10000", "-42", Long.toString(Long.MAX_VALUE), Long.toString(Long.MIN_VALUE)}) {
+            assertEquals(id, Long.toString(BinaryFormat.encodeId(id)));
+        }
+    }
+
+    @Test
+    void encodeId_IdsThatDoNotReadBackTheSame_Rejected() {
+        // when / then
+        for (String id : new String[]{"", "-", "b9", "007", "-0", "+5", "1 ", "9223372036854775808", "12345678901234567890"}) {
+            assertThrows(IllegalArgumentException.class, () -> BinaryFormat.encodeId(id), id);
+        }
+    }
+
+    @Test
+    void encodeSymbol_UpToEightCharacters_RoundTrip() {
+        // when / then
+        assertEquals("BTC-EUR", BinaryFormat.decodeSymbol(BinaryFormat.encodeSymbol("BTC-EUR")));
+        assertEquals("ABCDEFGH", BinaryFormat.decodeSymbol(BinaryFormat.encodeSymbol("ABCDEFGH")));
+        assertNull(BinaryFormat.decodeSymbol(BinaryFormat.encodeSymbol(null)));
+        assertThrows(IllegalArgumentException.class, () -> BinaryFormat.encodeSymbol("ABCDEFGHI"));
+    }
+}
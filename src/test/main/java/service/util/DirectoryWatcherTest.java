@@ -0,0 +1,64 @@
+package test.main.java.service.util;
+
+import main.java.service.util.DirectoryWatcher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectoryWatcherTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void awaitNewFiles_ExistingFiles_UnprocessedFilesReportedInNameOrder() throws Exception {
+        // given
+        Files.write(dir.resolve("b.txt"), new byte[0]);
+        Files.write(dir.resolve("a.txt"), new byte[0]);
+        Files.write(dir.resolve("done.txt"), new byte[0]);
+        Set<String> processed = new HashSet<>(Collections.singletonList("done.txt"));
+
+        try (DirectoryWatcher watcher = new DirectoryWatcher(dir.toFile(), false, 10, 10)) {
+            // when
+            List<String> newFiles = watcher.awaitNewFiles(processed);
+
+            // then
+            assertEquals(Arrays.asList("a.txt", "b.txt"), newFiles);
+        }
+    }
+
+    @Test
+    void awaitNewFiles_FileCreatedWhileWatching_FileReportedAfterSettling() throws Exception {
+        // given
+        Set<String> processed = new HashSet<>();
+        try (DirectoryWatcher watcher = new DirectoryWatcher(dir.toFile(), true, 10, 10)) {
+            Thread writer = new Thread(() -> {
+                try {
+                    Thread.sleep(50);
+                    Files.write(dir.resolve("new.txt"), "10000,B,98,25500\n".getBytes());
+                } catch (InterruptedException | IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            writer.start();
+
+            // when
+            List<String> newFiles = watcher.awaitNewFiles(processed);
+            writer.join();
+
+            // then
+            assertEquals(Collections.singletonList("new.txt"), newFiles);
+        }
+    }
+
+}
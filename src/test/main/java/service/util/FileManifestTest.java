@@ -0,0 +1,95 @@
+package test.main.java.service.util;
+
+import main.java.service.util.FileManifest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileManifestTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void unchangedFiles_Reopened_SkipsRecordedFilesUnlessChanged() throws Exception {
+        // given
+        Path manifestFile = dir.resolve(".manifest");
+        Files.write(dir.resolve("a.txt"), "10001,S,100,500".getBytes(StandardCharsets.US_ASCII));
+        Files.write(dir.resolve("b.txt"), "10002,B,99,250".getBytes(StandardCharsets.US_ASCII));
+        Files.write(dir.resolve("c.txt"), "10003,B,98,100".getBytes(StandardCharsets.US_ASCII));
+        try (FileManifest manifest = new FileManifest(manifestFile, dir)) {
+            manifest.record("a.txt", "0cc175b9");
+            manifest.record("b.txt", "92eb5ffe");
+            manifest.record("c.txt", "4a8a08f0");
+        }
+
+        // when
+        Files.write(dir.resolve("b.txt"), "10002,B,99,2500".getBytes(StandardCharsets.US_ASCII));
+        Files.delete(dir.resolve("c.txt"));
+        Map<String, String> unchanged;
+        try (FileManifest manifest = new FileManifest(manifestFile, dir)) {
+            unchanged = manifest.unchangedFiles();
+        }
+
+        // then
+        assertEquals(1, unchanged.size());
+        assertEquals("0cc175b9", unchanged.get("a.txt"));
+    }
+
+    @Test
+    void record_AfterTornRecord_AppendsAfterLastCompleteRecord() throws Exception {
+        // given
+        Path manifestFile = dir.resolve(".manifest");
+        Files.write(dir.resolve("a.txt"), "10001,S,100,500".getBytes(StandardCharsets.US_ASCII));
+        Files.write(dir.resolve("b.txt"), "10002,B,99,250".getBytes(StandardCharsets.US_ASCII));
+        try (FileManifest manifest = new FileManifest(manifestFile, dir)) {
+            manifest.record("a.txt", "0cc175b9");
+        }
+        // A crash left half a record behind
+        Files.write(manifestFile, new byte[]{5, 0, 'b', '.'}, StandardOpenOption.APPEND);
+
+        // when
+        try (FileManifest manifest = new FileManifest(manifestFile, dir)) {
+            assertEquals(1, manifest.size());
+            manifest.record("b.txt", "92eb5ffe");
+        }
+
+        // then
+        try (FileManifest manifest = new FileManifest(manifestFile, dir)) {
+            Map<String, String> unchanged = manifest.unchangedFiles();
+            assertEquals(2, unchanged.size());
+            assertEquals("92eb5ffe", unchanged.get("b.txt"));
+        }
+    }
+
+    @Test
+    void open_MostRecordsReplaced_CompactsToLatestRecords() throws Exception {
+        // given
+        Path manifestFile = dir.resolve(".manifest");
+        Files.write(dir.resolve("a.txt"), "10001,S,100,500".getBytes(StandardCharsets.US_ASCII));
+        try (FileManifest manifest = new FileManifest(manifestFile, dir)) {
+            for (int i = 0; i < 100; i++) {
+                manifest.record("a.txt", "checksum" + i);
+            }
+        }
+        long size = Files.size(manifestFile);
+
+        // when
+        try (FileManifest manifest = new FileManifest(manifestFile, dir)) {
+            manifest.record("a.txt", "latest");
+        }
+
+        // then
+        assertTrue(Files.size(manifestFile) < size / 10);
+        try (FileManifest manifest = new FileManifest(manifestFile, dir)) {
+            assertEquals("latest", manifest.unchangedFiles().get("a.txt"));
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package test.main.java.service.util;
+
+import main.java.model.Order;
+import main.java.model.OrderType;
+import main.java.service.OrderSink;
+import main.java.service.util.OrderParser;
+import main.java.service.util.ParserBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderParserTest {
+
+    private OrderParser parser;
+    private List<Order> orders;
+
+    @BeforeEach
+    void setUp() {
+        parser = new OrderParser();
+        orders = new ArrayList<>();
+    }
+
+    @Test
+    void parse_ValidLines_OrdersPassedToSinkInFileOrder() {
+        // given
+        ByteBuffer buffer = ascii("10000,B,98,25500\n10005, S ,105,20000\r\n");
+
+        // when
+        int consumed = parse(buffer, false);
+
+        // then
+        assertEquals(buffer.limit(), consumed);
+        assertEquals(2, orders.size());
+        assertEquals(new Order("10000", OrderType.BID, 98, 25500).toString(), orders.get(0).toString());
+        assertEquals(new Order("10005", OrderType.ASK, 105, 20000).toString(), orders.get(1).toString());
+    }
+
+    @Test
+    void parse_IncompleteLastLine_LeftUnconsumedUntilEndOfFile() {
+        // given
+        ByteBuffer buffer = ascii("10000,B,98,25500\n10001,S,10,5");
+
+        // when
+        int consumed = parse(buffer, false);
+
+        // then
+        assertEquals(17, consumed);
+        assertEquals(1, orders.size());
+
+        // when the end of the file is reached, the last line is complete
+        assertEquals(buffer.limit(), parser.parse(buffer, consumed, buffer.limit(), true, collector));
+        assertEquals(new Order("10001", OrderType.ASK, 10, 5).toString(), orders.get(1).toString());
+    }
+
+    @Test
+    void parse_LinesWithoutFourOrFiveFields_Skipped() {
+        // given
+        ByteBuffer buffer = ascii("\n10000,B,98\n10001,B,98,1,BTC-EUR,extra\n10002,S,99,5,,\n");
+
+        // when
+        parse(buffer, true);
+
+        // then
+        assertEquals(1, orders.size());
+        assertEquals("10002", orders.get(0).getId());
+    }
+
+    @Test
+    void parse_SymbolColumn_SymbolPassedToSinkAndReused() {
+        // given
+        ByteBuffer buffer = ascii("10000,B,98,25500,BTC-EUR\n10001,S,99,5, ETH-EUR \n10002,S,100,5,BTC-EUR\n10003,S,101,5\n");
+        List<String> symbols = new ArrayList<>();
+
+        // when
+        parser.parse(buffer, 0, buffer.limit(), true, new OrderSink() {
+            @Override
+            public void accept(String id, OrderType orderType, int price, int quantity) {
+                accept(null, id, orderType, price, quantity);
+            }
+
+            @Override
+            public void accept(String symbol, String id, OrderType orderType, int price, int quantity) {
+                symbols.add(symbol);
+                collect(id, orderType, price, quantity);
+            }
+
+            @Override
+            public void cancel(String id) {
+                fail("Unexpected cancel of " + id);
+            }
+
+            @Override
+            public void amend(String id, int newQuantity) {
+                fail("Unexpected amend of " + id);
+            }
+        });
+
+        // then
+        assertEquals(Arrays.asList("BTC-EUR", "ETH-EUR", "BTC-EUR", null), symbols);
+        assertSame(symbols.get(0), symbols.get(2));
+        assertEquals(new Order("10000", OrderType.BID, 98, 25500).toString(), orders.get(0).toString());
+    }
+
+    @Test
+    void parse_SymbolIntoSingleBookSink_Skipped() {
+        // given
+        ByteBuffer buffer = ascii("10000,B,98,1,BTC-EUR\n10001,S,99,2\n10002,C,BTC-EUR\n10003,A,5,BTC-EUR\n");
+
+        // when
+        parse(buffer, true);
+
+        // then
+        assertEquals(1, orders.size());
+        assertEquals("10001", orders.get(0).getId());
+    }
+
+    @Test
+    void parse_InvalidFields_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> parse(ascii("10000,X,98,1\n"), true));
+        assertThrows(NumberFormatException.class, () -> parse(ascii("10000,B,9a,1\n"), true));
+        assertThrows(NumberFormatException.class, () -> parse(ascii("10000,B,98,3000000000\n"), true));
+    }
+
+    private int parse(ByteBuffer buffer, boolean endOfFile) {
+        return parser.parse(buffer, 0, buffer.limit(), endOfFile, collector);
+    }
+
+    private void collect(String id, OrderType orderType, int price, int quantity) {
+        orders.add(new Order(id, orderType, price, quantity));
+    }
+
+    // Collects the new orders; the lines parsed with it hold no cancels or amends without a symbol.
+    private final OrderSink collector = new OrderSink() {
+        @Override
+        public void accept(String id, OrderType orderType, int price, int quantity) {
+            collect(id, orderType, price, quantity);
+        }
+
+        @Override
+        public void cancel(String id) {
+            fail("Unexpected cancel of " + id);
+        }
+
+        @Override
+        public void amend(String id, int newQuantity) {
+            fail("Unexpected amend of " + id);
+        }
+    };
+
+    private static ByteBuffer ascii(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void parse_CancelAndAmendLines_PassedToSink() {
+        // given
+        ByteBuffer buffer = ascii("10000,C\n10001,A,15\n10002,C,BTC-EUR\n10003,C,1,2\n");
+        List<String> actions = new ArrayList<>();
+
+        // when
+        parser.parse(buffer, 0, buffer.limit(), true, new OrderSink() {
+            @Override
+            public void accept(String id, OrderType orderType, int price, int quantity) {
+                actions.add("new " + id);
+            }
+
+            @Override
+            public void cancel(String id) {
+                cancel(null, id);
+            }
+
+            @Override
+            public void cancel(String symbol, String id) {
+                actions.add("cancel " + id + " " + symbol);
+            }
+
+            @Override
+            public void amend(String id, int newQuantity) {
+                amend(null, id, newQuantity);
+            }
+
+            @Override
+            public void amend(String symbol, String id, int newQuantity) {
+                actions.add("amend " + id + " " + newQuantity + " " + symbol);
+            }
+        });
+
+        // then
+        assertEquals(Arrays.asList("cancel 10000 null", "amend 10001 15 null", "cancel 10002 BTC-EUR"), actions);
+    }
+
+    @Test
+    void parse_ScalarAndSwarBackends_SameActions() {
+        // given lines of every kind, with numbers of one to ten digits, padding, line endings and symbols mixed
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            String price = number(random);
+            String quantity = number(random);
+            switch (random.nextInt(4)) {
+                case 0:
+                    text.append(i).append(",C");
+                    break;
+                case 1:
+                    text.append(i).append(",A, ").append(quantity);
+                    break;
+                default:
+                    text.append(i).append(random.nextBoolean() ? ",B," : ", S ,").append(price).append(',').append(quantity);
+                    break;
+            }
+            text.append(random.nextBoolean() ? ",BTC-EUR" : "").append(random.nextInt(8) == 0 ? "\r\n" : "\n");
+        }
+        // The last line ends right at the end of the buffer, so its numbers have fewer than eight bytes after them
+        text.append("99,B,1,2");
+
+        // when
+        List<String> scalar = actions(ParserBackend.SCALAR, text.toString());
+        List<String> swar = actions(ParserBackend.SWAR, text.toString());
+
+        // then
+        assertEquals(5001, scalar.size());
+        assertEquals(scalar, swar);
+    }
+
+    @Test
+    void parse_InvalidNumbers_SameErrorWithBothBackends() {
+        for (String quantity : Arrays.asList("+7", "-7", "1a", "12345678x", "0x10", "123456789", "2147483648", "00000000042")) {
+            // given
+            String text = "10000,B,98," + quantity + ",BTC-EUR\n";
+
+            // when
+            String scalar = outcome(ParserBackend.SCALAR, text);
+            String swar = outcome(ParserBackend.SWAR, text);
+
+            // then
+            assertEquals(scalar, swar, quantity);
+        }
+    }
+
+    // Returns a number of one to ten digits, sometimes with leading zeros.
+    private static String number(Random random) {
+        StringBuilder digits = new StringBuilder();
+        int length = 1 + random.nextInt(random.nextBoolean() ? 4 : 10);
+        for (int i = 0; i < length; i++) {
+            digits.append((char) ('0' + random.nextInt(i == 0 && length == 10 ? 2 : 10)));
+        }
+        return digits.toString();
+    }
+
+    // Returns the actions the sink receives when the text is parsed with the given backend.
+    private static List<String> actions(ParserBackend backend, String text) {
+        List<String> actions = new ArrayList<>();
+        new OrderParser(backend).parse(ascii(text), 0, text.length(), true, new OrderSink() {
+            @Override
+            public void accept(String id, OrderType orderType, int price, int quantity) {
+                actions.add("new " + id + " " + orderType + " " + price + " " + quantity);
+            }
+
+            @Override
+            public void accept(String symbol, String id, OrderType orderType, int price, int quantity) {
+                actions.add("new " + id + " " + orderType + " " + price + " " + quantity + " " + symbol);
+            }
+
+            @Override
+            public void cancel(String id) {
+                cancel(null, id);
+            }
+
+            @Override
+            public void cancel(String symbol, String id) {
+                actions.add("cancel " + id + " " + symbol);
+            }
+
+            @Override
+            public void amend(String id, int newQuantity) {
+                amend(null, id, newQuantity);
+            }
+
+            @Override
+            public void amend(String symbol, String id, int newQuantity) {
+                actions.add("amend " + id + " " + newQuantity + " " + symbol);
+            }
+        });
+        return actions;
+    }
+
+    // Returns the actions or the error of parsing the text with the given backend.
+    private static String outcome(ParserBackend backend, String text) {
+        try {
+            return actions(backend, text).toString();
+        } catch (RuntimeException e) {
+            return e.toString();
+        }
+    }
+}
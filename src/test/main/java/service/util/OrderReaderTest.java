@@ -0,0 +1,87 @@
+package test.main.java.service.util;
+
+import main.java.model.OrderType;
+import main.java.service.OrderSink;
+import main.java.service.util.BinaryFormat;
+import main.java.service.util.FileFormat;
+import main.java.service.util.OrderReader;
+import main.java.service.util.ParserBackend;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readAppended_TextAppendedInParts_CompleteLinesReadOnce() throws Exception {
+        // given a file whose last line is still being written
+        Path file = Files.write(dir.resolve("tail.txt"), "10000,B,98,25500\n10001,S,10".getBytes(StandardCharsets.US_ASCII));
+        List<String> orders = new ArrayList<>();
+
+        // when
+        long offset = OrderReader.readAppended(file, 0, FileFormat.TEXT, recorder(orders), ParserBackend.SWAR);
+        Files.write(file, "1,5\n10002,C\n".getBytes(StandardCharsets.US_ASCII), StandardOpenOption.APPEND);
+        long next = OrderReader.readAppended(file, offset, FileFormat.TEXT, recorder(orders), ParserBackend.SWAR);
+
+        // then
+        assertEquals(17, offset);
+        assertEquals(Files.size(file), next);
+        assertEquals(Arrays.asList("10000,BID,98,25500", "10001,ASK,101,5", "10002,C"), orders);
+    }
+
+    @Test
+    void readAppended_BinaryRecordAppendedInParts_WholeRecordsReadOnce() throws Exception {
+        // given a file whose second record is only half written
+        ByteBuffer buffer = ByteBuffer.allocate(BinaryFormat.HEADER_SIZE + 2 * BinaryFormat.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        BinaryFormat.putHeader(buffer, true);
+        BinaryFormat.putRecord(buffer, 1, 100, 10, BinaryFormat.BID, 0);
+        BinaryFormat.putRecord(buffer, 2, 100, 4, BinaryFormat.ASK, 0);
+        int half = BinaryFormat.HEADER_SIZE + BinaryFormat.RECORD_SIZE + BinaryFormat.RECORD_SIZE / 2;
+        Path file = Files.write(dir.resolve("tail.bin"), Arrays.copyOf(buffer.array(), half));
+        List<String> orders = new ArrayList<>();
+
+        // when
+        long offset = OrderReader.readAppended(file, 0, FileFormat.BINARY, recorder(orders), ParserBackend.SWAR);
+        Files.write(file, Arrays.copyOfRange(buffer.array(), half, buffer.capacity()), StandardOpenOption.APPEND);
+        long next = OrderReader.readAppended(file, offset, FileFormat.BINARY, recorder(orders), ParserBackend.SWAR);
+
+        // then
+        assertEquals(BinaryFormat.HEADER_SIZE + BinaryFormat.RECORD_SIZE, offset);
+        assertEquals(buffer.capacity(), next);
+        assertEquals(Arrays.asList("1,BID,100,10", "2,ASK,100,4"), orders);
+    }
+
+    // Returns a sink recording every order, cancel and amend as a line of text.
+    private static OrderSink recorder(List<String> orders) {
+        return new OrderSink() {
+            @Override
+            public void accept(String id, OrderType orderType, int price, int quantity) {
+                orders.add(id + "," + orderType + "," + price + "," + quantity);
+            }
+
+            @Override
+            public void cancel(String id) {
+                orders.add(id + ",C");
+            }
+
+            @Override
+            public void amend(String id, int newQuantity) {
+                orders.add(id + ",A," + newQuantity);
+            }
+        };
+    }
+}
@@ -0,0 +1,176 @@
+package test.main.java.service.util;
+
+import main.java.model.Order;
+import main.java.model.OrderBook;
+import main.java.model.OrderType;
+import main.java.service.util.ChecksumAlgorithm;
+import main.java.service.util.FileFormat;
+import main.java.service.util.OutputFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutputFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void close_LinesWritten_ChecksumMatchesFileContent() throws Exception {
+        for (ChecksumAlgorithm algorithm : ChecksumAlgorithm.values()) {
+            // given
+            Path target = dir.resolve("test-" + algorithm + ".txt");
+            OutputFile output = new OutputFile(target, null, algorithm);
+
+            // when
+            output.writeTrade("10006", "10001", 100, 500);
+            for (int i = 0; i < 10_000; i++) {
+                output.writeLine("     50,000     99 |    100          500");
+            }
+            output.commit();
+            output.close();
+
+            // then
+            byte[] content = Files.readAllBytes(target);
+            assertEquals(expectedChecksum(algorithm, content), output.getChecksum(), algorithm.getDisplayName());
+            assertFalse(Files.exists(dir.resolve(".test-" + algorithm + ".txt.tmp")));
+        }
+    }
+
+    @Test
+    void writeOrderBook_LocalesWithAndWithoutAsciiGrouping_SameBytesAsGetOrderBook() throws Exception {
+        // given
+        OrderBook orderBook = new OrderBook();
+        orderBook.addOrder(new Order("1", OrderType.BID, 99, 50_000));
+        orderBook.addOrder(new Order("2", OrderType.BID, 98, 25_500));
+        orderBook.addOrder(new Order("3", OrderType.BID, 98, Integer.MAX_VALUE));
+        orderBook.addOrder(new Order("4", OrderType.ASK, 100, 500));
+        orderBook.addOrder(new Order("5", OrderType.ASK, 1_234_567, 1_000));
+        Locale defaultLocale = Locale.getDefault(Locale.Category.FORMAT);
+
+        try {
+            for (Locale locale : new Locale[]{Locale.US, Locale.UK, Locale.GERMANY, Locale.FRANCE, Locale.ROOT,
+                    new Locale("de", "CH"), new Locale("en", "IN"), new Locale("hi", "IN"), new Locale("ar", "EG")}) {
+                Locale.setDefault(Locale.Category.FORMAT, locale);
+                Path target = dir.resolve("book-" + locale + ".txt");
+                ByteArrayOutputStream echoed = new ByteArrayOutputStream();
+
+                // when
+                try (OutputFile output = new OutputFile(target, new PrintStream(echoed, true))) {
+                    output.writeOrderBook(orderBook);
+                    output.commit();
+                }
+
+                // then
+                StringBuilder expected = new StringBuilder();
+                StringBuilder expectedEcho = new StringBuilder();
+                for (String line : orderBook.getOrderBook()) {
+                    expected.append(line).append('\n');
+                    expectedEcho.append(line).append(System.lineSeparator());
+                }
+                assertArrayEquals(expected.toString().getBytes(Charset.defaultCharset()), Files.readAllBytes(target), locale.toString());
+                assertArrayEquals(expectedEcho.toString().getBytes(Charset.defaultCharset()), echoed.toByteArray(), locale.toString());
+            }
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, defaultLocale);
+        }
+    }
+
+    @Test
+    void resume_TradesAppendedAndBookReplaced_ChecksumMatchesFileContent() throws Exception {
+        for (ChecksumAlgorithm algorithm : ChecksumAlgorithm.values()) {
+            // given a file holding trades followed by an order book
+            Path target = dir.resolve("tail-" + algorithm + ".txt");
+            OutputFile first = OutputFile.resume(target, 0, algorithm.newHasher(), null, FileFormat.TEXT);
+            for (int i = 0; i < 10_000; i++) {
+                first.writeTrade("10006", "1000" + i, 100, 500);
+            }
+            long bookPosition = first.position();
+            ChecksumAlgorithm.Hasher tradesHasher = first.copyHasher();
+            first.writeLine("     50,000     99 |    100          500");
+            first.commit();
+            first.close();
+
+            // when more trades are appended where the order book started, followed by a new order book
+            OutputFile second = OutputFile.resume(target, bookPosition, tradesHasher, null, FileFormat.TEXT);
+            second.writeTrade("10007", "10002", 101, 5);
+            second.writeLine("     49,995     99 |");
+            second.commit();
+            second.close();
+
+            // then
+            byte[] content = Files.readAllBytes(target);
+            String text = new String(content, StandardCharsets.US_ASCII);
+            assertTrue(text.endsWith("trade 10006,10009999,100,500\ntrade 10007,10002,101,5\n     49,995     99 |\n"));
+            assertEquals(expectedChecksum(algorithm, content), second.getChecksum(), algorithm.getDisplayName());
+            assertFalse(Files.exists(dir.resolve(".tail-" + algorithm + ".txt.tmp")));
+        }
+    }
+
+    @Test
+    void close_NotCommitted_TargetKeptAndListenerNotCalled() throws Exception {
+        // given
+        Path target = dir.resolve("orders.txt");
+        Files.write(target, "10001,S,100,500".getBytes(StandardCharsets.US_ASCII));
+        OutputFile output = new OutputFile(target, null);
+        AtomicBoolean completed = new AtomicBoolean();
+        output.setCompletionListener((path, checksum) -> completed.set(true));
+
+        // when writing fails half way
+        try {
+            output.writeTrade("10002", "10001", 100, 500);
+            throw new IOException("write failed");
+        } catch (IOException e) {
+            output.close();
+        }
+
+        // then
+        assertEquals("10001,S,100,500", new String(Files.readAllBytes(target), StandardCharsets.US_ASCII));
+        assertFalse(Files.exists(dir.resolve(".orders.txt.tmp")));
+        assertFalse(completed.get());
+        assertThrows(IllegalStateException.class, output::getChecksum);
+    }
+
+    @Test
+    void getChecksum_FileNotClosed_ThrowsException() throws Exception {
+        // given
+        OutputFile output = new OutputFile(dir.resolve("open.txt"), null);
+
+        // then
+        assertThrows(IllegalStateException.class, output::getChecksum);
+        output.close();
+    }
+
+    @Test
+    void of_NamesInAnyCase_AlgorithmFound() {
+        assertEquals(ChecksumAlgorithm.MD5, ChecksumAlgorithm.of("md5"));
+        assertEquals(ChecksumAlgorithm.SHA_256, ChecksumAlgorithm.of("SHA-256"));
+        assertEquals(ChecksumAlgorithm.SHA_256, ChecksumAlgorithm.of("sha256"));
+        assertEquals(ChecksumAlgorithm.CRC32, ChecksumAlgorithm.of("crc32"));
+        assertThrows(IllegalArgumentException.class, () -> ChecksumAlgorithm.of("sha-1"));
+    }
+
+    // Computes the checksum of the content at once, the way files used to be checksummed after they were written.
+    private static String expectedChecksum(ChecksumAlgorithm algorithm, byte[] content) throws Exception {
+        if (algorithm == ChecksumAlgorithm.CRC32) {
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            return Long.toHexString(crc.getValue());
+        }
+        return new BigInteger(1, MessageDigest.getInstance(algorithm.getDisplayName()).digest(content)).toString(16);
+    }
+}
@@ -0,0 +1,148 @@
+package test.main.java.service.util;
+
+import main.java.model.OrderType;
+import main.java.service.OrderSink;
+import main.java.service.util.BinaryFormat;
+import main.java.service.util.OrderReader;
+import main.java.service.util.ParallelOrderReader;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelOrderReaderTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @TempDir
+    Path dir;
+
+    @AfterAll
+    static void tearDown() {
+        POOL.shutdown();
+    }
+
+    @Test
+    void readText_ChunksSplitMidLine_SameOrdersAsSequentialRead() throws IOException {
+        // given
+        StringBuilder text = new StringBuilder();
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            int kind = random.nextInt(10);
+            if (kind == 0) {
+                text.append(random.nextInt(i + 1)).append(",C");
+            } else if (kind == 1) {
+                text.append(random.nextInt(i + 1)).append(",A,").append(1 + random.nextInt(100));
+            } else if (kind == 2) {
+                text.append("");
+            } else {
+                text.append(i).append(random.nextBoolean() ? ",B," : ", S ,").append(90 + random.nextInt(20))
+                        .append(',').append(1 + random.nextInt(1000)).append(kind == 3 ? ",ETH-EUR" : "");
+            }
+            text.append(random.nextInt(4) == 0 ? "\r\n" : "\n");
+        }
+        text.append("99999,B,100,1");
+        Path file = Files.write(dir.resolve("orders.txt"), text.toString().getBytes(StandardCharsets.US_ASCII));
+
+        // when
+        List<String> sequential = read(file, null);
+        List<String> parallel = read(file, new ParallelOrderReader(POOL, 37));
+
+        // then
+        assertTrue(sequential.size() > 4000);
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void readBinary_ManyChunks_SameOrdersAsSequentialRead() throws IOException {
+        // given
+        ByteBuffer buffer = ByteBuffer.allocate(BinaryFormat.HEADER_SIZE + 1000 * BinaryFormat.RECORD_SIZE);
+        BinaryFormat.putHeader(buffer, true);
+        for (int i = 0; i < 1000; i++) {
+            byte kind = i % 7 == 0 ? BinaryFormat.CANCEL : i % 2 == 0 ? BinaryFormat.BID : BinaryFormat.ASK;
+            BinaryFormat.putRecord(buffer, i, 100 + i % 5, 10 + i, kind, 0);
+        }
+        Path file = Files.write(dir.resolve("orders.bin"), buffer.array());
+
+        // when
+        List<String> sequential = read(file, null);
+        List<String> parallel = read(file, new ParallelOrderReader(POOL, 100));
+
+        // then
+        assertEquals(1000, sequential.size());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void readText_InvalidLine_OrdersBeforeItReplayedThenFails() throws IOException {
+        // given
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            text.append(i).append(i == 150 ? ",B,oops,10\n" : ",B,100,10\n");
+        }
+        Path file = Files.write(dir.resolve("invalid.txt"), text.toString().getBytes(StandardCharsets.US_ASCII));
+        List<String> sequential = new ArrayList<>();
+        List<String> parallel = new ArrayList<>();
+
+        // when
+        assertThrows(NumberFormatException.class, () -> OrderReader.read(file, recorder(sequential)));
+        assertThrows(NumberFormatException.class, () -> OrderReader.read(file, recorder(parallel), new ParallelOrderReader(POOL, 64)));
+
+        // then
+        assertEquals(150, sequential.size());
+        assertEquals(sequential, parallel);
+    }
+
+    // Reads the file, sequentially without a parallel reader, and returns every call of the sink.
+    private static List<String> read(Path file, ParallelOrderReader parallelReader) throws IOException {
+        List<String> calls = new ArrayList<>();
+        OrderReader.read(file, recorder(calls), parallelReader);
+        return calls;
+    }
+
+    // Returns a sink recording every call as a line of text.
+    private static OrderSink recorder(List<String> calls) {
+        return new OrderSink() {
+            @Override
+            public void accept(String id, OrderType orderType, int price, int quantity) {
+                accept(null, id, orderType, price, quantity);
+            }
+
+            @Override
+            public void accept(String symbol, String id, OrderType orderType, int price, int quantity) {
+                calls.add(symbol + "," + id + "," + orderType + "," + price + "," + quantity);
+            }
+
+            @Override
+            public void cancel(String id) {
+                cancel(null, id);
+            }
+
+            @Override
+            public void cancel(String symbol, String id) {
+                calls.add(symbol + "," + id + ",C");
+            }
+
+            @Override
+            public void amend(String id, int newQuantity) {
+                amend(null, id, newQuantity);
+            }
+
+            @Override
+            public void amend(String symbol, String id, int newQuantity) {
+                calls.add(symbol + "," + id + ",A," + newQuantity);
+            }
+        };
+    }
+}
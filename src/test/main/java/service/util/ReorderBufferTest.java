@@ -0,0 +1,70 @@
+package test.main.java.service.util;
+
+import main.java.service.util.ReorderBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReorderBufferTest {
+
+    @Test
+    void take_ItemsPutOutOfOrder_TakenInSequence() throws InterruptedException {
+        // given
+        ReorderBuffer<String> buffer = new ReorderBuffer<>(4);
+
+        // when
+        buffer.put(2, "c");
+        buffer.put(0, "a");
+        buffer.put(3, "d");
+        buffer.put(1, "b");
+        List<String> taken = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            taken.add(buffer.take());
+        }
+
+        // then
+        assertEquals(Arrays.asList("a", "b", "c", "d"), taken);
+        assertThrows(IllegalArgumentException.class, () -> buffer.put(3, "d"));
+    }
+
+    @Test
+    void take_TwoProducersAheadOfEachOther_TakenInSequence() throws InterruptedException {
+        // given
+        ReorderBuffer<Integer> buffer = new ReorderBuffer<>(2);
+        Thread[] producers = new Thread[2];
+        for (int p = 0; p < producers.length; p++) {
+            int first = p;
+            producers[p] = new Thread(() -> {
+                try {
+                    // One producer puts the even items, the other the odd ones, waiting for room when ahead
+                    for (int i = first; i < 1000; i += 2) {
+                        buffer.put(i, i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        // when
+        for (Thread producer : producers) {
+            producer.start();
+        }
+        List<Integer> taken = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            taken.add(buffer.take());
+        }
+
+        // then
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, taken.get(i));
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+    }
+}